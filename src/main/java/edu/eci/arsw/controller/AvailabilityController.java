@@ -3,8 +3,8 @@ package edu.eci.arsw.controller;
 import edu.eci.arsw.domain.AvailabilitySlot;
 import edu.eci.arsw.dto.BulkAvailabilityRequest;
 import edu.eci.arsw.dto.DayAvailabilityUpdateRequest;
-import edu.eci.arsw.security.AuthorizationService;
-import edu.eci.arsw.security.RolesResponse;
+import edu.eci.arsw.security.AuthenticatedUser;
+import edu.eci.arsw.security.Role;
 import edu.eci.arsw.service.AvailabilityService;
 import edu.eci.arsw.service.ReservationService;
 import lombok.RequiredArgsConstructor;
@@ -32,83 +32,78 @@ import java.util.Map;
 public class AvailabilityController {
 
     private final AvailabilityService service;
-    private final AuthorizationService authz;
     private final ReservationService reservationService;
-    private static final String TUTOR_ROLE = "TUTOR";
+    private static final int TUTOR_ROLE = Role.TUTOR.bit();
 
     /**
      * Crear franjas de disponibilidad en bloque
      * 
-     * @param authorization Token de autorización
+     * @param me            Usuario autenticado
      * @param req           Solicitud con las franjas a crear
      * @return Lista de franjas creadas
      */
     @PostMapping("/bulk")
     public ResponseEntity<List<AvailabilitySlot>> bulk(
-            @RequestHeader("Authorization") String authorization,
+            AuthenticatedUser me,
             @Valid @RequestBody BulkAvailabilityRequest req) {
-        authz.requireRole(authorization, TUTOR_ROLE);
-        RolesResponse me = authz.me(authorization);
-        List<AvailabilitySlot> created = service.bulkCreate(me.getId(), req);
+        me.requireAnyRole(TUTOR_ROLE);
+        List<AvailabilitySlot> created = service.bulkCreate(me.id(), req);
         return ResponseEntity.ok(created);
     }
 
     /**
      * Obtener las franjas de disponibilidad propias
      * 
-     * @param authorization Token de autorización
+     * @param me            Usuario autenticado
      * @param from          Fecha de inicio del rango
      * @param to            Fecha de fin del rango
      * @return Lista de franjas de disponibilidad
      */
     @GetMapping("/my")
     public ResponseEntity<List<AvailabilitySlot>> my(
-            @RequestHeader("Authorization") String authorization,
+            AuthenticatedUser me,
             @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
             @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
-        authz.requireRole(authorization, TUTOR_ROLE);
-        RolesResponse me = authz.me(authorization);
-        return ResponseEntity.ok(service.mySlots(me.getId(), from, to));
+        me.requireAnyRole(TUTOR_ROLE);
+        return ResponseEntity.ok(service.mySlots(me.id(), from, to));
     }
 
     /**
      * Eliminar una franja de disponibilidad propia
      * 
-     * @param authorization Token de autorización
+     * @param me            Usuario autenticado
      * @param slotId        ID de la franja a eliminar
      */
     @DeleteMapping("/{slotId}")
     public ResponseEntity<Void> delete(
-            @RequestHeader("Authorization") String authorization,
+            AuthenticatedUser me,
             @PathVariable("slotId") String slotId) {
-        authz.requireRole(authorization, TUTOR_ROLE);
-        RolesResponse me = authz.me(authorization);
-        AvailabilitySlot s = service.mySlots(me.getId(), LocalDate.now().minusYears(1), LocalDate.now().plusYears(1))
+        me.requireAnyRole(TUTOR_ROLE);
+        AvailabilitySlot s = service.mySlots(me.id(), LocalDate.now().minusYears(1), LocalDate.now().plusYears(1))
                 .stream()
                 .filter(x -> x.getId().equals(slotId)).findFirst().orElse(null);
         boolean has = false;
         if (s != null) {
-            has = reservationService.hasActiveReservationForTutorAt(me.getId(), s.getDate(), s.getStart());
+            has = reservationService.hasActiveReservationForTutorAt(me.id(), s.getDate(), s.getStart());
         }
-        service.deleteOwnSlot(me.getId(), slotId, has);
+        service.deleteOwnSlot(me.id(), slotId, has);
         return ResponseEntity.noContent().build();
     }
 
     /**
      * Reemplazar la disponibilidad de un día específico
      * 
-     * @param authorization Token de autorización
+     * @param me            Usuario autenticado
      * @param date          Fecha del día a reemplazar
      * @param req           Solicitud con las horas nuevas
      */
     @PutMapping("/day/{date}")
     public ResponseEntity<Void> replaceDay(
-            @RequestHeader("Authorization") String authorization,
+            AuthenticatedUser me,
             @PathVariable("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
             @Valid @RequestBody DayAvailabilityUpdateRequest req) {
 
-        authz.requireRole(authorization, TUTOR_ROLE);
-        RolesResponse me = authz.me(authorization);
+        me.requireAnyRole(TUTOR_ROLE);
 
         // Parsear horas solicitadas 
         List<LocalTime> requestedHours = req.getHours().stream()
@@ -116,33 +111,32 @@ public class AvailabilityController {
                 .toList();
 
         // Cargar TODAS las horas existentes de disponibilidad ese día
-        List<AvailabilitySlot> existing = service.slotsForDay(me.getId(), date);
+        List<AvailabilitySlot> existing = service.slotsForDay(me.id(), date);
 
         // Marcar como protegidas TODAS las horas del día que tengan reserva activa
         java.util.Set<LocalTime> hoursWithRes = new java.util.HashSet<>();
         for (AvailabilitySlot s : existing) {
-            if (reservationService.hasActiveReservationForTutorAt(me.getId(), date, s.getStart())) {
+            if (reservationService.hasActiveReservationForTutorAt(me.id(), date, s.getStart())) {
                 hoursWithRes.add(s.getStart());
             }
         }
 
-        service.replaceDay(me.getId(), date, requestedHours, hoursWithRes);
+        service.replaceDay(me.id(), date, requestedHours, hoursWithRes);
         return ResponseEntity.noContent().build();
     }
 
     /**
      * Agregar disponibilidad sin eliminar las existentes
      * 
-     * @param authorization Token de autorización
+     * @param me            Usuario autenticado
      * @param req           Solicitud con la fecha y las horas a agregar
      * @return Mapa con información sobre la operación
      */
     @PostMapping("/add")
     public ResponseEntity<Map<String, Object>> addAvailability(
-            @RequestHeader("Authorization") String authorization,
+            AuthenticatedUser me,
             @Valid @RequestBody Map<String, Object> req) {
-        authz.requireRole(authorization, TUTOR_ROLE);
-        RolesResponse me = authz.me(authorization);
+        me.requireAnyRole(TUTOR_ROLE);
 
         String dateStr = (String) req.get("date");
         LocalDate date = LocalDate.parse(dateStr);
@@ -150,7 +144,7 @@ public class AvailabilityController {
         @SuppressWarnings("unchecked")
         List<String> hourStrings = (List<String>) req.get("hours");
 
-        log.info("📥 Recibida petición addAvailability: tutor={}, date={}, hours={}", me.getId(), date, hourStrings);
+        log.info("📥 Recibida petición addAvailability: tutor={}, date={}, hours={}", me.id(), date, hourStrings);
         // Parsear horas
         List<LocalTime> hours = hourStrings.stream()
                 .map(this::parseHour)
@@ -159,7 +153,7 @@ public class AvailabilityController {
         log.info("🕐 Horas parseadas: {}", hours);
 
         // Agregar sin eliminar existentes
-        int added = service.addAvailability(me.getId(), date, hours);
+        int added = service.addAvailability(me.id(), date, hours);
 
         log.info("✅ Agregadas {} franjas para {}", added, date);
 
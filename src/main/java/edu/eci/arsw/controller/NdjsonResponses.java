@@ -0,0 +1,27 @@
+package edu.eci.arsw.controller;
+
+import edu.eci.arsw.service.NdjsonWriter;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Respuestas NDJSON (application/x-ndjson) en streaming
+ */
+final class NdjsonResponses {
+
+    static final String NDJSON = "application/x-ndjson";
+
+    private NdjsonResponses() {
+    }
+
+    /**
+     * Respuesta que escribe la exportación a medida que se envía
+     *
+     * @param writer Exportación
+     * @return Respuesta con el tipo de contenido NDJSON
+     */
+    static ResponseEntity<StreamingResponseBody> ndjson(NdjsonWriter writer) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(writer::writeTo);
+    }
+}
@@ -0,0 +1,91 @@
+package edu.eci.arsw.controller;
+
+import edu.eci.arsw.domain.Reservation;
+import edu.eci.arsw.dto.ReservationView;
+import edu.eci.arsw.dto.ScheduleCell;
+import edu.eci.arsw.security.AuthorizationService;
+import edu.eci.arsw.security.Role;
+import edu.eci.arsw.service.ReactiveQueryService;
+import edu.eci.arsw.service.ReservationQueries;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Variante no bloqueante de los endpoints de lectura, bajo el prefijo /rx.
+ * Responde lo mismo que los originales, pero el hilo del servidor se libera
+ * mientras se espera a Mongo y al servicio de usuarios.
+ */
+@RestController
+@RequestMapping("/rx")
+@RequiredArgsConstructor
+public class ReactiveQueryController {
+
+    private final ReactiveQueryService service;
+    private final AuthorizationService authz;
+    private final ReactiveMongoTemplate mongo;
+
+    private static final int PARTICIPANT_ROLES = Role.mask(Role.STUDENT, Role.TUTOR);
+
+    /**
+     * Obtener las reservas por tutor
+     * 
+     * @param tutorId ID del tutor
+     * @return Lista de reservas del tutor
+     */
+    @GetMapping("/Api-reservation/by-tutor/{tutorId}")
+    public Mono<List<ReservationView>> byTutor(@PathVariable String tutorId) {
+        return service.listByTutor(tutorId);
+    }
+
+    /**
+     * Obtener las reservas por estudiante
+     * 
+     * @param studentId ID del estudiante
+     * @return Lista de reservas del estudiante
+     */
+    @GetMapping("/Api-reservation/by-student/{studentId}")
+    public Mono<List<ReservationView>> byStudent(@PathVariable String studentId) {
+        return service.listByStudent(studentId);
+    }
+
+    /**
+     * Obtener el horario semanal de un tutor específico
+     * 
+     * @param authorization Token de autorización
+     * @param tutorId       ID del tutor
+     * @param weekStart     Fecha de inicio de la semana
+     * @return Lista de celdas del horario
+     */
+    @GetMapping("/api/schedule/tutor/{tutorId}")
+    public Mono<List<ScheduleCell>> week(
+            @RequestHeader("Authorization") String authorization,
+            @PathVariable("tutorId") String tutorId,
+            @RequestParam("weekStart") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate weekStart) {
+        return authz.requireRoleAsync(authorization, PARTICIPANT_ROLES)
+                .then(Mono.defer(() -> service.weekForTutor(tutorId, weekStart)));
+    }
+
+    /**
+     * Obtener mis reservas como estudiante
+     * 
+     * @param authorization Token de autorización
+     * @param from          Fecha de inicio del rango
+     * @param to            Fecha de fin del rango
+     * @return Lista de reservas
+     */
+    @GetMapping("/api/reservations/my")
+    public Mono<List<Reservation>> my(
+            @RequestHeader("Authorization") String authorization,
+            @RequestParam(name = "from", required = false) String from,
+            @RequestParam(name = "to", required = false) String to) {
+        return authz.meAsync(authorization)
+                .flatMap(me -> mongo.find(ReservationQueries.studentInRange(me.getId(), from, to),
+                        Reservation.class).collectList());
+    }
+}
@@ -3,17 +3,18 @@ package edu.eci.arsw.controller;
 import edu.eci.arsw.domain.Reservation;
 import edu.eci.arsw.domain.ReservationStatus;
 import edu.eci.arsw.dto.ReservationCreateRequest;
-import edu.eci.arsw.security.AuthorizationService;
-import edu.eci.arsw.security.RolesResponse;
+import edu.eci.arsw.security.AuthenticatedUser;
+import edu.eci.arsw.security.Role;
+import edu.eci.arsw.service.ReservationExporter;
+import edu.eci.arsw.service.ReservationQueries;
 import edu.eci.arsw.service.ReservationService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
-import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
-import org.springframework.data.domain.Sort;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 
@@ -29,133 +30,139 @@ import java.util.Map;
 public class ReservationController {
 
     private final ReservationService service;
-    private final AuthorizationService authz;
     private final MongoTemplate mongo;
+    private final ReservationExporter exporter;
 
     private static final String FIELD_STUDENT_ID = "studentId";
     private static final String FIELD_TUTOR_ID = "tutorId";
-    private static final String FIELD_DATE = "date";
     private static final String FIELD_START = "start";
-    private static final String ROLE_STUDENT = "STUDENT";
-    private static final String ROLE_TUTOR = "TUTOR";
+    private static final int ROLE_STUDENT = Role.STUDENT.bit();
+    private static final int ROLE_TUTOR = Role.TUTOR.bit();
 
     /**
      * Crear una nueva reserva
      * 
-     * @param authorization Token de autorización
+     * @param me            Usuario autenticado
      * @param req           Solicitud con los datos de la reserva
      * @return Reserva creada
      */
     @PostMapping
     public ResponseEntity<Reservation> create(
-            @RequestHeader("Authorization") String authorization,
+            AuthenticatedUser me,
             @Valid @RequestBody ReservationCreateRequest req) {
-        authz.requireRole(authorization, ROLE_STUDENT);
-        RolesResponse me = authz.me(authorization);
-        return ResponseEntity.ok(service.create(me.getId(), req));
+        me.requireAnyRole(ROLE_STUDENT);
+        return ResponseEntity.ok(service.create(me.id(), req));
     }
 
     /**
      * Obtener mis reservas como estudiante
      * 
-     * @param authorization Token de autorización
+     * @param me            Usuario autenticado
      * @param from          Fecha de inicio del rango
      * @param to            Fecha de fin del rango
      * @return Lista de reservas
      */
     @GetMapping("/my")
     public List<Reservation> my(
-            @RequestHeader("Authorization") String authorization,
+            AuthenticatedUser me,
             @RequestParam(name = "from", required = false) String from,
             @RequestParam(name = "to", required = false) String to) {
-        RolesResponse me = authz.me(authorization);
-        final String studentId = me.getId();
-        Query q = new Query().addCriteria(Criteria.where(FIELD_STUDENT_ID).is(studentId));
-
-        Criteria c = Criteria.where(FIELD_DATE);
-        if (StringUtils.hasText(from))
-            c = c.gte(from);
-        if (StringUtils.hasText(to))
-            c = c.lte(to);
-        q.addCriteria(c);
+        return mongo.find(ReservationQueries.studentInRange(me.id(), from, to), Reservation.class);
+    }
 
-        q.with(Sort.by(Sort.Direction.ASC, FIELD_DATE).and(Sort.by(FIELD_START)));
-        return mongo.find(q, Reservation.class);
+    /**
+     * Exportar mis reservas como estudiante en NDJSON (Accept:
+     * application/x-ndjson)
+     * 
+     * @param me            Usuario autenticado
+     * @param from          Fecha de inicio del rango
+     * @param to            Fecha de fin del rango
+     * @return Respuesta en streaming, una reserva por línea
+     */
+    @GetMapping(value = "/my", produces = NdjsonResponses.NDJSON)
+    public ResponseEntity<StreamingResponseBody> myStream(
+            AuthenticatedUser me,
+            @RequestParam(name = "from", required = false) String from,
+            @RequestParam(name = "to", required = false) String to) {
+        return NdjsonResponses.ndjson(
+                exporter.reservations(ReservationQueries.studentInRange(me.id(), from, to)));
     }
 
     /**
      * Obtener mis reservas como tutor
      * 
-     * @param authorization Token de autorización
+     * @param me            Usuario autenticado
      * @param from          Fecha de inicio del rango
      * @param to            Fecha de fin del rango
      * @return Lista de reservas
      */
     @GetMapping("/for-me")
     public List<Reservation> forMe(
-            @RequestHeader("Authorization") String authorization,
+            AuthenticatedUser me,
             @RequestParam(name = "from", required = false) String from,
             @RequestParam(name = "to", required = false) String to) {
-        RolesResponse me = authz.me(authorization);
-        final String tutorId = me.getId();
-        Query q = new Query().addCriteria(Criteria.where(FIELD_TUTOR_ID).is(tutorId));
-
-        Criteria c = Criteria.where(FIELD_DATE);
-        if (StringUtils.hasText(from))
-            c = c.gte(from);
-        if (StringUtils.hasText(to))
-            c = c.lte(to);
-        q.addCriteria(c);
+        return mongo.find(ReservationQueries.tutorInRange(me.id(), from, to), Reservation.class);
+    }
 
-        q.with(Sort.by(Sort.Direction.ASC, FIELD_DATE).and(Sort.by(FIELD_START)));
-        return mongo.find(q, Reservation.class);
+    /**
+     * Exportar mis reservas como tutor en NDJSON (Accept: application/x-ndjson)
+     * 
+     * @param me            Usuario autenticado
+     * @param from          Fecha de inicio del rango
+     * @param to            Fecha de fin del rango
+     * @return Respuesta en streaming, una reserva por línea
+     */
+    @GetMapping(value = "/for-me", produces = NdjsonResponses.NDJSON)
+    public ResponseEntity<StreamingResponseBody> forMeStream(
+            AuthenticatedUser me,
+            @RequestParam(name = "from", required = false) String from,
+            @RequestParam(name = "to", required = false) String to) {
+        return NdjsonResponses.ndjson(
+                exporter.reservations(ReservationQueries.tutorInRange(me.id(), from, to)));
     }
 
     /**
      * Cancelar una reserva (estudiante o tutor)
      * 
-     * @param authorization Token de autorización
+     * @param me            Usuario autenticado
      * @param id            ID de la reserva
      * @return Reserva actualizada
      */
     @PatchMapping("/{id}/cancel")
     public ResponseEntity<Reservation> cancel(
-            @RequestHeader("Authorization") String authorization,
+            AuthenticatedUser me,
             @PathVariable("id") String id) {
-        RolesResponse me = authz.me(authorization);
-        return ResponseEntity.ok(service.changeStatusByStudentOrTutor(me.getId(), id, ReservationStatus.CANCELADO));
+        return ResponseEntity.ok(service.changeStatusByStudentOrTutor(me.id(), id, ReservationStatus.CANCELADO));
     }
 
     /**
      * Aceptar una reserva (tutor)
      * 
-     * @param authorization Token de autorización
+     * @param me            Usuario autenticado
      * @param id            ID de la reserva
      * @return Reserva actualizada
      */
     @PatchMapping("/{id}/accept")
     public ResponseEntity<Reservation> accept(
-            @RequestHeader("Authorization") String authorization,
+            AuthenticatedUser me,
             @PathVariable("id") String id) {
-        authz.requireRole(authorization, ROLE_TUTOR);
-        RolesResponse me = authz.me(authorization);
-        return ResponseEntity.ok(service.changeStatusByStudentOrTutor(me.getId(), id, ReservationStatus.ACEPTADO));
+        me.requireAnyRole(ROLE_TUTOR);
+        return ResponseEntity.ok(service.changeStatusByStudentOrTutor(me.id(), id, ReservationStatus.ACEPTADO));
     }
 
     /**
      * Marcar asistencia a una reserva (tutor)
      * 
-     * @param authorization Token de autorización
+     * @param me            Usuario autenticado
      * @param id            ID de la reserva
      * @return Reserva actualizada
      */
     @PatchMapping("/{id}/attended")
     public ResponseEntity<Reservation> attended(
-            @RequestHeader("Authorization") String authorization,
+            AuthenticatedUser me,
             @PathVariable("id") String id,
             @RequestParam("value") Boolean value) {
-        RolesResponse me = authz.me(authorization);
-        return ResponseEntity.ok(service.setAttended(me.getId(), id, value));
+        return ResponseEntity.ok(service.setAttended(me.id(), id, value));
     }
 
     /**
@@ -166,18 +173,17 @@ public class ReservationController {
      * El usuario autenticado debe ser parte de esa reserva (como estudiante o
      * tutor)
      * 
-     * @param authorization Token de autenticación (Bearer token)
+     * @param me            Usuario autenticado
      * @param withUserId    ID del otro usuario con quien se quiere chatear
      * @return JSON con canChat (boolean) y información adicional
      */
     @GetMapping("/can-chat")
     public ResponseEntity<Map<String, Object>> canChat(
-            @RequestHeader("Authorization") String authorization,
+            AuthenticatedUser me,
             @RequestParam("withUserId") String withUserId) {
 
         // Validar autenticación y obtener ID del usuario actual
-        RolesResponse me = authz.me(authorization);
-        String myId = me.getId();
+        String myId = me.id();
 
         // Validar que no esté intentando chatear consigo mismo
         if (myId.equals(withUserId)) {
@@ -226,25 +232,22 @@ public class ReservationController {
     /**
      * Obtener una reserva por ID
      * 
-     * @param authorization Token de autorización
+     * @param me            Usuario autenticado
      * @param id            ID de la reserva
      * @return Reserva actualizada
      */
     @GetMapping("/{id}")
     public ResponseEntity<Map<String, Object>> getOne(
-            @RequestHeader("Authorization") String authorization,
+            AuthenticatedUser me,
             @PathVariable("id") String id) {
 
-        // Autenticado
-        RolesResponse me = authz.me(authorization);
-
         // Recupera la reserva
         Reservation r = service.findById(id)
                 .orElseThrow(() -> new org.springframework.web.server.ResponseStatusException(
                         org.springframework.http.HttpStatus.NOT_FOUND, "Reservation not found"));
 
         // Solo participante puede verla
-        boolean participant = me.getId().equals(r.getStudentId()) || me.getId().equals(r.getTutorId());
+        boolean participant = me.id().equals(r.getStudentId()) || me.id().equals(r.getTutorId());
         if (!participant) {
             throw new org.springframework.web.server.ResponseStatusException(
                     org.springframework.http.HttpStatus.FORBIDDEN, "Not a participant");
@@ -1,10 +1,16 @@
 package edu.eci.arsw.controller;
 
+import edu.eci.arsw.domain.ReservationStatus;
+import edu.eci.arsw.dto.ReservationPage;
 import edu.eci.arsw.dto.ReservationView;
 import edu.eci.arsw.service.ReservationQueryService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -38,4 +44,72 @@ public class ReservationQueryController {
     public List<ReservationView> byStudent(@PathVariable String studentId) {
         return service.listByStudent(studentId);
     }
+
+    /**
+     * Exportar las reservas de un tutor como NDJSON (Accept:
+     * application/x-ndjson)
+     * 
+     * @param tutorId ID del tutor
+     * @return Respuesta en streaming, una reserva por línea
+     */
+    @GetMapping(value = "/by-tutor/{tutorId}", produces = NdjsonResponses.NDJSON)
+    public ResponseEntity<StreamingResponseBody> byTutorStream(@PathVariable String tutorId) {
+        return NdjsonResponses.ndjson(service.streamByTutor(tutorId));
+    }
+
+    /**
+     * Exportar las reservas de un estudiante como NDJSON (Accept:
+     * application/x-ndjson)
+     * 
+     * @param studentId ID del estudiante
+     * @return Respuesta en streaming, una reserva por línea
+     */
+    @GetMapping(value = "/by-student/{studentId}", produces = NdjsonResponses.NDJSON)
+    public ResponseEntity<StreamingResponseBody> byStudentStream(@PathVariable String studentId) {
+        return NdjsonResponses.ndjson(service.streamByStudent(studentId));
+    }
+
+    /**
+     * Obtener las reservas de un tutor paginadas
+     * 
+     * @param tutorId ID del tutor
+     * @param cursor  Cursor devuelto por la página anterior
+     * @param limit   Tamaño de página (máximo 200)
+     * @param from    Fecha mínima (inclusive)
+     * @param to      Fecha máxima (inclusive)
+     * @param status  Estados a incluir
+     * @return Página de reservas del tutor
+     */
+    @GetMapping("/by-tutor/{tutorId}/page")
+    public ReservationPage byTutorPage(
+            @PathVariable String tutorId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) List<ReservationStatus> status) {
+        return service.pageByTutor(tutorId, cursor, limit, from, to, status);
+    }
+
+    /**
+     * Obtener las reservas de un estudiante paginadas
+     * 
+     * @param studentId ID del estudiante
+     * @param cursor    Cursor devuelto por la página anterior
+     * @param limit     Tamaño de página (máximo 200)
+     * @param from      Fecha mínima (inclusive)
+     * @param to        Fecha máxima (inclusive)
+     * @param status    Estados a incluir
+     * @return Página de reservas del estudiante
+     */
+    @GetMapping("/by-student/{studentId}/page")
+    public ReservationPage byStudentPage(
+            @PathVariable String studentId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) List<ReservationStatus> status) {
+        return service.pageByStudent(studentId, cursor, limit, from, to, status);
+    }
 }
@@ -1,10 +1,14 @@
 package edu.eci.arsw.controller;
 
+import edu.eci.arsw.security.AuthenticatedUser;
 import edu.eci.arsw.security.AuthorizationService;
+import edu.eci.arsw.security.Role;
 import edu.eci.arsw.security.RolesResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -15,6 +19,8 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 public class RolesProxyController {
 
+    private static final int ADMIN_ROLE = Role.ADMIN.bit();
+
     private final AuthorizationService authz;
 
     /**
@@ -27,4 +33,20 @@ public class RolesProxyController {
     public ResponseEntity<RolesResponse> myRoles(@RequestHeader("Authorization") String authorization) {
         return ResponseEntity.ok(authz.me(authorization));
     }
+
+    /**
+     * Olvidar los roles guardados de un usuario tras cambiárselos; los roles de
+     * sus tokens se guardan hasta que vencen
+     * 
+     * @param me      Usuario autenticado (ADMIN)
+     * @param subject Claim "sub" del usuario
+     */
+    @DeleteMapping("/Api-user/roles-cache/{subject}")
+    public ResponseEntity<Void> invalidateRoles(
+            AuthenticatedUser me,
+            @PathVariable("subject") String subject) {
+        me.requireAnyRole(ADMIN_ROLE);
+        authz.invalidateRoles(subject);
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -1,16 +1,30 @@
 package edu.eci.arsw.controller;
 
+import edu.eci.arsw.dto.CompactWeekSchedule;
+import edu.eci.arsw.dto.FreeSlot;
 import edu.eci.arsw.dto.ScheduleCell;
-import edu.eci.arsw.security.AuthorizationService;
+import edu.eci.arsw.security.AuthenticatedUser;
+import edu.eci.arsw.security.Role;
+import edu.eci.arsw.service.FreeSlotIndex;
+import edu.eci.arsw.service.ScheduleFeed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import edu.eci.arsw.service.ScheduleService;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Controlador para manejar las solicitudes relacionadas con el horario de
@@ -23,23 +37,249 @@ import java.util.List;
 public class ScheduleController {
 
     private final ScheduleService service;
-    private final AuthorizationService authz;
+    private final FreeSlotIndex freeSlots;
+    private final ScheduleFeed feed;
+
+    private static final ZoneId ZONE = ZoneId.of("America/Bogota");
+    private static final int MAX_NEXT_AVAILABLE = 50;
+    private static final int PARTICIPANT_ROLES = Role.mask(Role.STUDENT, Role.TUTOR);
 
     /**
      * Obtener el horario semanal de un tutor específico
      * 
-     * @param authorization Token de autorización
+     * @param me            Usuario autenticado
      * @param tutorId       ID del tutor
      * @param weekStart     Fecha de inicio de la semana
      * @return Lista de celdas del horario
      */
     @GetMapping("/tutor/{tutorId}")
     public ResponseEntity<List<ScheduleCell>> week(
-            @RequestHeader("Authorization") String authorization,
+            AuthenticatedUser me,
             @PathVariable("tutorId") String tutorId,
             @RequestParam("weekStart") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate weekStart) {
-        authz.requireRole(authorization, "STUDENT", "TUTOR");
+        me.requireAnyRole(PARTICIPANT_ROLES);
         List<ScheduleCell> schedule = service.weekForTutor(tutorId, weekStart);
         return ResponseEntity.ok(schedule);
     }
+
+    /**
+     * Obtener el horario semanal en formato compacto (?format=compact)
+     * 
+     * @param me            Usuario autenticado
+     * @param tutorId       ID del tutor
+     * @param weekStart     Fecha de inicio de la semana
+     * @return Máscaras de disponibilidad/reserva por día y celdas reservadas
+     */
+    @GetMapping(value = "/tutor/{tutorId}", params = "format=compact")
+    public ResponseEntity<CompactWeekSchedule> weekCompact(
+            AuthenticatedUser me,
+            @PathVariable("tutorId") String tutorId,
+            @RequestParam("weekStart") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate weekStart) {
+        me.requireAnyRole(PARTICIPANT_ROLES);
+        return ResponseEntity.ok(service.compactWeekForTutor(tutorId, weekStart));
+    }
+
+    /**
+     * Obtener el horario semanal en formato compacto negociado por Accept
+     * 
+     * @param me            Usuario autenticado
+     * @param tutorId       ID del tutor
+     * @param weekStart     Fecha de inicio de la semana
+     * @return Máscaras de disponibilidad/reserva por día y celdas reservadas
+     */
+    @GetMapping(value = "/tutor/{tutorId}", produces = CompactWeekSchedule.MEDIA_TYPE)
+    public ResponseEntity<CompactWeekSchedule> weekCompactByAccept(
+            AuthenticatedUser me,
+            @PathVariable("tutorId") String tutorId,
+            @RequestParam("weekStart") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate weekStart) {
+        return weekCompact(me, tutorId, weekStart);
+    }
+
+    /**
+     * Obtener el horario de un tutor en un rango de fechas (por ejemplo, un
+     * mes). Las celdas se escriben en streaming a medida que se leen de MongoDB.
+     * 
+     * @param me            Usuario autenticado
+     * @param tutorId       ID del tutor
+     * @param from          Fecha inicial (inclusive)
+     * @param to            Fecha final (inclusive)
+     * @return Arreglo JSON de celdas, 24 por día
+     */
+    @GetMapping("/tutor/{tutorId}/range")
+    public ResponseEntity<StreamingResponseBody> range(
+            AuthenticatedUser me,
+            @PathVariable("tutorId") String tutorId,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        me.requireAnyRole(PARTICIPANT_ROLES);
+        // validar antes de empezar a escribir la respuesta
+        service.checkRange(tutorId, from, to);
+        StreamingResponseBody body = out -> service.streamRange(tutorId, from, to, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Suscribirse a los cambios en vivo (Server-Sent Events) de la semana de un
+     * tutor. Cada cambio llega como un evento "cell" con la celda resultante; un
+     * evento "resync" indica que se perdieron cambios y hay que recargar la
+     * semana.
+     * 
+     * @param me            Usuario autenticado
+     * @param tutorId       ID del tutor
+     * @param weekStart     Fecha de inicio de la semana
+     * @return Emisor SSE
+     */
+    @GetMapping(value = "/tutor/{tutorId}/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter feed(
+            AuthenticatedUser me,
+            @PathVariable("tutorId") String tutorId,
+            @RequestParam("weekStart") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate weekStart) {
+        me.requireAnyRole(PARTICIPANT_ROLES);
+        return feed.subscribe(tutorId, weekStart);
+    }
+
+    /**
+     * Comparar los horarios semanales de varios tutores en una sola llamada
+     * 
+     * @param me            Usuario autenticado
+     * @param tutorIds      IDs de los tutores separados por coma
+     * @param weekStart     Fecha de inicio de la semana
+     * @return Mapa tutorId -> celdas del horario
+     */
+    @GetMapping("/tutors")
+    public ResponseEntity<Map<String, List<ScheduleCell>>> compare(
+            AuthenticatedUser me,
+            @RequestParam("ids") List<String> tutorIds,
+            @RequestParam("weekStart") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate weekStart) {
+        me.requireAnyRole(PARTICIPANT_ROLES);
+        return ResponseEntity.ok(service.weekForTutors(tutorIds, weekStart));
+    }
+
+    /**
+     * Buscar los tutores libres en una hora o rango de horas de un día
+     * 
+     * @param me            Usuario autenticado
+     * @param date          Fecha
+     * @param from          Hora inicial ("HH:00")
+     * @param to            Hora final exclusiva ("HH:00", hasta "24:00"); por
+     *                      defecto una hora después de from
+     * @return IDs de los tutores libres en alguna hora del rango
+     */
+    @GetMapping("/available")
+    public ResponseEntity<List<String>> availableTutors(
+            AuthenticatedUser me,
+            @RequestParam("date") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam("from") String from,
+            @RequestParam(name = "to", required = false) String to) {
+        me.requireAnyRole(PARTICIPANT_ROLES);
+        int fromHour = hourOfDay(from);
+        int toHour = to == null || to.isBlank() ? fromHour + 1 : hourOfDay(to);
+        if (fromHour > 23 || toHour <= fromHour) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Rango de horas inválido");
+        }
+        return ResponseEntity.ok(freeSlots.freeTutors(date, fromHour, toHour));
+    }
+
+    /**
+     * Obtener las próximas horas libres de un tutor
+     * 
+     * @param me            Usuario autenticado
+     * @param tutorId       ID del tutor
+     * @param after         Fecha y hora desde la que buscar (por defecto, la
+     *                      próxima hora en punto)
+     * @param limit         Número de franjas a devolver (máximo 50)
+     * @return Franjas libres en orden cronológico
+     */
+    @GetMapping("/tutor/{tutorId}/next-available")
+    public ResponseEntity<List<FreeSlot>> nextAvailableForTutor(
+            AuthenticatedUser me,
+            @PathVariable("tutorId") String tutorId,
+            @RequestParam(name = "after", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime after,
+            @RequestParam(name = "limit", defaultValue = "1") int limit) {
+        me.requireAnyRole(PARTICIPANT_ROLES);
+        return ResponseEntity.ok(freeSlots.nextFreeForTutor(tutorId, notBeforeNextHour(after), checkLimit(limit)));
+    }
+
+    /**
+     * Obtener las próximas horas libres con cualquier tutor
+     * 
+     * @param me            Usuario autenticado
+     * @param after         Fecha y hora desde la que buscar (por defecto, la
+     *                      próxima hora en punto)
+     * @param afterTutorId  Para paginar: tutor de la última franja recibida
+     *                      (junto con after = su fecha y hora)
+     * @param limit         Número de franjas a devolver (máximo 50)
+     * @return Franjas libres en orden cronológico
+     */
+    @GetMapping("/next-available")
+    public ResponseEntity<List<FreeSlot>> nextAvailable(
+            AuthenticatedUser me,
+            @RequestParam(name = "after", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime after,
+            @RequestParam(name = "afterTutorId", required = false) String afterTutorId,
+            @RequestParam(name = "limit", defaultValue = "1") int limit) {
+        me.requireAnyRole(PARTICIPANT_ROLES);
+        LocalDateTime from = notBeforeNextHour(after);
+        // el cursor solo aplica si no se recortó la fecha pedida
+        String cursorTutor = after != null && from.equals(after.truncatedTo(ChronoUnit.HOURS)) ? afterTutorId : null;
+        return ResponseEntity.ok(freeSlots.nextFreeAny(from, cursorTutor, checkLimit(limit)));
+    }
+
+    /**
+     * Ajustar la fecha de búsqueda para no devolver horas que ya empezaron
+     * 
+     * @param after Fecha y hora pedida (puede ser null)
+     * @return La mayor entre after y la próxima hora en punto
+     */
+    private static LocalDateTime notBeforeNextHour(LocalDateTime after) {
+        LocalDateTime now = LocalDateTime.now(ZONE);
+        LocalDateTime nextHour = now.truncatedTo(ChronoUnit.HOURS);
+        if (nextHour.isBefore(now)) {
+            nextHour = nextHour.plusHours(1);
+        }
+        if (after == null) {
+            return nextHour;
+        }
+        LocalDateTime requested = after.truncatedTo(ChronoUnit.HOURS);
+        return requested.isBefore(nextHour) ? nextHour : requested;
+    }
+
+    /**
+     * Validar el tamaño de página
+     * 
+     * @param limit Tamaño pedido
+     * @return Tamaño validado
+     */
+    private static int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_NEXT_AVAILABLE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit debe estar entre 1 y " + MAX_NEXT_AVAILABLE);
+        }
+        return limit;
+    }
+
+    /**
+     * Parsear una hora en punto ("H", "HH" o "HH:00") a un entero 0-24
+     * 
+     * @param hour Cadena con la hora
+     * @return Hora del día
+     */
+    private static int hourOfDay(String hour) {
+        try {
+            String h = hour.trim();
+            int colon = h.indexOf(':');
+            if (colon >= 0) {
+                if (Integer.parseInt(h.substring(colon + 1)) != 0) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Horas deben ser HH:00");
+                }
+                h = h.substring(0, colon);
+            }
+            int value = Integer.parseInt(h);
+            if (value < 0 || value > 24) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Hora fuera de rango: " + hour);
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Formato de hora inválido: " + hour);
+        }
+    }
 }
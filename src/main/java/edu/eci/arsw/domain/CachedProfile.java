@@ -0,0 +1,28 @@
+package edu.eci.arsw.domain;
+
+import edu.eci.arsw.dto.PublicProfile;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Perfil público guardado en la caché persistente (segundo nivel). Mongo borra
+ * las entradas a los 7 días de obtenidas.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Document("profile_cache")
+public class CachedProfile {
+    /** Misma clave (hash) que la caché en memoria */
+    @Id
+    private String key;
+    private PublicProfile profile;
+    @Indexed(name = "ttl_fetched_at", expireAfterSeconds = 7 * 24 * 3600)
+    private Instant fetchedAt;
+}
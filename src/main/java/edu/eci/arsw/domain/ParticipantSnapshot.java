@@ -0,0 +1,27 @@
+package edu.eci.arsw.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Copia de los datos públicos (nombre y avatar) del estudiante y del tutor de
+ * una reserva, para armar las vistas sin consultar el servicio de usuarios
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ParticipantSnapshot {
+    private String studentName;
+    private String studentAvatar;
+    private String tutorName;
+    private String tutorAvatar;
+
+    /** Huella de los perfiles copiados; cambia si cambia alguno de ellos */
+    private String version;
+    private Instant capturedAt;
+}
@@ -31,6 +31,9 @@ public class Reservation {
 
     /** true = se dictó; false = no se dictó; null = no reportado */
     private Boolean attended;
+
+    /** Nombres y avatares de los participantes; null si aún no se capturaron */
+    private ParticipantSnapshot participants;
     @CreatedDate
     private java.time.Instant createdAt;
     @LastModifiedDate
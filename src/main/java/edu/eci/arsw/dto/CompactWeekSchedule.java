@@ -0,0 +1,39 @@
+package edu.eci.arsw.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Representación compacta del horario semanal de un tutor.
+ *
+ * Para cada día (0 = weekStart) hay una máscara de 24 bits: el bit h indica la
+ * hora h. Solo las celdas con reserva se envían con detalle.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CompactWeekSchedule {
+
+    /** Tipo de contenido para negociar esta representación */
+    public static final String MEDIA_TYPE = "application/vnd.uplearn.schedule-compact+json";
+
+    private String weekStart; // YYYY-MM-DD
+    private int[] available; // 7 máscaras: horas con disponibilidad
+    private int[] reserved; // 7 máscaras: horas con reserva
+    private List<ReservedCell> reservations;
+
+    /** Celda con reserva */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ReservedCell {
+        private int day; // 0..6 desde weekStart
+        private int hour; // 0..23
+        private String status;
+        private String reservationId;
+        private String studentId;
+    }
+}
@@ -0,0 +1,15 @@
+package edu.eci.arsw.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Franja libre (disponible y sin reserva) de un tutor */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FreeSlot {
+    private String tutorId;
+    private String date; // YYYY-MM-DD
+    private String hour; // HH:mm
+}
@@ -0,0 +1,20 @@
+package edu.eci.arsw.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de reservas ordenadas por (fecha, hora, id). Para pedir la siguiente
+ * página se envía {@code nextCursor} como parámetro {@code cursor}; es null en
+ * la última página.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReservationPage {
+    private List<ReservationView> items;
+    private String nextCursor;
+}
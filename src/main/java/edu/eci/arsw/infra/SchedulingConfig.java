@@ -0,0 +1,10 @@
+package edu.eci.arsw.infra;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/** Habilita las tareas programadas (@Scheduled) */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,415 @@
+package edu.eci.arsw.infra;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.eci.arsw.security.JwtClaims;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.random.RandomGenerator;
+
+/**
+ * Servicio de usuarios local, para pruebas de integración, pruebas de carga y
+ * benchmarks sin depender del servicio remoto.
+ *
+ * Expone los mismos endpoints que usa la aplicación: roles del usuario del
+ * token ({@code /Api-user/my-roles}), perfil público individual
+ * ({@code ?id=} / {@code ?sub=}) y en lote ({@code ?ids=a,b}). Cada respuesta
+ * puede tardar según una distribución log-normal (mediana y p99) y fallar con
+ * 503 con una probabilidad dada. El token de my-roles puede ser un JWT (se
+ * busca al usuario por "sub") o directamente el id del usuario.
+ *
+ * La latencia y el error de cada respuesta salen de un generador propio de la
+ * petición, sembrado con la semilla del stub, la petición (método, URI y
+ * header Authorization) y cuántas veces llegó antes; así, con semilla fija,
+ * cada petición tiene el mismo resultado sin importar en qué hilo u orden se
+ * atienda. Las peticiones se atienden con un número fijo de hilos.
+ */
+public class UsersServiceStub implements AutoCloseable {
+
+    public static final String ROLES_PATH = "/Api-user/my-roles";
+    public static final String PROFILE_PATH = "/Api-user/public/profile";
+    public static final String BATCH_PATH = "/Api-user/public/profiles";
+
+    // z del percentil 99 de la normal estándar
+    private static final double Z_99 = 2.326;
+    static final int DEFAULT_THREADS = 64;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpServer server;
+    private final Map<String, Map<String, Object>> profiles = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> roles = new ConcurrentHashMap<>();
+    private final Map<String, String> idBySub = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> arrivals = new ConcurrentHashMap<>();
+    private final AtomicInteger rolesCalls = new AtomicInteger();
+    private final AtomicInteger profileCalls = new AtomicInteger();
+    private final AtomicInteger batchCalls = new AtomicInteger();
+    private volatile long seed = System.nanoTime();
+    private volatile double latencyMu = Double.NEGATIVE_INFINITY;
+    private volatile double latencySigma;
+    private volatile double errorRate;
+
+    /**
+     * Levantar el stub en un puerto libre
+     *
+     * @param batchEnabled true para exponer el endpoint de lote
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public UsersServiceStub(boolean batchEnabled) throws IOException {
+        this(batchEnabled, 0);
+    }
+
+    /**
+     * Levantar el stub en un puerto dado
+     *
+     * @param batchEnabled true para exponer el endpoint de lote
+     * @param port         Puerto (0 = uno libre)
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public UsersServiceStub(boolean batchEnabled, int port) throws IOException {
+        this(batchEnabled, port, DEFAULT_THREADS);
+    }
+
+    /**
+     * Levantar el stub en un puerto dado con un número de hilos dado
+     *
+     * @param batchEnabled true para exponer el endpoint de lote
+     * @param port         Puerto (0 = uno libre)
+     * @param threads      Peticiones que se atienden a la vez; el resto espera
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public UsersServiceStub(boolean batchEnabled, int port, int threads) throws IOException {
+        if (threads < 1)
+            throw new IllegalArgumentException("Se necesita al menos un hilo");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.setExecutor(Executors.newFixedThreadPool(threads));
+        server.createContext(ROLES_PATH, this::roles);
+        server.createContext(PROFILE_PATH, this::profile);
+        if (batchEnabled)
+            server.createContext(BATCH_PATH, this::batch);
+        server.start();
+    }
+
+    /**
+     * URL base del stub
+     *
+     * @return URL base
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Registrar un usuario
+     *
+     * @param id   ID del usuario
+     * @param name Nombre
+     * @return El mismo stub
+     */
+    public UsersServiceStub withUser(String id, String name) {
+        return withUser(id, name, List.of("STUDENT"));
+    }
+
+    /**
+     * Registrar un usuario con sus roles
+     *
+     * @param id        ID del usuario
+     * @param name      Nombre
+     * @param userRoles Roles del usuario
+     * @return El mismo stub
+     */
+    public UsersServiceStub withUser(String id, String name, List<String> userRoles) {
+        Map<String, Object> p = new LinkedHashMap<>();
+        p.put("id", id);
+        p.put("sub", "sub-" + id);
+        p.put("name", name);
+        p.put("email", id + "@example.com");
+        putProfile(id, p);
+        roles.put(id, List.copyOf(userRoles));
+        return this;
+    }
+
+    /**
+     * Generar usuarios sintéticos u1..uN; los pares son tutores y el resto
+     * estudiantes
+     *
+     * @param count Número de usuarios
+     * @return El mismo stub
+     */
+    public UsersServiceStub withGeneratedUsers(int count) {
+        for (int i = 1; i <= count; i++)
+            withUser("u" + i, "Usuario " + i, List.of(i % 2 == 0 ? "TUTOR" : "STUDENT"));
+        return this;
+    }
+
+    /**
+     * Cargar usuarios de un JSON: lista de objetos con id, sub, name, email,
+     * avatarUrl y roles (solo id es obligatorio)
+     *
+     * @param json Contenido del archivo
+     * @return El mismo stub
+     * @throws IOException si el JSON no es válido
+     */
+    public UsersServiceStub withDataset(InputStream json) throws IOException {
+        List<Map<String, Object>> users = MAPPER.readValue(json, new TypeReference<>() {
+        });
+        for (Map<String, Object> u : users) {
+            Object id = u.get("id");
+            if (id == null)
+                throw new IOException("Usuario sin 'id' en el dataset");
+            Map<String, Object> p = new LinkedHashMap<>(u);
+            Object userRoles = p.remove("roles");
+            p.putIfAbsent("sub", "sub-" + id);
+            putProfile(id.toString(), p);
+            roles.put(id.toString(), userRoles instanceof List<?> l
+                    ? l.stream().map(String::valueOf).toList()
+                    : List.of("STUDENT"));
+        }
+        return this;
+    }
+
+    /**
+     * Guardar un perfil y su entrada en el índice por "sub"
+     *
+     * @param id      ID del usuario
+     * @param profile Perfil
+     */
+    private void putProfile(String id, Map<String, Object> profile) {
+        Map<String, Object> previous = profiles.put(id, profile);
+        if (previous != null && previous.get("sub") != null)
+            idBySub.remove(String.valueOf(previous.get("sub")), id);
+        if (profile.get("sub") != null)
+            idBySub.put(String.valueOf(profile.get("sub")), id);
+    }
+
+    /**
+     * Latencia fija de cada respuesta
+     *
+     * @param ms Milisegundos
+     * @return El mismo stub
+     */
+    public UsersServiceStub withLatency(long ms) {
+        return withLatency(ms, ms);
+    }
+
+    /**
+     * Latencia log-normal de cada respuesta
+     *
+     * @param medianMs Mediana en milisegundos (0 = sin latencia)
+     * @param p99Ms    Percentil 99 en milisegundos (igual a la mediana = fija)
+     * @return El mismo stub
+     */
+    public UsersServiceStub withLatency(long medianMs, long p99Ms) {
+        if (p99Ms < medianMs)
+            throw new IllegalArgumentException("El p99 no puede ser menor que la mediana");
+        if (medianMs <= 0) {
+            latencyMu = Double.NEGATIVE_INFINITY;
+            latencySigma = 0;
+        } else {
+            latencyMu = Math.log(medianMs);
+            latencySigma = (Math.log(p99Ms) - latencyMu) / Z_99;
+        }
+        return this;
+    }
+
+    /**
+     * Fracción de respuestas que fallan con 503
+     *
+     * @param rate Probabilidad de error (0..1)
+     * @return El mismo stub
+     */
+    public UsersServiceStub withErrorRate(double rate) {
+        if (rate < 0 || rate > 1)
+            throw new IllegalArgumentException("La tasa de error debe estar entre 0 y 1");
+        this.errorRate = rate;
+        return this;
+    }
+
+    /**
+     * Semilla de la latencia y los errores, para corridas reproducibles
+     *
+     * @param seed Semilla
+     * @return El mismo stub
+     */
+    public UsersServiceStub withSeed(long seed) {
+        this.seed = seed;
+        arrivals.clear();
+        return this;
+    }
+
+    /**
+     * Usuarios registrados
+     *
+     * @return Número de usuarios
+     */
+    public int userCount() {
+        return profiles.size();
+    }
+
+    /**
+     * Llamadas recibidas al endpoint de roles
+     *
+     * @return Número de llamadas
+     */
+    public int rolesCalls() {
+        return rolesCalls.get();
+    }
+
+    /**
+     * Llamadas recibidas al endpoint individual
+     *
+     * @return Número de llamadas
+     */
+    public int profileCalls() {
+        return profileCalls.get();
+    }
+
+    /**
+     * Llamadas recibidas al endpoint de lote
+     *
+     * @return Número de llamadas
+     */
+    public int batchCalls() {
+        return batchCalls.get();
+    }
+
+    /**
+     * Generador de una petición: depende de la semilla, de la petición y de
+     * cuántas veces llegó antes, no del hilo ni del orden entre peticiones
+     *
+     * @param request Método, URI y header Authorization de la petición
+     * @return Generador para la latencia y el error de la respuesta
+     */
+    SplittableRandom randomFor(String request) {
+        int arrival = arrivals.computeIfAbsent(request, r -> new AtomicInteger()).getAndIncrement();
+        return new SplittableRandom(seed ^ (31L * request.hashCode() + arrival) * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * Latencia de una respuesta
+     *
+     * @param random Generador de la petición
+     * @return Milisegundos
+     */
+    long nextLatencyMs(RandomGenerator random) {
+        if (latencyMu == Double.NEGATIVE_INFINITY)
+            return 0;
+        return Math.round(Math.exp(latencyMu + latencySigma * random.nextGaussian()));
+    }
+
+    private void roles(HttpExchange ex) throws IOException {
+        rolesCalls.incrementAndGet();
+        String id = userOf(ex.getRequestHeaders().getFirst("Authorization"));
+        List<String> userRoles = id == null ? null : roles.get(id);
+        if (userRoles == null) {
+            respond(ex, 401, Map.of("error", "unauthorized"));
+        } else {
+            respond(ex, 200, Map.of("id", id, "roles", userRoles));
+        }
+    }
+
+    private void profile(HttpExchange ex) throws IOException {
+        // los contextos de HttpServer son prefijos: /profile también recibe /profiles
+        if (!PROFILE_PATH.equals(ex.getRequestURI().getPath())) {
+            respond(ex, 404, Map.of("error", "not found"));
+            return;
+        }
+        profileCalls.incrementAndGet();
+        Map<String, String> q = query(ex);
+        Map<String, Object> p = q.containsKey("id") ? profiles.get(q.get("id")) : bySub(q.get("sub"));
+        if (p == null) {
+            respond(ex, 404, Map.of("error", "not found"));
+        } else {
+            respond(ex, 200, p);
+        }
+    }
+
+    private void batch(HttpExchange ex) throws IOException {
+        batchCalls.incrementAndGet();
+        String ids = query(ex).getOrDefault("ids", "");
+        List<Map<String, Object>> found = new ArrayList<>();
+        for (String id : ids.split(",")) {
+            Map<String, Object> p = profiles.get(id);
+            if (p != null)
+                found.add(p);
+        }
+        respond(ex, 200, found);
+    }
+
+    /**
+     * Usuario de un header Authorization: el "sub" si es un JWT, o el token
+     * mismo como id
+     *
+     * @param authorization Header Authorization
+     * @return ID del usuario, o null si no se reconoce
+     */
+    private String userOf(String authorization) {
+        if (authorization == null || authorization.isBlank())
+            return null;
+        JwtClaims claims = JwtClaims.parse(authorization);
+        if (claims != null && claims.subject() != null) {
+            Map<String, Object> p = bySub(claims.subject());
+            return p != null ? String.valueOf(p.get("id")) : claims.subject();
+        }
+        String token = authorization.trim();
+        return token.regionMatches(true, 0, "Bearer ", 0, 7) ? token.substring(7).trim() : token;
+    }
+
+    private Map<String, Object> bySub(String sub) {
+        String id = sub == null ? null : idBySub.get(sub);
+        return id == null ? null : profiles.get(id);
+    }
+
+    private void respond(HttpExchange ex, int status, Object body) throws IOException {
+        SplittableRandom random = randomFor(ex.getRequestMethod() + " " + ex.getRequestURI() + " "
+                + ex.getRequestHeaders().getFirst("Authorization"));
+        long latency = nextLatencyMs(random);
+        if (latency > 0) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (errorRate > 0 && random.nextDouble() < errorRate) {
+            status = 503;
+            body = Map.of("error", "unavailable");
+        }
+        byte[] bytes = MAPPER.writeValueAsBytes(body);
+        ex.getResponseHeaders().add("Content-Type", "application/json");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange ex) {
+        Map<String, String> q = new HashMap<>();
+        String raw = ex.getRequestURI().getRawQuery();
+        if (raw == null)
+            return q;
+        for (String pair : raw.split("&")) {
+            int i = pair.indexOf('=');
+            if (i > 0)
+                q.put(pair.substring(0, i), URLDecoder.decode(pair.substring(i + 1), StandardCharsets.UTF_8));
+        }
+        return q;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+    }
+}
@@ -0,0 +1,61 @@
+package edu.eci.arsw.infra;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Levanta el servicio de usuarios local dentro de la aplicación con el perfil
+ * {@code stub-users}, para correr pruebas de carga y benchmarks sin el
+ * servicio remoto. La configuración está en application-stub-users.properties.
+ */
+@Slf4j
+@Configuration
+@Profile("stub-users")
+public class UsersServiceStubConfig {
+
+    /**
+     * Servicio de usuarios local
+     *
+     * @param env Propiedades de la aplicación
+     * @return Stub ya iniciado
+     * @throws IOException si no se puede abrir el puerto o leer el dataset
+     */
+    @Bean(destroyMethod = "close")
+    public UsersServiceStub usersServiceStub(Environment env) throws IOException {
+        UsersServiceStub stub = new UsersServiceStub(
+                Boolean.parseBoolean(env.getProperty("stub.users.batch-enabled", "true")),
+                Integer.parseInt(env.getProperty("stub.users.port", "8091")),
+                Integer.parseInt(env.getProperty("stub.users.threads",
+                        String.valueOf(UsersServiceStub.DEFAULT_THREADS))))
+                .withLatency(Long.parseLong(env.getProperty("stub.users.latency.median-ms", "0")),
+                        Long.parseLong(env.getProperty("stub.users.latency.p99-ms",
+                                env.getProperty("stub.users.latency.median-ms", "0"))))
+                .withErrorRate(Double.parseDouble(env.getProperty("stub.users.error-rate", "0")));
+        String seed = env.getProperty("stub.users.seed", "");
+        if (!seed.isBlank())
+            stub.withSeed(Long.parseLong(seed));
+
+        String dataset = env.getProperty("stub.users.dataset", "");
+        if (!dataset.isBlank()) {
+            Resource resource = new DefaultResourceLoader().getResource(dataset);
+            try (InputStream in = resource.getInputStream()) {
+                stub.withDataset(in);
+            } catch (IOException e) {
+                stub.close();
+                throw e;
+            }
+        } else {
+            stub.withGeneratedUsers(Integer.parseInt(env.getProperty("stub.users.generated-count", "1000")));
+        }
+        log.info("Servicio de usuarios local en {} con {} usuarios", stub.baseUrl(), stub.userCount());
+        return stub;
+    }
+}
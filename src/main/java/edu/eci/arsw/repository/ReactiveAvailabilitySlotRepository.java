@@ -0,0 +1,15 @@
+package edu.eci.arsw.repository;
+
+import edu.eci.arsw.domain.AvailabilitySlot;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+
+/**
+ * Repositorio reactivo de franjas de disponibilidad
+ */
+public interface ReactiveAvailabilitySlotRepository extends ReactiveMongoRepository<AvailabilitySlot, String> {
+    Flux<AvailabilitySlot> findByTutorIdAndDateGreaterThanEqualAndDateLessThanEqual(
+            String tutorId, LocalDate from, LocalDate to);
+}
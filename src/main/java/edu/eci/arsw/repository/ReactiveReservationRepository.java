@@ -0,0 +1,19 @@
+package edu.eci.arsw.repository;
+
+import edu.eci.arsw.domain.Reservation;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+
+/**
+ * Repositorio reactivo de reservas para las consultas no bloqueantes
+ */
+public interface ReactiveReservationRepository extends ReactiveMongoRepository<Reservation, String> {
+    Flux<Reservation> findByTutorIdOrderByDateAscStartAsc(String tutorId);
+
+    Flux<Reservation> findByStudentIdOrderByDateAscStartAsc(String studentId);
+
+    Flux<Reservation> findByTutorIdAndDateGreaterThanEqualAndDateLessThanEqual(
+            String tutorId, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,189 @@
+package edu.eci.arsw.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Bulkhead con límite de concurrencia adaptativo (AIMD) para las llamadas al
+ * servicio de usuarios.
+ *
+ * Solo deja en vuelo tantas llamadas como el límite actual; el resto falla al
+ * instante con {@link BulkheadFullException} (503) en lugar de ocupar un hilo
+ * esperando. El límite sube de a uno por cada "ventana" de llamadas rápidas
+ * (aumento aditivo) y se multiplica por {@code backoffRatio} cuando una llamada
+ * falla o tarda más que {@code latencyThreshold} (disminución multiplicativa),
+ * siempre entre {@code minLimit} y {@code maxLimit}. Así un servicio lento
+ * reduce sus llamadas concurrentes en vez de acaparar todos los hilos.
+ *
+ * Los rechazos del servicio (4xx) y los del circuito abierto solo liberan el
+ * lugar: no cuentan como fallo ni como llamada rápida.
+ */
+@Slf4j
+public class AdaptiveBulkhead {
+
+    static final int DEFAULT_INITIAL_LIMIT = 20;
+    static final int DEFAULT_MIN_LIMIT = 2;
+    static final int DEFAULT_MAX_LIMIT = 100;
+    static final double DEFAULT_BACKOFF_RATIO = 0.9;
+    static final Duration DEFAULT_LATENCY_THRESHOLD = Duration.ofSeconds(1);
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+    private final LongSupplier nanoTime;
+    private final Counter rejected;
+
+    private double limit;
+    private int inFlight;
+
+    /**
+     * Bulkhead con la configuración por defecto
+     *
+     * @param name Nombre del servicio protegido
+     */
+    public AdaptiveBulkhead(String name) {
+        this(name, DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT, DEFAULT_BACKOFF_RATIO,
+                DEFAULT_LATENCY_THRESHOLD);
+    }
+
+    /**
+     * Constructor del bulkhead
+     *
+     * @param name             Nombre del servicio protegido
+     * @param initialLimit     Límite inicial de llamadas en vuelo
+     * @param minLimit         Límite mínimo
+     * @param maxLimit         Límite máximo
+     * @param backoffRatio     Factor que reduce el límite ante un fallo (0..1)
+     * @param latencyThreshold Duración desde la que una llamada cuenta como
+     *                         lenta
+     */
+    public AdaptiveBulkhead(String name, int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+            Duration latencyThreshold) {
+        this(name, initialLimit, minLimit, maxLimit, backoffRatio, latencyThreshold, System::nanoTime);
+    }
+
+    AdaptiveBulkhead(String name, int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+            Duration latencyThreshold, LongSupplier nanoTime) {
+        if (minLimit < 1 || maxLimit < minLimit)
+            throw new IllegalArgumentException("Límites inválidos: min=" + minLimit + ", max=" + maxLimit);
+        if (backoffRatio <= 0 || backoffRatio >= 1)
+            throw new IllegalArgumentException("backoffRatio debe estar entre 0 y 1");
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.nanoTime = nanoTime;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.rejected = Metrics.counter("bulkhead.rejected", "name", name);
+        Metrics.gauge("bulkhead.limit", Tags.of("name", name), this, AdaptiveBulkhead::limit);
+        Metrics.gauge("bulkhead.inflight", Tags.of("name", name), this, AdaptiveBulkhead::inFlight);
+    }
+
+    /**
+     * Ejecutar una llamada dentro del bulkhead
+     *
+     * @param call Llamada remota
+     * @param <T>  Tipo del resultado
+     * @return Mono con el resultado, o error {@link BulkheadFullException} si
+     *         ya hay tantas llamadas en vuelo como el límite
+     */
+    public <T> Mono<T> protect(Mono<T> call) {
+        return Mono.defer(() -> {
+            if (!tryAcquire()) {
+                rejected.increment();
+                return Mono.error(new BulkheadFullException(name));
+            }
+            long start = nanoTime.getAsLong();
+            // el lugar se libera una sola vez aunque lleguen éxito y cancelación
+            AtomicBoolean released = new AtomicBoolean();
+            return call
+                    .doOnSuccess(v -> {
+                        if (released.compareAndSet(false, true))
+                            onComplete(nanoTime.getAsLong() - start, false);
+                    })
+                    .doOnError(e -> {
+                        if (!released.compareAndSet(false, true))
+                            return;
+                        if (e instanceof CircuitOpenException || !CircuitBreaker.isFailure(e)) {
+                            // el circuito rechazó sin llamar, o el servicio rechazó la
+                            // petición (4xx): no dice nada de su capacidad
+                            release();
+                        } else {
+                            onComplete(nanoTime.getAsLong() - start, true);
+                        }
+                    })
+                    .doFinally(s -> {
+                        if (s == SignalType.CANCEL && released.compareAndSet(false, true))
+                            release();
+                    });
+        });
+    }
+
+    /**
+     * Límite actual de llamadas en vuelo
+     *
+     * @return Límite
+     */
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    /**
+     * Llamadas en vuelo
+     *
+     * @return Número de llamadas
+     */
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Reservar un lugar para una llamada
+     *
+     * @return true si la llamada puede hacerse
+     */
+    synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit)
+            return false;
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Liberar el lugar de una llamada y ajustar el límite
+     *
+     * @param elapsedNanos Duración de la llamada
+     * @param failed       true si la llamada falló
+     */
+    synchronized void onComplete(long elapsedNanos, boolean failed) {
+        // el límite solo sube si se está usando: con poca carga no dice nada
+        boolean saturated = inFlight * 2 >= (int) limit;
+        inFlight--;
+        if (failed || elapsedNanos > latencyThresholdNanos) {
+            double previous = limit;
+            limit = Math.max(minLimit, limit * backoffRatio);
+            if ((int) previous != (int) limit)
+                log.debug("Bulkhead {}: límite reducido a {}", name, (int) limit);
+        } else if (saturated) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    /**
+     * Liberar el lugar de una llamada sin ajustar el límite
+     */
+    private synchronized void release() {
+        inFlight--;
+    }
+}
@@ -0,0 +1,52 @@
+package edu.eci.arsw.security;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Usuario autenticado de la petición en curso. Se resuelve una sola vez por
+ * petición (ver {@link AuthenticatedUserArgumentResolver}) y los controladores
+ * lo reciben como parámetro.
+ * 
+ * @param id    ID del usuario
+ * @param roles Máscara de roles ({@link Role#bit()})
+ */
+public record AuthenticatedUser(String id, int roles) {
+
+    /**
+     * Construir el usuario a partir de la respuesta de roles
+     * 
+     * @param rr Roles del usuario
+     * @return Usuario autenticado
+     * @throws ResponseStatusException 401 si la respuesta no trae el usuario
+     */
+    public static AuthenticatedUser of(RolesResponse rr) {
+        if (rr == null || rr.getId() == null || rr.getId().isBlank()) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Usuario no autenticado");
+        }
+        return new AuthenticatedUser(rr.getId(), rr.roleMask());
+    }
+
+    /**
+     * Verifica si el usuario tiene alguno de los roles de la máscara
+     * 
+     * @param mask Máscara de roles necesarios
+     * @return true si tiene alguno
+     */
+    public boolean hasAnyRole(int mask) {
+        return (roles & mask) != 0;
+    }
+
+    /**
+     * Requiere que el usuario tenga alguno de los roles de la máscara, o lanza
+     * 403
+     * 
+     * @param mask Máscara de roles necesarios
+     * @throws ResponseStatusException si no tiene los roles necesarios
+     */
+    public void requireAnyRole(int mask) {
+        if (!hasAnyRole(mask)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Role requerido");
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package edu.eci.arsw.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Resuelve los parámetros {@link AuthenticatedUser} de los controladores a
+ * partir del header Authorization. Los roles se consultan una sola vez por
+ * petición y el resultado queda en un atributo de la petición.
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthenticatedUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    /** Atributo de la petición con el usuario ya resuelto */
+    static final String ATTRIBUTE = AuthenticatedUser.class.getName();
+
+    private final AuthorizationService authz;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.getParameterType() == AuthenticatedUser.class;
+    }
+
+    @Override
+    public AuthenticatedUser resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+            NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Object cached = webRequest.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (cached instanceof AuthenticatedUser user)
+            return user;
+
+        String bearer = webRequest.getHeader(HttpHeaders.AUTHORIZATION);
+        if (bearer == null || bearer.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Falta Authorization");
+        }
+        AuthenticatedUser user = AuthenticatedUser.of(authz.me(bearer));
+        webRequest.setAttribute(ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        return user;
+    }
+}
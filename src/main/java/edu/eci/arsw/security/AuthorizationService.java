@@ -1,17 +1,12 @@
 package edu.eci.arsw.security;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
 
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
-import java.util.HashSet;
 import java.util.Locale;
-import java.util.Set;
 
 /**
  * Servicio de autorización basado en roles de usuario
@@ -21,7 +16,7 @@ import java.util.Set;
 public class AuthorizationService {
 
     private final UserServiceClient client;
-    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private final LocalJwtVerifier localJwt;
 
     /**
      * Verifica si el usuario tiene alguno de los roles necesarios
@@ -30,19 +25,41 @@ public class AuthorizationService {
      * @param needed Roles necesarios
      */
     public boolean hasAnyRole(String bearer, String... needed) {
-        RolesResponse rr = client.getMyRolesCached(bearer);
-        if (rr == null || rr.getRoles() == null)
-            return false;
-        Set<String> have = new HashSet<>();
-        for (String r : rr.getRoles()) {
-            if (r != null)
-                have.add(r.toUpperCase(Locale.ROOT));
-        }
-        for (String n : needed) {
-            if (have.contains(n.toUpperCase(Locale.ROOT)))
-                return true;
-        }
-        return false;
+        return hasAnyRole(bearer, Role.mask(needed));
+    }
+
+    /**
+     * Verifica si el usuario tiene alguno de los roles de la máscara
+     * 
+     * @param bearer Token de autorización
+     * @param mask   Máscara de roles necesarios ({@link Role#mask(Role...)})
+     * @return true si tiene alguno
+     */
+    public boolean hasAnyRole(String bearer, int mask) {
+        return hasAnyRole(me(bearer), mask);
+    }
+
+    /**
+     * Verifica si unos roles incluyen alguno de los necesarios
+     * 
+     * @param rr     Roles del usuario
+     * @param needed Roles necesarios
+     * @return true si tiene alguno
+     */
+    static boolean hasAnyRole(RolesResponse rr, String... needed) {
+        return hasAnyRole(rr, Role.mask(needed));
+    }
+
+    /**
+     * Verifica si unos roles incluyen alguno de la máscara. Las respuestas de
+     * la caché ya traen la máscara calculada, así que es un AND sin copias.
+     * 
+     * @param rr   Roles del usuario
+     * @param mask Máscara de roles necesarios
+     * @return true si tiene alguno
+     */
+    static boolean hasAnyRole(RolesResponse rr, int mask) {
+        return rr != null && (rr.roleMask() & mask) != 0;
     }
 
     /**
@@ -53,19 +70,83 @@ public class AuthorizationService {
      * @throws ResponseStatusException si no tiene los roles necesarios
      */
     public void requireRole(String bearer, String... needed) {
-        if (!hasAnyRole(bearer, needed)) {
+        requireRole(bearer, Role.mask(needed));
+    }
+
+    /**
+     * Requiere que el usuario tenga alguno de los roles de la máscara, o lanza
+     * 403
+     * 
+     * @param bearer Token de autorización
+     * @param mask   Máscara de roles necesarios
+     * @throws ResponseStatusException si no tiene los roles necesarios
+     */
+    public void requireRole(String bearer, int mask) {
+        if (!hasAnyRole(bearer, mask)) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Role requerido");
         }
     }
 
     /**
-     * Obtener los roles del usuario autenticado
+     * Obtener los roles del usuario autenticado: de los claims del JWT si la
+     * validación local está activa, o del servicio de usuarios
      * 
      * @param bearer Token de autorización
      * @return Roles del usuario
      */
     public RolesResponse me(String bearer) {
-        return client.getMyRolesCached(bearer);
+        return localJwt.verify(bearer, client::cachedRolesBySubject)
+                .orElseGet(() -> client.getMyRolesCached(bearer));
+    }
+
+    /**
+     * Obtener los roles del usuario autenticado sin bloquear
+     * 
+     * @param bearer Token de autorización
+     * @return Mono con los roles del usuario
+     */
+    public Mono<RolesResponse> meAsync(String bearer) {
+        return Mono.defer(() -> localJwt.verify(bearer, client::cachedRolesBySubject)
+                .map(Mono::just)
+                .orElseGet(() -> client.getMyRolesCachedAsync(bearer)));
+    }
+
+    /**
+     * Requiere sin bloquear que el usuario tenga alguno de los roles necesarios
+     * 
+     * @param bearer Token de autorización
+     * @param needed Roles necesarios
+     * @return Mono con los roles del usuario, o error 403 si no tiene los roles
+     */
+    public Mono<RolesResponse> requireRoleAsync(String bearer, String... needed) {
+        return requireRoleAsync(bearer, Role.mask(needed));
+    }
+
+    /**
+     * Requiere sin bloquear que el usuario tenga alguno de los roles de la
+     * máscara
+     * 
+     * @param bearer Token de autorización
+     * @param mask   Máscara de roles necesarios
+     * @return Mono con los roles del usuario, o error 403 si no tiene los roles
+     */
+    public Mono<RolesResponse> requireRoleAsync(String bearer, int mask) {
+        return meAsync(bearer)
+                .defaultIfEmpty(new RolesResponse())
+                .flatMap(rr -> hasAnyRole(rr, mask)
+                        ? Mono.just(rr)
+                        : Mono.error(new ResponseStatusException(HttpStatus.FORBIDDEN, "Role requerido")));
+    }
+
+    /**
+     * Olvidar los roles guardados de un usuario, para que el próximo pedido con
+     * cualquiera de sus tokens los consulte de nuevo (por ejemplo, tras
+     * cambiarle los roles)
+     * 
+     * @param subject Claim "sub" del usuario
+     */
+    public void invalidateRoles(String subject) {
+        client.invalidateSubject(subject);
     }
 
     /**
@@ -76,24 +157,16 @@ public class AuthorizationService {
      */
     public String subject(String bearer) {
         String token = extractToken(bearer);
-        try {
-            String[] parts = token.split("\\.");
-            if (parts.length < 2)
-                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "JWT inválido");
-            // Decodificar el payload
-            String payloadJson = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8);
-            JsonNode node = MAPPER.readTree(payloadJson);
-            String sub = node.path("sub").asText(null);
-            // Verificar que el "sub" no esté vacío
-            if (sub == null || sub.isBlank())
-                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "JWT sin 'sub'");
-
-            return sub;
-        } catch (ResponseStatusException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "No se pudo leer el JWT", e);
-        }
+        if (token.indexOf('.') < 0)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "JWT inválido");
+        // lectura en streaming del payload, memorizada por token
+        JwtClaims claims = JwtClaims.parse(token);
+        if (claims == null)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "No se pudo leer el JWT");
+        // Verificar que el "sub" no esté vacío
+        if (claims.subject() == null)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "JWT sin 'sub'");
+        return claims.subject();
     }
 
     /**
@@ -0,0 +1,17 @@
+package edu.eci.arsw.security;
+
+/**
+ * Llamada rechazada porque ya hay tantas llamadas en vuelo como permite el
+ * bulkhead
+ */
+public class BulkheadFullException extends UsersServiceUnavailableException {
+
+    /**
+     * Constructor de la excepción
+     *
+     * @param name Nombre del servicio
+     */
+    public BulkheadFullException(String name) {
+        super("Servicio de usuarios saturado (" + name + ")");
+    }
+}
@@ -1,6 +1,7 @@
 package edu.eci.arsw.security;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCache;
@@ -9,7 +10,9 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
 
-import java.util.Arrays;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -29,13 +32,29 @@ public class CacheConfig {
                 // Configuración del caché rolesByBearer
                 int rolesTtl = Integer.parseInt(env.getProperty("roles.cache.ttl-seconds", "240"));
                 int rolesMaxSize = Integer.parseInt(env.getProperty("roles.cache.max-size", "10000"));
+                int rolesRefresh = Integer.parseInt(
+                                env.getProperty("roles.cache.refresh-seconds", String.valueOf(rolesTtl * 3 / 4)));
+                int rolesStale = Integer.parseInt(env.getProperty("roles.cache.stale-seconds", "300"));
+                Duration staleTimeout = Duration.ofMillis(
+                                Long.parseLong(env.getProperty("cache.stale-timeout-ms", "300")));
 
+                int rolesMaxTtl = Math.max(rolesTtl,
+                                Integer.parseInt(env.getProperty("roles.cache.max-ttl-seconds", "540")));
+
+                // Los roles de un token se recargan según lo que le queda al token
+                // (entre ttl y max-ttl), no cada ttl; la entrada vive hasta que vence
+                // el token, como máximo max-ttl + ventana de vencidos. Un cambio de
+                // roles se propaga con UserServiceClient.invalidateSubject, pero solo
+                // en esta instancia: las demás lo ven al vencer la entrada
                 Caffeine<Object, Object> rolesCaffeine = Caffeine.newBuilder()
                                 .maximumSize(rolesMaxSize)
-                                .expireAfterWrite(rolesTtl, TimeUnit.SECONDS)
+                                .expireAfter(new TokenLifetimeExpiry(Duration.ofSeconds(rolesMaxTtl + rolesStale),
+                                                Duration.ofSeconds(rolesTtl + rolesStale)))
                                 .recordStats();
 
-                CaffeineCache rolesCache = new CaffeineCache("rolesByBearer", rolesCaffeine.build());
+                // Cachés asíncronos: Cache.retrieve comparte una sola carga por clave
+                // entre todos los pedidos concurrentes (single-flight)
+                CaffeineCache rolesCache = new CaffeineCache("rolesByBearer", rolesCaffeine.buildAsync(), false);
 
                 // userPublicProfiles (para /public/profile)
                 int profilesTtl = Integer.parseInt(
@@ -46,19 +65,38 @@ public class CacheConfig {
                                 env.getProperty("profiles.cache.max-size",
                                                 env.getProperty("userPublicProfiles.cache.max-size",
                                                                 String.valueOf(rolesMaxSize))));
+                int profilesRefresh = Integer.parseInt(env.getProperty("profiles.cache.refresh-seconds",
+                                String.valueOf(profilesTtl * 3 / 4)));
+                int profilesStale = Integer.parseInt(env.getProperty("profiles.cache.stale-seconds", "600"));
 
                 Caffeine<Object, Object> profilesCaffeine = Caffeine.newBuilder()
                                 .maximumSize(profilesMaxSize)
-                                .expireAfterWrite(profilesTtl, TimeUnit.SECONDS)
+                                .expireAfterWrite(profilesTtl + profilesStale, TimeUnit.SECONDS)
                                 .recordStats();
 
-                CaffeineCache profilesCache = new CaffeineCache("userPublicProfiles", profilesCaffeine.build());
+                CaffeineCache profilesCache = new CaffeineCache("userPublicProfiles", profilesCaffeine.buildAsync(),
+                                false);
 
                 // Registrar ambos cachés
+                List<Cache> caches = new ArrayList<>(List.of(
+                                new RefreshAheadCache(rolesCache, Duration.ofSeconds(rolesRefresh),
+                                                Duration.ofSeconds(rolesTtl), staleTimeout,
+                                                RolesCacheKey::expiresAtMillis, Duration.ofSeconds(rolesMaxTtl)),
+                                new RefreshAheadCache(profilesCache, Duration.ofSeconds(profilesRefresh),
+                                                Duration.ofSeconds(profilesTtl), staleTimeout)));
+
+                // Índice opcional sub -> roles: invalidar por usuario y reutilizar los
+                // roles con tokens renovados que se validan localmente
+                if (Boolean.parseBoolean(env.getProperty("roles.cache.by-subject.enabled", "false"))) {
+                        caches.add(new CaffeineCache("rolesBySubject", Caffeine.newBuilder()
+                                        .maximumSize(rolesMaxSize)
+                                        .expireAfterWrite(rolesMaxTtl + rolesStale, TimeUnit.SECONDS)
+                                        .recordStats()
+                                        .build()));
+                }
+
                 SimpleCacheManager manager = new SimpleCacheManager();
-                manager.setCaches(Arrays.asList(
-                                rolesCache,
-                                profilesCache));
+                manager.setCaches(caches);
                 return manager;
         }
 }
@@ -0,0 +1,174 @@
+package edu.eci.arsw.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Circuit breaker para un endpoint del servicio de usuarios.
+ *
+ * Tras {@code failureThreshold} fallos seguidos (5xx, timeouts, errores de
+ * conexión) el circuito se abre y las llamadas fallan al instante con
+ * {@link CircuitOpenException}. Pasado {@code openDuration} se deja pasar una
+ * sola llamada de prueba (half-open): si funciona el circuito se cierra, si
+ * falla vuelve a abrirse. Las respuestas 4xx indican que el servicio responde y
+ * no cuentan como fallo.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    /** Estado del circuito */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Clock clock;
+    private final Counter rejected;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    /**
+     * Circuit breaker con la configuración por defecto
+     *
+     * @param name Nombre del endpoint protegido
+     */
+    public CircuitBreaker(String name) {
+        this(name, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION, Clock.systemUTC());
+    }
+
+    /**
+     * Constructor del circuit breaker
+     *
+     * @param name             Nombre del endpoint protegido
+     * @param failureThreshold Fallos seguidos para abrir el circuito
+     * @param openDuration     Tiempo abierto antes de la llamada de prueba
+     * @param clock            Reloj
+     */
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration, Clock clock) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openDuration.toMillis();
+        this.clock = clock;
+        this.rejected = Metrics.counter("circuit.breaker.rejected", "name", name);
+    }
+
+    /**
+     * Ejecutar una llamada protegida por el circuito
+     *
+     * @param call Llamada remota
+     * @param <T>  Tipo del resultado
+     * @return Mono con el resultado, o error {@link CircuitOpenException} si el
+     *         circuito está abierto
+     */
+    public <T> Mono<T> protect(Mono<T> call) {
+        return Mono.defer(() -> {
+            if (!tryAcquire()) {
+                rejected.increment();
+                return Mono.error(new CircuitOpenException(name));
+            }
+            return call
+                    .doOnSuccess(v -> onSuccess())
+                    .doOnError(e -> {
+                        if (isFailure(e)) {
+                            onFailure();
+                        } else {
+                            onSuccess();
+                        }
+                    })
+                    .doOnCancel(this::onCancel);
+        });
+    }
+
+    /**
+     * Estado actual del circuito
+     *
+     * @return Estado
+     */
+    public synchronized State state() {
+        return state;
+    }
+
+    /**
+     * Reservar una llamada
+     *
+     * @return true si la llamada puede hacerse
+     */
+    synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.millis() - openedAt >= openMillis) {
+                    state = State.HALF_OPEN;
+                    log.info("Circuito {} en prueba (half-open)", name);
+                    return true;
+                }
+                return false;
+            default:
+                // ya hay una llamada de prueba en curso
+                return false;
+        }
+    }
+
+    /**
+     * Registrar una llamada exitosa
+     */
+    synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) {
+            log.info("Circuito {} cerrado", name);
+            state = State.CLOSED;
+        }
+    }
+
+    /**
+     * Registrar una llamada fallida
+     */
+    synchronized void onFailure() {
+        consecutiveFailures++;
+        // llamadas que ya estaban en curso al abrir no alargan el tiempo abierto
+        if (state == State.OPEN)
+            return;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            log.warn("Circuito {} abierto tras {} fallos seguidos", name, consecutiveFailures);
+            state = State.OPEN;
+            openedAt = clock.millis();
+        }
+    }
+
+    /**
+     * Una llamada de prueba cancelada libera el turno para la siguiente
+     */
+    private synchronized void onCancel() {
+        if (state == State.HALF_OPEN) {
+            state = State.OPEN;
+            openedAt = clock.millis() - openMillis;
+        }
+    }
+
+    /**
+     * Indica si un error cuenta como fallo del servicio
+     *
+     * @param e Error de la llamada
+     * @return false para respuestas 4xx
+     */
+    static boolean isFailure(Throwable e) {
+        // los reintentos agotados envuelven el último error
+        Throwable t = Exceptions.isRetryExhausted(e) && e.getCause() != null ? e.getCause() : e;
+        return !(t instanceof WebClientResponseException w && w.getStatusCode().is4xxClientError());
+    }
+}
@@ -0,0 +1,16 @@
+package edu.eci.arsw.security;
+
+/**
+ * Llamada rechazada porque el circuito del endpoint está abierto
+ */
+public class CircuitOpenException extends UsersServiceUnavailableException {
+
+    /**
+     * Constructor de la excepción
+     *
+     * @param name Nombre del endpoint
+     */
+    public CircuitOpenException(String name) {
+        super("Servicio de usuarios no disponible (" + name + ")");
+    }
+}
@@ -0,0 +1,124 @@
+package edu.eci.arsw.security;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.io.IOException;
+import java.util.Base64;
+
+/**
+ * Claims de un JWT leídos sin verificar la firma. Solo sirven para decidir
+ * cuánto tiempo guardar en caché lo que el servicio de usuarios respondió para
+ * ese token, o para identificar al usuario de un token que otro componente ya
+ * validó; nunca para autorizar.
+ *
+ * El payload se lee con un parser en streaming que solo mira "sub" y "exp" y
+ * salta el resto, sin armar un árbol JSON. Como el mismo token llega en muchas
+ * peticiones seguidas, los resultados se recuerdan en un memo acotado.
+ *
+ * @param subject   Claim "sub" (null si no viene)
+ * @param expiresAt Claim "exp" en segundos epoch (0 si no viene)
+ */
+public record JwtClaims(String subject, long expiresAt) {
+
+    static final int MEMO_SIZE = 2048;
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final Cache<String, JwtClaims> MEMO = Caffeine.newBuilder()
+            .maximumSize(MEMO_SIZE)
+            .build();
+
+    /**
+     * Leer el payload del JWT de un header Authorization
+     * 
+     * @param bearer Header Authorization (con o sin prefijo "Bearer ")
+     * @return Claims, o null si el valor no es un JWT legible
+     */
+    public static JwtClaims parse(String bearer) {
+        if (bearer == null)
+            return null;
+        JwtClaims memo = MEMO.getIfPresent(bearer);
+        if (memo != null)
+            return memo;
+        JwtClaims claims = read(bearer);
+        if (claims != null)
+            MEMO.put(bearer, claims);
+        return claims;
+    }
+
+    /**
+     * Leer el payload sin pasar por el memo
+     * 
+     * @param bearer Header Authorization (con o sin prefijo "Bearer ")
+     * @return Claims, o null si el valor no es un JWT legible
+     */
+    static JwtClaims read(String bearer) {
+        int start = 0;
+        int end = bearer.length();
+        while (start < end && Character.isWhitespace(bearer.charAt(start)))
+            start++;
+        while (end > start && Character.isWhitespace(bearer.charAt(end - 1)))
+            end--;
+        if (bearer.regionMatches(true, start, "Bearer ", 0, 7)) {
+            start += 7;
+        }
+        int first = bearer.indexOf('.', start);
+        if (first < 0 || first >= end)
+            return null;
+        int second = bearer.indexOf('.', first + 1);
+        // sin firma el payload llega hasta el final, como en subject()
+        int payloadEnd = second < 0 || second > end ? end : second;
+
+        // el payload base64url es ASCII: se copia byte a byte sin pasar por un
+        // String; cualquier otro carácter lo invalida
+        byte[] encoded = new byte[payloadEnd - first - 1];
+        for (int i = first + 1, j = 0; i < payloadEnd; i++, j++) {
+            char c = bearer.charAt(i);
+            if (c > 0x7F)
+                return null;
+            encoded[j] = (byte) c;
+        }
+        try {
+            return readPayload(Base64.getUrlDecoder().decode(encoded));
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Buscar "sub" y "exp" en el payload decodificado
+     * 
+     * @param json Payload en JSON (UTF-8)
+     * @return Claims, o null si el payload no es un objeto JSON
+     * @throws IOException si el JSON está mal formado
+     */
+    private static JwtClaims readPayload(byte[] json) throws IOException {
+        try (JsonParser p = JSON.createParser(json)) {
+            if (p.nextToken() != JsonToken.START_OBJECT)
+                return null;
+            String sub = null;
+            long exp = 0;
+            boolean hasSub = false;
+            boolean hasExp = false;
+            while (p.nextToken() == JsonToken.FIELD_NAME && !(hasSub && hasExp)) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("sub".equals(field)) {
+                    sub = value.isScalarValue() ? p.getValueAsString() : null;
+                    p.skipChildren();
+                    hasSub = true;
+                } else if ("exp".equals(field)) {
+                    exp = p.getValueAsLong(0);
+                    p.skipChildren();
+                    hasExp = true;
+                } else {
+                    p.skipChildren();
+                }
+            }
+            return new JwtClaims(sub == null || sub.isBlank() ? null : sub, exp);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package edu.eci.arsw.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Validación local de JWT (HS256 con secreto compartido o RS256 con las llaves
+ * de un archivo JWKS) para leer el usuario y sus roles de los claims sin llamar
+ * al servicio de usuarios.
+ *
+ * Un token con firma inválida, vencido o de otro emisor se rechaza con 401. Si
+ * el token no se puede validar localmente (algoritmo o llave desconocidos) o no
+ * trae los claims necesarios, se devuelve vacío y el llamador consulta al
+ * servicio de usuarios. Un token sin "exp" tampoco se acepta localmente: sería
+ * válido para siempre, así que lo decide el servicio de usuarios.
+ */
+@Slf4j
+@Component
+public class LocalJwtVerifier {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    // Tolerancia para diferencias de reloj con el emisor
+    private static final long LEEWAY_SECONDS = 30;
+
+    private final byte[] hmacSecret;
+    private final Map<String, RSAPublicKey> rsaKeys;
+    private final String issuer;
+    private final String idClaim;
+    private final String rolesClaim;
+    private final Clock clock;
+
+    /**
+     * Constructor del validador
+     * 
+     * @param enabled    Si la validación local está activa
+     * @param secret     Secreto compartido para HS256 (vacío = sin HS256)
+     * @param jwksFile   Ruta del archivo JWKS para RS256 (vacía = sin RS256)
+     * @param issuer     Emisor esperado (vacío = no se valida)
+     * @param idClaim    Claim con el ID del usuario
+     * @param rolesClaim Claim con los roles
+     */
+    @Autowired
+    public LocalJwtVerifier(
+            @Value("${auth.local-jwt.enabled:false}") boolean enabled,
+            @Value("${auth.local-jwt.hs256-secret:}") String secret,
+            @Value("${auth.local-jwt.jwks-file:}") String jwksFile,
+            @Value("${auth.local-jwt.issuer:}") String issuer,
+            @Value("${auth.local-jwt.id-claim:sub}") String idClaim,
+            @Value("${auth.local-jwt.roles-claim:roles}") String rolesClaim) {
+        this(enabled && !secret.isBlank() ? secret.getBytes(StandardCharsets.UTF_8) : null,
+                enabled && !jwksFile.isBlank() ? loadJwks(Path.of(jwksFile)) : Map.of(),
+                issuer, idClaim, rolesClaim, Clock.systemUTC());
+        if (enabled && !isEnabled())
+            log.warn("auth.local-jwt.enabled sin secreto ni JWKS: se usará el servicio de usuarios");
+    }
+
+    LocalJwtVerifier(byte[] hmacSecret, Map<String, RSAPublicKey> rsaKeys, String issuer, String idClaim,
+            String rolesClaim, Clock clock) {
+        this.hmacSecret = hmacSecret;
+        this.rsaKeys = rsaKeys;
+        this.issuer = issuer == null || issuer.isBlank() ? null : issuer;
+        this.idClaim = idClaim;
+        this.rolesClaim = rolesClaim;
+        this.clock = clock;
+    }
+
+    /**
+     * Indica si hay alguna llave configurada
+     * 
+     * @return true si la validación local está activa
+     */
+    public boolean isEnabled() {
+        return hmacSecret != null || !rsaKeys.isEmpty();
+    }
+
+    /**
+     * Validar el token y leer el usuario de los claims
+     * 
+     * @param bearer Header Authorization
+     * @return Roles del usuario, o vacío si hay que consultar al servicio
+     * @throws ResponseStatusException 401 si el token es inválido o está vencido
+     */
+    public Optional<RolesResponse> verify(String bearer) {
+        return verify(bearer, sub -> null);
+    }
+
+    /**
+     * Validar el token y leer el usuario de los claims. Si el token es válido
+     * pero no trae los roles, se usan los que ya se conocen para el ID del
+     * usuario (el claim configurado en auth.local-jwt.id-claim), por ejemplo
+     * los cargados con un token anterior del mismo usuario.
+     * 
+     * @param bearer     Header Authorization
+     * @param knownRoles Roles ya conocidos por ID de usuario (null si no hay)
+     * @return Roles del usuario, o vacío si hay que consultar al servicio
+     * @throws ResponseStatusException 401 si el token es inválido o está vencido
+     */
+    public Optional<RolesResponse> verify(String bearer, Function<String, RolesResponse> knownRoles) {
+        if (!isEnabled() || bearer == null)
+            return Optional.empty();
+        String token = bearer.trim();
+        if (token.regionMatches(true, 0, "Bearer ", 0, 7))
+            token = token.substring(7).trim();
+        String[] parts = token.split("\\.");
+        if (parts.length != 3)
+            return Optional.empty();
+
+        JsonNode header;
+        JsonNode claims;
+        byte[] signature;
+        try {
+            header = MAPPER.readTree(Base64.getUrlDecoder().decode(parts[0]));
+            claims = MAPPER.readTree(Base64.getUrlDecoder().decode(parts[1]));
+            signature = Base64.getUrlDecoder().decode(parts[2]);
+        } catch (IOException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+
+        byte[] signedContent = (parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII);
+        Boolean valid = checkSignature(header, signedContent, signature);
+        if (valid == null)
+            return Optional.empty();
+        if (!valid)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "JWT inválido");
+        checkClaims(claims);
+        if (!claims.hasNonNull("exp")) {
+            log.debug("JWT sin 'exp': se consulta al servicio de usuarios");
+            return Optional.empty();
+        }
+        Optional<RolesResponse> roles = toRoles(claims);
+        if (roles.isPresent())
+            return roles;
+        String id = claims.path(idClaim).asText(null);
+        if (id == null || id.isBlank())
+            return Optional.empty();
+        return Optional.ofNullable(knownRoles.apply(id));
+    }
+
+    /**
+     * Verificar la firma con la llave correspondiente al algoritmo
+     * 
+     * @param header        Cabecera del JWT
+     * @param signedContent Cabecera y payload codificados
+     * @param signature     Firma
+     * @return true/false según la firma, o null si no hay llave para verificarla
+     */
+    private Boolean checkSignature(JsonNode header, byte[] signedContent, byte[] signature) {
+        String alg = header.path("alg").asText("");
+        try {
+            if ("HS256".equals(alg) && hmacSecret != null) {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(new SecretKeySpec(hmacSecret, "HmacSHA256"));
+                return MessageDigest.isEqual(mac.doFinal(signedContent), signature);
+            }
+            if ("RS256".equals(alg) && !rsaKeys.isEmpty()) {
+                List<RSAPublicKey> candidates = header.hasNonNull("kid")
+                        ? Optional.ofNullable(rsaKeys.get(header.get("kid").asText())).map(List::of).orElse(List.of())
+                        : new ArrayList<>(rsaKeys.values());
+                if (candidates.isEmpty())
+                    return null;
+                for (RSAPublicKey key : candidates) {
+                    Signature verifier = Signature.getInstance("SHA256withRSA");
+                    verifier.initVerify(key);
+                    verifier.update(signedContent);
+                    if (verifier.verify(signature))
+                        return true;
+                }
+                return false;
+            }
+        } catch (GeneralSecurityException e) {
+            log.debug("No se pudo verificar la firma {}: {}", alg, e.getMessage());
+            return false;
+        }
+        return null;
+    }
+
+    /**
+     * Validar vencimiento, inicio de validez y emisor
+     * 
+     * @param claims Claims del JWT
+     * @throws ResponseStatusException 401 si no son válidos
+     */
+    private void checkClaims(JsonNode claims) {
+        long now = clock.instant().getEpochSecond();
+        if (claims.has("exp") && claims.get("exp").asLong() + LEEWAY_SECONDS < now)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "JWT vencido");
+        if (claims.has("nbf") && claims.get("nbf").asLong() - LEEWAY_SECONDS > now)
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "JWT aún no válido");
+        if (issuer != null && !issuer.equals(claims.path("iss").asText(null)))
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "JWT de otro emisor");
+    }
+
+    /**
+     * Armar los roles a partir de los claims
+     * 
+     * @param claims Claims del JWT
+     * @return Roles del usuario, o vacío si faltan el ID o los roles
+     */
+    private Optional<RolesResponse> toRoles(JsonNode claims) {
+        String id = claims.path(idClaim).asText(null);
+        JsonNode rolesNode = claims.get(rolesClaim);
+        if (id == null || id.isBlank() || rolesNode == null || rolesNode.isNull())
+            return Optional.empty();
+
+        List<String> roles = new ArrayList<>();
+        if (rolesNode.isArray()) {
+            rolesNode.forEach(r -> roles.add(r.asText().toUpperCase(Locale.ROOT)));
+        } else {
+            for (String r : rolesNode.asText().split("[,\\s]+")) {
+                if (!r.isBlank())
+                    roles.add(r.toUpperCase(Locale.ROOT));
+            }
+        }
+        RolesResponse rr = new RolesResponse();
+        rr.setId(id);
+        rr.setEmail(claims.path("email").asText(null));
+        rr.setName(claims.path("name").asText(null));
+        rr.setRoles(roles);
+        rr.setHasRoles(!roles.isEmpty());
+        return Optional.of(rr);
+    }
+
+    /**
+     * Leer las llaves RSA de un archivo JWKS
+     * 
+     * @param file Ruta del archivo
+     * @return Mapa kid -> llave pública
+     * @throws IllegalStateException si el archivo no se puede leer
+     */
+    static Map<String, RSAPublicKey> loadJwks(Path file) {
+        try {
+            JsonNode jwks = MAPPER.readTree(Files.readAllBytes(file));
+            KeyFactory factory = KeyFactory.getInstance("RSA");
+            Map<String, RSAPublicKey> keys = new HashMap<>();
+            int i = 0;
+            for (JsonNode k : jwks.path("keys")) {
+                if (!"RSA".equals(k.path("kty").asText()))
+                    continue;
+                BigInteger n = new BigInteger(1, Base64.getUrlDecoder().decode(k.path("n").asText()));
+                BigInteger e = new BigInteger(1, Base64.getUrlDecoder().decode(k.path("e").asText()));
+                String kid = k.hasNonNull("kid") ? k.get("kid").asText() : "key-" + i;
+                keys.put(kid, (RSAPublicKey) factory.generatePublic(new RSAPublicKeySpec(n, e)));
+                i++;
+            }
+            log.info("JWKS cargado de {}: {} llaves RSA", file, keys.size());
+            return keys;
+        } catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("No se pudo leer el JWKS " + file, e);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package edu.eci.arsw.security;
+
+import edu.eci.arsw.domain.CachedProfile;
+import edu.eci.arsw.dto.PublicProfile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caché de perfiles de segundo nivel guardada en Mongo (colección
+ * profile_cache). Sobrevive a los reinicios: cuando la caché en memoria está
+ * vacía, los perfiles obtenidos hace menos de {@code freshFor} se leen de aquí
+ * en lugar de pedirlos al servicio de usuarios.
+ *
+ * Las escrituras se hacen en segundo plano y los errores de lectura o escritura
+ * solo se registran: si Mongo falla, los perfiles se piden al servicio.
+ */
+@Slf4j
+@Component
+public class ProfileStore {
+
+    private final MongoTemplate mongo;
+    private final boolean enabled;
+    private final Duration freshFor;
+    private final Clock clock;
+
+    /**
+     * Constructor de la caché persistente
+     * 
+     * @param mongo        Plantilla de Mongo
+     * @param enabled      Si la caché está activa
+     * @param freshSeconds Edad máxima de una entrada para usarla
+     */
+    @Autowired
+    public ProfileStore(
+            MongoTemplate mongo,
+            @Value("${profiles.l2.enabled:true}") boolean enabled,
+            @Value("${profiles.l2.fresh-seconds:3600}") long freshSeconds) {
+        this(mongo, enabled, Duration.ofSeconds(freshSeconds), Clock.systemUTC());
+    }
+
+    ProfileStore(MongoTemplate mongo, boolean enabled, Duration freshFor, Clock clock) {
+        this.mongo = mongo;
+        this.enabled = enabled;
+        this.freshFor = freshFor;
+        this.clock = clock;
+    }
+
+    /**
+     * Leer un perfil si la entrada está fresca
+     * 
+     * @param key Clave (hash) del perfil
+     * @return Perfil o null si no está o está vencido
+     */
+    public PublicProfile getFresh(String key) {
+        if (!enabled)
+            return null;
+        try {
+            CachedProfile c = mongo.findById(key, CachedProfile.class);
+            return c != null && isFresh(c) ? c.getProfile() : null;
+        } catch (RuntimeException e) {
+            log.debug("No se pudo leer el perfil {} de la caché persistente: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Leer varios perfiles con una sola consulta
+     * 
+     * @param keys Claves (hash) de los perfiles
+     * @return Mapa clave -> perfil, solo con las entradas frescas
+     */
+    public Map<String, PublicProfile> getFresh(Collection<String> keys) {
+        Map<String, PublicProfile> found = new HashMap<>();
+        if (!enabled || keys.isEmpty())
+            return found;
+        try {
+            Query q = new Query(Criteria.where("key").in(keys))
+                    .addCriteria(Criteria.where("fetchedAt").gte(clock.instant().minus(freshFor)));
+            for (CachedProfile c : mongo.find(q, CachedProfile.class)) {
+                if (c.getProfile() != null)
+                    found.put(c.getKey(), c.getProfile());
+            }
+        } catch (RuntimeException e) {
+            log.debug("No se pudieron leer {} perfiles de la caché persistente: {}", keys.size(), e.getMessage());
+        }
+        return found;
+    }
+
+    /**
+     * Guardar perfiles recién obtenidos, en segundo plano
+     * 
+     * @param profiles Mapa clave -> perfil
+     */
+    public void putAllAsync(Map<String, PublicProfile> profiles) {
+        if (!enabled || profiles.isEmpty())
+            return;
+        Instant now = clock.instant();
+        Mono.fromRunnable(() -> putAll(profiles, now))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(null, e -> log.debug("No se pudieron guardar {} perfiles en la caché persistente: {}",
+                        profiles.size(), e.getMessage()));
+    }
+
+    /**
+     * Guardar perfiles con una sola operación en lote
+     * 
+     * @param profiles Mapa clave -> perfil
+     * @param now      Momento en que se obtuvieron
+     */
+    void putAll(Map<String, PublicProfile> profiles, Instant now) {
+        BulkOperations ops = mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, CachedProfile.class);
+        profiles.forEach((key, p) -> ops.upsert(new Query(Criteria.where("key").is(key)),
+                new Update().set("profile", p).set("fetchedAt", now)));
+        ops.execute();
+    }
+
+    /**
+     * Indica si una entrada se puede usar
+     * 
+     * @param c Entrada guardada
+     * @return true si se obtuvo hace menos de freshFor
+     */
+    private boolean isFresh(CachedProfile c) {
+        return c.getFetchedAt() != null && c.getFetchedAt().isAfter(clock.instant().minus(freshFor));
+    }
+}
@@ -0,0 +1,398 @@
+package edu.eci.arsw.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Caché que recarga las entradas antes de que venzan y, si el servicio de
+ * origen está lento o caído, sirve el valor vencido durante una ventana
+ * acotada.
+ *
+ * Cada valor se guarda con la hora en que se cargó. En
+ * {@link #retrieve(Object, Supplier)}:
+ * <ul>
+ * <li>edad menor a refreshAfter: se devuelve el valor;</li>
+ * <li>edad entre refreshAfter y ttl: se devuelve el valor y se recarga en
+ * segundo plano con el mismo cargador del llamador;</li>
+ * <li>edad mayor a ttl: se espera la recarga como máximo staleTimeout; si falla
+ * o tarda más, se devuelve el valor vencido.</li>
+ * </ul>
+ * La caché subyacente debe expirar las entradas a los ttl + ventana de
+ * vencidos, lo que acota cuánto tiempo se puede servir un valor viejo. Si la
+ * recarga es rechazada por el servicio (4xx) la entrada se elimina en lugar de
+ * seguir sirviéndose.
+ *
+ * Si las claves tienen su propio vencimiento (por ejemplo, el "exp" de un
+ * token), el ttl de cada entrada es lo que le quedaba a la clave al cargarse,
+ * entre ttl y maxTtl, y la recarga se adelanta en la misma proporción.
+ *
+ * Eliminar una entrada cancela su recarga en curso: el valor que llegue
+ * después no se guarda, para que no reaparezca lo que se acaba de invalidar.
+ */
+@Slf4j
+public class RefreshAheadCache implements Cache {
+
+    /** Valor con la hora (epoch ms) en que se cargó */
+    record Stamped(Object value, long loadedAt) {
+    }
+
+    private final Cache delegate;
+    private final long refreshAfterMs;
+    private final long ttlMs;
+    private final long maxTtlMs;
+    private final ToLongFunction<Object> keyExpiresAt;
+    private final Duration staleTimeout;
+    private final Clock clock;
+    private final Map<Object, CompletableFuture<Object>> refreshing = new ConcurrentHashMap<>();
+
+    private final Counter refreshSuccess;
+    private final Counter refreshFailure;
+    private final Counter staleServed;
+
+    /**
+     * Constructor de la caché
+     *
+     * @param delegate     Caché subyacente
+     * @param refreshAfter Edad desde la que se recarga en segundo plano
+     * @param ttl          Edad desde la que el valor se considera vencido
+     * @param staleTimeout Espera máxima por la recarga de un valor vencido
+     */
+    public RefreshAheadCache(Cache delegate, Duration refreshAfter, Duration ttl, Duration staleTimeout) {
+        this(delegate, refreshAfter, ttl, staleTimeout, Clock.systemUTC());
+    }
+
+    RefreshAheadCache(Cache delegate, Duration refreshAfter, Duration ttl, Duration staleTimeout, Clock clock) {
+        this(delegate, refreshAfter, ttl, staleTimeout, key -> 0, ttl, clock);
+    }
+
+    /**
+     * Constructor de una caché cuyas claves tienen su propio vencimiento
+     *
+     * @param delegate     Caché subyacente
+     * @param refreshAfter Edad desde la que se recarga, para un ttl de
+     *                     {@code ttl}
+     * @param ttl          Ttl mínimo, y el de las claves sin vencimiento
+     * @param staleTimeout Espera máxima por la recarga de un valor vencido
+     * @param keyExpiresAt Vencimiento de una clave en epoch ms (0 si no tiene)
+     * @param maxTtl       Ttl máximo
+     */
+    public RefreshAheadCache(Cache delegate, Duration refreshAfter, Duration ttl, Duration staleTimeout,
+            ToLongFunction<Object> keyExpiresAt, Duration maxTtl) {
+        this(delegate, refreshAfter, ttl, staleTimeout, keyExpiresAt, maxTtl, Clock.systemUTC());
+    }
+
+    RefreshAheadCache(Cache delegate, Duration refreshAfter, Duration ttl, Duration staleTimeout,
+            ToLongFunction<Object> keyExpiresAt, Duration maxTtl, Clock clock) {
+        this.delegate = delegate;
+        this.refreshAfterMs = refreshAfter.toMillis();
+        this.ttlMs = ttl.toMillis();
+        this.maxTtlMs = Math.max(ttlMs, maxTtl.toMillis());
+        this.keyExpiresAt = keyExpiresAt;
+        this.staleTimeout = staleTimeout;
+        this.clock = clock;
+        String name = delegate.getName();
+        this.refreshSuccess = Metrics.counter("cache.refresh", "cache", name, "result", "success");
+        this.refreshFailure = Metrics.counter("cache.refresh", "cache", name, "result", "failure");
+        this.staleServed = Metrics.counter("cache.stale.served", "cache", name);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper w = delegate.get(key);
+        if (w == null)
+            return null;
+        return new SimpleValueWrapper(unwrap(w.get()));
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper w = delegate.get(key);
+        Object value = w != null ? unwrap(w.get()) : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("El valor en caché no es de tipo " + type.getName());
+        }
+        return type != null ? type.cast(value) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return (T) unwrap(delegate.get(key, () -> stamp(valueLoader.call())));
+    }
+
+    @Override
+    public CompletableFuture<?> retrieve(Object key) {
+        CompletableFuture<?> f = delegate.retrieve(key);
+        return f == null ? null : f.thenApply(RefreshAheadCache::unwrap);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+        CompletableFuture<Stamped> loaded = delegate.retrieve(key,
+                () -> valueLoader.get().thenApply(this::stamp));
+        return loaded.thenCompose(s -> {
+            if (s == null)
+                return CompletableFuture.completedFuture(null);
+            long age = clock.millis() - s.loadedAt();
+            long ttl = ttlOf(key, s);
+            if (age < refreshAfterOf(ttl))
+                return CompletableFuture.completedFuture((T) s.value());
+
+            CompletableFuture<Object> refresh = refresh(key,
+                    (Supplier<CompletableFuture<Object>>) (Supplier<?>) valueLoader);
+            if (age < ttl)
+                return CompletableFuture.completedFuture((T) s.value());
+
+            // vencido: se espera la recarga un tiempo acotado
+            return refresh.copy()
+                    .orTimeout(staleTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .handle((fresh, err) -> {
+                        if (err == null && fresh != null)
+                            return (T) fresh;
+                        if (isRejection(err))
+                            throw new CompletionException(cause(err));
+                        staleServed.increment();
+                        log.debug("{}: se sirve un valor vencido", getName());
+                        return (T) s.value();
+                    });
+        });
+    }
+
+    /**
+     * Leer una entrada sin cargarla si falta. Como en
+     * {@link #retrieve(Object, Supplier)}, pasada la edad refreshAfter se
+     * recarga en segundo plano con el cargador dado; pasada la edad ttl la
+     * entrada se trata como ausente para que el llamador la pida de nuevo.
+     *
+     * @param key      Clave
+     * @param reloader Cargador para la recarga en segundo plano
+     * @param <T>      Tipo del valor
+     * @return Valor guardado, o null si no está o está vencido
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T peek(Object key, Supplier<CompletableFuture<T>> reloader) {
+        ValueWrapper w = delegate.get(key);
+        if (w == null)
+            return null;
+        if (!(w.get() instanceof Stamped s))
+            return (T) w.get();
+        long age = clock.millis() - s.loadedAt();
+        long ttl = ttlOf(key, s);
+        if (age < refreshAfterOf(ttl))
+            return (T) s.value();
+        refresh(key, (Supplier<CompletableFuture<Object>>) (Supplier<?>) reloader);
+        return age < ttl ? (T) s.value() : null;
+    }
+
+    /**
+     * Ttl de una entrada: lo que le quedaba a su clave al cargarse, entre ttl y
+     * maxTtl, o el ttl si la clave no vence
+     *
+     * @param key    Clave
+     * @param stored Valor guardado
+     * @return Ttl en milisegundos
+     */
+    private long ttlOf(Object key, Stamped stored) {
+        long expiresAt = keyExpiresAt.applyAsLong(key);
+        if (expiresAt <= 0)
+            return ttlMs;
+        return Math.max(ttlMs, Math.min(maxTtlMs, expiresAt - stored.loadedAt()));
+    }
+
+    /**
+     * Edad desde la que se recarga una entrada, en la misma proporción que
+     * refreshAfter respecto de ttl
+     *
+     * @param ttl Ttl de la entrada
+     * @return Edad en milisegundos
+     */
+    private long refreshAfterOf(long ttl) {
+        return ttl == ttlMs ? refreshAfterMs : ttl * refreshAfterMs / ttlMs;
+    }
+
+    /**
+     * Recargar una entrada una sola vez aunque la pidan varios hilos
+     *
+     * @param key    Clave
+     * @param loader Cargador del valor
+     * @return Futuro de la recarga en curso
+     */
+    private CompletableFuture<Object> refresh(Object key, Supplier<CompletableFuture<Object>> loader) {
+        CompletableFuture<Object> existing = refreshing.get(key);
+        if (existing != null)
+            return existing;
+        CompletableFuture<Object> promise = new CompletableFuture<>();
+        existing = refreshing.putIfAbsent(key, promise);
+        if (existing != null)
+            return existing;
+
+        CompletableFuture<Object> load;
+        try {
+            load = loader.get();
+        } catch (RuntimeException e) {
+            load = CompletableFuture.failedFuture(e);
+        }
+        load.whenComplete((value, err) -> {
+            if (err == null && value != null) {
+                // se guarda solo si nadie eliminó la entrada mientras se
+                // recargaba; evict quita la recarga antes que la entrada
+                boolean[] stored = { false };
+                refreshing.computeIfPresent(key, (k, current) -> {
+                    if (current != promise)
+                        return current;
+                    delegate.put(key, stamp(value));
+                    stored[0] = true;
+                    return null;
+                });
+                if (stored[0])
+                    refreshSuccess.increment();
+                else
+                    log.debug("{}: se descarta una recarga de una entrada eliminada", getName());
+                promise.complete(value);
+            } else {
+                refreshing.remove(key, promise);
+                refreshFailure.increment();
+                // el servicio rechazó la petición: el valor guardado ya no es válido
+                if (isRejection(err))
+                    delegate.evict(key);
+                log.debug("{}: falló la recarga anticipada: {}", getName(),
+                        err != null ? err.getMessage() : "sin valor");
+                promise.completeExceptionally(err != null ? err : new IllegalStateException("sin valor"));
+            }
+        });
+        return promise;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, stamp(value));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper w = delegate.putIfAbsent(key, stamp(value));
+        return w == null ? null : new SimpleValueWrapper(unwrap(w.get()));
+    }
+
+    @Override
+    public void evict(Object key) {
+        refreshing.remove(key);
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        refreshing.remove(key);
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        refreshing.clear();
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        refreshing.clear();
+        return delegate.invalidate();
+    }
+
+    /**
+     * Eliminar las entradas que cumplen una condición, con sus recargas en
+     * curso. Si la caché subyacente no es de Caffeine y no se puede recorrer,
+     * se vacía entera.
+     *
+     * @param matches Condición sobre la clave y el valor guardado
+     */
+    public void evictIf(BiPredicate<Object, Object> matches) {
+        if (!(delegate.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> c)) {
+            clear();
+            return;
+        }
+        List<Object> keys = new ArrayList<>();
+        c.asMap().forEach((k, v) -> {
+            if (matches.test(k, unwrap(v)))
+                keys.add(k);
+        });
+        // las recargas de claves sin entrada (ya vencida) también se cancelan
+        refreshing.keySet().forEach(k -> {
+            if (matches.test(k, null))
+                keys.add(k);
+        });
+        keys.forEach(this::evict);
+    }
+
+    /**
+     * Indica si el error es un rechazo del servicio (4xx), en cuyo caso no se
+     * debe seguir sirviendo el valor guardado
+     *
+     * @param err Error de la recarga
+     * @return true si es un 4xx
+     */
+    private static boolean isRejection(Throwable err) {
+        return cause(err) instanceof WebClientResponseException w && w.getStatusCode().is4xxClientError();
+    }
+
+    /**
+     * Quitar los envoltorios de CompletableFuture de un error
+     *
+     * @param err Error
+     * @return Causa original
+     */
+    private static Throwable cause(Throwable err) {
+        Throwable t = err;
+        while (t instanceof CompletionException && t.getCause() != null)
+            t = t.getCause();
+        return t;
+    }
+
+    /**
+     * Marcar un valor con la hora actual
+     *
+     * @param value Valor
+     * @return Valor marcado (null si el valor es null)
+     */
+    private Stamped stamp(Object value) {
+        return value == null ? null : new Stamped(value, clock.millis());
+    }
+
+    /**
+     * Quitar la marca de hora
+     *
+     * @param stored Valor guardado
+     * @return Valor original
+     */
+    private static Object unwrap(Object stored) {
+        return stored instanceof Stamped s ? s.value() : stored;
+    }
+}
@@ -0,0 +1,190 @@
+package edu.eci.arsw.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Peticiones "hedged" para llamadas idempotentes de latencia variable.
+ *
+ * Si la llamada no respondió pasado el percentil configurado de la latencia
+ * reciente, se envía una segunda llamada idéntica y se usa la primera respuesta
+ * que llegue; la otra se cancela. Un presupuesto (token bucket) limita la carga
+ * extra: cada llamada suma {@code budgetRatio} fichas, cada segunda llamada
+ * gasta una, y nunca se acumulan más de {@code budgetBurst}. Con la
+ * configuración por defecto se envían como máximo un 10 % de llamadas extra.
+ */
+public class RequestHedger {
+
+    /** Muestras de latencia que se conservan */
+    static final int WINDOW = 200;
+    /** Cada cuántas muestras se recalcula el retardo */
+    static final int RECOMPUTE_EVERY = 20;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final double budgetRatio;
+    private final double budgetBurst;
+    private final LongSupplier nanoTime;
+    private final Counter sent;
+    private final Counter won;
+    private final Counter exhausted;
+
+    private final long[] samples = new long[WINDOW];
+    private int filled;
+    private int nextSample;
+    private int sinceRecompute;
+    private long delayNanos;
+    private double tokens;
+
+    /**
+     * Hedger que nunca envía segundas llamadas
+     *
+     * @return Hedger desactivado
+     */
+    public static RequestHedger disabled() {
+        return new RequestHedger();
+    }
+
+    private RequestHedger() {
+        this.enabled = false;
+        this.percentile = 1;
+        this.minDelayNanos = 0;
+        this.budgetRatio = 0;
+        this.budgetBurst = 0;
+        this.nanoTime = System::nanoTime;
+        this.sent = null;
+        this.won = null;
+        this.exhausted = null;
+    }
+
+    /**
+     * Constructor del hedger
+     *
+     * @param name         Nombre de la llamada (para las métricas)
+     * @param percentile   Percentil de la latencia tras el que se envía la
+     *                     segunda llamada (0..1)
+     * @param initialDelay Retardo mientras no hay muestras suficientes
+     * @param minDelay     Retardo mínimo
+     * @param budgetRatio  Fichas que suma cada llamada (fracción máxima de
+     *                     llamadas extra)
+     * @param budgetBurst  Máximo de fichas acumuladas
+     */
+    public RequestHedger(String name, double percentile, Duration initialDelay, Duration minDelay,
+            double budgetRatio, int budgetBurst) {
+        this(name, percentile, initialDelay, minDelay, budgetRatio, budgetBurst, System::nanoTime);
+    }
+
+    RequestHedger(String name, double percentile, Duration initialDelay, Duration minDelay,
+            double budgetRatio, int budgetBurst, LongSupplier nanoTime) {
+        if (percentile <= 0 || percentile > 1)
+            throw new IllegalArgumentException("percentile debe estar entre 0 y 1");
+        this.enabled = true;
+        this.percentile = percentile;
+        this.minDelayNanos = minDelay.toNanos();
+        this.budgetRatio = budgetRatio;
+        this.budgetBurst = budgetBurst;
+        this.nanoTime = nanoTime;
+        this.delayNanos = Math.max(minDelayNanos, initialDelay.toNanos());
+        this.tokens = budgetBurst;
+        this.sent = Metrics.counter("hedge.sent", "name", name);
+        this.won = Metrics.counter("hedge.won", "name", name);
+        this.exhausted = Metrics.counter("hedge.budget.exhausted", "name", name);
+        Metrics.gauge("hedge.delay", Tags.of("name", name), this, h -> h.delay().toMillis());
+    }
+
+    /**
+     * Ejecutar una llamada, con una segunda llamada si la primera tarda
+     *
+     * @param call Fábrica de la llamada (se invoca una vez por intento)
+     * @param <T>  Tipo del resultado
+     * @return Mono con la primera respuesta
+     */
+    public <T> Mono<T> hedge(Supplier<Mono<T>> call) {
+        if (!enabled)
+            return call.get();
+        return Mono.defer(() -> {
+            deposit();
+            Duration delay = delay();
+            Mono<T> primary = timed(call.get());
+            // la segunda llamada solo compite si responde: sus errores no ganan
+            Mono<T> backup = Mono.delay(delay)
+                    .flatMap(t -> {
+                        if (!tryWithdraw()) {
+                            exhausted.increment();
+                            return Mono.never();
+                        }
+                        sent.increment();
+                        return timed(call.get())
+                                .doOnNext(v -> won.increment())
+                                .onErrorResume(e -> Mono.never());
+                    });
+            return Mono.firstWithSignal(primary, backup);
+        });
+    }
+
+    /**
+     * Retardo actual antes de la segunda llamada
+     *
+     * @return Retardo
+     */
+    public synchronized Duration delay() {
+        return Duration.ofNanos(delayNanos);
+    }
+
+    /**
+     * Medir un intento y registrar su latencia. Un intento cancelado porque el
+     * otro ganó también cuenta: tardó al menos eso.
+     *
+     * @param attempt Intento
+     * @param <T>     Tipo del resultado
+     * @return Intento medido
+     */
+    private <T> Mono<T> timed(Mono<T> attempt) {
+        return Mono.defer(() -> {
+            long start = nanoTime.getAsLong();
+            return attempt.doFinally(signal -> {
+                if (signal != SignalType.ON_ERROR)
+                    record(nanoTime.getAsLong() - start);
+            });
+        });
+    }
+
+    /**
+     * Registrar una latencia y recalcular el retardo cada
+     * {@link #RECOMPUTE_EVERY} muestras
+     *
+     * @param nanos Latencia
+     */
+    synchronized void record(long nanos) {
+        samples[nextSample] = nanos;
+        nextSample = (nextSample + 1) % WINDOW;
+        filled = Math.min(WINDOW, filled + 1);
+        if (++sinceRecompute >= RECOMPUTE_EVERY) {
+            sinceRecompute = 0;
+            long[] sorted = Arrays.copyOf(samples, filled);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            delayNanos = Math.max(minDelayNanos, sorted[Math.max(0, index)]);
+        }
+    }
+
+    private synchronized void deposit() {
+        tokens = Math.min(budgetBurst, tokens + budgetRatio);
+    }
+
+    private synchronized boolean tryWithdraw() {
+        if (tokens < 1)
+            return false;
+        tokens -= 1;
+        return true;
+    }
+}
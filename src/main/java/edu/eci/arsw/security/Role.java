@@ -0,0 +1,95 @@
+package edu.eci.arsw.security;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Roles conocidos del servicio de usuarios. Cada rol ocupa un bit, de modo que
+ * un conjunto de roles se representa con un entero y comprobar si un usuario
+ * tiene alguno de los roles pedidos es un AND.
+ */
+public enum Role {
+    STUDENT, TUTOR, ADMIN;
+
+    private static final Map<String, Role> BY_NAME = new HashMap<>();
+
+    static {
+        for (Role r : values()) {
+            BY_NAME.put(r.name(), r);
+        }
+    }
+
+    private final int bit = 1 << ordinal();
+
+    /**
+     * Bit del rol
+     * 
+     * @return Máscara con solo este rol
+     */
+    public int bit() {
+        return bit;
+    }
+
+    /**
+     * Máscara de varios roles
+     * 
+     * @param roles Roles
+     * @return Máscara con los bits de los roles
+     */
+    public static int mask(Role... roles) {
+        int mask = 0;
+        for (Role r : roles) {
+            mask |= r.bit;
+        }
+        return mask;
+    }
+
+    /**
+     * Máscara a partir de los nombres de rol que envía el servicio de usuarios.
+     * Los nombres se comparan sin distinguir mayúsculas y los desconocidos se
+     * ignoran.
+     * 
+     * @param names Nombres de los roles (puede ser null)
+     * @return Máscara con los bits de los roles conocidos
+     */
+    public static int mask(Collection<String> names) {
+        if (names == null)
+            return 0;
+        int mask = 0;
+        for (String n : names) {
+            mask |= bitOf(n);
+        }
+        return mask;
+    }
+
+    /**
+     * Máscara a partir de nombres de rol
+     * 
+     * @param names Nombres de los roles
+     * @return Máscara con los bits de los roles conocidos
+     */
+    public static int mask(String... names) {
+        int mask = 0;
+        for (String n : names) {
+            mask |= bitOf(n);
+        }
+        return mask;
+    }
+
+    /**
+     * Bit de un nombre de rol
+     * 
+     * @param name Nombre del rol (puede ser null)
+     * @return Bit del rol, o 0 si no es un rol conocido
+     */
+    private static int bitOf(String name) {
+        if (name == null)
+            return 0;
+        Role r = BY_NAME.get(name);
+        if (r == null)
+            r = BY_NAME.get(name.toUpperCase(Locale.ROOT));
+        return r == null ? 0 : r.bit;
+    }
+}
@@ -0,0 +1,48 @@
+package edu.eci.arsw.security;
+
+/**
+ * Clave de la caché rolesByBearer: hash del header Authorization junto con el
+ * usuario y el vencimiento que declara el token, para que la entrada venza con
+ * el token y se pueda encontrar por usuario.
+ * 
+ * @param tokenHash SHA-256 del header Authorization
+ * @param subject   Claim "sub" del token (null si no es un JWT legible)
+ * @param expiresAt Claim "exp" en segundos epoch (0 si no se conoce)
+ */
+public record RolesCacheKey(String tokenHash, String subject, long expiresAt) {
+
+    /**
+     * Armar la clave de un header Authorization
+     * 
+     * @param bearer Header Authorization
+     * @return Clave de la caché
+     */
+    public static RolesCacheKey of(String bearer) {
+        JwtClaims claims = JwtClaims.parse(bearer);
+        return claims == null
+                ? new RolesCacheKey(Sha256.hash(bearer), null, 0)
+                : new RolesCacheKey(Sha256.hash(bearer), claims.subject(), claims.expiresAt());
+    }
+
+    /**
+     * Vencimiento de una clave de la caché, para {@link RefreshAheadCache}
+     * 
+     * @param key Clave
+     * @return Vencimiento del token en epoch ms, o 0 si no se conoce
+     */
+    static long expiresAtMillis(Object key) {
+        return key instanceof RolesCacheKey k && k.expiresAt() > 0 ? k.expiresAt() * 1000 : 0;
+    }
+
+    // el hash identifica al token; el resto se deriva de él
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof RolesCacheKey k && tokenHash.equals(k.tokenHash);
+    }
+
+    @Override
+    public int hashCode() {
+        return tokenHash.hashCode();
+    }
+}
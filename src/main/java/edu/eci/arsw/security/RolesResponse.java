@@ -1,6 +1,13 @@
 package edu.eci.arsw.security;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
 import java.util.List;
 
 /** Respuesta con los roles de un usuario */
@@ -12,4 +19,38 @@ public class RolesResponse {
     private List<String> roles;
     private boolean hasRoles;
     private String lastUpdated;
+
+    /** Máscara de {@link Role} calculada a partir de roles; -1 si no se ha calculado */
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile int roleMask = -1;
+
+    /**
+     * Reemplazar los roles del usuario
+     * 
+     * @param roles Nombres de los roles
+     */
+    public void setRoles(List<String> roles) {
+        this.roles = roles;
+        this.roleMask = -1;
+    }
+
+    /**
+     * Máscara de roles. Se calcula la primera vez y se reutiliza mientras no
+     * cambien los roles, de modo que las respuestas guardadas en caché se
+     * comparan con un AND.
+     * 
+     * @return Máscara con los bits de los roles conocidos
+     */
+    public int roleMask() {
+        int mask = roleMask;
+        if (mask < 0) {
+            mask = Role.mask(roles);
+            roleMask = mask;
+        }
+        return mask;
+    }
 }
@@ -0,0 +1,79 @@
+package edu.eci.arsw.security;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Vencimiento variable para la caché de roles: cada entrada vive hasta que
+ * vence su token (claim "exp" de la {@link RolesCacheKey}), como máximo
+ * {@code maxTtl}. Las claves sin "exp" viven {@code unknownTtl} (por defecto
+ * {@code maxTtl}).
+ */
+public class TokenLifetimeExpiry implements Expiry<Object, Object> {
+
+    private final long maxTtlNanos;
+    private final long unknownTtlNanos;
+    private final Clock clock;
+
+    /**
+     * Constructor del vencimiento
+     * 
+     * @param maxTtl Tiempo máximo de vida de una entrada
+     */
+    public TokenLifetimeExpiry(Duration maxTtl) {
+        this(maxTtl, maxTtl);
+    }
+
+    /**
+     * Constructor del vencimiento
+     * 
+     * @param maxTtl     Tiempo máximo de vida de una entrada
+     * @param unknownTtl Tiempo de vida de una entrada cuyo token no tiene "exp"
+     */
+    public TokenLifetimeExpiry(Duration maxTtl, Duration unknownTtl) {
+        this(maxTtl, unknownTtl, Clock.systemUTC());
+    }
+
+    TokenLifetimeExpiry(Duration maxTtl, Clock clock) {
+        this(maxTtl, maxTtl, clock);
+    }
+
+    TokenLifetimeExpiry(Duration maxTtl, Duration unknownTtl, Clock clock) {
+        this.maxTtlNanos = maxTtl.toNanos();
+        this.unknownTtlNanos = Math.min(maxTtlNanos, unknownTtl.toNanos());
+        this.clock = clock;
+    }
+
+    @Override
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+        return lifetime(key);
+    }
+
+    @Override
+    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+        // una recarga reinicia el tiempo de vida, sin pasar del vencimiento del token
+        return lifetime(key);
+    }
+
+    @Override
+    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+
+    /**
+     * Tiempo de vida de una entrada nueva o recargada
+     * 
+     * @param key Clave de la entrada
+     * @return Nanosegundos hasta que vence
+     */
+    long lifetime(Object key) {
+        if (!(key instanceof RolesCacheKey k) || k.expiresAt() <= 0)
+            return unknownTtlNanos;
+        long remainingMs = k.expiresAt() * 1000 - clock.millis();
+        if (remainingMs <= 0)
+            return 0;
+        return Math.min(maxTtlNanos, Duration.ofMillis(remainingMs).toNanos());
+    }
+}
@@ -2,12 +2,13 @@ package edu.eci.arsw.security;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ClientHttpConnector;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
@@ -18,6 +19,8 @@ import reactor.util.retry.Retry;
 
 import java.time.Duration;
 import java.util.Locale;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiPredicate;
 
 /**
  * Cliente para comunicarse con el servicio de usuarios y obtener roles
@@ -26,33 +29,52 @@ import java.util.Locale;
 @Component
 public class UserServiceClient {
 
+    static final String ROLES_CACHE = "rolesByBearer";
+    static final String SUBJECT_CACHE = "rolesBySubject";
+
     private final CacheManager cacheManager;
     private final WebClient webClient;
+    private final AdaptiveBulkhead bulkhead;
+    private final CircuitBreaker rolesBreaker = new CircuitBreaker("users.my-roles");
 
     /**
      * Constructor del cliente de servicio de usuarios
      * 
      * @param cacheManager Gestor de caché
+     * @param connector    Conector HTTP compartido del servicio de usuarios
+     * @param bulkhead     Bulkhead compartido del servicio de usuarios
      * @param baseUrl      URL base del servicio de usuarios
      */
     @Autowired
     public UserServiceClient(CacheManager cacheManager,
+            @Qualifier("usersServiceConnector") ClientHttpConnector connector,
+            AdaptiveBulkhead bulkhead,
             @Value("${user.service.base-url}") String baseUrl) {
         this.cacheManager = cacheManager;
-        this.webClient = WebClient.builder()
-                .baseUrl(baseUrl)
-                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                .build();
+        this.webClient = UsersHttpClientConfig.webClient(baseUrl, connector);
+        this.bulkhead = bulkhead;
+    }
+
+    /**
+     * Constructor con el conector HTTP por defecto
+     * 
+     * @param cacheManager Gestor de caché
+     * @param baseUrl      URL base del servicio de usuarios
+     */
+    public UserServiceClient(CacheManager cacheManager, String baseUrl) {
+        this(cacheManager, null, new AdaptiveBulkhead(UsersHttpClientConfig.POOL_NAME), baseUrl);
     }
 
     /**
      * Obtener los roles del usuario autenticado
      * 
      * @param bearerHeader Header de autorización con el token Bearer
-     * @return Mono con la respuesta de roles
+     * @return Mono con la respuesta de roles, o error
+     *         {@link CircuitOpenException} (503) si el servicio está caído o
+     *         {@link BulkheadFullException} (503) si está saturado
      */
     public Mono<RolesResponse> getMyRoles(String bearerHeader) {
-        return webClient.get()
+        return bulkhead.protect(rolesBreaker.protect(webClient.get()
                 .uri("/Api-user/my-roles")
                 .header(HttpHeaders.AUTHORIZATION, bearerHeader)
                 .retrieve()
@@ -61,7 +83,16 @@ public class UserServiceClient {
                 .retryWhen(
                         Retry.backoff(2, Duration.ofMillis(200))
                                 .filter(ex -> !(ex instanceof WebClientResponseException.Unauthorized
-                                        || ex instanceof WebClientResponseException.Forbidden)));
+                                        || ex instanceof WebClientResponseException.Forbidden)))));
+    }
+
+    /**
+     * Circuit breaker del endpoint de roles
+     * 
+     * @return Circuit breaker
+     */
+    CircuitBreaker rolesBreaker() {
+        return rolesBreaker;
     }
 
     /**
@@ -75,46 +106,130 @@ public class UserServiceClient {
             log.error("Authorization header is null or blank");
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Autorización requerida");
         }
-        log.debug("Fetching roles for bearer token (hash): {}", Sha256.hash(bearerHeader));
-
-        String key = Sha256.hash(bearerHeader);
-        Cache cache = cacheManager.getCache("rolesByBearer");
-
-        RolesResponse cached = getCachedRoles(cache, key);
-        if (cached != null) {
-            return normalize(cached);
+        RolesCacheKey key = RolesCacheKey.of(bearerHeader);
+        log.debug("Fetching roles for bearer token (hash): {}", key.tokenHash());
+        Cache cache = cacheManager.getCache(ROLES_CACHE);
+        if (cache == null) {
+            return loadRoles(bearerHeader, key).block();
         }
 
+        // Los pedidos concurrentes con el mismo token comparten una sola llamada
         try {
-            RolesResponse fetched = getMyRoles(bearerHeader).block();
-            if (cache != null && fetched != null)
-                cache.put(key, fetched);
+            return cache.retrieve(key, () -> {
+                log.debug("roles cache MISS");
+                return loadRoles(bearerHeader, key).toFuture();
+            }).join();
+        } catch (RuntimeException e) {
+            throw onLoadFailure(cache, key, e);
+        }
+    }
+
+    /**
+     * Obtener los roles del usuario autenticado con caché, sin bloquear el hilo
+     * que llama
+     * 
+     * @param bearerHeader Header de autorización con el token Bearer
+     * @return Mono con los roles del usuario
+     */
+    public Mono<RolesResponse> getMyRolesCachedAsync(String bearerHeader) {
+        if (bearerHeader == null || bearerHeader.isBlank()) {
+            return Mono.error(new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Autorización requerida"));
+        }
+        RolesCacheKey key = RolesCacheKey.of(bearerHeader);
+        Cache cache = cacheManager.getCache(ROLES_CACHE);
+        if (cache == null) {
+            return loadRoles(bearerHeader, key);
+        }
+        return Mono.fromFuture(() -> cache.<RolesResponse>retrieve(key, () -> {
             log.debug("roles cache MISS");
-            return normalize(fetched);
-        } catch (WebClientResponseException e) {
-            evictOnAuthErrors(cache, key, e);
-            throw e;
-        } catch (Exception e) {
-            evictCacheIfPresent(cache, key);
-            throw e;
+            return loadRoles(bearerHeader, key).toFuture();
+        }))
+                .onErrorMap(e -> onLoadFailure(cache, key, e));
+    }
+
+    /**
+     * Consultar los roles y dejarlos listos para guardar en caché: nombres en
+     * mayúsculas y máscara de roles ya calculada, para que los aciertos de
+     * caché no copien listas ni vuelvan a normalizar
+     * 
+     * @param bearerHeader Header de autorización con el token Bearer
+     * @param key          Clave del token en la caché
+     * @return Mono con los roles normalizados
+     */
+    private Mono<RolesResponse> loadRoles(String bearerHeader, RolesCacheKey key) {
+        return getMyRoles(bearerHeader)
+                .map(UserServiceClient::normalize)
+                .doOnNext(roles -> rememberSubject(key, roles));
+    }
+
+    /**
+     * Guardar los roles en el índice por usuario, si está activo. Se indexan
+     * por el ID que respondió el servicio, que es el mismo que la validación
+     * local lee del claim auth.local-jwt.id-claim; si no viene, por el "sub"
+     * 
+     * @param key   Clave del token
+     * @param roles Roles que respondió el servicio
+     */
+    private void rememberSubject(RolesCacheKey key, RolesResponse roles) {
+        Cache bySubject = cacheManager.getCache(SUBJECT_CACHE);
+        String id = roles.getId() != null && !roles.getId().isBlank() ? roles.getId() : key.subject();
+        if (bySubject != null && id != null)
+            bySubject.put(id, roles);
+    }
+
+    /**
+     * Roles de un usuario cargados con alguno de sus tokens. Solo se deben usar
+     * para un token cuya firma ya se verificó localmente.
+     * 
+     * @param subject ID del usuario
+     * @return Roles guardados, o null si no hay o el índice está desactivado
+     */
+    public RolesResponse cachedRolesBySubject(String subject) {
+        Cache bySubject = cacheManager.getCache(SUBJECT_CACHE);
+        return bySubject == null || subject == null ? null : bySubject.get(subject, RolesResponse.class);
+    }
+
+    /**
+     * Olvidar los roles guardados de un usuario (por ejemplo, tras cambiarle
+     * los roles), con todos sus tokens y las recargas en curso. Solo afecta a
+     * las cachés de esta instancia.
+     * 
+     * @param subject ID ("sub") del usuario
+     */
+    public void invalidateSubject(String subject) {
+        Cache bySubject = cacheManager.getCache(SUBJECT_CACHE);
+        if (bySubject != null)
+            bySubject.evict(subject);
+        BiPredicate<Object, Object> ofSubject = (k, v) ->
+                k instanceof RolesCacheKey rk && subject.equals(rk.subject())
+                        || v instanceof RolesResponse rr && subject.equals(rr.getId());
+        Cache cache = cacheManager.getCache(ROLES_CACHE);
+        if (cache instanceof RefreshAheadCache refreshAhead) {
+            refreshAhead.evictIf(ofSubject);
+        } else if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> c) {
+            c.asMap().keySet().removeIf(k -> ofSubject.test(k, null));
         }
     }
 
     /**
-     * Obtener roles desde la caché
+     * Limpiar la caché tras un fallo al cargar los roles y obtener el error a
+     * propagar
      * 
      * @param cache Caché de roles
      * @param key   Clave del caché
-     * @return RolesResponse si está en caché, null en caso contrario
+     * @param e     Error de la carga
+     * @return Error original, sin el envoltorio de CompletableFuture
      */
-    private RolesResponse getCachedRoles(Cache cache, String key) {
-        if (cache == null)
-            return null;
-        RolesResponse cached = cache.get(key, RolesResponse.class);
-        if (cached != null) {
-            log.debug("roles cache HIT");
+    private RuntimeException onLoadFailure(Cache cache, Object key, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof WebClientResponseException w) {
+            evictOnAuthErrors(cache, key, w);
+            return w;
         }
-        return cached;
+        evictCacheIfPresent(cache, key);
+        if (cause instanceof RuntimeException re)
+            return re;
+        return e instanceof RuntimeException re ? re : new CompletionException(e);
     }
 
     /**
@@ -124,7 +239,7 @@ public class UserServiceClient {
      * @param key   Clave del caché
      * @param e     Excepción de respuesta del cliente web
      */
-    private void evictOnAuthErrors(Cache cache, String key, WebClientResponseException e) {
+    private void evictOnAuthErrors(Cache cache, Object key, WebClientResponseException e) {
         int status = e.getStatusCode().value();
         if (status == 401 || status == 403) {
             evictCacheIfPresent(cache, key);
@@ -137,18 +252,18 @@ public class UserServiceClient {
      * @param cache Caché de roles
      * @param key   Clave del caché
      */
-    private void evictCacheIfPresent(Cache cache, String key) {
+    private void evictCacheIfPresent(Cache cache, Object key) {
         if (cache != null)
             cache.evictIfPresent(key);
     }
 
     /**
-     * Normalizar los roles a mayúsculas
+     * Normalizar los roles a mayúsculas y precalcular la máscara de roles
      * 
      * @param in RolesResponse de entrada
      * @return RolesResponse normalizado
      */
-    private RolesResponse normalize(RolesResponse in) {
+    static RolesResponse normalize(RolesResponse in) {
         if (in == null)
             return null;
         if (in.getRoles() != null) {
@@ -156,6 +271,7 @@ public class UserServiceClient {
                     .map(r -> r == null ? null : r.toUpperCase(Locale.ROOT))
                     .toList());
         }
+        in.roleMask();
         return in;
     }
 }
@@ -0,0 +1,135 @@
+package edu.eci.arsw.security;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Cliente HTTP compartido por las llamadas al servicio de usuarios.
+ *
+ * {@link UserServiceClient} y {@link UsersPublicClient} usan el mismo pool de
+ * conexiones: tamaño y cola de espera acotados, conexiones inactivas cerradas
+ * antes de que el servidor las corte, y timeouts de conexión y de respuesta en
+ * el transporte. Las métricas del pool se publican en Micrometer
+ * ({@code reactor.netty.connection.provider.*}).
+ *
+ * Las llamadas además pasan por un {@link AdaptiveBulkhead} compartido, para
+ * que un servicio lento no deje a todos los hilos esperando su respuesta.
+ */
+@Configuration
+public class UsersHttpClientConfig {
+
+        /** Nombre del pool en las métricas */
+        static final String POOL_NAME = "users-service";
+
+        /**
+         * Pool de conexiones hacia el servicio de usuarios
+         *
+         * @param env Propiedades de la aplicación
+         * @return Pool de conexiones
+         */
+        @Bean(destroyMethod = "dispose")
+        public ConnectionProvider usersServiceConnectionProvider(Environment env) {
+                int maxConnections = Integer.parseInt(env.getProperty("user.service.http.max-connections", "50"));
+                return ConnectionProvider.builder(POOL_NAME)
+                                .maxConnections(maxConnections)
+                                .pendingAcquireMaxCount(Integer.parseInt(env.getProperty(
+                                                "user.service.http.pending-acquire-max",
+                                                String.valueOf(maxConnections * 4))))
+                                .pendingAcquireTimeout(millis(env, "user.service.http.pending-acquire-timeout-ms",
+                                                "2000"))
+                                .maxIdleTime(millis(env, "user.service.http.max-idle-ms", "30000"))
+                                .maxLifeTime(millis(env, "user.service.http.max-life-ms", "300000"))
+                                .evictInBackground(millis(env, "user.service.http.evict-interval-ms", "15000"))
+                                .metrics(true)
+                                .build();
+        }
+
+        /**
+         * Conector HTTP del servicio de usuarios sobre el pool compartido
+         *
+         * @param env      Propiedades de la aplicación
+         * @param provider Pool de conexiones
+         * @return Conector para WebClient
+         */
+        @Bean
+        public ClientHttpConnector usersServiceConnector(Environment env, ConnectionProvider provider) {
+                int connectTimeout = Integer.parseInt(env.getProperty("user.service.http.connect-timeout-ms", "2000"));
+                HttpClient http = HttpClient.create(provider)
+                                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
+                                .option(ChannelOption.SO_KEEPALIVE, true)
+                                .keepAlive(true)
+                                .responseTimeout(millis(env, "user.service.http.read-timeout-ms", "5000"));
+                if (Boolean.parseBoolean(env.getProperty("user.service.http.http2", "false"))) {
+                        // HTTP/2 se negocia por ALPN; si el servidor no lo ofrece se usa HTTP/1.1
+                        http = http.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+                }
+                return new ReactorClientHttpConnector(http);
+        }
+
+        /**
+         * Bulkhead compartido por las llamadas al servicio de usuarios
+         *
+         * @param env Propiedades de la aplicación
+         * @return Bulkhead con límite adaptativo
+         */
+        @Bean
+        public AdaptiveBulkhead usersServiceBulkhead(Environment env) {
+                return new AdaptiveBulkhead(POOL_NAME,
+                                Integer.parseInt(env.getProperty("user.service.bulkhead.initial-limit", "20")),
+                                Integer.parseInt(env.getProperty("user.service.bulkhead.min-limit", "2")),
+                                Integer.parseInt(env.getProperty("user.service.bulkhead.max-limit", "50")),
+                                Double.parseDouble(env.getProperty("user.service.bulkhead.backoff-ratio", "0.9")),
+                                millis(env, "user.service.bulkhead.latency-threshold-ms", "1000"));
+        }
+
+        /**
+         * Hedging de las consultas de perfil público: si una consulta tarda más que
+         * el percentil configurado se envía otra igual, dentro de un presupuesto
+         *
+         * @param env Propiedades de la aplicación
+         * @return Hedger (desactivado si user.service.hedge.enabled=false)
+         */
+        @Bean
+        public RequestHedger usersProfileHedger(Environment env) {
+                if (!Boolean.parseBoolean(env.getProperty("user.service.hedge.enabled", "false")))
+                        return RequestHedger.disabled();
+                return new RequestHedger("users.public-profile",
+                                Double.parseDouble(env.getProperty("user.service.hedge.percentile", "0.95")),
+                                millis(env, "user.service.hedge.initial-delay-ms", "500"),
+                                millis(env, "user.service.hedge.min-delay-ms", "50"),
+                                Double.parseDouble(env.getProperty("user.service.hedge.budget-ratio", "0.1")),
+                                Integer.parseInt(env.getProperty("user.service.hedge.budget-burst", "10")));
+        }
+
+        /**
+         * Crear el WebClient de un cliente del servicio de usuarios
+         *
+         * @param baseUrl   URL base del servicio de usuarios
+         * @param connector Conector compartido (null = conector por defecto)
+         * @return WebClient
+         */
+        static WebClient webClient(String baseUrl, ClientHttpConnector connector) {
+                WebClient.Builder builder = WebClient.builder()
+                                .baseUrl(baseUrl)
+                                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+                if (connector != null)
+                        builder.clientConnector(connector);
+                return builder.build();
+        }
+
+        private static Duration millis(Environment env, String key, String defaultValue) {
+                return Duration.ofMillis(Long.parseLong(env.getProperty(key, defaultValue)));
+        }
+}
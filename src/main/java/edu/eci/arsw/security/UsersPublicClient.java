@@ -1,22 +1,26 @@
 package edu.eci.arsw.security;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
 import edu.eci.arsw.dto.PublicProfile;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ClientHttpConnector;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
-import java.util.Locale;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Cliente para comunicarse con el servicio de usuarios y obtener perfiles
@@ -26,31 +30,106 @@ import java.util.Map;
 @Component
 public class UsersPublicClient {
 
+    // Máximo de ids por llamada al endpoint de lote
+    private static final int MAX_BATCH_SIZE = 50;
+    // Máximo de perfiles pedidos en paralelo cuando no hay endpoint de lote
+    private static final int MAX_CONCURRENT_FETCHES = 8;
+    // Espera máxima de getPublicProfiles por los perfiles pendientes
+    private static final Duration BATCH_WAIT = Duration.ofSeconds(10);
+    // Tiempo que se recuerda que un usuario no existe (404)
+    private static final Duration NOT_FOUND_TTL = Duration.ofSeconds(60);
+    // Marca de "no existe" en los resultados de un lote
+    private static final PublicProfile NOT_FOUND = new PublicProfile();
+
     private final CacheManager cacheManager;
     private final WebClient webClient;
+    private final AdaptiveBulkhead bulkhead;
+    private final RequestHedger hedger;
     private final String profilePath;
+    private final String batchPath;
+    private final Duration batchWindow;
+    // Caché persistente de segundo nivel (null = sin ella)
+    private final ProfileStore store;
+
+    // Agrupación de pedidos concurrentes: ids en vuelo y pendientes de envío
+    private final Map<String, CompletableFuture<PublicProfile>> inFlight = new ConcurrentHashMap<>();
+    private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    // Caché negativa: claves (hash) de usuarios que respondieron 404
+    private final com.github.benmanes.caffeine.cache.Cache<String, Boolean> notFound = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(NOT_FOUND_TTL)
+            .build();
+    private final CircuitBreaker profileBreaker = new CircuitBreaker("users.public-profile");
+    private final CircuitBreaker batchBreaker = new CircuitBreaker("users.public-profiles-batch");
 
     /**
      * Constructor del cliente de servicio de usuarios
      * 
-     * @param cacheManager Gestor de caché
-     * @param baseUrl      URL base del servicio de usuarios
+     * @param cacheManager  Gestor de caché
+     * @param store         Caché persistente de segundo nivel (puede ser null)
+     * @param connector     Conector HTTP compartido (null = conector por
+     *                      defecto)
+     * @param bulkhead      Bulkhead compartido del servicio de usuarios
+     * @param hedger        Hedging de las consultas de perfil individuales
+     * @param baseUrl       URL base del servicio de usuarios
+     * @param profilePath   Ruta del perfil público
+     * @param batchPath     Ruta del endpoint de perfiles en lote (vacía si el
+     *                      servicio no lo ofrece)
+     * @param batchWindowMs Ventana para agrupar pedidos concurrentes
      */
     @Autowired
     public UsersPublicClient(
             CacheManager cacheManager,
+            ProfileStore store,
+            @Qualifier("usersServiceConnector") ClientHttpConnector connector,
+            AdaptiveBulkhead bulkhead,
+            RequestHedger hedger,
             @Value("${user.service.base-url}") String baseUrl,
-            @Value("${user.service.profile-path:/Api-user/public/profile}") String profilePath) {
+            @Value("${user.service.profile-path:/Api-user/public/profile}") String profilePath,
+            @Value("${user.service.profiles-batch-path:}") String batchPath,
+            @Value("${user.service.profiles-batch-window-ms:5}") long batchWindowMs) {
         this.cacheManager = cacheManager;
+        this.store = store;
         this.profilePath = profilePath;
-        this.webClient = WebClient.builder()
-                .baseUrl(baseUrl)
-                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                .build();
+        this.batchPath = trimToNull(batchPath);
+        this.batchWindow = Duration.ofMillis(batchWindowMs);
+        this.webClient = UsersHttpClientConfig.webClient(baseUrl, connector);
+        this.bulkhead = bulkhead;
+        this.hedger = hedger;
+    }
+
+    /**
+     * Constructor sin caché persistente
+     * 
+     * @param cacheManager  Gestor de caché
+     * @param baseUrl       URL base del servicio de usuarios
+     * @param profilePath   Ruta del perfil público
+     * @param batchPath     Ruta del endpoint de perfiles en lote
+     * @param batchWindowMs Ventana para agrupar pedidos concurrentes
+     */
+    public UsersPublicClient(CacheManager cacheManager, String baseUrl, String profilePath, String batchPath,
+            long batchWindowMs) {
+        this(cacheManager, null, null, new AdaptiveBulkhead(UsersHttpClientConfig.POOL_NAME),
+                RequestHedger.disabled(), baseUrl, profilePath, batchPath, batchWindowMs);
+    }
+
+    /**
+     * Constructor sin endpoint de lote
+     * 
+     * @param cacheManager Gestor de caché
+     * @param baseUrl      URL base del servicio de usuarios
+     * @param profilePath  Ruta del perfil público
+     */
+    public UsersPublicClient(CacheManager cacheManager, String baseUrl, String profilePath) {
+        this(cacheManager, baseUrl, profilePath, null, 5);
     }
 
     /**
-     * Llama al endpoint público sin caché
+     * Llama al endpoint público sin caché. Si el hedging está activo y la
+     * respuesta tarda, se envía una segunda consulta igual y gana la primera
+     * que responda.
      * 
      * @param sub Sub del usuario
      * @param id  ID del usuario
@@ -63,7 +142,7 @@ public class UsersPublicClient {
             return Mono.error(new IllegalArgumentException("Debe proporcionar 'sub' o 'id'"));
         }
 
-        return webClient.get()
+        return hedger.hedge(() -> bulkhead.protect(profileBreaker.protect(webClient.get()
                 .uri(b -> {
                     var ub = b.path(profilePath);
                     if (subTrim != null)
@@ -79,15 +158,19 @@ public class UsersPublicClient {
                 .retryWhen(
                         Retry.backoff(2, Duration.ofMillis(200))
                                 .filter(ex -> !(ex instanceof WebClientResponseException.Unauthorized
-                                        || ex instanceof WebClientResponseException.Forbidden)));
+                                        || ex instanceof WebClientResponseException.Forbidden
+                                        || ex instanceof WebClientResponseException.NotFound))))));
     }
 
     /**
-     * Llama al endpoint público con caché
+     * Llama al endpoint público con caché. Un usuario inexistente (404) se
+     * recuerda un tiempo corto y devuelve null sin volver a llamar.
      * 
      * @param sub Sub del usuario
      * @param id  ID del usuario
-     * @return Perfil público
+     * @return Perfil público, o null si el usuario no existe
+     * @throws UsersServiceUnavailableException si el servicio de usuarios está
+     *                                          caído o saturado
      */
     public PublicProfile getPublicProfileCached(String sub, String id) {
         String subTrim = trimToNull(sub);
@@ -100,32 +183,414 @@ public class UsersPublicClient {
         String rawKey = subTrim != null ? "sub:" + subTrim : "id:" + idTrim;
         String key = Sha256.hash(rawKey);
         Cache cache = cacheManager.getCache("userPublicProfiles");
+        if (notFound.getIfPresent(key) != null) {
+            return null;
+        }
+        if (cache == null) {
+            return normalize(getPublicProfile(subTrim, idTrim).block());
+        }
+
+        // La caché persistente solo sirve para un perfil que nunca estuvo en
+        // memoria: una recarga anticipada debe ir al servicio, no leer de vuelta
+        // la copia guardada
+        boolean cold = cache.get(key) == null;
+        // Los pedidos concurrentes del mismo usuario comparten una sola llamada
+        try {
+            PublicProfile profile = cache.retrieve(key, () -> {
+                log.debug("profiles cache MISS");
+                PublicProfile stored = cold && store != null ? store.getFresh(key) : null;
+                if (stored != null)
+                    return CompletableFuture.completedFuture(stored);
+                return getPublicProfile(subTrim, idTrim)
+                        .doOnNext(p -> store(Map.of(key, p)))
+                        .toFuture();
+            }).join();
+            return normalize(profile);
+        } catch (RuntimeException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof WebClientResponseException.NotFound) {
+                notFound.put(key, Boolean.TRUE);
+                return null;
+            }
+            if (cause instanceof WebClientResponseException w) {
+                int st = w.getStatusCode().value();
+                if (st == 401 || st == 403) {
+                    cache.evictIfPresent(key);
+                }
+                throw w;
+            }
+            cache.evictIfPresent(key);
+            throw cause instanceof RuntimeException re ? re : e;
+        }
+    }
+
+    /**
+     * Obtener los perfiles públicos de varios usuarios. Los que no están en
+     * caché se agrupan con los pedidos concurrentes de otros hilos durante una
+     * ventana corta y se piden en una sola llamada al endpoint de lote (o en
+     * paralelo al endpoint individual si no hay lote). Cada perfil obtenido se
+     * guarda en la caché.
+     * 
+     * @param ids IDs de los usuarios
+     * @return Mapa id -> perfil, sin los que no existen o fallaron
+     */
+    public Map<String, PublicProfile> getPublicProfiles(Collection<String> ids) {
+        Map<String, PublicProfile> result = new LinkedHashMap<>();
+        Map<String, CompletableFuture<PublicProfile>> waiting = lookup(ids, result);
+        if (waiting.isEmpty())
+            return result;
 
-        PublicProfile cached = cache != null ? cache.get(key, PublicProfile.class) : null;
-        if (cached != null) {
-            log.debug("profiles cache HIT");
-            return normalize(cached);
+        long deadline = System.nanoTime() + BATCH_WAIT.toNanos();
+        for (Map.Entry<String, CompletableFuture<PublicProfile>> e : waiting.entrySet()) {
+            try {
+                long left = Math.max(0, deadline - System.nanoTime());
+                PublicProfile p = e.getValue().get(left, TimeUnit.NANOSECONDS);
+                if (p != null)
+                    result.put(e.getKey(), p);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException | TimeoutException ex) {
+                log.warn("No se pudo obtener el perfil {}: {}", e.getKey(), ex.getMessage());
+            }
         }
+        return result;
+    }
 
+    /**
+     * Versión no bloqueante de {@link #getPublicProfiles}: comparte la caché y
+     * los lotes, pero entrega el mapa cuando terminan los pedidos en lugar de
+     * esperar en el hilo que llama
+     * 
+     * @param ids IDs de los usuarios
+     * @return Mono con el mapa id -> perfil, sin los que no existen o fallaron
+     */
+    public Mono<Map<String, PublicProfile>> getPublicProfilesAsync(Collection<String> ids) {
+        Map<String, PublicProfile> result = new LinkedHashMap<>();
+        Map<String, CompletableFuture<PublicProfile>> waiting = lookup(ids, result);
+        if (waiting.isEmpty())
+            return Mono.just(result);
+
+        CompletableFuture<?>[] settled = waiting.values().stream()
+                .map(f -> f.handle((p, err) -> p))
+                .toArray(CompletableFuture[]::new);
+        return Mono.fromFuture(CompletableFuture.allOf(settled))
+                .timeout(BATCH_WAIT)
+                .onErrorResume(e -> Mono.empty())
+                .then(Mono.fromSupplier(() -> {
+                    for (Map.Entry<String, CompletableFuture<PublicProfile>> e : waiting.entrySet()) {
+                        CompletableFuture<PublicProfile> f = e.getValue();
+                        if (!f.isDone() || f.isCompletedExceptionally()) {
+                            log.warn("No se pudo obtener el perfil {}", e.getKey());
+                            continue;
+                        }
+                        PublicProfile p = f.join();
+                        if (p != null)
+                            result.put(e.getKey(), p);
+                    }
+                    return result;
+                }));
+    }
+
+    /**
+     * Resolver desde la caché los perfiles disponibles y encolar el resto
+     * 
+     * @param ids    IDs de los usuarios
+     * @param result Mapa donde se dejan los perfiles en caché
+     * @return Futuros de los perfiles que hay que pedir
+     */
+    private Map<String, CompletableFuture<PublicProfile>> lookup(Collection<String> ids,
+            Map<String, PublicProfile> result) {
+        Map<String, CompletableFuture<PublicProfile>> waiting = new LinkedHashMap<>();
+        for (String raw : ids) {
+            String id = trimToNull(raw);
+            if (id == null || result.containsKey(id) || waiting.containsKey(id)
+                    || notFound.getIfPresent(Sha256.hash("id:" + id)) != null)
+                continue;
+            PublicProfile cached = peekCachedProfile(id);
+            if (cached != null) {
+                result.put(id, cached);
+            } else {
+                waiting.put(id, enqueue(id));
+            }
+        }
+        return waiting;
+    }
+
+    /**
+     * Registrar un id para el próximo lote, o unirse al pedido en vuelo
+     * 
+     * @param id ID del usuario
+     * @return Futuro con el perfil (null si no existe)
+     */
+    private CompletableFuture<PublicProfile> enqueue(String id) {
+        CompletableFuture<PublicProfile> created = new CompletableFuture<>();
+        CompletableFuture<PublicProfile> existing = inFlight.putIfAbsent(id, created);
+        if (existing != null)
+            return existing;
+        pending.add(id);
+        if (flushScheduled.compareAndSet(false, true)) {
+            Mono.delay(batchWindow).subscribe(t -> flush());
+        }
+        return created;
+    }
+
+    /**
+     * Enviar los ids acumulados en la ventana
+     */
+    private void flush() {
+        flushScheduled.set(false);
+        List<String> batch = new ArrayList<>();
+        String id;
+        while ((id = pending.poll()) != null)
+            batch.add(id);
+        if (batch.isEmpty())
+            return;
+        // los perfiles que ya estaban en memoria se recargan desde el servicio
+        List<String> cold = store == null ? List.of() : coldIds(batch);
+        if (cold.isEmpty()) {
+            fetchAndComplete(batch);
+            return;
+        }
+        // la lectura de la caché persistente es bloqueante: fuera del hilo del timer
+        Mono.fromCallable(() -> storedProfiles(cold))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(
+                        stored -> completeFromStore(batch, stored),
+                        err -> {
+                            log.warn("No se pudo leer la caché persistente de perfiles: {}", err.getMessage());
+                            fetchAndComplete(batch);
+                        });
+    }
+
+    /**
+     * Entregar los perfiles encontrados en la caché persistente y pedir el
+     * resto al servicio. Si algo falla, ningún pedido del lote queda en vuelo.
+     * 
+     * @param batch  IDs del lote
+     * @param stored Perfiles guardados por id
+     */
+    private void completeFromStore(List<String> batch, Map<String, PublicProfile> stored) {
+        List<String> missing = new ArrayList<>(batch);
         try {
-            PublicProfile fetched = getPublicProfile(subTrim, idTrim).block();
-            if (cache != null && fetched != null)
-                cache.put(key, fetched);
-            log.debug("profiles cache MISS");
-            return normalize(fetched);
-        } catch (WebClientResponseException e) {
-            int st = e.getStatusCode().value();
-            if ((st == 401 || st == 403) && cache != null) {
-                cache.evictIfPresent(key);
+            List<String> hits = new ArrayList<>(stored.keySet());
+            complete(hits, stored);
+            missing.removeAll(hits);
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron entregar los perfiles guardados: {}", e.getMessage());
+        }
+        if (!missing.isEmpty())
+            fetchAndComplete(missing);
+    }
+
+    /**
+     * Pedir al servicio los perfiles de un lote y entregarlos
+     * 
+     * @param batch IDs de los usuarios
+     */
+    private void fetchAndComplete(List<String> batch) {
+        fetchProfiles(batch).subscribe(
+                found -> {
+                    try {
+                        Map<String, PublicProfile> fetched = new HashMap<>();
+                        found.forEach((k, p) -> {
+                            if (p != NOT_FOUND && p != null)
+                                fetched.put(Sha256.hash("id:" + k), p);
+                        });
+                        store(fetched);
+                        complete(batch, found);
+                    } catch (RuntimeException e) {
+                        fail(batch, e);
+                    }
+                },
+                err -> fail(batch, err));
+    }
+
+    /**
+     * Terminar con error los pedidos de un lote que sigan en vuelo
+     * 
+     * @param batch IDs del lote
+     * @param err   Causa
+     */
+    private void fail(List<String> batch, Throwable err) {
+        log.warn("Falló el lote de {} perfiles: {}", batch.size(), err.getMessage());
+        for (String k : batch) {
+            CompletableFuture<PublicProfile> f = inFlight.remove(k);
+            if (f != null)
+                f.completeExceptionally(err);
+        }
+    }
+
+    /**
+     * Pedidos de perfiles en vuelo
+     * 
+     * @return Número de pedidos
+     */
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * IDs de un lote sin ninguna entrada en la caché en memoria, ni siquiera
+     * vencida
+     * 
+     * @param batch IDs del lote
+     * @return IDs que nunca se cargaron (o ya se descartaron)
+     */
+    private List<String> coldIds(List<String> batch) {
+        Cache cache = cacheManager.getCache("userPublicProfiles");
+        if (cache == null)
+            return batch;
+        List<String> cold = new ArrayList<>();
+        for (String k : batch) {
+            if (cache.get(Sha256.hash("id:" + k)) == null)
+                cold.add(k);
+        }
+        return cold;
+    }
+
+    /**
+     * Leer de la caché persistente los perfiles frescos de un lote
+     * 
+     * @param ids IDs de los usuarios
+     * @return Mapa id -> perfil, solo con los encontrados
+     */
+    private Map<String, PublicProfile> storedProfiles(List<String> ids) {
+        Map<String, String> idByKey = new HashMap<>();
+        for (String k : ids)
+            idByKey.put(Sha256.hash("id:" + k), k);
+        Map<String, PublicProfile> found = new HashMap<>();
+        store.getFresh(idByKey.keySet()).forEach((key, p) -> {
+            // una clave que no se pidió no corresponde a ningún pedido del lote
+            String id = idByKey.get(key);
+            if (id != null && p != null)
+                found.put(id, p);
+        });
+        return found;
+    }
+
+    /**
+     * Guardar en la caché persistente perfiles recién obtenidos
+     * 
+     * @param byKey Mapa clave (hash) -> perfil
+     */
+    private void store(Map<String, PublicProfile> byKey) {
+        if (store != null)
+            store.putAllAsync(byKey);
+    }
+
+    /**
+     * Guardar en caché y entregar los perfiles de un lote
+     * 
+     * @param batch IDs pedidos
+     * @param found Perfiles por id ({@link #NOT_FOUND} si no existe; ausente si
+     *              falló)
+     */
+    private void complete(List<String> batch, Map<String, PublicProfile> found) {
+        Cache cache = cacheManager.getCache("userPublicProfiles");
+        for (String k : batch) {
+            PublicProfile p = found.get(k);
+            if (p == NOT_FOUND) {
+                notFound.put(Sha256.hash("id:" + k), Boolean.TRUE);
+                p = null;
             }
-            throw e;
-        } catch (Exception e) {
-            if (cache != null)
-                cache.evictIfPresent(key);
-            throw e;
+            p = normalize(p);
+            if (p != null && cache != null)
+                cache.put(Sha256.hash("id:" + k), p);
+            CompletableFuture<PublicProfile> f = inFlight.remove(k);
+            if (f != null)
+                f.complete(p);
         }
     }
 
+    /**
+     * Pedir varios perfiles: por lotes si hay endpoint de lote (volviendo a
+     * llamadas individuales si el servicio no lo soporta) o en paralelo
+     * 
+     * @param ids IDs de los usuarios
+     * @return Mono con el mapa id -> perfil ({@link #NOT_FOUND} si no existe)
+     */
+    private Mono<Map<String, PublicProfile>> fetchProfiles(List<String> ids) {
+        if (batchPath == null)
+            return fetchEach(ids);
+        return Flux.fromIterable(ids)
+                .buffer(MAX_BATCH_SIZE)
+                .concatMap(this::fetchBatch)
+                .collectMap(PublicProfile::getId, p -> p)
+                .map(found -> {
+                    // lo que el lote no devuelve no existe
+                    Map<String, PublicProfile> all = new HashMap<>(found);
+                    ids.forEach(id -> all.putIfAbsent(id, NOT_FOUND));
+                    return all;
+                })
+                .onErrorResume(e -> e instanceof WebClientResponseException.NotFound
+                        || e instanceof WebClientResponseException.MethodNotAllowed, e -> {
+                            log.warn("Endpoint de perfiles en lote no disponible, se piden uno a uno");
+                            return fetchEach(ids);
+                        });
+    }
+
+    /**
+     * Llamar al endpoint de lote ({@code GET batchPath?ids=a,b,c})
+     * 
+     * @param ids IDs de los usuarios (máximo {@link #MAX_BATCH_SIZE})
+     * @return Flux con los perfiles encontrados
+     */
+    private Flux<PublicProfile> fetchBatch(List<String> ids) {
+        return bulkhead.protect(batchBreaker.protect(webClient.get()
+                .uri(b -> b.path(batchPath).queryParam("ids", String.join(",", ids)).build())
+                .retrieve()
+                .bodyToFlux(Map.class)
+                .map(this::toProfile)
+                .filter(p -> p.getId() != null)
+                .timeout(Duration.ofSeconds(5))
+                .retryWhen(
+                        Retry.backoff(2, Duration.ofMillis(200))
+                                .filter(ex -> !(ex instanceof WebClientResponseException w
+                                        && w.getStatusCode().is4xxClientError())))
+                .collectList()))
+                .flatMapIterable(list -> list);
+    }
+
+    /**
+     * Pedir cada perfil al endpoint individual, con paralelismo acotado
+     * 
+     * @param ids IDs de los usuarios
+     * @return Mono con el mapa id -> perfil ({@link #NOT_FOUND} si no existe;
+     *         sin los que fallaron)
+     */
+    private Mono<Map<String, PublicProfile>> fetchEach(List<String> ids) {
+        return Flux.fromIterable(ids)
+                .flatMap(id -> getPublicProfile(null, id)
+                        .map(p -> Map.entry(id, p))
+                        .onErrorResume(e -> {
+                            if (e instanceof WebClientResponseException.NotFound)
+                                return Mono.just(Map.entry(id, NOT_FOUND));
+                            log.warn("No se pudo obtener el perfil {}: {}", id, e.getMessage());
+                            return Mono.empty();
+                        }), MAX_CONCURRENT_FETCHES)
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    /**
+     * Consultar solo la caché, sin esperar al servicio de usuarios. Una entrada
+     * cercana a vencer se sigue devolviendo y se recarga en segundo plano con el
+     * próximo lote; una vencida se trata como ausente.
+     * 
+     * @param id ID del usuario
+     * @return Perfil público en caché o null si no está o está vencido
+     */
+    public PublicProfile peekCachedProfile(String id) {
+        String idTrim = trimToNull(id);
+        Cache cache = cacheManager.getCache("userPublicProfiles");
+        if (idTrim == null || cache == null)
+            return null;
+        String key = Sha256.hash("id:" + idTrim);
+        if (cache instanceof RefreshAheadCache refreshing)
+            return normalize(refreshing.<PublicProfile>peek(key, () -> enqueue(idTrim)));
+        return normalize(cache.get(key, PublicProfile.class));
+    }
+
     /**
      * Recorta una cadena y la convierte a null si queda vacía
      * 
@@ -0,0 +1,21 @@
+package edu.eci.arsw.security;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Llamada al servicio de usuarios rechazada sin hacerse (503): circuito
+ * abierto o bulkhead lleno. Quien pueda seguir sin el servicio (por ejemplo,
+ * con un nombre genérico) debe atrapar esta excepción y no sus subtipos.
+ */
+public class UsersServiceUnavailableException extends ResponseStatusException {
+
+    /**
+     * Constructor de la excepción
+     *
+     * @param reason Motivo del rechazo
+     */
+    protected UsersServiceUnavailableException(String reason) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, reason);
+    }
+}
@@ -6,6 +6,7 @@ import edu.eci.arsw.infra.TimeUtils;
 import edu.eci.arsw.repository.AvailabilitySlotRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -27,6 +28,7 @@ import java.util.stream.Collectors;
 public class AvailabilityService {
 
     private final AvailabilitySlotRepository repo;
+    private final ApplicationEventPublisher events;
 
     /**
      * Crear franjas de disponibilidad en bloque
@@ -64,6 +66,7 @@ public class AvailabilityService {
                         .build();
                 try {
                     created.add(repo.save(slot));
+                    events.publishEvent(ScheduleChangeEvent.slotAdded(slot));
                 } catch (DuplicateKeyException e) {
                     // ya existe
                 }
@@ -101,6 +104,7 @@ public class AvailabilityService {
                     "franja de disponibilidad (hora) tiene reserva activa");
         }
         repo.deleteById(slotId);
+        events.publishEvent(ScheduleChangeEvent.slotRemoved(slot));
     }
 
     /**
@@ -121,13 +125,16 @@ public class AvailabilityService {
         for (AvailabilitySlot s : existing) {
             if (!hours.contains(s.getStart()) && !hoursWithActiveRes.contains(s.getStart())) {
                 repo.deleteById(s.getId());
+                events.publishEvent(ScheduleChangeEvent.slotRemoved(s));
             }
         }
         for (LocalTime h : hours) {
             if (!existingHours.contains(h)) {
                 try {
-                    repo.save(AvailabilitySlot.builder()
-                            .tutorId(tutorId).date(date).start(h).end(h.plusHours(1)).build());
+                    AvailabilitySlot slot = AvailabilitySlot.builder()
+                            .tutorId(tutorId).date(date).start(h).end(h.plusHours(1)).build();
+                    repo.save(slot);
+                    events.publishEvent(ScheduleChangeEvent.slotAdded(slot));
                 } catch (DuplicateKeyException ignore) {
                     // ocurrió por creación concurrente, ignorar
                 }
@@ -180,6 +187,7 @@ public class AvailabilityService {
                     log.info("💾 Intentando guardar: {}", newSlot);
                     AvailabilitySlot saved = repo.save(newSlot);
                     log.info("✅ Guardada franja con ID: {}", saved.getId());
+                    events.publishEvent(ScheduleChangeEvent.slotAdded(newSlot));
 
                     added++;
                 } catch (DuplicateKeyException e) {
@@ -0,0 +1,270 @@
+package edu.eci.arsw.service;
+
+import edu.eci.arsw.domain.AvailabilitySlot;
+import edu.eci.arsw.domain.Reservation;
+import edu.eci.arsw.dto.FreeSlot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido en memoria (fecha, hora) -> tutores libres.
+ *
+ * Cada hora se identifica con un entero (epochDay * 24 + hora) y cada tutor con
+ * un entero compacto, de modo que cada celda guarda dos BitSet: tutores con
+ * disponibilidad y tutores con reserva. Un tutor está libre si tiene
+ * disponibilidad y ninguna reserva en esa hora (igual que en
+ * {@link ReservationService#create}, cualquier reserva ocupa la franja).
+ *
+ * Además, por tutor se mantiene un conjunto ordenado de sus horas libres para
+ * responder "la próxima hora libre" en tiempo logarítmico.
+ *
+ * Se construye al arrancar desde MongoDB y luego se mantiene con los
+ * {@link ScheduleChangeEvent} de esta instancia.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FreeSlotIndex {
+
+    private static final ZoneId ZONE = ZoneId.of("America/Bogota");
+
+    private final MongoTemplate mongo;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> tutorCodes = new HashMap<>();
+    private final List<String> tutorIds = new ArrayList<>();
+    private final List<TreeSet<Integer>> freeHoursByTutor = new ArrayList<>();
+    private final NavigableMap<Integer, Cell> cells = new TreeMap<>();
+
+    /** Celda del índice: tutores disponibles y tutores con reserva */
+    private static final class Cell {
+        final BitSet available = new BitSet();
+        final BitSet booked = new BitSet();
+    }
+
+    /**
+     * Reconstruir el índice desde MongoDB (desde hoy en adelante)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        LocalDate today = LocalDate.now(ZONE);
+        Query qAvail = Query.query(Criteria.where("date").gte(today));
+        qAvail.fields().include("tutorId", "date", "start");
+        Query qRes = Query.query(Criteria.where("date").gte(today));
+        qRes.fields().include("tutorId", "date", "start");
+
+        lock.writeLock().lock();
+        try {
+            cells.clear();
+            freeHoursByTutor.forEach(TreeSet::clear);
+            int slots = 0;
+            int reservations = 0;
+            for (AvailabilitySlot s : mongo.find(qAvail, AvailabilitySlot.class)) {
+                if (mark(s.getTutorId(), s.getDate(), s.getStart(), true, true))
+                    slots++;
+            }
+            for (Reservation r : mongo.find(qRes, Reservation.class)) {
+                if (mark(r.getTutorId(), r.getDate(), r.getStart(), false, true))
+                    reservations++;
+            }
+            log.info("Índice de franjas libres construido: {} franjas, {} reservas, {} tutores",
+                    slots, reservations, tutorIds.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Aplicar un cambio del horario al índice
+     *
+     * @param e Evento de cambio
+     */
+    @EventListener
+    public void onScheduleChange(ScheduleChangeEvent e) {
+        lock.writeLock().lock();
+        try {
+            switch (e.getType()) {
+                case SLOT_ADDED -> mark(e.getTutorId(), e.getDate(), e.getStart(), true, true);
+                case SLOT_REMOVED -> mark(e.getTutorId(), e.getDate(), e.getStart(), true, false);
+                case RESERVATION_CHANGED -> mark(e.getTutorId(), e.getDate(), e.getStart(), false, true);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Tutores libres en alguna hora del rango [fromHour, toHour) de un día
+     *
+     * @param date     Fecha
+     * @param fromHour Hora inicial (0-23, inclusive)
+     * @param toHour   Hora final (1-24, exclusiva)
+     * @return IDs de los tutores libres
+     */
+    public List<String> freeTutors(LocalDate date, int fromHour, int toHour) {
+        int from = (int) (date.toEpochDay() * 24 + fromHour);
+        int to = (int) (date.toEpochDay() * 24 + toHour);
+        lock.readLock().lock();
+        try {
+            BitSet free = new BitSet();
+            for (Cell c : cells.subMap(from, true, to, false).values()) {
+                for (int t = c.available.nextSetBit(0); t >= 0; t = c.available.nextSetBit(t + 1)) {
+                    if (!c.booked.get(t))
+                        free.set(t);
+                }
+            }
+            List<String> result = new ArrayList<>(free.cardinality());
+            for (int t = free.nextSetBit(0); t >= 0; t = free.nextSetBit(t + 1)) {
+                result.add(tutorIds.get(t));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Primeras horas libres de un tutor desde una fecha y hora
+     *
+     * @param tutorId ID del tutor
+     * @param after   Fecha y hora desde la que buscar (inclusive)
+     * @param limit   Máximo de resultados
+     * @return Franjas libres en orden cronológico
+     */
+    public List<FreeSlot> nextFreeForTutor(String tutorId, LocalDateTime after, int limit) {
+        int from = epochHour(after.toLocalDate(), after.toLocalTime());
+        lock.readLock().lock();
+        try {
+            Integer code = tutorCodes.get(tutorId);
+            if (code == null)
+                return List.of();
+            List<FreeSlot> result = new ArrayList<>(Math.min(limit, 16));
+            for (Integer h : freeHoursByTutor.get(code).tailSet(from, true)) {
+                if (result.size() >= limit)
+                    break;
+                result.add(toFreeSlot(tutorId, h));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Primeras horas libres con cualquier tutor desde una fecha y hora. Dentro
+     * de una misma hora los tutores se devuelven en un orden estable, de modo
+     * que se puede paginar pasando la última franja recibida.
+     *
+     * @param after        Fecha y hora desde la que buscar (inclusive)
+     * @param afterTutorId Si no es null, en la hora {@code after} se omiten los
+     *                     tutores hasta este (inclusive)
+     * @param limit        Máximo de resultados
+     * @return Franjas libres en orden cronológico
+     */
+    public List<FreeSlot> nextFreeAny(LocalDateTime after, String afterTutorId, int limit) {
+        int from = epochHour(after.toLocalDate(), after.toLocalTime());
+        lock.readLock().lock();
+        try {
+            Integer skipUpTo = afterTutorId == null ? null : tutorCodes.get(afterTutorId);
+            List<FreeSlot> result = new ArrayList<>(Math.min(limit, 16));
+            for (Map.Entry<Integer, Cell> e : cells.tailMap(from, true).entrySet()) {
+                Cell c = e.getValue();
+                int t = skipUpTo != null && e.getKey() == from ? skipUpTo + 1 : 0;
+                for (t = c.available.nextSetBit(t); t >= 0; t = c.available.nextSetBit(t + 1)) {
+                    if (c.booked.get(t))
+                        continue;
+                    if (result.size() >= limit)
+                        return result;
+                    result.add(toFreeSlot(tutorIds.get(t), e.getKey()));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Marcar un bit del índice. Debe llamarse con el lock de escritura tomado.
+     *
+     * @param tutorId   ID del tutor
+     * @param date      Fecha
+     * @param start     Hora de inicio
+     * @param available true para el bit de disponibilidad, false para el de
+     *                  reserva
+     * @param value     Valor del bit
+     * @return true si el cambio se aplicó
+     */
+    private boolean mark(String tutorId, LocalDate date, LocalTime start, boolean available, boolean value) {
+        if (tutorId == null || date == null || start == null)
+            return false;
+        int key = epochHour(date, start);
+        Cell cell = value ? cells.computeIfAbsent(key, k -> new Cell()) : cells.get(key);
+        if (cell == null)
+            return false;
+        int code = tutorCode(tutorId);
+        (available ? cell.available : cell.booked).set(code, value);
+
+        TreeSet<Integer> freeHours = freeHoursByTutor.get(code);
+        if (cell.available.get(code) && !cell.booked.get(code)) {
+            freeHours.add(key);
+        } else {
+            freeHours.remove(key);
+        }
+        if (cell.available.isEmpty() && cell.booked.isEmpty()) {
+            cells.remove(key);
+        }
+        return true;
+    }
+
+    /**
+     * Obtener (o asignar) el código entero de un tutor
+     *
+     * @param tutorId ID del tutor
+     * @return Código compacto
+     */
+    private int tutorCode(String tutorId) {
+        return tutorCodes.computeIfAbsent(tutorId, id -> {
+            tutorIds.add(id);
+            freeHoursByTutor.add(new TreeSet<>());
+            return tutorIds.size() - 1;
+        });
+    }
+
+    /**
+     * Construir la franja libre de una hora codificada
+     *
+     * @param tutorId   ID del tutor
+     * @param epochHour Horas desde la época
+     * @return Franja libre
+     */
+    private static FreeSlot toFreeSlot(String tutorId, int epochHour) {
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(epochHour, 24));
+        LocalTime hour = LocalTime.of(Math.floorMod(epochHour, 24), 0);
+        return new FreeSlot(tutorId, date.toString(), hour.toString());
+    }
+
+    /**
+     * Codificar una fecha y hora como número de horas desde la época
+     *
+     * @param date Fecha
+     * @param hour Hora
+     * @return Horas desde 1970-01-01T00:00
+     */
+    static int epochHour(LocalDate date, LocalTime hour) {
+        return (int) (date.toEpochDay() * 24 + hour.getHour());
+    }
+}
@@ -0,0 +1,21 @@
+package edu.eci.arsw.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Exportación que escribe JSON delimitado por saltos de línea en una salida,
+ * sin depender de cómo se entrega (respuesta HTTP, archivo, etc.)
+ */
+@FunctionalInterface
+public interface NdjsonWriter {
+
+    /**
+     * Escribir la exportación
+     *
+     * @param out Salida
+     * @throws IOException si no se puede escribir (por ejemplo, el cliente
+     *                     cerró la conexión)
+     */
+    void writeTo(OutputStream out) throws IOException;
+}
@@ -0,0 +1,130 @@
+package edu.eci.arsw.service;
+
+import edu.eci.arsw.domain.ParticipantSnapshot;
+import edu.eci.arsw.domain.Reservation;
+import edu.eci.arsw.dto.PublicProfile;
+import edu.eci.arsw.security.UsersPublicClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mantiene al día las copias de perfiles guardadas en las reservas.
+ *
+ * Recorre la colección por páginas (por _id), pide los perfiles de cada página
+ * en un solo lote y actualiza solo las reservas cuya copia falta o tiene otra
+ * huella. La actualización toca únicamente el campo {@code participants}, sin
+ * pisar cambios concurrentes del resto de la reserva.
+ */
+@Slf4j
+@Component
+public class ParticipantSnapshotReconciler {
+
+    private final MongoTemplate mongo;
+    private final UsersPublicClient usersPublicClient;
+    private final int pageSize;
+
+    /**
+     * Constructor del reconciliador
+     * 
+     * @param mongo             Plantilla de Mongo
+     * @param usersPublicClient Cliente de perfiles públicos
+     * @param pageSize          Reservas por página
+     */
+    public ParticipantSnapshotReconciler(
+            MongoTemplate mongo,
+            UsersPublicClient usersPublicClient,
+            @Value("${reservations.snapshot.page-size:200}") int pageSize) {
+        this.mongo = mongo;
+        this.usersPublicClient = usersPublicClient;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Revisar todas las reservas y refrescar las copias desactualizadas
+     * 
+     * @return Cantidad de reservas actualizadas
+     */
+    @Scheduled(initialDelayString = "${reservations.snapshot.initial-delay-ms:60000}",
+            fixedDelayString = "${reservations.snapshot.reconcile-delay-ms:900000}")
+    public int reconcile() {
+        int updated = 0;
+        String lastId = null;
+        try {
+            List<Reservation> page;
+            do {
+                page = mongo.find(pageQuery(lastId), Reservation.class);
+                if (page.isEmpty())
+                    break;
+                updated += reconcilePage(page);
+                lastId = page.get(page.size() - 1).getId();
+            } while (page.size() == pageSize);
+        } catch (RuntimeException e) {
+            log.warn("Reconciliación de perfiles interrumpida tras {} actualizaciones: {}", updated, e.getMessage());
+            return updated;
+        }
+        if (updated > 0)
+            log.info("Reconciliación de perfiles: {} reservas actualizadas", updated);
+        return updated;
+    }
+
+    /**
+     * Consulta de la página siguiente a una reserva, solo con los campos
+     * necesarios
+     * 
+     * @param afterId ID de la última reserva revisada (null para empezar)
+     * @return Consulta de la página
+     */
+    private Query pageQuery(String afterId) {
+        Query q = afterId == null ? new Query() : new Query(Criteria.where("id").gt(afterId));
+        q.fields().include("studentId", "tutorId", "participants");
+        return q.with(Sort.by(Sort.Direction.ASC, "id")).limit(pageSize);
+    }
+
+    /**
+     * Refrescar las copias de una página
+     * 
+     * @param page Reservas de la página
+     * @return Cantidad de reservas actualizadas
+     */
+    private int reconcilePage(List<Reservation> page) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (Reservation r : page) {
+            if (r.getStudentId() != null)
+                ids.add(r.getStudentId());
+            if (r.getTutorId() != null)
+                ids.add(r.getTutorId());
+        }
+        Map<String, PublicProfile> profiles = usersPublicClient.getPublicProfiles(ids);
+
+        int updated = 0;
+        Instant now = Instant.now();
+        for (Reservation r : page) {
+            PublicProfile student = profiles.get(r.getStudentId());
+            PublicProfile tutor = profiles.get(r.getTutorId());
+            // sin perfil no se puede comparar: se conserva la copia actual
+            if (student == null || tutor == null)
+                continue;
+            ParticipantSnapshot current = r.getParticipants();
+            if (current != null && ParticipantSnapshots.version(student, tutor).equals(current.getVersion()))
+                continue;
+            mongo.updateFirst(new Query(Criteria.where("id").is(r.getId())),
+                    Update.update("participants", ParticipantSnapshots.of(student, tutor, now)),
+                    Reservation.class);
+            updated++;
+        }
+        return updated;
+    }
+}
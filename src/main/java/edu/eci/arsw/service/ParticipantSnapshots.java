@@ -0,0 +1,96 @@
+package edu.eci.arsw.service;
+
+import edu.eci.arsw.domain.ParticipantSnapshot;
+import edu.eci.arsw.dto.PublicProfile;
+import edu.eci.arsw.security.Sha256;
+import edu.eci.arsw.security.UsersPublicClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Captura de las copias de perfiles que se guardan en las reservas
+ */
+@Slf4j
+@Component
+public class ParticipantSnapshots {
+
+    private final UsersPublicClient usersPublicClient;
+    private final Duration captureTimeout;
+
+    /**
+     * Constructor de la captura
+     * 
+     * @param usersPublicClient Cliente de perfiles públicos
+     * @param captureTimeoutMs  Espera máxima por los perfiles al crear una
+     *                          reserva
+     */
+    public ParticipantSnapshots(
+            UsersPublicClient usersPublicClient,
+            @Value("${reservations.snapshot.capture-timeout-ms:300}") long captureTimeoutMs) {
+        this.usersPublicClient = usersPublicClient;
+        this.captureTimeout = Duration.ofMillis(captureTimeoutMs);
+    }
+
+    /**
+     * Capturar los perfiles de los participantes de una reserva nueva. Es de
+     * mejor esfuerzo y acotado: si algún perfil no llega dentro de la espera
+     * máxima se devuelve null y la copia la completa el reconciliador. El pedido
+     * sigue en segundo plano y deja el perfil en caché para la próxima vez.
+     * 
+     * @param studentId ID del estudiante
+     * @param tutorId   ID del tutor
+     * @return Copia de los perfiles o null
+     */
+    public ParticipantSnapshot capture(String studentId, String tutorId) {
+        try {
+            Map<String, PublicProfile> profiles = usersPublicClient
+                    .getPublicProfilesAsync(List.of(studentId, tutorId))
+                    .block(captureTimeout);
+            if (profiles == null)
+                return null;
+            return of(profiles.get(studentId), profiles.get(tutorId), Instant.now());
+        } catch (RuntimeException e) {
+            log.debug("No se pudieron capturar los perfiles de {} y {}: {}", studentId, tutorId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Armar una copia a partir de los perfiles
+     * 
+     * @param student Perfil del estudiante
+     * @param tutor   Perfil del tutor
+     * @param at      Momento de la captura
+     * @return Copia de los perfiles, o null si falta alguno
+     */
+    public static ParticipantSnapshot of(PublicProfile student, PublicProfile tutor, Instant at) {
+        if (student == null || tutor == null)
+            return null;
+        return ParticipantSnapshot.builder()
+                .studentName(student.getName())
+                .studentAvatar(student.getAvatarUrl())
+                .tutorName(tutor.getName())
+                .tutorAvatar(tutor.getAvatarUrl())
+                .version(version(student, tutor))
+                .capturedAt(at)
+                .build();
+    }
+
+    /**
+     * Huella de los datos copiados de ambos perfiles
+     * 
+     * @param student Perfil del estudiante
+     * @param tutor   Perfil del tutor
+     * @return Hash de nombre y avatar de ambos
+     */
+    public static String version(PublicProfile student, PublicProfile tutor) {
+        return Sha256.hash(student.getName() + "|" + student.getAvatarUrl() + "|"
+                + tutor.getName() + "|" + tutor.getAvatarUrl());
+    }
+}
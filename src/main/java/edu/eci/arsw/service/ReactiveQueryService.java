@@ -0,0 +1,74 @@
+package edu.eci.arsw.service;
+
+import edu.eci.arsw.dto.ReservationView;
+import edu.eci.arsw.dto.ScheduleCell;
+import edu.eci.arsw.repository.ReactiveAvailabilitySlotRepository;
+import edu.eci.arsw.repository.ReactiveReservationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Consultas de lectura no bloqueantes: usan los repositorios reactivos de Mongo
+ * y la resolución de perfiles sin bloquear, así ningún hilo queda esperando a
+ * la base de datos ni al servicio de usuarios
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveQueryService {
+
+    private final ReactiveReservationRepository reservations;
+    private final ReactiveAvailabilitySlotRepository slots;
+    private final ReservationViewAssembler assembler;
+    private final ScheduleService scheduleService;
+
+    /**
+     * Listar reservas por tutor
+     * 
+     * @param tutorId ID del tutor
+     * @return Mono con las vistas de reservas del tutor
+     */
+    public Mono<List<ReservationView>> listByTutor(String tutorId) {
+        return reservations.findByTutorIdOrderByDateAscStartAsc(tutorId)
+                .collectList()
+                .flatMap(assembler::toViewsAsync);
+    }
+
+    /**
+     * Listar reservas por estudiante
+     * 
+     * @param studentId ID del estudiante
+     * @return Mono con las vistas de reservas del estudiante
+     */
+    public Mono<List<ReservationView>> listByStudent(String studentId) {
+        return reservations.findByStudentIdOrderByDateAscStartAsc(studentId)
+                .collectList()
+                .flatMap(assembler::toViewsAsync);
+    }
+
+    /**
+     * Obtener el horario semanal de un tutor
+     * 
+     * @param tutorId   ID del tutor
+     * @param weekStart Fecha de inicio de la semana
+     * @return Mono con las celdas del horario
+     */
+    public Mono<List<ScheduleCell>> weekForTutor(String tutorId, LocalDate weekStart) {
+        if (tutorId == null || tutorId.isBlank() || weekStart == null) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "tutorId and weekStart are required"));
+        }
+        LocalDate weekEnd = weekStart.plusDays(6);
+        return Mono.zip(
+                slots.findByTutorIdAndDateGreaterThanEqualAndDateLessThanEqual(tutorId, weekStart, weekEnd)
+                        .collectList(),
+                reservations.findByTutorIdAndDateGreaterThanEqualAndDateLessThanEqual(tutorId, weekStart, weekEnd)
+                        .collectList())
+                .map(t -> scheduleService.assembleWeek(weekStart, t.getT1(), t.getT2()));
+    }
+}
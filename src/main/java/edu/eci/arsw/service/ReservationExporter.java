@@ -0,0 +1,96 @@
+package edu.eci.arsw.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.eci.arsw.domain.Reservation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Exporta listados de reservas como JSON delimitado por saltos de línea
+ * (application/x-ndjson).
+ *
+ * Las reservas se leen con un cursor de Mongo y se escriben en lotes de
+ * {@link #BATCH_SIZE}, haciendo flush tras cada lote. Así el primer byte sale
+ * con el primer lote y la memoria usada no depende del tamaño del historial.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReservationExporter {
+
+    static final int BATCH_SIZE = 100;
+
+    private final MongoTemplate mongo;
+    private final ReservationViewAssembler assembler;
+    private final ObjectMapper mapper;
+
+    /**
+     * Exportar reservas enriquecidas con los perfiles de los participantes
+     *
+     * @param query Consulta (con su orden)
+     * @return Exportación, que lee el cursor al escribirse
+     */
+    public NdjsonWriter views(Query query) {
+        return body(query, assembler::toViews);
+    }
+
+    /**
+     * Exportar reservas tal como están guardadas
+     *
+     * @param query Consulta (con su orden)
+     * @return Exportación, que lee el cursor al escribirse
+     */
+    public NdjsonWriter reservations(Query query) {
+        return body(query, Function.identity());
+    }
+
+    /**
+     * Exportación que recorre el cursor y escribe cada lote transformado
+     *
+     * @param query     Consulta
+     * @param transform Transformación de cada lote
+     * @return Exportación
+     */
+    private NdjsonWriter body(Query query, Function<List<Reservation>, ? extends List<?>> transform) {
+        return out -> {
+            query.cursorBatchSize(BATCH_SIZE);
+            try (Stream<Reservation> rs = mongo.stream(query, Reservation.class)) {
+                Iterator<Reservation> it = rs.iterator();
+                List<Reservation> batch = new ArrayList<>(BATCH_SIZE);
+                while (it.hasNext()) {
+                    batch.add(it.next());
+                    if (batch.size() == BATCH_SIZE) {
+                        write(out, transform.apply(batch));
+                        batch = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+                if (!batch.isEmpty())
+                    write(out, transform.apply(batch));
+            }
+        };
+    }
+
+    /**
+     * Escribir un lote, una línea por elemento, y hacer flush
+     *
+     * @param out   Salida
+     * @param items Elementos del lote
+     * @throws IOException si el cliente cerró la conexión
+     */
+    private void write(OutputStream out, List<?> items) throws IOException {
+        for (Object item : items) {
+            out.write(mapper.writeValueAsBytes(item));
+            out.write('\n');
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,80 @@
+package edu.eci.arsw.service;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.util.StringUtils;
+
+/**
+ * Consultas de reservas compartidas por los endpoints bloqueantes y reactivos
+ */
+public final class ReservationQueries {
+
+    public static final String FIELD_STUDENT_ID = "studentId";
+    public static final String FIELD_TUTOR_ID = "tutorId";
+    private static final String FIELD_DATE = "date";
+    private static final String FIELD_START = "start";
+
+    private ReservationQueries() {
+    }
+
+    /**
+     * Consulta de todas las reservas de un participante, en el mismo orden que
+     * los listados
+     * 
+     * @param ownerField Campo del participante (estudiante o tutor)
+     * @param ownerId    ID del participante
+     * @return Consulta ordenada por fecha y hora
+     */
+    public static Query byOwner(String ownerField, String ownerId) {
+        return new Query(Criteria.where(ownerField).is(ownerId))
+                .with(Sort.by(Sort.Direction.ASC, FIELD_DATE, FIELD_START));
+    }
+
+    /**
+     * Consulta de las reservas de un estudiante en un rango de fechas
+     * 
+     * @param studentId ID del estudiante
+     * @param from      Fecha de inicio del rango (opcional)
+     * @param to        Fecha de fin del rango (opcional)
+     * @return Consulta ordenada por fecha y hora
+     */
+    public static Query studentInRange(String studentId, String from, String to) {
+        return byOwnerInRange(FIELD_STUDENT_ID, studentId, from, to);
+    }
+
+    /**
+     * Consulta de las reservas de un tutor en un rango de fechas
+     * 
+     * @param tutorId ID del tutor
+     * @param from    Fecha de inicio del rango (opcional)
+     * @param to      Fecha de fin del rango (opcional)
+     * @return Consulta ordenada por fecha y hora
+     */
+    public static Query tutorInRange(String tutorId, String from, String to) {
+        return byOwnerInRange(FIELD_TUTOR_ID, tutorId, from, to);
+    }
+
+    /**
+     * Consulta de las reservas de un participante en un rango de fechas
+     * 
+     * @param ownerField Campo del participante (estudiante o tutor)
+     * @param ownerId    ID del participante
+     * @param from       Fecha de inicio del rango (opcional)
+     * @param to         Fecha de fin del rango (opcional)
+     * @return Consulta ordenada por fecha y hora
+     */
+    private static Query byOwnerInRange(String ownerField, String ownerId, String from, String to) {
+        Query q = new Query().addCriteria(Criteria.where(ownerField).is(ownerId));
+
+        Criteria c = Criteria.where(FIELD_DATE);
+        if (StringUtils.hasText(from))
+            c = c.gte(from);
+        if (StringUtils.hasText(to))
+            c = c.lte(to);
+        q.addCriteria(c);
+
+        q.with(Sort.by(Sort.Direction.ASC, FIELD_DATE).and(Sort.by(FIELD_START)));
+        return q;
+    }
+}
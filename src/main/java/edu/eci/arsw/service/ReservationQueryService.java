@@ -2,11 +2,24 @@
 package edu.eci.arsw.service;
 
 import edu.eci.arsw.domain.Reservation;
+import edu.eci.arsw.domain.ReservationStatus;
+import edu.eci.arsw.dto.ReservationPage;
 import edu.eci.arsw.dto.ReservationView;
 import edu.eci.arsw.repository.ReservationRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 
 /**
@@ -16,8 +29,17 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ReservationQueryService {
 
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 200;
+
     private final ReservationRepository reservationRepository;
     private final ReservationViewAssembler assembler;
+    private final MongoTemplate mongo;
+    private final ReservationExporter exporter;
+
+    /** Posición de la última reserva entregada */
+    record Cursor(LocalDate date, LocalTime start, String id) {
+    }
 
     /**
      * Listar reservas por tutor
@@ -27,7 +49,7 @@ public class ReservationQueryService {
      */
     public List<ReservationView> listByTutor(String tutorId) {
         List<Reservation> rs = reservationRepository.findByTutorIdOrderByDateAscStartAsc(tutorId);
-        return rs.stream().map(assembler::toView).toList();
+        return assembler.toViews(rs);
     }
 
     /**
@@ -38,6 +60,154 @@ public class ReservationQueryService {
      */
     public List<ReservationView> listByStudent(String studentId) {
         List<Reservation> rs = reservationRepository.findByStudentIdOrderByDateAscStartAsc(studentId);
-        return rs.stream().map(assembler::toView).toList();
+        return assembler.toViews(rs);
+    }
+
+    /**
+     * Exportar en streaming las reservas de un tutor
+     * 
+     * @param tutorId ID del tutor
+     * @return Exportación NDJSON de las vistas de las reservas
+     */
+    public NdjsonWriter streamByTutor(String tutorId) {
+        return exporter.views(ReservationQueries.byOwner(ReservationQueries.FIELD_TUTOR_ID, tutorId));
+    }
+
+    /**
+     * Exportar en streaming las reservas de un estudiante
+     * 
+     * @param studentId ID del estudiante
+     * @return Exportación NDJSON de las vistas de las reservas
+     */
+    public NdjsonWriter streamByStudent(String studentId) {
+        return exporter.views(ReservationQueries.byOwner(ReservationQueries.FIELD_STUDENT_ID, studentId));
+    }
+
+    /**
+     * Página de reservas de un tutor
+     * 
+     * @param tutorId  ID del tutor
+     * @param cursor   Cursor de la página anterior (null para la primera)
+     * @param limit    Tamaño de página (null para el valor por defecto)
+     * @param from     Fecha mínima (inclusive, opcional)
+     * @param to       Fecha máxima (inclusive, opcional)
+     * @param statuses Estados guardados a incluir (opcional)
+     * @return Página de vistas de reservas
+     */
+    public ReservationPage pageByTutor(String tutorId, String cursor, Integer limit,
+            LocalDate from, LocalDate to, List<ReservationStatus> statuses) {
+        return page("tutorId", tutorId, cursor, limit, from, to, statuses);
+    }
+
+    /**
+     * Página de reservas de un estudiante
+     * 
+     * @param studentId ID del estudiante
+     * @param cursor    Cursor de la página anterior (null para la primera)
+     * @param limit     Tamaño de página (null para el valor por defecto)
+     * @param from      Fecha mínima (inclusive, opcional)
+     * @param to        Fecha máxima (inclusive, opcional)
+     * @param statuses  Estados guardados a incluir (opcional)
+     * @return Página de vistas de reservas
+     */
+    public ReservationPage pageByStudent(String studentId, String cursor, Integer limit,
+            LocalDate from, LocalDate to, List<ReservationStatus> statuses) {
+        return page("studentId", studentId, cursor, limit, from, to, statuses);
+    }
+
+    /**
+     * Paginación por keyset sobre (date, start, _id): cada página continúa
+     * después de la última reserva entregada, usando los índices compuestos
+     * (tutorId|studentId, date, start) en lugar de saltar filas.
+     * 
+     * @param ownerField Campo del dueño ("tutorId" o "studentId")
+     * @param ownerId    ID del dueño
+     * @param cursor     Cursor de la página anterior
+     * @param limit      Tamaño de página
+     * @param from       Fecha mínima
+     * @param to         Fecha máxima
+     * @param statuses   Estados a incluir
+     * @return Página de vistas de reservas
+     */
+    private ReservationPage page(String ownerField, String ownerId, String cursor, Integer limit,
+            LocalDate from, LocalDate to, List<ReservationStatus> statuses) {
+        int size = pageSize(limit);
+        if (from != null && to != null && to.isBefore(from)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "to debe ser posterior a from");
+        }
+
+        List<Criteria> and = new ArrayList<>();
+        and.add(Criteria.where(ownerField).is(ownerId));
+        if (from != null)
+            and.add(Criteria.where("date").gte(from));
+        if (to != null)
+            and.add(Criteria.where("date").lte(to));
+        if (statuses != null && !statuses.isEmpty())
+            and.add(Criteria.where("status").in(statuses));
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor c = decodeCursor(cursor);
+            and.add(new Criteria().orOperator(
+                    Criteria.where("date").gt(c.date()),
+                    Criteria.where("date").is(c.date()).and("start").gt(c.start()),
+                    Criteria.where("date").is(c.date()).and("start").is(c.start()).and("id").gt(c.id())));
+        }
+
+        Query q = new Query(new Criteria().andOperator(and))
+                .with(Sort.by(Sort.Direction.ASC, "date", "start", "id"))
+                .limit(size + 1);
+        List<Reservation> rs = mongo.find(q, Reservation.class);
+
+        String next = null;
+        if (rs.size() > size) {
+            rs = rs.subList(0, size);
+            next = encodeCursor(rs.get(size - 1));
+        }
+        return new ReservationPage(assembler.toViews(rs), next);
+    }
+
+    /**
+     * Validar el tamaño de página
+     * 
+     * @param limit Tamaño pedido (null para el valor por defecto)
+     * @return Tamaño de página
+     */
+    private static int pageSize(Integer limit) {
+        if (limit == null)
+            return DEFAULT_PAGE_SIZE;
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+
+    /**
+     * Codificar la posición de una reserva como cursor opaco
+     * 
+     * @param r Última reserva de la página
+     * @return Cursor en base64 url-safe
+     */
+    static String encodeCursor(Reservation r) {
+        String raw = r.getDate() + "|" + r.getStart() + "|" + r.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodificar un cursor
+     * 
+     * @param cursor Cursor recibido
+     * @return Posición de la última reserva entregada
+     * @throws ResponseStatusException 400 si el cursor no es válido
+     */
+    static Cursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3 || parts[2].isEmpty())
+                throw new IllegalArgumentException(raw);
+            return new Cursor(LocalDate.parse(parts[0]), LocalTime.parse(parts[1]), parts[2]);
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "cursor inválido");
+        }
     }
 }
@@ -8,6 +8,7 @@ import edu.eci.arsw.repository.AvailabilitySlotRepository;
 import edu.eci.arsw.repository.ReservationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -28,6 +29,8 @@ public class ReservationService {
 
     private final ReservationRepository repo;
     private final AvailabilitySlotRepository avRepo;
+    private final ApplicationEventPublisher events;
+    private final ParticipantSnapshots snapshots;
     private static final ZoneId BOGOTA_ZONE = ZoneId.of("America/Bogota");
 
     /**
@@ -67,9 +70,12 @@ public class ReservationService {
                 .end(end)
                 .status(ReservationStatus.PENDIENTE) // Inicia como PENDIENTE
                 .attended(null)
+                .participants(snapshots.capture(studentId, req.getTutorId()))
                 .build();
         try {
-            return repo.save(r);
+            Reservation saved = repo.save(r);
+            events.publishEvent(ScheduleChangeEvent.reservationChanged(saved));
+            return saved;
         } catch (DuplicateKeyException e) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "La franja de disponibilidad ya fue reservada");
         }
@@ -120,7 +126,9 @@ public class ReservationService {
         }
 
         r.setStatus(newStatus);
-        return repo.save(r);
+        Reservation saved = repo.save(r);
+        events.publishEvent(ScheduleChangeEvent.reservationChanged(saved));
+        return saved;
     }
 
     /**
@@ -1,15 +1,19 @@
 package edu.eci.arsw.service;
 
+import edu.eci.arsw.domain.ParticipantSnapshot;
 import edu.eci.arsw.domain.Reservation;
 import edu.eci.arsw.domain.ReservationStatus;
 import edu.eci.arsw.dto.ReservationView;
 import edu.eci.arsw.dto.PublicProfile;
 import edu.eci.arsw.security.UsersPublicClient;
+import edu.eci.arsw.security.UsersServiceUnavailableException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
@@ -26,9 +30,121 @@ public class ReservationViewAssembler {
      * @return Vista de la reserva
      */
     public ReservationView toView(Reservation r) {
-        PublicProfile student = usersPublicClient.getPublicProfileCached(null, r.getStudentId());
-        PublicProfile tutor = usersPublicClient.getPublicProfileCached(null, r.getTutorId());
+        if (r.getParticipants() != null)
+            return fromSnapshot(r);
+        PublicProfile student = profileOrNull(r.getStudentId());
+        PublicProfile tutor = profileOrNull(r.getTutorId());
+        return build(r, student, tutor);
+    }
 
+    /**
+     * Obtener un perfil; si el servicio de usuarios está caído o saturado
+     * (circuito abierto o bulkhead lleno) se devuelve null para usar el nombre
+     * genérico
+     * 
+     * @param id ID del usuario
+     * @return Perfil público o null
+     */
+    private PublicProfile profileOrNull(String id) {
+        try {
+            return usersPublicClient.getPublicProfileCached(null, id);
+        } catch (UsersServiceUnavailableException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Convertir una lista de reservas a vistas resolviendo cada perfil una sola
+     * vez con {@link UsersPublicClient#getPublicProfiles}. Las reservas con
+     * copia de perfiles no consultan el servicio de usuarios. Si un perfil no se
+     * puede obtener se usa el nombre genérico.
+     * 
+     * @param rs Reservas a convertir
+     * @return Vistas en el mismo orden
+     */
+    public List<ReservationView> toViews(List<Reservation> rs) {
+        if (rs.isEmpty())
+            return List.of();
+        Set<String> ids = profileIds(rs);
+        Map<String, PublicProfile> profiles = ids.isEmpty() ? Map.of() : usersPublicClient.getPublicProfiles(ids);
+        return assemble(rs, profiles);
+    }
+
+    /**
+     * Versión no bloqueante de {@link #toViews}
+     * 
+     * @param rs Reservas a convertir
+     * @return Mono con las vistas en el mismo orden
+     */
+    public Mono<List<ReservationView>> toViewsAsync(List<Reservation> rs) {
+        Set<String> ids = profileIds(rs);
+        if (ids.isEmpty())
+            return Mono.just(assemble(rs, Map.of()));
+        return usersPublicClient.getPublicProfilesAsync(ids).map(profiles -> assemble(rs, profiles));
+    }
+
+    /**
+     * IDs de los participantes cuyas reservas no tienen copia de perfiles
+     * 
+     * @param rs Reservas
+     * @return IDs sin repetir
+     */
+    private static Set<String> profileIds(List<Reservation> rs) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (Reservation r : rs) {
+            if (r.getParticipants() != null)
+                continue;
+            if (r.getStudentId() != null)
+                ids.add(r.getStudentId());
+            if (r.getTutorId() != null)
+                ids.add(r.getTutorId());
+        }
+        return ids;
+    }
+
+    /**
+     * Armar las vistas con los perfiles ya resueltos
+     * 
+     * @param rs       Reservas
+     * @param profiles Perfiles por id
+     * @return Vistas en el mismo orden
+     */
+    private List<ReservationView> assemble(List<Reservation> rs, Map<String, PublicProfile> profiles) {
+        List<ReservationView> views = new ArrayList<>(rs.size());
+        for (Reservation r : rs) {
+            if (r.getParticipants() != null) {
+                views.add(fromSnapshot(r));
+            } else {
+                views.add(build(r, profiles.get(r.getStudentId()), profiles.get(r.getTutorId())));
+            }
+        }
+        return views;
+    }
+
+    /**
+     * Construir la vista con la copia de perfiles guardada en la reserva
+     * 
+     * @param r Reserva con copia de perfiles
+     * @return Vista de la reserva
+     */
+    private ReservationView fromSnapshot(Reservation r) {
+        ParticipantSnapshot p = r.getParticipants();
+        return build(r,
+                PublicProfile.builder().id(r.getStudentId()).name(p.getStudentName()).avatarUrl(p.getStudentAvatar())
+                        .build(),
+                PublicProfile.builder().id(r.getTutorId()).name(p.getTutorName()).avatarUrl(p.getTutorAvatar())
+                        .build());
+    }
+
+    /**
+     * Construir la vista de una reserva con los perfiles ya resueltos
+     * 
+     * @param r       Reserva
+     * @param student Perfil del estudiante (puede ser null)
+     * @param tutor   Perfil del tutor (puede ser null)
+     * @return Vista de la reserva
+     */
+    private ReservationView build(Reservation r, PublicProfile student, PublicProfile tutor) {
         return ReservationView.builder()
                 .id(r.getId())
                 .tutorId(r.getTutorId())
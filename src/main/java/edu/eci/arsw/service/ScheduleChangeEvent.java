@@ -0,0 +1,65 @@
+package edu.eci.arsw.service;
+
+import edu.eci.arsw.domain.AvailabilitySlot;
+import edu.eci.arsw.domain.Reservation;
+import edu.eci.arsw.domain.ReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Evento publicado por los servicios de escritura cada vez que cambia una
+ * celda (tutor, fecha, hora) del horario.
+ */
+@Value
+@AllArgsConstructor
+public class ScheduleChangeEvent {
+
+    /** Tipo de cambio sobre la celda */
+    public enum Type {
+        SLOT_ADDED, SLOT_REMOVED, RESERVATION_CHANGED
+    }
+
+    Type type;
+    String tutorId;
+    LocalDate date;
+    LocalTime start;
+    String reservationId;
+    String studentId;
+    ReservationStatus status;
+
+    /**
+     * Evento de franja de disponibilidad creada
+     *
+     * @param slot Franja creada
+     * @return Evento
+     */
+    public static ScheduleChangeEvent slotAdded(AvailabilitySlot slot) {
+        return new ScheduleChangeEvent(Type.SLOT_ADDED, slot.getTutorId(), slot.getDate(), slot.getStart(),
+                null, null, null);
+    }
+
+    /**
+     * Evento de franja de disponibilidad eliminada
+     *
+     * @param slot Franja eliminada
+     * @return Evento
+     */
+    public static ScheduleChangeEvent slotRemoved(AvailabilitySlot slot) {
+        return new ScheduleChangeEvent(Type.SLOT_REMOVED, slot.getTutorId(), slot.getDate(), slot.getStart(),
+                null, null, null);
+    }
+
+    /**
+     * Evento de reserva creada o con cambio de estado
+     *
+     * @param r Reserva
+     * @return Evento
+     */
+    public static ScheduleChangeEvent reservationChanged(Reservation r) {
+        return new ScheduleChangeEvent(Type.RESERVATION_CHANGED, r.getTutorId(), r.getDate(), r.getStart(),
+                r.getId(), r.getStudentId(), r.getStatus());
+    }
+}
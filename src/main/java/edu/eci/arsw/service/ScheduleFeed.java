@@ -0,0 +1,311 @@
+package edu.eci.arsw.service;
+
+import edu.eci.arsw.dto.ScheduleCell;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Difusión en vivo (Server-Sent Events) de los cambios de celdas del horario
+ * de un tutor para una semana.
+ *
+ * Los servicios de escritura publican {@link ScheduleChangeEvent}; cada cambio
+ * se encola en el buffer acotado de los suscriptores de ese tutor y semana y
+ * se envía desde un hilo aparte, así una conexión lenta nunca bloquea una
+ * escritura. Si el buffer se llena se descartan los cambios pendientes y se
+ * envía un evento "resync" para que el cliente recargue la semana.
+ *
+ * Cada suscriptor envía en serie, en un hilo propio mientras tenga algo
+ * pendiente (los hilos se crean bajo demanda), así un cliente que deja de leer
+ * solo bloquea su propio envío. Los heartbeats también se encolan en cada
+ * suscriptor; el hilo del heartbeat solo revisa cuánto lleva cada envío y
+ * desconecta al suscriptor que supera el tiempo máximo de escritura.
+ */
+@Slf4j
+@Component
+public class ScheduleFeed {
+
+    static final String EVENT_CELL = "cell";
+    static final String EVENT_RESYNC = "resync";
+
+    private final int bufferSize;
+    private final long timeoutMs;
+    private final long writeTimeoutNanos;
+    private final Executor sender;
+    private final ScheduledExecutorService heartbeats;
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor del feed
+     *
+     * @param bufferSize       Cambios máximos pendientes por suscriptor
+     * @param heartbeatSeconds Intervalo del heartbeat
+     * @param timeoutMinutes   Duración máxima de una conexión
+     * @param writeTimeoutMs   Tiempo máximo de un envío antes de desconectar al
+     *                         suscriptor
+     */
+    @Autowired
+    public ScheduleFeed(
+            @Value("${schedule.feed.buffer-size:64}") int bufferSize,
+            @Value("${schedule.feed.heartbeat-seconds:15}") long heartbeatSeconds,
+            @Value("${schedule.feed.timeout-minutes:30}") long timeoutMinutes,
+            @Value("${schedule.feed.write-timeout-ms:10000}") long writeTimeoutMs) {
+        // hilos bajo demanda: uno por suscriptor que está enviando, nunca más
+        this(bufferSize, Duration.ofMinutes(timeoutMinutes), Duration.ofMillis(writeTimeoutMs),
+                Executors.newCachedThreadPool(daemon("schedule-feed")),
+                Executors.newSingleThreadScheduledExecutor(daemon("schedule-feed-heartbeat")));
+        heartbeats.scheduleAtFixedRate(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+    }
+
+    ScheduleFeed(int bufferSize, Duration timeout, Duration writeTimeout, Executor sender,
+            ScheduledExecutorService heartbeats) {
+        this.bufferSize = bufferSize;
+        this.timeoutMs = timeout.toMillis();
+        this.writeTimeoutNanos = writeTimeout.toNanos();
+        this.sender = sender;
+        this.heartbeats = heartbeats;
+    }
+
+    /** Suscripción a la semana de un tutor */
+    private final class Subscriber {
+        final String tutorId;
+        final LocalDate weekStart;
+        final LocalDate weekEnd;
+        final SseEmitter emitter;
+        final BlockingQueue<ScheduleCell> buffer = new ArrayBlockingQueue<>(bufferSize);
+        final AtomicBoolean overflow = new AtomicBoolean();
+        final AtomicBoolean heartbeatDue = new AtomicBoolean();
+        final AtomicBoolean draining = new AtomicBoolean();
+        // inicio (nanoTime) del envío en curso, 0 si no hay ninguno
+        final AtomicLong sendingSince = new AtomicLong();
+
+        Subscriber(String tutorId, LocalDate weekStart, SseEmitter emitter) {
+            this.tutorId = tutorId;
+            this.weekStart = weekStart;
+            this.weekEnd = weekStart.plusDays(6);
+            this.emitter = emitter;
+        }
+
+        boolean covers(LocalDate date) {
+            return !date.isBefore(weekStart) && !date.isAfter(weekEnd);
+        }
+
+        void offer(ScheduleCell cell) {
+            if (!buffer.offer(cell)) {
+                overflow.set(true);
+                buffer.clear();
+            }
+            scheduleDrain();
+        }
+
+        void heartbeat() {
+            heartbeatDue.set(true);
+            scheduleDrain();
+        }
+
+        boolean hasPending() {
+            return !buffer.isEmpty() || overflow.get() || heartbeatDue.get();
+        }
+
+        void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        /**
+         * Indica si el envío en curso lleva más que el tiempo máximo
+         *
+         * @param now Hora actual (nanoTime)
+         * @return true si el suscriptor está bloqueado
+         */
+        boolean stuck(long now) {
+            long since = sendingSince.get();
+            return since != 0 && now - since > writeTimeoutNanos;
+        }
+
+        void drain() {
+            try {
+                if (heartbeatDue.getAndSet(false)) {
+                    send(SseEmitter.event().comment("heartbeat"));
+                }
+                if (overflow.getAndSet(false)) {
+                    send(SseEmitter.event().name(EVENT_RESYNC).data(weekStart.toString()));
+                }
+                ScheduleCell cell;
+                while ((cell = buffer.poll()) != null) {
+                    send(SseEmitter.event().name(EVENT_CELL).data(cell));
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Suscriptor del horario desconectado: {}", e.getMessage());
+                remove(this);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // pudo llegar un cambio entre el último poll y liberar el flag
+            if (hasPending())
+                scheduleDrain();
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            sendingSince.set(Math.max(1, System.nanoTime()));
+            try {
+                emitter.send(event);
+            } finally {
+                sendingSince.set(0);
+            }
+        }
+    }
+
+    /**
+     * Suscribirse a los cambios de la semana de un tutor
+     *
+     * @param tutorId   ID del tutor
+     * @param weekStart Fecha de inicio de la semana
+     * @return Emisor SSE de la suscripción
+     */
+    public SseEmitter subscribe(String tutorId, LocalDate weekStart) {
+        SseEmitter emitter = newEmitter(timeoutMs);
+        Subscriber sub = new Subscriber(tutorId, weekStart, emitter);
+        subscribers.computeIfAbsent(tutorId, k -> ConcurrentHashMap.newKeySet()).add(sub);
+        emitter.onCompletion(() -> remove(sub));
+        emitter.onTimeout(() -> remove(sub));
+        emitter.onError(e -> remove(sub));
+        return emitter;
+    }
+
+    /**
+     * Crear el emisor SSE
+     *
+     * @param timeout Tiempo máximo de la conexión en milisegundos
+     * @return Emisor SSE
+     */
+    SseEmitter newEmitter(long timeout) {
+        return new SseEmitter(timeout);
+    }
+
+    /**
+     * Número de suscriptores activos de un tutor
+     *
+     * @param tutorId ID del tutor
+     * @return Número de suscriptores
+     */
+    public int subscriberCount(String tutorId) {
+        Set<Subscriber> subs = subscribers.get(tutorId);
+        return subs == null ? 0 : subs.size();
+    }
+
+    /**
+     * Encolar un cambio del horario para los suscriptores afectados
+     *
+     * @param e Evento de cambio
+     */
+    @EventListener
+    public void onScheduleChange(ScheduleChangeEvent e) {
+        Set<Subscriber> subs = subscribers.get(e.getTutorId());
+        if (subs == null || subs.isEmpty() || e.getDate() == null || e.getStart() == null)
+            return;
+        ScheduleCell cell = toCell(e);
+        for (Subscriber sub : subs) {
+            if (sub.covers(e.getDate())) {
+                sub.offer(cell);
+            }
+        }
+    }
+
+    /**
+     * Encolar un comentario para cada suscriptor, para mantener viva la
+     * conexión y detectar las desconectadas, y desconectar a los que llevan
+     * más que el tiempo máximo en un envío. No envía nada desde este hilo.
+     */
+    void heartbeat() {
+        long now = System.nanoTime();
+        for (Set<Subscriber> subs : subscribers.values()) {
+            for (Subscriber sub : subs) {
+                if (sub.stuck(now)) {
+                    log.debug("Suscriptor del horario sin leer por más de {} ms: se desconecta",
+                            TimeUnit.NANOSECONDS.toMillis(writeTimeoutNanos));
+                    remove(sub);
+                    // el emisor está tomado por el envío bloqueado: se cierra desde otro hilo
+                    sender.execute(() -> sub.emitter.completeWithError(new IOException("write timeout")));
+                } else {
+                    sub.heartbeat();
+                }
+            }
+        }
+    }
+
+    /**
+     * Cerrar las conexiones y detener los hilos al apagar la aplicación
+     */
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        if (sender instanceof ExecutorService es) {
+            es.shutdownNow();
+        }
+        subscribers.values().forEach(subs -> subs.forEach(sub -> sub.emitter.complete()));
+        subscribers.clear();
+    }
+
+    /**
+     * Quitar un suscriptor
+     *
+     * @param sub Suscriptor
+     */
+    private void remove(Subscriber sub) {
+        subscribers.computeIfPresent(sub.tutorId, (k, subs) -> {
+            subs.remove(sub);
+            return subs.isEmpty() ? null : subs;
+        });
+    }
+
+    /**
+     * Convertir un cambio en la celda resultante (mismo formato que el horario)
+     *
+     * @param e Evento de cambio
+     * @return Celda del horario
+     */
+    static ScheduleCell toCell(ScheduleChangeEvent e) {
+        String date = e.getDate().toString();
+        String hour = e.getStart().withSecond(0).withNano(0).toString();
+        return switch (e.getType()) {
+            case SLOT_ADDED -> new ScheduleCell(date, hour, "DISPONIBLE", null, null);
+            case SLOT_REMOVED -> new ScheduleCell(date, hour, null, null, null);
+            case RESERVATION_CHANGED -> new ScheduleCell(date, hour,
+                    e.getStatus() != null ? e.getStatus().name() : "ACTIVA", e.getReservationId(), e.getStudentId());
+        };
+    }
+
+    /**
+     * Fábrica de hilos daemon con nombre
+     *
+     * @param name Nombre de los hilos
+     * @return Fábrica de hilos
+     */
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
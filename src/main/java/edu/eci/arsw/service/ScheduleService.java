@@ -1,19 +1,28 @@
 package edu.eci.arsw.service;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
 import edu.eci.arsw.domain.AvailabilitySlot;
 import edu.eci.arsw.domain.Reservation;
+import edu.eci.arsw.dto.CompactWeekSchedule;
 import edu.eci.arsw.dto.ScheduleCell;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.stream.Stream;
 
 /**
  * Servicio para manejar los horarios de los tutores
@@ -22,6 +31,23 @@ import java.util.*;
 @RequiredArgsConstructor
 public class ScheduleService {
 
+    /** Máximo de tutores que se pueden comparar en una sola consulta */
+    public static final int MAX_COMPARE_TUTORS = 10;
+
+    /** Máximo de días que se pueden pedir en un rango */
+    public static final int MAX_RANGE_DAYS = 366;
+
+    private static final JsonFactory JSON = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    private static final String[] HOURS = new String[24];
+    static {
+        for (int h = 0; h < 24; h++) {
+            HOURS[h] = LocalTime.of(h, 0).toString();
+        }
+    }
+
     private final MongoTemplate mongo;
 
     /**
@@ -41,13 +67,281 @@ public class ScheduleService {
         List<AvailabilitySlot> slots = findAvailabilitySlots(tutorId, weekStart, weekEnd);
         List<Reservation> reservations = findReservations(tutorId, weekStart, weekEnd);
 
+        return assembleWeek(weekStart, slots, reservations);
+    }
+
+    /**
+     * Combinar la disponibilidad y las reservas de una semana en celdas
+     * 
+     * @param weekStart    Fecha de inicio de la semana
+     * @param slots        Franjas de disponibilidad de la semana
+     * @param reservations Reservas de la semana
+     * @return Lista de celdas del horario
+     */
+    List<ScheduleCell> assembleWeek(LocalDate weekStart, List<AvailabilitySlot> slots,
+            List<Reservation> reservations) {
         // tabla hash para combinar disponibilidad y reservas
         Map<String, ScheduleCell> map = new HashMap<>(7 * 24);
 
         applyAvailability(map, slots);
         applyReservations(map, reservations);
 
-        return buildResult(map, weekStart, weekEnd);
+        return buildResult(map, weekStart, weekStart.plusDays(6));
+    }
+
+    /**
+     * Obtener el horario semanal de un tutor en formato compacto (máscaras de
+     * bits por día y solo las celdas reservadas), sin construir las 168 celdas.
+     * 
+     * @param tutorId   ID del tutor
+     * @param weekStart Fecha de inicio de la semana
+     * @return Horario compacto
+     */
+    public CompactWeekSchedule compactWeekForTutor(String tutorId, LocalDate weekStart) {
+        if (tutorId == null || tutorId.isBlank() || weekStart == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "tutorId and weekStart are required");
+        }
+
+        LocalDate weekEnd = weekStart.plusDays(6);
+        int[] available = new int[7];
+        int[] reserved = new int[7];
+
+        for (AvailabilitySlot s : findAvailabilitySlots(tutorId, weekStart, weekEnd)) {
+            if (s == null || s.getDate() == null || s.getStart() == null) {
+                continue;
+            }
+            int day = (int) ChronoUnit.DAYS.between(weekStart, s.getDate());
+            if (day >= 0 && day < 7) {
+                available[day] |= 1 << s.getStart().getHour();
+            }
+        }
+
+        List<CompactWeekSchedule.ReservedCell> cells = new ArrayList<>();
+        for (Reservation r : findReservations(tutorId, weekStart, weekEnd)) {
+            if (r == null || r.getDate() == null || r.getStart() == null) {
+                continue;
+            }
+            int day = (int) ChronoUnit.DAYS.between(weekStart, r.getDate());
+            if (day < 0 || day >= 7) {
+                continue;
+            }
+            int hour = r.getStart().getHour();
+            reserved[day] |= 1 << hour;
+            // Si la reserva trae status nulo, asumimos ACTIVA (igual que en la grilla)
+            cells.add(new CompactWeekSchedule.ReservedCell(day, hour,
+                    r.getStatus() != null ? r.getStatus().name() : "ACTIVA", r.getId(), r.getStudentId()));
+        }
+        cells.sort(Comparator.comparingInt(CompactWeekSchedule.ReservedCell::getDay)
+                .thenComparingInt(CompactWeekSchedule.ReservedCell::getHour));
+
+        return new CompactWeekSchedule(weekStart.toString(), available, reserved, cells);
+    }
+
+    /**
+     * Obtener los horarios semanales de varios tutores para compararlos. Se
+     * hace una sola consulta por colección ($in) sin importar cuántos tutores
+     * se pidan.
+     * 
+     * @param tutorIds  IDs de los tutores (máximo {@link #MAX_COMPARE_TUTORS})
+     * @param weekStart Fecha de inicio de la semana
+     * @return Mapa tutorId -> celdas del horario, en el orden solicitado
+     */
+    public Map<String, List<ScheduleCell>> weekForTutors(List<String> tutorIds, LocalDate weekStart) {
+        if (tutorIds == null || tutorIds.isEmpty() || weekStart == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "tutorIds and weekStart are required");
+        }
+        Set<String> ids = new LinkedHashSet<>();
+        for (String id : tutorIds) {
+            if (id != null && !id.isBlank()) {
+                ids.add(id.trim());
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "tutorIds and weekStart are required");
+        }
+        if (ids.size() > MAX_COMPARE_TUTORS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Se pueden comparar como máximo " + MAX_COMPARE_TUTORS + " tutores");
+        }
+
+        LocalDate weekEnd = weekStart.plusDays(6);
+
+        List<AvailabilitySlot> slots = findAvailabilitySlots(ids, weekStart, weekEnd);
+        List<Reservation> reservations = findReservations(ids, weekStart, weekEnd);
+
+        // una tabla hash por tutor, llenadas en una sola pasada por colección
+        Map<String, Map<String, ScheduleCell>> byTutor = new HashMap<>(ids.size() * 2);
+        for (String id : ids) {
+            byTutor.put(id, new HashMap<>(7 * 24));
+        }
+        for (AvailabilitySlot s : slots) {
+            Map<String, ScheduleCell> map = s == null ? null : byTutor.get(s.getTutorId());
+            if (map != null) {
+                applySlot(map, s);
+            }
+        }
+        for (Reservation r : reservations) {
+            Map<String, ScheduleCell> map = r == null ? null : byTutor.get(r.getTutorId());
+            if (map != null) {
+                applyReservation(map, r);
+            }
+        }
+
+        Map<String, List<ScheduleCell>> result = new LinkedHashMap<>(ids.size() * 2);
+        for (String id : ids) {
+            result.put(id, buildResult(byTutor.get(id), weekStart, weekEnd));
+        }
+        return result;
+    }
+
+    /**
+     * Validar los parámetros de un rango de horario
+     * 
+     * @param tutorId ID del tutor
+     * @param from    Fecha inicial (inclusive)
+     * @param to      Fecha final (inclusive)
+     */
+    public void checkRange(String tutorId, LocalDate from, LocalDate to) {
+        if (tutorId == null || tutorId.isBlank() || from == null || to == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "tutorId, from and to are required");
+        }
+        if (from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from debe ser antes de to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "El rango no puede superar " + MAX_RANGE_DAYS + " días");
+        }
+    }
+
+    /**
+     * Escribir como arreglo JSON las celdas del horario de un tutor en un rango
+     * de fechas. Se hace una consulta ordenada por colección y se recorren
+     * ambos cursores a la par, escribiendo cada celda apenas se calcula, de
+     * modo que la memoria usada no depende del tamaño del rango.
+     * 
+     * @param tutorId ID del tutor
+     * @param from    Fecha inicial (inclusive)
+     * @param to      Fecha final (inclusive)
+     * @param out     Flujo de salida
+     * @throws IOException si falla la escritura
+     */
+    public void streamRange(String tutorId, LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        checkRange(tutorId, from, to);
+        Sort byDateAndStart = Sort.by(Sort.Direction.ASC, "date").and(Sort.by("start"));
+
+        Query qAvail = Query.query(Criteria.where("tutorId").is(tutorId).and("date").gte(from).lte(to))
+                .with(byDateAndStart);
+        qAvail.fields().include("date", "start");
+        Query qRes = Query.query(Criteria.where("tutorId").is(tutorId).and("date").gte(from).lte(to))
+                .with(byDateAndStart);
+        qRes.fields().include("date", "start", "status", "studentId");
+
+        try (Stream<AvailabilitySlot> slotStream = mongo.stream(qAvail, AvailabilitySlot.class);
+                Stream<Reservation> resStream = mongo.stream(qRes, Reservation.class);
+                JsonGenerator gen = JSON.createGenerator(out)) {
+            Iterator<AvailabilitySlot> slots = slotStream.iterator();
+            Iterator<Reservation> reservations = resStream.iterator();
+            AvailabilitySlot slot = nextSlot(slots);
+            Reservation res = nextReservation(reservations);
+
+            gen.writeStartArray();
+            for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+                String date = d.toString();
+                for (int h = 0; h < 24; h++) {
+                    boolean available = false;
+                    while (slot != null && compareCell(slot.getDate(), slot.getStart(), d, h) <= 0) {
+                        available |= compareCell(slot.getDate(), slot.getStart(), d, h) == 0;
+                        slot = nextSlot(slots);
+                    }
+                    Reservation cellRes = null;
+                    while (res != null && compareCell(res.getDate(), res.getStart(), d, h) <= 0) {
+                        if (compareCell(res.getDate(), res.getStart(), d, h) == 0)
+                            cellRes = res;
+                        res = nextReservation(reservations);
+                    }
+                    writeCell(gen, date, h, available, cellRes);
+                }
+                gen.flush();
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    /**
+     * Escribir una celda con los mismos campos que {@link ScheduleCell}
+     * 
+     * @param gen       Generador JSON
+     * @param date      Fecha (YYYY-MM-DD)
+     * @param hour      Hora del día
+     * @param available Si hay franja de disponibilidad
+     * @param r         Reserva de la celda o null
+     * @throws IOException si falla la escritura
+     */
+    private static void writeCell(JsonGenerator gen, String date, int hour, boolean available, Reservation r)
+            throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("date", date);
+        gen.writeStringField("hour", HOURS[hour]);
+        if (r != null) {
+            // Si la reserva trae status nulo, asumimos ACTIVA (igual que en la grilla)
+            gen.writeStringField("status", r.getStatus() != null ? r.getStatus().name() : "ACTIVA");
+            gen.writeStringField("reservationId", r.getId());
+            gen.writeStringField("studentId", r.getStudentId());
+        } else {
+            if (available) {
+                gen.writeStringField("status", "DISPONIBLE");
+            } else {
+                gen.writeNullField("status");
+            }
+            gen.writeNullField("reservationId");
+            gen.writeNullField("studentId");
+        }
+        gen.writeEndObject();
+    }
+
+    /**
+     * Comparar la celda de un documento con la celda (día, hora) actual
+     * 
+     * @param date  Fecha del documento
+     * @param start Hora de inicio del documento
+     * @param d     Día actual
+     * @param h     Hora actual
+     * @return negativo, cero o positivo
+     */
+    private static int compareCell(LocalDate date, LocalTime start, LocalDate d, int h) {
+        int byDate = date.compareTo(d);
+        return byDate != 0 ? byDate : Integer.compare(start.getHour(), h);
+    }
+
+    /**
+     * Siguiente franja con fecha y hora, o null si no hay más
+     * 
+     * @param it Iterador del cursor
+     * @return Siguiente franja válida
+     */
+    private static AvailabilitySlot nextSlot(Iterator<AvailabilitySlot> it) {
+        while (it.hasNext()) {
+            AvailabilitySlot s = it.next();
+            if (s != null && s.getDate() != null && s.getStart() != null)
+                return s;
+        }
+        return null;
+    }
+
+    /**
+     * Siguiente reserva con fecha y hora, o null si no hay más
+     * 
+     * @param it Iterador del cursor
+     * @return Siguiente reserva válida
+     */
+    private static Reservation nextReservation(Iterator<Reservation> it) {
+        while (it.hasNext()) {
+            Reservation r = it.next();
+            if (r != null && r.getDate() != null && r.getStart() != null)
+                return r;
+        }
+        return null;
     }
 
     /**
@@ -80,6 +374,37 @@ public class ScheduleService {
         return Optional.ofNullable(mongo.find(qRes, Reservation.class)).orElseGet(Collections::emptyList);
     }
 
+    /**
+     * Buscar franjas de disponibilidad de varios tutores en MongoDB
+     * 
+     * @param tutorIds  IDs de los tutores
+     * @param weekStart Fecha de inicio de la semana
+     * @param weekEnd   Fecha de fin de la semana
+     * @return Lista de franjas de disponibilidad
+     */
+    private List<AvailabilitySlot> findAvailabilitySlots(Collection<String> tutorIds, LocalDate weekStart,
+            LocalDate weekEnd) {
+        Query qAvail = Query.query(
+                Criteria.where("tutorId").in(tutorIds)
+                        .and("date").gte(weekStart).lte(weekEnd));
+        return Optional.ofNullable(mongo.find(qAvail, AvailabilitySlot.class)).orElseGet(Collections::emptyList);
+    }
+
+    /**
+     * Buscar reservas de varios tutores en MongoDB
+     * 
+     * @param tutorIds  IDs de los tutores
+     * @param weekStart Fecha de inicio de la semana
+     * @param weekEnd   Fecha de fin de la semana
+     * @return Lista de reservas
+     */
+    private List<Reservation> findReservations(Collection<String> tutorIds, LocalDate weekStart, LocalDate weekEnd) {
+        Query qRes = Query.query(
+                Criteria.where("tutorId").in(tutorIds)
+                        .and("date").gte(weekStart).lte(weekEnd));
+        return Optional.ofNullable(mongo.find(qRes, Reservation.class)).orElseGet(Collections::emptyList);
+    }
+
     /**
      * Aplicar franjas de disponibilidad al mapa
      * 
@@ -88,15 +413,25 @@ public class ScheduleService {
      */
     private void applyAvailability(Map<String, ScheduleCell> map, List<AvailabilitySlot> slots) {
         for (AvailabilitySlot s : slots) {
-            if (s == null || s.getDate() == null || s.getStart() == null) {
-                continue;
-            }
-            LocalTime hour = s.getStart().withSecond(0).withNano(0);
-            String key = s.getDate() + "_" + hour;
-            map.put(key, new ScheduleCell(s.getDate().toString(), hour.toString(), "DISPONIBLE", null, null));
+            applySlot(map, s);
         }
     }
 
+    /**
+     * Aplicar una franja de disponibilidad al mapa
+     * 
+     * @param map Mapa de celdas del horario
+     * @param s   Franja de disponibilidad
+     */
+    private void applySlot(Map<String, ScheduleCell> map, AvailabilitySlot s) {
+        if (s == null || s.getDate() == null || s.getStart() == null) {
+            return;
+        }
+        LocalTime hour = s.getStart().withSecond(0).withNano(0);
+        String key = s.getDate() + "_" + hour;
+        map.put(key, new ScheduleCell(s.getDate().toString(), hour.toString(), "DISPONIBLE", null, null));
+    }
+
     /**
      * Aplicar reservas al mapa
      * 
@@ -105,23 +440,33 @@ public class ScheduleService {
      */
     private void applyReservations(Map<String, ScheduleCell> map, List<Reservation> reservations) {
         for (Reservation r : reservations) {
-            if (r == null || r.getDate() == null || r.getStart() == null) {
-                continue;
-            }
-            LocalTime hour = r.getStart().withSecond(0).withNano(0);
-            String key = r.getDate() + "_" + hour;
-
-            ScheduleCell cell = map.getOrDefault(
-                    key,
-                    new ScheduleCell(r.getDate().toString(), hour.toString(), null, null, null));
-            // Si la reserva trae status nulo, asumimos ACTIVA
-            cell.setStatus(r.getStatus() != null ? r.getStatus().name() : "ACTIVA");
-            cell.setReservationId(r.getId());
-            cell.setStudentId(r.getStudentId());
-            map.put(key, cell);
+            applyReservation(map, r);
         }
     }
 
+    /**
+     * Aplicar una reserva al mapa
+     * 
+     * @param map Mapa de celdas del horario
+     * @param r   Reserva
+     */
+    private void applyReservation(Map<String, ScheduleCell> map, Reservation r) {
+        if (r == null || r.getDate() == null || r.getStart() == null) {
+            return;
+        }
+        LocalTime hour = r.getStart().withSecond(0).withNano(0);
+        String key = r.getDate() + "_" + hour;
+
+        ScheduleCell cell = map.getOrDefault(
+                key,
+                new ScheduleCell(r.getDate().toString(), hour.toString(), null, null, null));
+        // Si la reserva trae status nulo, asumimos ACTIVA
+        cell.setStatus(r.getStatus() != null ? r.getStatus().name() : "ACTIVA");
+        cell.setReservationId(r.getId());
+        cell.setStudentId(r.getStudentId());
+        map.put(key, cell);
+    }
+
     /**
      * Construir la lista final de celdas del horario
      * 
@@ -3,8 +3,8 @@ package edu.eci.arsw.controller;
 import edu.eci.arsw.domain.AvailabilitySlot;
 import edu.eci.arsw.dto.BulkAvailabilityRequest;
 import edu.eci.arsw.dto.DayAvailabilityUpdateRequest;
-import edu.eci.arsw.security.AuthorizationService;
-import edu.eci.arsw.security.RolesResponse;
+import edu.eci.arsw.security.AuthenticatedUser;
+import edu.eci.arsw.security.Role;
 import edu.eci.arsw.service.AvailabilityService;
 import edu.eci.arsw.service.ReservationService;
 import org.junit.jupiter.api.Test;
@@ -27,34 +27,21 @@ class AvailabilityControllerTest {
     @Mock
     private AvailabilityService availabilityService;
 
-    @Mock
-    private AuthorizationService authz;
-
     @Mock
     private ReservationService reservationService;
 
     @InjectMocks
     private AvailabilityController controller;
 
-    private static final String TOKEN = "Bearer token";
     private static final String TUTOR_ID = "tutor-1";
-
-    /**
-     * Ahora NO usamos Mockito aquí, así evitamos UnnecessaryStubbingException.
-     */
-    private RolesResponse mockMe(String id) {
-        RolesResponse me = new RolesResponse();
-        me.setId(id);
-        return me;
-    }
+    private static final AuthenticatedUser TUTOR = new AuthenticatedUser(TUTOR_ID, Role.TUTOR.bit());
+    private static final AuthenticatedUser STUDENT = new AuthenticatedUser("student-1", Role.STUDENT.bit());
 
     // ========== bulk() ==========
 
     @Test
     void bulk_shouldCreateSlotsForTutor() {
         BulkAvailabilityRequest req = new BulkAvailabilityRequest();
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
 
         List<AvailabilitySlot> slots = List.of(
                 AvailabilitySlot.builder().id("s1").tutorId(TUTOR_ID).build(),
@@ -62,23 +49,20 @@ class AvailabilityControllerTest {
         );
         when(availabilityService.bulkCreate(TUTOR_ID, req)).thenReturn(slots);
 
-        ResponseEntity<List<AvailabilitySlot>> response = controller.bulk(TOKEN, req);
+        ResponseEntity<List<AvailabilitySlot>> response = controller.bulk(TUTOR, req);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(slots, response.getBody());
-        verify(authz).requireRole(TOKEN, "TUTOR");
         verify(availabilityService).bulkCreate(TUTOR_ID, req);
     }
 
     @Test
     void bulk_shouldReturnEmptyListWhenServiceReturnsNone() {
         BulkAvailabilityRequest req = new BulkAvailabilityRequest();
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
 
         when(availabilityService.bulkCreate(TUTOR_ID, req)).thenReturn(Collections.emptyList());
 
-        ResponseEntity<List<AvailabilitySlot>> response = controller.bulk(TOKEN, req);
+        ResponseEntity<List<AvailabilitySlot>> response = controller.bulk(TUTOR, req);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
@@ -89,22 +73,19 @@ class AvailabilityControllerTest {
     @Test
     void bulk_shouldFailWhenRoleIsNotTutor() {
         BulkAvailabilityRequest req = new BulkAvailabilityRequest();
-        doThrow(new RuntimeException("Forbidden")).when(authz).requireRole(TOKEN, "TUTOR");
-
-        assertThrows(RuntimeException.class, () -> controller.bulk(TOKEN, req));
+        
+        assertThrows(RuntimeException.class, () -> controller.bulk(STUDENT, req));
         verify(availabilityService, never()).bulkCreate(anyString(), any());
     }
 
     @Test
     void bulk_shouldPropagateServiceError() {
         BulkAvailabilityRequest req = new BulkAvailabilityRequest();
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
 
         when(availabilityService.bulkCreate(TUTOR_ID, req))
                 .thenThrow(new RuntimeException("DB error"));
 
-        assertThrows(RuntimeException.class, () -> controller.bulk(TOKEN, req));
+        assertThrows(RuntimeException.class, () -> controller.bulk(TUTOR, req));
     }
 
     // ========== my() ==========
@@ -114,19 +95,15 @@ class AvailabilityControllerTest {
         LocalDate from = LocalDate.of(2025, 1, 1);
         LocalDate to = LocalDate.of(2025, 1, 7);
 
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
-
         List<AvailabilitySlot> slots = List.of(
                 AvailabilitySlot.builder().id("s1").build()
         );
         when(availabilityService.mySlots(TUTOR_ID, from, to)).thenReturn(slots);
 
-        ResponseEntity<List<AvailabilitySlot>> response = controller.my(TOKEN, from, to);
+        ResponseEntity<List<AvailabilitySlot>> response = controller.my(TUTOR, from, to);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(slots, response.getBody());
-        verify(authz).requireRole(TOKEN, "TUTOR");
         verify(availabilityService).mySlots(TUTOR_ID, from, to);
     }
 
@@ -135,12 +112,9 @@ class AvailabilityControllerTest {
         LocalDate from = LocalDate.of(2025, 1, 1);
         LocalDate to = LocalDate.of(2025, 1, 7);
 
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
-
         when(availabilityService.mySlots(TUTOR_ID, from, to)).thenReturn(Collections.emptyList());
 
-        ResponseEntity<List<AvailabilitySlot>> response = controller.my(TOKEN, from, to);
+        ResponseEntity<List<AvailabilitySlot>> response = controller.my(TUTOR, from, to);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
@@ -152,9 +126,7 @@ class AvailabilityControllerTest {
         LocalDate from = LocalDate.of(2025, 1, 1);
         LocalDate to = LocalDate.of(2025, 1, 7);
 
-        doThrow(new RuntimeException("Forbidden")).when(authz).requireRole(TOKEN, "TUTOR");
-
-        assertThrows(RuntimeException.class, () -> controller.my(TOKEN, from, to));
+        assertThrows(RuntimeException.class, () -> controller.my(STUDENT, from, to));
         verify(availabilityService, never()).mySlots(anyString(), any(), any());
     }
 
@@ -163,13 +135,10 @@ class AvailabilityControllerTest {
         LocalDate from = LocalDate.of(2025, 1, 1);
         LocalDate to = LocalDate.of(2025, 1, 7);
 
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
-
         when(availabilityService.mySlots(TUTOR_ID, from, to))
                 .thenThrow(new RuntimeException("DB error"));
 
-        assertThrows(RuntimeException.class, () -> controller.my(TOKEN, from, to));
+        assertThrows(RuntimeException.class, () -> controller.my(TUTOR, from, to));
     }
 
     // ========== delete() ==========
@@ -177,8 +146,6 @@ class AvailabilityControllerTest {
     @Test
     void delete_shouldRemoveSlotWhenFoundWithActiveReservation() {
         String slotId = "slot-1";
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
 
         AvailabilitySlot slot = AvailabilitySlot.builder()
                 .id(slotId)
@@ -193,7 +160,7 @@ class AvailabilityControllerTest {
         when(reservationService.hasActiveReservationForTutorAt(
                 TUTOR_ID, slot.getDate(), slot.getStart())).thenReturn(true);
 
-        ResponseEntity<Void> response = controller.delete(TOKEN, slotId);
+        ResponseEntity<Void> response = controller.delete(TUTOR, slotId);
 
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
         verify(availabilityService).deleteOwnSlot(TUTOR_ID, slotId, true);
@@ -202,13 +169,11 @@ class AvailabilityControllerTest {
     @Test
     void delete_shouldRemoveEvenWhenSlotNotFound() {
         String slotId = "slot-unknown";
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
 
         when(availabilityService.mySlots(anyString(), any(), any()))
                 .thenReturn(Collections.emptyList());
 
-        ResponseEntity<Void> response = controller.delete(TOKEN, slotId);
+        ResponseEntity<Void> response = controller.delete(TUTOR, slotId);
 
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
         verify(availabilityService).deleteOwnSlot(TUTOR_ID, slotId, false);
@@ -219,17 +184,14 @@ class AvailabilityControllerTest {
     @Test
     void delete_shouldFailWhenRoleIsNotTutor() {
         String slotId = "slot-1";
-        doThrow(new RuntimeException("Forbidden")).when(authz).requireRole(TOKEN, "TUTOR");
-
-        assertThrows(RuntimeException.class, () -> controller.delete(TOKEN, slotId));
+        
+        assertThrows(RuntimeException.class, () -> controller.delete(STUDENT, slotId));
         verify(availabilityService, never()).deleteOwnSlot(anyString(), anyString(), anyBoolean());
     }
 
     @Test
     void delete_shouldPropagateServiceError() {
         String slotId = "slot-1";
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
 
         when(availabilityService.mySlots(anyString(), any(), any()))
                 .thenReturn(Collections.emptyList());
@@ -237,7 +199,7 @@ class AvailabilityControllerTest {
         doThrow(new RuntimeException("Error deleting"))
                 .when(availabilityService).deleteOwnSlot(TUTOR_ID, slotId, false);
 
-        assertThrows(RuntimeException.class, () -> controller.delete(TOKEN, slotId));
+        assertThrows(RuntimeException.class, () -> controller.delete(TUTOR, slotId));
     }
 
     // ========== replaceDay() ==========
@@ -249,9 +211,6 @@ class AvailabilityControllerTest {
         DayAvailabilityUpdateRequest req = new DayAvailabilityUpdateRequest();
         req.getHours().addAll(List.of("10:00", "11:00"));
 
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
-
         AvailabilitySlot s1 = AvailabilitySlot.builder()
                 .tutorId(TUTOR_ID)
                 .date(date)
@@ -271,7 +230,7 @@ class AvailabilityControllerTest {
         when(reservationService.hasActiveReservationForTutorAt(TUTOR_ID, date, s2.getStart()))
                 .thenReturn(false);
 
-        ResponseEntity<Void> response = controller.replaceDay(TOKEN, date, req);
+        ResponseEntity<Void> response = controller.replaceDay(TUTOR, date, req);
 
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
 
@@ -289,14 +248,12 @@ class AvailabilityControllerTest {
     @Test
     void replaceDay_shouldAllowEmptyRequestedHours() {
         LocalDate date = LocalDate.of(2025, 1, 2);
-        DayAvailabilityUpdateRequest req = new DayAvailabilityUpdateRequest(); 
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
+        DayAvailabilityUpdateRequest req = new DayAvailabilityUpdateRequest();
 
         when(availabilityService.slotsForDay(TUTOR_ID, date))
                 .thenReturn(Collections.emptyList());
 
-        ResponseEntity<Void> response = controller.replaceDay(TOKEN, date, req);
+        ResponseEntity<Void> response = controller.replaceDay(TUTOR, date, req);
 
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
         verify(availabilityService).replaceDay(eq(TUTOR_ID), eq(date),
@@ -309,10 +266,7 @@ class AvailabilityControllerTest {
         DayAvailabilityUpdateRequest req = new DayAvailabilityUpdateRequest();
         req.getHours().add("invalidHour");
 
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
-
-        assertThrows(RuntimeException.class, () -> controller.replaceDay(TOKEN, date, req));
+        assertThrows(RuntimeException.class, () -> controller.replaceDay(TUTOR, date, req));
     }
 
     @Test
@@ -321,9 +275,6 @@ class AvailabilityControllerTest {
         DayAvailabilityUpdateRequest req = new DayAvailabilityUpdateRequest();
         req.getHours().add("10:00");
 
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
-
         when(availabilityService.slotsForDay(TUTOR_ID, date))
                 .thenReturn(Collections.emptyList());
 
@@ -331,7 +282,7 @@ class AvailabilityControllerTest {
                 .when(availabilityService)
                 .replaceDay(eq(TUTOR_ID), eq(date), anyList(), anySet());
 
-        assertThrows(RuntimeException.class, () -> controller.replaceDay(TOKEN, date, req));
+        assertThrows(RuntimeException.class, () -> controller.replaceDay(TUTOR, date, req));
     }
 
     // ========== addAvailability() ==========
@@ -342,15 +293,12 @@ class AvailabilityControllerTest {
         req.put("date", "2025-01-02");
         req.put("hours", List.of("10", "11"));
 
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
-
         when(availabilityService.addAvailability(eq(TUTOR_ID),
                 eq(LocalDate.of(2025, 1, 2)),
                 anyList()))
                 .thenReturn(2);
 
-        ResponseEntity<Map<String, Object>> response = controller.addAvailability(TOKEN, req);
+        ResponseEntity<Map<String, Object>> response = controller.addAvailability(TUTOR, req);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         Map<String, Object> body = response.getBody();
@@ -367,15 +315,12 @@ class AvailabilityControllerTest {
         req.put("date", "2025-01-02");
         req.put("hours", List.of("10", "11"));
 
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
-
         when(availabilityService.addAvailability(eq(TUTOR_ID),
                 eq(LocalDate.of(2025, 1, 2)),
                 anyList()))
                 .thenReturn(1);
 
-        ResponseEntity<Map<String, Object>> response = controller.addAvailability(TOKEN, req);
+        ResponseEntity<Map<String, Object>> response = controller.addAvailability(TUTOR, req);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         Map<String, Object> body = response.getBody();
@@ -390,10 +335,7 @@ class AvailabilityControllerTest {
         req.put("date", "fecha-mala");
         req.put("hours", List.of("10"));
 
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
-
-        assertThrows(RuntimeException.class, () -> controller.addAvailability(TOKEN, req));
+        assertThrows(RuntimeException.class, () -> controller.addAvailability(TUTOR, req));
     }
 
     @Test
@@ -402,9 +344,6 @@ class AvailabilityControllerTest {
         req.put("date", "2025-01-02");
         req.put("hours", List.of("invalid-hour"));
 
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
-
-        assertThrows(IllegalArgumentException.class, () -> controller.addAvailability(TOKEN, req));
+        assertThrows(IllegalArgumentException.class, () -> controller.addAvailability(TUTOR, req));
     }
 }
@@ -0,0 +1,92 @@
+package edu.eci.arsw.controller;
+
+import edu.eci.arsw.domain.Reservation;
+import edu.eci.arsw.dto.ReservationView;
+import edu.eci.arsw.dto.ScheduleCell;
+import edu.eci.arsw.security.AuthorizationService;
+import edu.eci.arsw.security.Role;
+import edu.eci.arsw.security.RolesResponse;
+import edu.eci.arsw.service.ReactiveQueryService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveQueryControllerTest {
+
+    @Mock
+    private ReactiveQueryService service;
+
+    @Mock
+    private AuthorizationService authz;
+
+    @Mock
+    private ReactiveMongoTemplate mongo;
+
+    @InjectMocks
+    private ReactiveQueryController controller;
+
+    private static final String TOKEN = "Bearer token";
+
+    @Test
+    void byTutorAndByStudentShouldDelegateToService() {
+        List<ReservationView> views = List.of(ReservationView.builder().id("r1").build());
+        when(service.listByTutor("t1")).thenReturn(Mono.just(views));
+        when(service.listByStudent("s1")).thenReturn(Mono.just(List.of()));
+
+        assertEquals(views, controller.byTutor("t1").block());
+        assertTrue(controller.byStudent("s1").block().isEmpty());
+    }
+
+    @Test
+    void weekShouldCheckRolesBeforeQuerying() {
+        LocalDate weekStart = LocalDate.of(2025, 1, 6);
+        List<ScheduleCell> cells = List.of(new ScheduleCell());
+        when(authz.requireRoleAsync(TOKEN, Role.mask(Role.STUDENT, Role.TUTOR))).thenReturn(Mono.just(new RolesResponse()));
+        when(service.weekForTutor("t1", weekStart)).thenReturn(Mono.just(cells));
+
+        assertSame(cells, controller.week(TOKEN, "t1", weekStart).block());
+    }
+
+    @Test
+    void weekShouldNotQueryWhenForbidden() {
+        when(authz.requireRoleAsync(TOKEN, Role.mask(Role.STUDENT, Role.TUTOR)))
+                .thenReturn(Mono.error(new ResponseStatusException(HttpStatus.FORBIDDEN, "Role requerido")));
+
+        Mono<List<ScheduleCell>> week = controller.week(TOKEN, "t1", LocalDate.of(2025, 1, 6));
+
+        assertThrows(ResponseStatusException.class, week::block);
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void myShouldQueryReservationsOfAuthenticatedStudent() {
+        RolesResponse me = new RolesResponse();
+        me.setId("student-1");
+        when(authz.meAsync(TOKEN)).thenReturn(Mono.just(me));
+        Reservation r = Reservation.builder().id("r1").build();
+        when(mongo.find(any(Query.class), eq(Reservation.class))).thenReturn(Flux.just(r));
+
+        assertEquals(List.of(r), controller.my(TOKEN, "2025-01-01", null).block());
+
+        ArgumentCaptor<Query> q = ArgumentCaptor.forClass(Query.class);
+        verify(mongo).find(q.capture(), eq(Reservation.class));
+        assertEquals("student-1", q.getValue().getQueryObject().get("studentId"));
+    }
+}
@@ -3,8 +3,10 @@ package edu.eci.arsw.controller;
 import edu.eci.arsw.domain.Reservation;
 import edu.eci.arsw.domain.ReservationStatus;
 import edu.eci.arsw.dto.ReservationCreateRequest;
-import edu.eci.arsw.security.AuthorizationService;
-import edu.eci.arsw.security.RolesResponse;
+import edu.eci.arsw.security.AuthenticatedUser;
+import edu.eci.arsw.security.Role;
+import edu.eci.arsw.service.NdjsonWriter;
+import edu.eci.arsw.service.ReservationExporter;
 import edu.eci.arsw.service.ReservationService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,9 +15,14 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Query;
+import org.mockito.ArgumentCaptor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
@@ -33,27 +40,19 @@ class ReservationControllerTest {
     private ReservationService reservationService;
 
     @Mock
-    private AuthorizationService authz;
+    private MongoTemplate mongoTemplate;
 
     @Mock
-    private MongoTemplate mongoTemplate;
+    private ReservationExporter exporter;
 
     @InjectMocks
     private ReservationController controller;
 
-    private static final String TOKEN = "Bearer token";
     private static final String STUDENT_ID = "student-1";
     private static final String TUTOR_ID = "tutor-1";
-
-    /**
-     * Importante: NO usar Mockito aquí.
-     * Así evitamos UnnecessaryStubbingException.
-     */
-    private RolesResponse mockMe(String id) {
-        RolesResponse me = new RolesResponse();
-        me.setId(id);
-        return me;
-    }
+    private static final AuthenticatedUser STUDENT = new AuthenticatedUser(STUDENT_ID, Role.STUDENT.bit());
+    private static final AuthenticatedUser TUTOR = new AuthenticatedUser(TUTOR_ID, Role.TUTOR.bit());
+    private static final AuthenticatedUser OTHER = new AuthenticatedUser("other-user", Role.STUDENT.bit());
 
     // ========== create() ==========
 
@@ -64,9 +63,6 @@ class ReservationControllerTest {
         req.setDate(LocalDate.of(2025, 1, 2));
         req.setHour("10:00");
 
-        RolesResponse me = mockMe(STUDENT_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
-
         Reservation created = Reservation.builder()
                 .id("res-1")
                 .studentId(STUDENT_ID)
@@ -76,11 +72,10 @@ class ReservationControllerTest {
 
         when(reservationService.create(STUDENT_ID, req)).thenReturn(created);
 
-        ResponseEntity<Reservation> response = controller.create(TOKEN, req);
+        ResponseEntity<Reservation> response = controller.create(STUDENT, req);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(created, response.getBody());
-        verify(authz).requireRole(TOKEN, "STUDENT");
         verify(reservationService).create(STUDENT_ID, req);
     }
 
@@ -91,9 +86,6 @@ class ReservationControllerTest {
         req.setDate(LocalDate.of(2025, 1, 3));
         req.setHour("11:00");
 
-        RolesResponse me = mockMe(STUDENT_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
-
         Reservation created = Reservation.builder()
                 .id("res-2")
                 .studentId(STUDENT_ID)
@@ -103,7 +95,7 @@ class ReservationControllerTest {
 
         when(reservationService.create(STUDENT_ID, req)).thenReturn(created);
 
-        ResponseEntity<Reservation> response = controller.create(TOKEN, req);
+        ResponseEntity<Reservation> response = controller.create(STUDENT, req);
 
         assertEquals(ReservationStatus.ACEPTADO, response.getBody().getStatus());
     }
@@ -111,39 +103,32 @@ class ReservationControllerTest {
     @Test
     void create_shouldFailWhenNotStudentRole() {
         ReservationCreateRequest req = new ReservationCreateRequest();
-        doThrow(new RuntimeException("Forbidden"))
-                .when(authz).requireRole(TOKEN, "STUDENT");
-
-        assertThrows(RuntimeException.class, () -> controller.create(TOKEN, req));
+        
+        assertThrows(RuntimeException.class, () -> controller.create(TUTOR, req));
         verify(reservationService, never()).create(anyString(), any());
     }
 
     @Test
     void create_shouldPropagateServiceError() {
         ReservationCreateRequest req = new ReservationCreateRequest();
-        RolesResponse me = mockMe(STUDENT_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
 
         when(reservationService.create(STUDENT_ID, req))
                 .thenThrow(new RuntimeException("DB error"));
 
-        assertThrows(RuntimeException.class, () -> controller.create(TOKEN, req));
+        assertThrows(RuntimeException.class, () -> controller.create(STUDENT, req));
     }
 
     // ========== my() ==========
 
     @Test
     void my_shouldReturnReservationsForStudent_withNoRange() {
-        RolesResponse me = mockMe(STUDENT_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
-
         List<Reservation> reservations = List.of(
                 Reservation.builder().id("r1").studentId(STUDENT_ID).build()
         );
         when(mongoTemplate.find(any(Query.class), eq(Reservation.class)))
                 .thenReturn(reservations);
 
-        List<Reservation> result = controller.my(TOKEN, null, null);
+        List<Reservation> result = controller.my(STUDENT, null, null);
 
         assertEquals(1, result.size());
         verify(mongoTemplate).find(any(Query.class), eq(Reservation.class));
@@ -151,9 +136,6 @@ class ReservationControllerTest {
 
     @Test
     void my_shouldReturnReservationsForStudent_withRange() {
-        RolesResponse me = mockMe(STUDENT_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
-
         List<Reservation> reservations = List.of(
                 Reservation.builder().id("r1").studentId(STUDENT_ID).build(),
                 Reservation.builder().id("r2").studentId(STUDENT_ID).build()
@@ -161,47 +143,32 @@ class ReservationControllerTest {
         when(mongoTemplate.find(any(Query.class), eq(Reservation.class)))
                 .thenReturn(reservations);
 
-        List<Reservation> result = controller.my(TOKEN, "2025-01-01", "2025-01-31");
+        List<Reservation> result = controller.my(STUDENT, "2025-01-01", "2025-01-31");
 
         assertEquals(2, result.size());
         verify(mongoTemplate).find(any(Query.class), eq(Reservation.class));
     }
 
-    @Test
-    void my_shouldFailWhenAuthThrows() {
-        when(authz.me(TOKEN)).thenThrow(new RuntimeException("Invalid token"));
-
-        assertThrows(RuntimeException.class,
-                () -> controller.my(TOKEN, null, null));
-        verify(mongoTemplate, never()).find(any(Query.class), eq(Reservation.class));
-    }
-
     @Test
     void my_shouldPropagateMongoError() {
-        RolesResponse me = mockMe(STUDENT_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
-
         when(mongoTemplate.find(any(Query.class), eq(Reservation.class)))
                 .thenThrow(new RuntimeException("Mongo error"));
 
         assertThrows(RuntimeException.class,
-                () -> controller.my(TOKEN, null, null));
+                () -> controller.my(STUDENT, null, null));
     }
 
     // ========== forMe() ==========
 
     @Test
     void forMe_shouldReturnReservationsForTutor_withNoRange() {
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
-
         List<Reservation> reservations = List.of(
                 Reservation.builder().id("r1").tutorId(TUTOR_ID).build()
         );
         when(mongoTemplate.find(any(Query.class), eq(Reservation.class)))
                 .thenReturn(reservations);
 
-        List<Reservation> result = controller.forMe(TOKEN, null, null);
+        List<Reservation> result = controller.forMe(TUTOR, null, null);
 
         assertEquals(1, result.size());
         verify(mongoTemplate).find(any(Query.class), eq(Reservation.class));
@@ -209,36 +176,54 @@ class ReservationControllerTest {
 
     @Test
     void forMe_shouldReturnReservationsForTutor_withRange() {
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
-
         when(mongoTemplate.find(any(Query.class), eq(Reservation.class)))
                 .thenReturn(List.of());
 
-        List<Reservation> result = controller.forMe(TOKEN, "2025-01-01", "2025-01-31");
+        List<Reservation> result = controller.forMe(TUTOR, "2025-01-01", "2025-01-31");
 
         assertNotNull(result);
         verify(mongoTemplate).find(any(Query.class), eq(Reservation.class));
     }
 
     @Test
-    void forMe_shouldFailWhenAuthThrows() {
-        when(authz.me(TOKEN)).thenThrow(new RuntimeException("Invalid token"));
+    void forMe_shouldPropagateMongoError() {
+        when(mongoTemplate.find(any(Query.class), eq(Reservation.class)))
+                .thenThrow(new RuntimeException("Mongo error"));
 
         assertThrows(RuntimeException.class,
-                () -> controller.forMe(TOKEN, null, null));
+                () -> controller.forMe(TUTOR, null, null));
     }
 
+    // ========== myStream() / forMeStream() ==========
+
     @Test
-    void forMe_shouldPropagateMongoError() {
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
+    void myStream_shouldExportStudentReservationsAsNdjson() throws Exception {
+        NdjsonWriter writer = out -> out.write("{}\n".getBytes(StandardCharsets.UTF_8));
+        when(exporter.reservations(any(Query.class))).thenReturn(writer);
 
-        when(mongoTemplate.find(any(Query.class), eq(Reservation.class)))
-                .thenThrow(new RuntimeException("Mongo error"));
+        ResponseEntity<StreamingResponseBody> response = controller.myStream(STUDENT, "2025-01-01", null);
 
-        assertThrows(RuntimeException.class,
-                () -> controller.forMe(TOKEN, null, null));
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        assertEquals("{}\n", out.toString(StandardCharsets.UTF_8));
+        ArgumentCaptor<Query> q = ArgumentCaptor.forClass(Query.class);
+        verify(exporter).reservations(q.capture());
+        assertEquals(STUDENT_ID, q.getValue().getQueryObject().get("studentId"));
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void forMeStream_shouldExportTutorReservationsAsNdjson() {
+        when(exporter.reservations(any(Query.class))).thenReturn(out -> {
+        });
+
+        ResponseEntity<StreamingResponseBody> response = controller.forMeStream(TUTOR, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        ArgumentCaptor<Query> q = ArgumentCaptor.forClass(Query.class);
+        verify(exporter).reservations(q.capture());
+        assertEquals(TUTOR_ID, q.getValue().getQueryObject().get("tutorId"));
     }
 
     // ========== cancel() ==========
@@ -246,8 +231,6 @@ class ReservationControllerTest {
     @Test
     void cancel_shouldChangeStatusToCancelled() {
         String id = "res-1";
-        RolesResponse me = mockMe(STUDENT_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
 
         Reservation updated = Reservation.builder()
                 .id(id)
@@ -258,7 +241,7 @@ class ReservationControllerTest {
                 STUDENT_ID, id, ReservationStatus.CANCELADO))
                 .thenReturn(updated);
 
-        ResponseEntity<Reservation> response = controller.cancel(TOKEN, id);
+        ResponseEntity<Reservation> response = controller.cancel(STUDENT, id);
 
         assertEquals(ReservationStatus.CANCELADO, response.getBody().getStatus());
     }
@@ -266,8 +249,6 @@ class ReservationControllerTest {
     @Test
     void cancel_shouldWorkForTutorAlso() {
         String id = "res-2";
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
 
         Reservation updated = Reservation.builder()
                 .id(id)
@@ -278,34 +259,21 @@ class ReservationControllerTest {
                 TUTOR_ID, id, ReservationStatus.CANCELADO))
                 .thenReturn(updated);
 
-        ResponseEntity<Reservation> response = controller.cancel(TOKEN, id);
+        ResponseEntity<Reservation> response = controller.cancel(TUTOR, id);
 
         assertEquals(ReservationStatus.CANCELADO, response.getBody().getStatus());
     }
 
-    @Test
-    void cancel_shouldFailWhenAuthThrows() {
-        String id = "res-1";
-        when(authz.me(TOKEN)).thenThrow(new RuntimeException("Invalid token"));
-
-        assertThrows(RuntimeException.class,
-                () -> controller.cancel(TOKEN, id));
-        verify(reservationService, never())
-                .changeStatusByStudentOrTutor(anyString(), anyString(), any());
-    }
-
     @Test
     void cancel_shouldPropagateServiceError() {
         String id = "res-1";
-        RolesResponse me = mockMe(STUDENT_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
 
         when(reservationService.changeStatusByStudentOrTutor(
                 STUDENT_ID, id, ReservationStatus.CANCELADO))
                 .thenThrow(new RuntimeException("DB error"));
 
         assertThrows(RuntimeException.class,
-                () -> controller.cancel(TOKEN, id));
+                () -> controller.cancel(STUDENT, id));
     }
 
     // ========== accept() ==========
@@ -313,8 +281,6 @@ class ReservationControllerTest {
     @Test
     void accept_shouldChangeStatusToAcceptedForTutor() {
         String id = "res-1";
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
 
         Reservation updated = Reservation.builder()
                 .id(id)
@@ -325,17 +291,14 @@ class ReservationControllerTest {
                 TUTOR_ID, id, ReservationStatus.ACEPTADO))
                 .thenReturn(updated);
 
-        ResponseEntity<Reservation> response = controller.accept(TOKEN, id);
+        ResponseEntity<Reservation> response = controller.accept(TUTOR, id);
 
         assertEquals(ReservationStatus.ACEPTADO, response.getBody().getStatus());
-        verify(authz).requireRole(TOKEN, "TUTOR");
     }
 
     @Test
     void accept_shouldReturnUpdatedReservation() {
         String id = "res-2";
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
 
         Reservation updated = Reservation.builder()
                 .id(id)
@@ -347,7 +310,7 @@ class ReservationControllerTest {
                 TUTOR_ID, id, ReservationStatus.ACEPTADO))
                 .thenReturn(updated);
 
-        ResponseEntity<Reservation> response = controller.accept(TOKEN, id);
+        ResponseEntity<Reservation> response = controller.accept(TUTOR, id);
 
         assertEquals(id, response.getBody().getId());
     }
@@ -355,10 +318,8 @@ class ReservationControllerTest {
     @Test
     void accept_shouldFailWhenNotTutorRole() {
         String id = "res-1";
-        doThrow(new RuntimeException("Forbidden"))
-                .when(authz).requireRole(TOKEN, "TUTOR");
-
-        assertThrows(RuntimeException.class, () -> controller.accept(TOKEN, id));
+        
+        assertThrows(RuntimeException.class, () -> controller.accept(STUDENT, id));
         verify(reservationService, never())
                 .changeStatusByStudentOrTutor(anyString(), anyString(), any());
     }
@@ -366,14 +327,12 @@ class ReservationControllerTest {
     @Test
     void accept_shouldPropagateServiceError() {
         String id = "res-1";
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
 
         when(reservationService.changeStatusByStudentOrTutor(
                 TUTOR_ID, id, ReservationStatus.ACEPTADO))
                 .thenThrow(new RuntimeException("DB error"));
 
-        assertThrows(RuntimeException.class, () -> controller.accept(TOKEN, id));
+        assertThrows(RuntimeException.class, () -> controller.accept(TUTOR, id));
     }
 
     // ========== attended() ==========
@@ -381,8 +340,6 @@ class ReservationControllerTest {
     @Test
     void attended_shouldUpdateAttendanceTrue() {
         String id = "res-1";
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
 
         Reservation updated = Reservation.builder()
                 .id(id)
@@ -392,7 +349,7 @@ class ReservationControllerTest {
         when(reservationService.setAttended(TUTOR_ID, id, true))
                 .thenReturn(updated);
 
-        ResponseEntity<Reservation> response = controller.attended(TOKEN, id, true);
+        ResponseEntity<Reservation> response = controller.attended(TUTOR, id, true);
 
         assertTrue(response.getBody().getAttended());
     }
@@ -400,8 +357,6 @@ class ReservationControllerTest {
     @Test
     void attended_shouldUpdateAttendanceFalse() {
         String id = "res-2";
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
 
         Reservation updated = Reservation.builder()
                 .id(id)
@@ -411,33 +366,20 @@ class ReservationControllerTest {
         when(reservationService.setAttended(TUTOR_ID, id, false))
                 .thenReturn(updated);
 
-        ResponseEntity<Reservation> response = controller.attended(TOKEN, id, false);
+        ResponseEntity<Reservation> response = controller.attended(TUTOR, id, false);
 
         assertFalse(response.getBody().getAttended());
     }
 
-    @Test
-    void attended_shouldFailWhenAuthThrows() {
-        String id = "res-1";
-        when(authz.me(TOKEN)).thenThrow(new RuntimeException("Invalid token"));
-
-        assertThrows(RuntimeException.class,
-                () -> controller.attended(TOKEN, id, true));
-        verify(reservationService, never())
-                .setAttended(anyString(), anyString(), anyBoolean());
-    }
-
     @Test
     void attended_shouldPropagateServiceError() {
         String id = "res-1";
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
 
         when(reservationService.setAttended(TUTOR_ID, id, true))
                 .thenThrow(new RuntimeException("DB error"));
 
         assertThrows(RuntimeException.class,
-                () -> controller.attended(TOKEN, id, true));
+                () -> controller.attended(TUTOR, id, true));
     }
 
     // ========== canChat() ==========
@@ -445,11 +387,9 @@ class ReservationControllerTest {
     @Test
     void canChat_shouldReturnFalseWhenSameUser() {
         String other = STUDENT_ID;
-        RolesResponse me = mockMe(STUDENT_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
 
         ResponseEntity<Map<String, Object>> response =
-                controller.canChat(TOKEN, other);
+                controller.canChat(STUDENT, other);
 
         Map<String, Object> body = response.getBody();
         assertNotNull(body);
@@ -459,9 +399,6 @@ class ReservationControllerTest {
 
     @Test
     void canChat_shouldReturnTrueWhenReservationExists() {
-        RolesResponse me = mockMe(STUDENT_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
-
         Reservation r = Reservation.builder()
                 .id("res-1")
                 .studentId(STUDENT_ID)
@@ -473,7 +410,7 @@ class ReservationControllerTest {
                 .thenReturn(List.of(r));
 
         ResponseEntity<Map<String, Object>> response =
-                controller.canChat(TOKEN, TUTOR_ID);
+                controller.canChat(STUDENT, TUTOR_ID);
 
         Map<String, Object> body = response.getBody();
         assertNotNull(body);
@@ -483,14 +420,11 @@ class ReservationControllerTest {
 
     @Test
     void canChat_shouldReturnFalseWhenNoReservations() {
-        RolesResponse me = mockMe(STUDENT_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
-
         when(mongoTemplate.find(any(Query.class), eq(Reservation.class)))
                 .thenReturn(List.of());
 
         ResponseEntity<Map<String, Object>> response =
-                controller.canChat(TOKEN, TUTOR_ID);
+                controller.canChat(STUDENT, TUTOR_ID);
 
         Map<String, Object> body = response.getBody();
         assertNotNull(body);
@@ -499,21 +433,9 @@ class ReservationControllerTest {
                 body.get("reason"));
     }
 
-    @Test
-    void canChat_shouldFailWhenAuthThrows() {
-        when(authz.me(TOKEN)).thenThrow(new RuntimeException("Invalid token"));
-
-        assertThrows(RuntimeException.class,
-                () -> controller.canChat(TOKEN, TUTOR_ID));
-    }
-
-    // ========== getOne() ==========
-
     @Test
     void getOne_shouldReturnReservationWhenStudentParticipant() {
         String id = "res-1";
-        RolesResponse me = mockMe(STUDENT_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
 
         Reservation r = Reservation.builder()
                 .id(id)
@@ -527,7 +449,7 @@ class ReservationControllerTest {
 
         when(reservationService.findById(id)).thenReturn(Optional.of(r));
 
-        ResponseEntity<Map<String, Object>> response = controller.getOne(TOKEN, id);
+        ResponseEntity<Map<String, Object>> response = controller.getOne(STUDENT, id);
 
         Map<String, Object> body = response.getBody();
         assertNotNull(body);
@@ -540,8 +462,6 @@ class ReservationControllerTest {
     @Test
     void getOne_shouldReturnReservationWhenTutorParticipant() {
         String id = "res-2";
-        RolesResponse me = mockMe(TUTOR_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
 
         Reservation r = Reservation.builder()
                 .id(id)
@@ -555,7 +475,7 @@ class ReservationControllerTest {
 
         when(reservationService.findById(id)).thenReturn(Optional.of(r));
 
-        ResponseEntity<Map<String, Object>> response = controller.getOne(TOKEN, id);
+        ResponseEntity<Map<String, Object>> response = controller.getOne(TUTOR, id);
 
         assertEquals(id, response.getBody().get("id"));
     }
@@ -563,20 +483,16 @@ class ReservationControllerTest {
     @Test
     void getOne_shouldFailWhenReservationNotFound() {
         String id = "res-404";
-        RolesResponse me = mockMe(STUDENT_ID);
-        when(authz.me(TOKEN)).thenReturn(me);
 
         when(reservationService.findById(id)).thenReturn(Optional.empty());
 
         assertThrows(org.springframework.web.server.ResponseStatusException.class,
-                () -> controller.getOne(TOKEN, id));
+                () -> controller.getOne(STUDENT, id));
     }
 
     @Test
     void getOne_shouldFailWhenUserNotParticipant() {
         String id = "res-1";
-        RolesResponse me = mockMe("other-user");
-        when(authz.me(TOKEN)).thenReturn(me);
 
         Reservation r = Reservation.builder()
                 .id(id)
@@ -588,7 +504,7 @@ class ReservationControllerTest {
 
         org.springframework.web.server.ResponseStatusException ex =
                 assertThrows(org.springframework.web.server.ResponseStatusException.class,
-                        () -> controller.getOne(TOKEN, id));
+                        () -> controller.getOne(OTHER, id));
 
         assertEquals(org.springframework.http.HttpStatus.FORBIDDEN, ex.getStatusCode());
     }
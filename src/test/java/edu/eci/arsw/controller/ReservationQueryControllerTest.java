@@ -1,12 +1,22 @@
 package edu.eci.arsw.controller;
 
+import edu.eci.arsw.domain.ReservationStatus;
+import edu.eci.arsw.dto.ReservationPage;
 import edu.eci.arsw.dto.ReservationView;
+import edu.eci.arsw.service.NdjsonWriter;
 import edu.eci.arsw.service.ReservationQueryService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
 
@@ -109,4 +119,54 @@ class ReservationQueryControllerTest {
 
         assertNotNull(result);
     }
+
+    // ========== páginas ==========
+
+    @Test
+    void byTutorPage_shouldDelegateToService() {
+        ReservationPage page = new ReservationPage(List.of(ReservationView.builder().id("r1").build()), "c2");
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        when(service.pageByTutor("t1", "c1", 10, from, null, List.of(ReservationStatus.ACTIVA))).thenReturn(page);
+
+        ReservationPage result = controller.byTutorPage("t1", "c1", 10, from, null, List.of(ReservationStatus.ACTIVA));
+
+        assertSame(page, result);
+    }
+
+    @Test
+    void byStudentPage_shouldDelegateToService() {
+        ReservationPage page = new ReservationPage(Collections.emptyList(), null);
+        when(service.pageByStudent("s1", null, null, null, null, null)).thenReturn(page);
+
+        ReservationPage result = controller.byStudentPage("s1", null, null, null, null, null);
+
+        assertSame(page, result);
+        assertNull(result.getNextCursor());
+    }
+
+    // ========== streaming ==========
+
+    @Test
+    void byTutorStream_shouldReturnNdjsonBody() throws Exception {
+        NdjsonWriter writer = out -> out.write("{}\n".getBytes(StandardCharsets.UTF_8));
+        when(service.streamByTutor("t1")).thenReturn(writer);
+
+        ResponseEntity<StreamingResponseBody> result = controller.byTutorStream("t1");
+
+        assertEquals(MediaType.APPLICATION_NDJSON, result.getHeaders().getContentType());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.getBody().writeTo(out);
+        assertEquals("{}\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void byStudentStream_shouldReturnNdjsonBody() {
+        when(service.streamByStudent("s1")).thenReturn(out -> {
+        });
+
+        ResponseEntity<StreamingResponseBody> result = controller.byStudentStream("s1");
+
+        assertEquals(MediaType.APPLICATION_NDJSON, result.getHeaders().getContentType());
+        assertNotNull(result.getBody());
+    }
 }
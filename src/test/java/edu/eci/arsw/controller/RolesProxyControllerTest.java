@@ -1,12 +1,15 @@
 package edu.eci.arsw.controller;
 
+import edu.eci.arsw.security.AuthenticatedUser;
 import edu.eci.arsw.security.AuthorizationService;
+import edu.eci.arsw.security.Role;
 import edu.eci.arsw.security.RolesResponse;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -63,4 +66,22 @@ class RolesProxyControllerTest {
 
         verify(authz).me(TOKEN);
     }
+
+    @Test
+    void invalidateRoles_shouldForgetRolesOfSubjectForAdmins() {
+        AuthenticatedUser admin = new AuthenticatedUser("admin-1", Role.ADMIN.bit());
+
+        ResponseEntity<Void> response = controller.invalidateRoles(admin, "sub-u1");
+
+        assertEquals(204, response.getStatusCode().value());
+        verify(authz).invalidateRoles("sub-u1");
+    }
+
+    @Test
+    void invalidateRoles_shouldRejectNonAdmins() {
+        AuthenticatedUser tutor = new AuthenticatedUser("tutor-1", Role.TUTOR.bit());
+
+        assertThrows(ResponseStatusException.class, () -> controller.invalidateRoles(tutor, "sub-u1"));
+        verify(authz, never()).invalidateRoles(any());
+    }
 }
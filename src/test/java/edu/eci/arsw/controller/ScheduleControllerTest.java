@@ -1,17 +1,27 @@
 package edu.eci.arsw.controller;
 
+import edu.eci.arsw.dto.CompactWeekSchedule;
+import edu.eci.arsw.dto.FreeSlot;
 import edu.eci.arsw.dto.ScheduleCell;
-import edu.eci.arsw.security.AuthorizationService;
+import edu.eci.arsw.security.AuthenticatedUser;
+import edu.eci.arsw.security.Role;
+import edu.eci.arsw.service.FreeSlotIndex;
+import edu.eci.arsw.service.ScheduleFeed;
 import edu.eci.arsw.service.ScheduleService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -23,12 +33,16 @@ class ScheduleControllerTest {
     private ScheduleService scheduleService;
 
     @Mock
-    private AuthorizationService authz;
+    private FreeSlotIndex freeSlots;
+
+    @Mock
+    private ScheduleFeed feed;
 
     @InjectMocks
     private ScheduleController controller;
 
-    private static final String TOKEN = "Bearer token";
+    private static final AuthenticatedUser STUDENT = new AuthenticatedUser("s1", Role.STUDENT.bit());
+    private static final AuthenticatedUser OUTSIDER = new AuthenticatedUser("u1", 0);
 
     @Test
     void week_shouldReturnScheduleForTutor() {
@@ -41,11 +55,10 @@ class ScheduleControllerTest {
         when(scheduleService.weekForTutor(tutorId, weekStart)).thenReturn(cells);
 
         ResponseEntity<List<ScheduleCell>> response =
-                controller.week(TOKEN, tutorId, weekStart);
+                controller.week(STUDENT, tutorId, weekStart);
 
         assertEquals(200, response.getStatusCode().value());
         assertEquals(cells, response.getBody());
-        verify(authz).requireRole(TOKEN, "STUDENT", "TUTOR");
     }
 
     @Test
@@ -57,7 +70,7 @@ class ScheduleControllerTest {
                 .thenReturn(Collections.emptyList());
 
         ResponseEntity<List<ScheduleCell>> response =
-                controller.week(TOKEN, tutorId, weekStart);
+                controller.week(STUDENT, tutorId, weekStart);
 
         assertNotNull(response.getBody());
         assertTrue(response.getBody().isEmpty());
@@ -68,11 +81,8 @@ class ScheduleControllerTest {
         String tutorId = "t1";
         LocalDate weekStart = LocalDate.of(2025, 1, 6);
 
-        doThrow(new RuntimeException("Forbidden"))
-                .when(authz).requireRole(TOKEN, "STUDENT", "TUTOR");
-
         assertThrows(RuntimeException.class,
-                () -> controller.week(TOKEN, tutorId, weekStart));
+                () -> controller.week(OUTSIDER, tutorId, weekStart));
         verify(scheduleService, never())
                 .weekForTutor(anyString(), any());
     }
@@ -86,6 +96,119 @@ class ScheduleControllerTest {
                 .when(scheduleService).weekForTutor(tutorId, weekStart);
 
         assertThrows(RuntimeException.class,
-                () -> controller.week(TOKEN, tutorId, weekStart));
+                () -> controller.week(STUDENT, tutorId, weekStart));
+    }
+
+    @Test
+    void compare_shouldReturnSchedulesForAllTutors() {
+        LocalDate weekStart = LocalDate.of(2025, 1, 6);
+        List<String> ids = List.of("t1", "t2");
+        Map<String, List<ScheduleCell>> grids = Map.of(
+                "t1", List.of(new ScheduleCell("2025-01-06", "10:00", "DISPONIBLE", null, null)),
+                "t2", Collections.emptyList());
+        when(scheduleService.weekForTutors(ids, weekStart)).thenReturn(grids);
+
+        ResponseEntity<Map<String, List<ScheduleCell>>> response =
+                controller.compare(STUDENT, ids, weekStart);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(grids, response.getBody());
+    }
+
+    @Test
+    void availableTutors_shouldQueryIndexWithHourRange() {
+        LocalDate date = LocalDate.of(2025, 1, 6);
+        when(freeSlots.freeTutors(date, 10, 12)).thenReturn(List.of("t1", "t2"));
+        when(freeSlots.freeTutors(date, 23, 24)).thenReturn(List.of("t3"));
+
+        assertEquals(List.of("t1", "t2"), controller.availableTutors(STUDENT, date, "10:00", "12:00").getBody());
+        assertEquals(List.of("t3"), controller.availableTutors(STUDENT, date, "23", null).getBody());
+    }
+
+    @Test
+    void availableTutors_shouldRejectInvalidRanges() {
+        LocalDate date = LocalDate.of(2025, 1, 6);
+
+        assertThrows(ResponseStatusException.class, () -> controller.availableTutors(STUDENT, date, "10:30", null));
+        assertThrows(ResponseStatusException.class, () -> controller.availableTutors(STUDENT, date, "12:00", "10:00"));
+        assertThrows(ResponseStatusException.class, () -> controller.availableTutors(STUDENT, date, "24:00", null));
+        assertThrows(ResponseStatusException.class, () -> controller.availableTutors(STUDENT, date, "abc", null));
+        verifyNoInteractions(freeSlots);
+    }
+
+    @Test
+    void nextAvailableForTutor_shouldClampPastDatesToNextHour() {
+        LocalDateTime future = LocalDateTime.of(2999, 1, 6, 10, 0);
+        List<FreeSlot> slots = List.of(new FreeSlot("t1", "2999-01-06", "10:00"));
+        when(freeSlots.nextFreeForTutor("t1", future, 3)).thenReturn(slots);
+
+        assertEquals(slots, controller.nextAvailableForTutor(STUDENT, "t1", future, 3).getBody());
+
+        controller.nextAvailableForTutor(STUDENT, "t1", LocalDateTime.of(2000, 1, 1, 0, 0), 1);
+        verify(freeSlots).nextFreeForTutor(eq("t1"),
+                argThat(t -> t.isAfter(LocalDateTime.of(2000, 1, 1, 0, 0))), eq(1));
+    }
+
+    @Test
+    void nextAvailable_shouldPassCursorAndRejectBadLimit() {
+        LocalDateTime future = LocalDateTime.of(2999, 1, 6, 10, 0);
+        when(freeSlots.nextFreeAny(future, "t1", 5)).thenReturn(List.of());
+
+        assertTrue(controller.nextAvailable(STUDENT, future, "t1", 5).getBody().isEmpty());
+        assertThrows(ResponseStatusException.class, () -> controller.nextAvailable(STUDENT, future, null, 0));
+        assertThrows(ResponseStatusException.class, () -> controller.nextAvailable(STUDENT, future, null, 51));
+    }
+
+    @Test
+    void weekCompact_shouldReturnCompactScheduleForBothSelectors() {
+        LocalDate weekStart = LocalDate.of(2025, 1, 6);
+        CompactWeekSchedule compact = new CompactWeekSchedule("2025-01-06",
+                new int[7], new int[7], Collections.emptyList());
+        when(scheduleService.compactWeekForTutor("t1", weekStart)).thenReturn(compact);
+
+        assertSame(compact, controller.weekCompact(STUDENT, "t1", weekStart).getBody());
+        assertSame(compact, controller.weekCompactByAccept(STUDENT, "t1", weekStart).getBody());
+        verify(scheduleService, never()).weekForTutor(anyString(), any());
+    }
+
+    @Test
+    void range_shouldValidateBeforeStreaming() throws Exception {
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 1, 31);
+
+        ResponseEntity<StreamingResponseBody> response = controller.range(STUDENT, "t1", from, to);
+        verify(scheduleService).checkRange("t1", from, to);
+        verify(scheduleService, never()).streamRange(any(), any(), any(), any());
+
+        java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        verify(scheduleService).streamRange("t1", from, to, out);
+    }
+
+    @Test
+    void range_shouldPropagateValidationErrors() {
+        LocalDate from = LocalDate.of(2025, 1, 31);
+        LocalDate to = LocalDate.of(2025, 1, 1);
+        doThrow(new ResponseStatusException(org.springframework.http.HttpStatus.BAD_REQUEST))
+                .when(scheduleService).checkRange("t1", from, to);
+
+        assertThrows(ResponseStatusException.class, () -> controller.range(STUDENT, "t1", from, to));
+    }
+
+    @Test
+    void feed_shouldSubscribeToTutorWeek() {
+        LocalDate weekStart = LocalDate.of(2025, 1, 6);
+        SseEmitter emitter = new SseEmitter();
+        when(feed.subscribe("t1", weekStart)).thenReturn(emitter);
+
+        assertSame(emitter, controller.feed(STUDENT, "t1", weekStart));
+    }
+
+    @Test
+    void feed_shouldNotSubscribeWhenUnauthorized() {
+        LocalDate weekStart = LocalDate.of(2025, 1, 6);
+        
+        assertThrows(ResponseStatusException.class, () -> controller.feed(OUTSIDER, "t1", weekStart));
+        verifyNoInteractions(feed);
     }
 }
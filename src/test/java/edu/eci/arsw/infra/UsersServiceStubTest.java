@@ -0,0 +1,138 @@
+package edu.eci.arsw.infra;
+
+import edu.eci.arsw.security.RolesResponse;
+import edu.eci.arsw.security.UserServiceClient;
+import edu.eci.arsw.security.UsersPublicClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UsersServiceStubTest {
+
+    private UsersServiceStub stub;
+
+    @AfterEach
+    void tearDown() {
+        if (stub != null)
+            stub.close();
+    }
+
+    private UserServiceClient rolesClient() {
+        return new UserServiceClient(new ConcurrentMapCacheManager(), stub.baseUrl());
+    }
+
+    private UsersPublicClient profileClient() {
+        return new UsersPublicClient(new ConcurrentMapCacheManager("userPublicProfiles"), stub.baseUrl(),
+                UsersServiceStub.PROFILE_PATH, UsersServiceStub.BATCH_PATH, 5);
+    }
+
+    @Test
+    void profileConfigShouldStartStubWithGeneratedUsers() throws IOException {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("stub.users.port", "0")
+                .withProperty("stub.users.generated-count", "4")
+                .withProperty("stub.users.seed", "7");
+        stub = new UsersServiceStubConfig().usersServiceStub(env);
+
+        assertEquals(4, stub.userCount());
+        RolesResponse rr = rolesClient().getMyRoles("Bearer u2").block(Duration.ofSeconds(5));
+        assertEquals("u2", rr.getId());
+        assertEquals(List.of("TUTOR"), rr.getRoles());
+        assertEquals("Usuario 3", profileClient().getPublicProfiles(List.of("u3")).get("u3").getName());
+        assertEquals(1, stub.batchCalls());
+    }
+
+    @Test
+    void datasetUsersShouldBeFoundByIdSubAndJwt() throws IOException {
+        String json = "[{\"id\":\"a1\",\"sub\":\"auth0|a1\",\"name\":\"Ana\",\"roles\":[\"STUDENT\",\"TUTOR\"]},"
+                + "{\"id\":\"b2\",\"name\":\"Beto\"}]";
+        stub = new UsersServiceStub(true)
+                .withDataset(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("Ana", profileClient().getPublicProfile("auth0|a1", null).block(Duration.ofSeconds(5)).getName());
+        assertEquals("sub-b2", profileClient().getPublicProfile(null, "b2").block(Duration.ofSeconds(5)).getSub());
+
+        Base64.Encoder enc = Base64.getUrlEncoder().withoutPadding();
+        String jwt = enc.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + enc.encodeToString("{\"sub\":\"auth0|a1\"}".getBytes(StandardCharsets.UTF_8)) + ".x";
+        RolesResponse rr = rolesClient().getMyRoles("Bearer " + jwt).block(Duration.ofSeconds(5));
+        assertEquals("a1", rr.getId());
+        assertEquals(List.of("STUDENT", "TUTOR"), rr.getRoles());
+        assertEquals(List.of("STUDENT"), rolesClient().getMyRoles("Bearer b2").block(Duration.ofSeconds(5)).getRoles());
+    }
+
+    @Test
+    void unknownTokenShouldBeUnauthorized() throws IOException {
+        stub = new UsersServiceStub(false).withUser("u1", "Ana");
+
+        assertThrows(WebClientResponseException.Unauthorized.class,
+                () -> rolesClient().getMyRoles("Bearer nadie").block(Duration.ofSeconds(5)));
+        assertEquals(1, stub.rolesCalls());
+    }
+
+    @Test
+    void errorRateShouldFailWithServiceUnavailable() throws IOException {
+        stub = new UsersServiceStub(false).withUser("u1", "Ana").withErrorRate(1.0);
+
+        // el cliente reintenta dos veces antes de rendirse
+        assertThrows(RuntimeException.class,
+                () -> profileClient().getPublicProfile(null, "u1").block(Duration.ofSeconds(5)));
+        assertEquals(3, stub.profileCalls());
+    }
+
+    @Test
+    void latencyShouldFollowTheConfiguredMedianAndP99() throws IOException {
+        stub = new UsersServiceStub(false).withLatency(20, 200);
+        SplittableRandom random = new SplittableRandom(42);
+
+        long[] samples = LongStream.range(0, 20_000).map(i -> stub.nextLatencyMs(random)).sorted().toArray();
+        assertEquals(20, samples[samples.length / 2], 2);
+        assertEquals(200, samples[(int) (samples.length * 0.99)], 25);
+
+        stub.withLatency(15);
+        assertEquals(15, stub.nextLatencyMs(random));
+        assertEquals(15, stub.nextLatencyMs(random));
+        stub.withLatency(0);
+        assertEquals(0, stub.nextLatencyMs(random));
+    }
+
+    @Test
+    void seededRunsShouldNotDependOnTheOrderOfRequests() throws IOException {
+        stub = new UsersServiceStub(false).withSeed(7).withLatency(20, 200);
+        long a1 = stub.nextLatencyMs(stub.randomFor("GET /a"));
+        long b1 = stub.nextLatencyMs(stub.randomFor("GET /b"));
+        long a2 = stub.nextLatencyMs(stub.randomFor("GET /a"));
+
+        // misma semilla, otro orden: cada petición tiene la misma latencia
+        stub.withSeed(7);
+        assertEquals(b1, stub.nextLatencyMs(stub.randomFor("GET /b")));
+        assertEquals(a1, stub.nextLatencyMs(stub.randomFor("GET /a")));
+        assertEquals(a2, stub.nextLatencyMs(stub.randomFor("GET /a")));
+        // un reintento de la misma petición no repite la misma suerte
+        assertNotEquals(stub.randomFor("GET /c").nextLong(), stub.randomFor("GET /c").nextLong());
+    }
+
+    @Test
+    void invalidSettingsShouldFail() throws IOException {
+        stub = new UsersServiceStub(false);
+
+        assertThrows(IllegalArgumentException.class, () -> stub.withLatency(100, 10));
+        assertThrows(IllegalArgumentException.class, () -> stub.withErrorRate(1.5));
+        assertThrows(IllegalArgumentException.class, () -> new UsersServiceStub(false, 0, 0));
+        assertThrows(IOException.class, () -> stub.withDataset(
+                new ByteArrayInputStream("[{\"name\":\"sin id\"}]".getBytes(StandardCharsets.UTF_8))));
+    }
+}
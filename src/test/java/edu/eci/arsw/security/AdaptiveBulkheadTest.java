@@ -0,0 +1,144 @@
+package edu.eci.arsw.security;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveBulkheadTest {
+
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private final String name = "test-" + INSTANCES.incrementAndGet();
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+    private SimpleMeterRegistry registry;
+    private AdaptiveBulkhead bulkhead;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        bulkhead = new AdaptiveBulkhead(name, 4, 2, 6, 0.5, Duration.ofMillis(100), nanos::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.removeRegistry(registry);
+    }
+
+    /** Llamada que dura lo indicado en el reloj falso */
+    private Mono<String> call(long millis, boolean fail) {
+        return Mono.defer(() -> {
+            calls.incrementAndGet();
+            nanos.addAndGet(Duration.ofMillis(millis).toNanos());
+            return fail ? Mono.error(new RuntimeException("down")) : Mono.just("ok");
+        });
+    }
+
+    @Test
+    void shouldRejectFastWhenLimitIsReached() {
+        Sinks.One<String> pending = Sinks.one();
+        Disposable[] inFlight = new Disposable[4];
+        for (int i = 0; i < 4; i++)
+            inFlight[i] = bulkhead.protect(pending.asMono()).subscribe();
+        assertEquals(4, bulkhead.inFlight());
+
+        BulkheadFullException e = assertThrows(BulkheadFullException.class,
+                () -> bulkhead.protect(call(1, false)).block());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        assertEquals(0, calls.get());
+        assertEquals(1.0, registry.get("bulkhead.rejected").tag("name", name).counter().count());
+        assertEquals(4.0, registry.get("bulkhead.inflight").tag("name", name).gauge().value());
+
+        // cancelar libera el lugar sin tocar el límite
+        inFlight[0].dispose();
+        assertEquals("ok", bulkhead.protect(call(1, false)).block());
+        assertEquals(4, bulkhead.limit());
+
+        pending.tryEmitValue("ok");
+        assertEquals(0, bulkhead.inFlight());
+    }
+
+    @Test
+    void slowOrFailedCallsShouldShrinkTheLimitDownToTheMinimum() {
+        bulkhead.protect(call(500, false)).block();
+        assertEquals(2, bulkhead.limit());
+
+        assertThrows(RuntimeException.class, () -> bulkhead.protect(call(1, true)).block());
+        assertEquals(2, bulkhead.limit());
+        assertEquals(2.0, registry.get("bulkhead.limit").tag("name", name).gauge().value());
+        assertEquals(0, bulkhead.inFlight());
+    }
+
+    @Test
+    void fastCallsUnderLoadShouldGrowTheLimitUpToTheMaximum() {
+        // con la mitad del límite en vuelo el bulkhead se considera en uso
+        Sinks.One<String> others = Sinks.one();
+        for (int i = 0; i < 3; i++)
+            bulkhead.protect(others.asMono()).subscribe();
+        for (int i = 0; i < 20; i++)
+            bulkhead.protect(call(10, false)).block();
+        assertEquals(6, bulkhead.limit());
+    }
+
+    @Test
+    void fastCallsWithoutLoadShouldNotGrowTheLimit() {
+        for (int i = 0; i < 50; i++)
+            bulkhead.protect(call(10, false)).block();
+        assertEquals(4, bulkhead.limit());
+    }
+
+    @Test
+    void clientErrorsAndOpenCircuitShouldNotShrinkTheLimit() {
+        WebClientResponseException notFound = WebClientResponseException.create(
+                HttpStatus.NOT_FOUND.value(), "Not Found", null, new byte[0], StandardCharsets.UTF_8);
+        assertThrows(WebClientResponseException.class, () -> bulkhead.protect(Mono.error(notFound)).block());
+        assertThrows(CircuitOpenException.class,
+                () -> bulkhead.protect(Mono.error(new CircuitOpenException("x"))).block());
+
+        assertEquals(4, bulkhead.limit());
+        assertEquals(0, bulkhead.inFlight());
+    }
+
+    @Test
+    void fastClientErrorsUnderLoadShouldNotGrowTheLimit() {
+        WebClientResponseException forbidden = WebClientResponseException.create(
+                HttpStatus.FORBIDDEN.value(), "Forbidden", null, new byte[0], StandardCharsets.UTF_8);
+        Sinks.One<String> others = Sinks.one();
+        for (int i = 0; i < 3; i++)
+            bulkhead.protect(others.asMono()).subscribe();
+
+        for (int i = 0; i < 20; i++) {
+            Mono<String> rejected = Mono.defer(() -> {
+                nanos.addAndGet(Duration.ofMillis(10).toNanos());
+                return Mono.error(forbidden);
+            });
+            assertThrows(WebClientResponseException.class, () -> bulkhead.protect(rejected).block());
+        }
+
+        assertEquals(4, bulkhead.limit());
+        assertEquals(3, bulkhead.inFlight());
+    }
+
+    @Test
+    void invalidConfigurationShouldFail() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptiveBulkhead("x", 1, 0, 5, 0.5, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AdaptiveBulkhead("x", 1, 1, 5, 1.0, Duration.ofSeconds(1)));
+    }
+}
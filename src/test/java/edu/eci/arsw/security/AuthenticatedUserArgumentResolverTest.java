@@ -0,0 +1,88 @@
+package edu.eci.arsw.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuthenticatedUserArgumentResolverTest {
+
+    @Mock
+    private AuthorizationService authz;
+
+    @InjectMocks
+    private AuthenticatedUserArgumentResolver resolver;
+
+    private static final String TOKEN = "Bearer token";
+
+    @SuppressWarnings("unused")
+    void handler(AuthenticatedUser user, String other) {
+    }
+
+    private static MethodParameter param(int index) throws NoSuchMethodException {
+        return new MethodParameter(AuthenticatedUserArgumentResolverTest.class
+                .getDeclaredMethod("handler", AuthenticatedUser.class, String.class), index);
+    }
+
+    private static NativeWebRequest request(String authorization) {
+        MockHttpServletRequest req = new MockHttpServletRequest();
+        if (authorization != null)
+            req.addHeader("Authorization", authorization);
+        return new ServletWebRequest(req);
+    }
+
+    @Test
+    void shouldSupportOnlyAuthenticatedUserParameters() throws Exception {
+        assertTrue(resolver.supportsParameter(param(0)));
+        assertFalse(resolver.supportsParameter(param(1)));
+    }
+
+    @Test
+    void shouldResolveUserOncePerRequest() throws Exception {
+        RolesResponse rr = new RolesResponse();
+        rr.setId("u1");
+        rr.setRoles(List.of("TUTOR"));
+        when(authz.me(TOKEN)).thenReturn(rr);
+        NativeWebRequest request = request(TOKEN);
+
+        AuthenticatedUser first = resolver.resolveArgument(param(0), null, request, null);
+        AuthenticatedUser second = resolver.resolveArgument(param(0), null, request, null);
+
+        assertEquals(new AuthenticatedUser("u1", Role.TUTOR.bit()), first);
+        assertSame(first, second);
+        verify(authz, times(1)).me(TOKEN);
+    }
+
+    @Test
+    void shouldRejectMissingAuthorizationHeader() throws Exception {
+        NativeWebRequest request = request(null);
+        MethodParameter p = param(0);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> resolver.resolveArgument(p, null, request, null));
+        assertEquals(HttpStatus.UNAUTHORIZED, e.getStatusCode());
+        verifyNoInteractions(authz);
+    }
+
+    @Test
+    void shouldPropagateAuthenticationErrors() throws Exception {
+        when(authz.me(TOKEN)).thenThrow(new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token inválido"));
+        NativeWebRequest request = request(TOKEN);
+        MethodParameter p = param(0);
+
+        assertThrows(ResponseStatusException.class, () -> resolver.resolveArgument(p, null, request, null));
+    }
+}
@@ -0,0 +1,53 @@
+package edu.eci.arsw.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthenticatedUserTest {
+
+    private static RolesResponse roles(String id, String... roles) {
+        RolesResponse rr = new RolesResponse();
+        rr.setId(id);
+        rr.setRoles(roles == null ? null : Arrays.asList(roles));
+        return rr;
+    }
+
+    @Test
+    void ofShouldBuildMaskIgnoringCaseAndUnknownRoles() {
+        AuthenticatedUser user = AuthenticatedUser.of(roles("u1", "student", null, "SUPERHERO", "Tutor"));
+
+        assertEquals("u1", user.id());
+        assertEquals(Role.mask(Role.STUDENT, Role.TUTOR), user.roles());
+        assertTrue(user.hasAnyRole(Role.TUTOR.bit()));
+        assertFalse(user.hasAnyRole(Role.ADMIN.bit()));
+    }
+
+    @Test
+    void ofShouldRejectResponsesWithoutUser() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> AuthenticatedUser.of(null));
+        assertEquals(HttpStatus.UNAUTHORIZED, e.getStatusCode());
+        assertThrows(ResponseStatusException.class, () -> AuthenticatedUser.of(roles(" ", "STUDENT")));
+    }
+
+    @Test
+    void userWithoutRolesShouldHaveEmptyMask() {
+        assertEquals(0, AuthenticatedUser.of(roles("u1", (String[]) null)).roles());
+        assertEquals(0, Role.mask(List.of()));
+    }
+
+    @Test
+    void requireAnyRoleShouldThrowForbiddenWhenNoRoleMatches() {
+        AuthenticatedUser student = new AuthenticatedUser("u1", Role.STUDENT.bit());
+
+        assertDoesNotThrow(() -> student.requireAnyRole(Role.mask(Role.STUDENT, Role.TUTOR)));
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> student.requireAnyRole(Role.TUTOR.bit()));
+        assertEquals(HttpStatus.FORBIDDEN, e.getStatusCode());
+    }
+}
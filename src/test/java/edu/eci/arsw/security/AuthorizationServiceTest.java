@@ -7,11 +7,17 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -20,6 +26,9 @@ class AuthorizationServiceTest {
     @Mock
     UserServiceClient client;
 
+    @Mock
+    LocalJwtVerifier localJwt;
+
     @InjectMocks
     AuthorizationService service;
 
@@ -61,6 +70,17 @@ class AuthorizationServiceTest {
         assertEquals(HttpStatus.FORBIDDEN, ex.getStatusCode());
     }
 
+    @Test
+    void requireRoleWithMaskShouldTestPrecomputedBits() {
+        RolesResponse rr = new RolesResponse();
+        rr.setRoles(List.of("TUTOR"));
+        when(client.getMyRolesCached("Bearer token")).thenReturn(rr);
+
+        assertDoesNotThrow(() -> service.requireRole("Bearer token", Role.mask(Role.STUDENT, Role.TUTOR)));
+        assertThrows(ResponseStatusException.class, () -> service.requireRole("Bearer token", Role.ADMIN.bit()));
+        assertFalse(AuthorizationService.hasAnyRole((RolesResponse) null, Role.TUTOR.bit()));
+    }
+
     @Test
     void meShouldDelegateToClient() {
         RolesResponse rr = new RolesResponse();
@@ -69,6 +89,13 @@ class AuthorizationServiceTest {
         assertSame(rr, service.me("Bearer token"));
     }
 
+    @Test
+    void invalidateRolesShouldForgetRolesOfSubject() {
+        service.invalidateRoles("user-123");
+
+        verify(client).invalidateSubject("user-123");
+    }
+
     @Test
     void subjectShouldExtractSubFromJwtWithOrWithoutBearerPrefix() {
         String bearer = "Bearer " + JWT_WITH_SUB;
@@ -111,4 +138,58 @@ class AuthorizationServiceTest {
         assertEquals(HttpStatus.UNAUTHORIZED, ex.getStatusCode());
         assertEquals("JWT sin 'sub'", ex.getReason());
     }
+
+    @Test
+    void requireRoleAsyncShouldEmitRolesWhenAllowed() {
+        RolesResponse rr = new RolesResponse();
+        rr.setRoles(List.of("TUTOR"));
+        when(client.getMyRolesCachedAsync("Bearer token")).thenReturn(Mono.just(rr));
+
+        assertSame(rr, service.requireRoleAsync("Bearer token", "STUDENT", "TUTOR").block());
+    }
+
+    @Test
+    void requireRoleAsyncShouldFailWith403WhenRoleMissingOrNoRoles() {
+        RolesResponse rr = new RolesResponse();
+        rr.setRoles(List.of("STUDENT"));
+        when(client.getMyRolesCachedAsync("Bearer token")).thenReturn(Mono.just(rr), Mono.empty());
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> service.requireRoleAsync("Bearer token", "TUTOR").block());
+        assertEquals(HttpStatus.FORBIDDEN, e.getStatusCode());
+        assertThrows(ResponseStatusException.class,
+                () -> service.requireRoleAsync("Bearer token", "TUTOR").block());
+    }
+
+    @Test
+    void meShouldUseLocalClaimsWithoutCallingUsersService() {
+        RolesResponse local = new RolesResponse();
+        local.setId("u1");
+        local.setRoles(List.of("TUTOR"));
+        when(localJwt.verify(eq("Bearer token"), any())).thenReturn(Optional.of(local));
+
+        assertSame(local, service.me("Bearer token"));
+        assertTrue(service.hasAnyRole("Bearer token", "tutor"));
+        assertSame(local, service.meAsync("Bearer token").block());
+        verifyNoInteractions(client);
+    }
+
+    @Test
+    void meShouldFallBackToUsersServiceWhenClaimsAreMissing() {
+        RolesResponse remote = new RolesResponse();
+        when(localJwt.verify(eq("Bearer token"), any())).thenReturn(Optional.empty());
+        when(client.getMyRolesCached("Bearer token")).thenReturn(remote);
+
+        assertSame(remote, service.me("Bearer token"));
+    }
+
+    @Test
+    void meShouldLetLocalVerifierReuseRolesKnownForSubject() {
+        RolesResponse known = new RolesResponse();
+        when(client.cachedRolesBySubject("u1")).thenReturn(known);
+        when(localJwt.verify(eq("Bearer token"), any())).thenAnswer(inv -> Optional
+                .ofNullable(inv.<java.util.function.Function<String, RolesResponse>>getArgument(1).apply("u1")));
+
+        assertSame(known, service.me("Bearer token"));
+    }
 }
@@ -32,5 +32,33 @@ class CacheConfigTest {
         assertNotNull(roles, "rolesByBearer cache should exist");
         assertNotNull(profiles, "userPublicProfiles cache should exist");
         assertNotSame(roles, profiles);
+        assertInstanceOf(RefreshAheadCache.class, roles);
+        assertInstanceOf(RefreshAheadCache.class, profiles);
+    }
+
+    @Test
+    void rolesEntriesShouldExpireWithTheirToken() {
+        SimpleCacheManager manager = (SimpleCacheManager) config.cacheManager(new MockEnvironment());
+        manager.afterPropertiesSet();
+        Cache roles = manager.getCache("rolesByBearer");
+        long now = System.currentTimeMillis() / 1000;
+
+        roles.put(new RolesCacheKey("vencido", "u1", now - 10), "a");
+        roles.put(new RolesCacheKey("vigente", "u1", now + 600), "b");
+        roles.put(new RolesCacheKey("sin-exp", null, 0), "c");
+
+        assertNull(roles.get(new RolesCacheKey("vencido", "u1", now - 10)));
+        assertEquals("b", roles.get(new RolesCacheKey("vigente", "u1", now + 600), String.class));
+        assertEquals("c", roles.get(new RolesCacheKey("sin-exp", null, 0), String.class));
+        assertNull(manager.getCache("rolesBySubject"), "el índice por usuario es opcional");
+    }
+
+    @Test
+    void subjectIndexShouldBeRegisteredWhenEnabled() {
+        SimpleCacheManager manager = (SimpleCacheManager) config.cacheManager(
+                new MockEnvironment().withProperty("roles.cache.by-subject.enabled", "true"));
+        manager.afterPropertiesSet();
+
+        assertNotNull(manager.getCache("rolesBySubject"));
     }
 }
@@ -0,0 +1,117 @@
+package edu.eci.arsw.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private Instant now = Instant.parse("2025-01-06T10:00:00Z");
+    private final Clock clock = new Clock() {
+        @Override
+        public java.time.ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    };
+
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 3, Duration.ofSeconds(30), clock);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private Mono<String> failing() {
+        return Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.error(new RuntimeException("down"));
+        });
+    }
+
+    private Mono<String> ok() {
+        return Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.just("ok");
+        });
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            assertThrows(RuntimeException.class, () -> breaker.protect(failing()).block());
+        }
+    }
+
+    @Test
+    void shouldOpenAfterConsecutiveFailuresAndRejectWithoutCalling() {
+        fail(2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        fail(1);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+        assertThrows(CircuitOpenException.class, () -> breaker.protect(ok()).block());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void successShouldResetFailureCount() {
+        fail(2);
+        assertEquals("ok", breaker.protect(ok()).block());
+        fail(2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void halfOpenProbeShouldCloseOnSuccess() {
+        fail(3);
+        now = now.plusSeconds(31);
+
+        assertEquals("ok", breaker.protect(ok()).block());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void halfOpenProbeShouldReopenOnFailureAndAllowOnlyOneProbe() {
+        fail(3);
+        now = now.plusSeconds(31);
+
+        // la prueba no termina todavía: otra llamada se rechaza
+        Mono<String> probe = breaker.protect(Mono.never());
+        var subscription = probe.subscribe();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertThrows(CircuitOpenException.class, () -> breaker.protect(ok()).block());
+        // cancelar la prueba deja probar a la siguiente llamada
+        subscription.dispose();
+
+        fail(1);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertThrows(CircuitOpenException.class, () -> breaker.protect(ok()).block());
+    }
+
+    @Test
+    void clientErrorsShouldNotCountAsFailures() {
+        WebClientResponseException notFound = WebClientResponseException.create(
+                HttpStatus.NOT_FOUND.value(), "Not Found", null, new byte[0], StandardCharsets.UTF_8);
+        for (int i = 0; i < 5; i++) {
+            assertThrows(WebClientResponseException.class, () -> breaker.protect(Mono.error(notFound)).block());
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertFalse(CircuitBreaker.isFailure(notFound));
+        assertTrue(CircuitBreaker.isFailure(new RuntimeException("timeout")));
+    }
+}
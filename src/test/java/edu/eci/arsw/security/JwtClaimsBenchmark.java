@@ -0,0 +1,69 @@
+package edu.eci.arsw.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la lectura del "sub" de un JWT: la versión anterior (split, payload
+ * como String y árbol JSON completo) contra el parser en streaming y contra un
+ * acierto del memo por token.
+ * 
+ * Ejecutar con: mvn -Pbench test -Djmh.args="JwtClaims -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtClaimsBenchmark {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private String bearer;
+
+    @Setup
+    public void setUp() {
+        Base64.Encoder enc = Base64.getUrlEncoder().withoutPadding();
+        String payload = "{\"sub\":\"u1\",\"exp\":1736157600,\"iat\":1736154000,"
+                + "\"iss\":\"users-service\",\"roles\":[\"STUDENT\",\"TUTOR\"],"
+                + "\"profile\":{\"name\":\"Ana\",\"email\":\"ana@example.com\"}}";
+        bearer = "Bearer " + enc.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8))
+                + "." + enc.encodeToString(payload.getBytes(StandardCharsets.UTF_8))
+                + ".c2lnbmF0dXJlLWRlLXBydWViYS1jb24tbG9uZ2l0dWQtcmVhbA";
+        JwtClaims.parse(bearer);
+    }
+
+    @Benchmark
+    public String splitAndTree() throws Exception {
+        String token = bearer.substring(7).trim();
+        String[] parts = token.split("\\.");
+        String json = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8);
+        JsonNode node = MAPPER.readTree(json);
+        return node.path("sub").asText(null);
+    }
+
+    @Benchmark
+    public JwtClaims streaming() {
+        return JwtClaims.read(bearer);
+    }
+
+    @Benchmark
+    public JwtClaims memoized() {
+        return JwtClaims.parse(bearer);
+    }
+}
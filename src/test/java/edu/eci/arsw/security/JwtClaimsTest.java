@@ -0,0 +1,78 @@
+package edu.eci.arsw.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtClaimsTest {
+
+    private static String jwt(String payload) {
+        Base64.Encoder enc = Base64.getUrlEncoder().withoutPadding();
+        return enc.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + enc.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + ".firma";
+    }
+
+    @Test
+    void shouldReadSubjectAndExpiryWithOrWithoutBearerPrefix() {
+        String token = jwt("{\"sub\":\"u1\",\"exp\":1736157600,\"roles\":[\"STUDENT\"]}");
+
+        assertEquals(new JwtClaims("u1", 1736157600L), JwtClaims.parse("Bearer " + token));
+        assertEquals(new JwtClaims("u1", 1736157600L), JwtClaims.parse("bearer  " + token));
+        assertEquals(new JwtClaims("u1", 1736157600L), JwtClaims.parse(token));
+    }
+
+    @Test
+    void missingClaimsShouldBeNullOrZero() {
+        assertEquals(new JwtClaims(null, 0), JwtClaims.parse(jwt("{\"sub\":\" \"}")));
+    }
+
+    @Test
+    void unreadableTokensShouldYieldNull() {
+        assertNull(JwtClaims.parse(null));
+        assertNull(JwtClaims.parse("Bearer opaco"));
+        assertNull(JwtClaims.parse("Bearer a.b"));
+        assertNull(JwtClaims.parse("Bearer a.%%%.c"));
+        assertNull(JwtClaims.parse("Bearer a." + Base64.getUrlEncoder().encodeToString("no-json".getBytes()) + ".c"));
+    }
+
+    @Test
+    void nonAsciiCharactersInPayloadShouldMakeTokenUnreadable() {
+        String token = jwt("{\"sub\":\"u1\",\"exp\":5}");
+        int payload = token.indexOf('.') + 1;
+        char c = token.charAt(payload);
+        // mismo byte bajo que el original: no debe leerse como si fuera él
+        String tampered = token.substring(0, payload) + (char) (0x100 + c) + token.substring(payload + 1);
+
+        assertNotNull(JwtClaims.read(token));
+        assertNull(JwtClaims.read(tampered));
+    }
+
+    @Test
+    void shouldSkipNestedClaimsAndIgnoreNonScalarSubject() {
+        String token = jwt("{\"profile\":{\"sub\":\"otro\",\"exp\":1},\"roles\":[{\"sub\":\"x\"}],"
+                + "\"sub\":\"u1\",\"exp\":\"1736157600\"}");
+        assertEquals(new JwtClaims("u1", 1736157600L), JwtClaims.parse(token));
+
+        assertEquals(new JwtClaims(null, 5), JwtClaims.parse(jwt("{\"sub\":{\"id\":\"u1\"},\"exp\":5}")));
+    }
+
+    @Test
+    void tokenWithoutSignatureShouldBeRead() {
+        String token = jwt("{\"sub\":\"u1\"}");
+        String unsigned = token.substring(0, token.lastIndexOf('.'));
+        assertEquals(new JwtClaims("u1", 0), JwtClaims.parse("Bearer " + unsigned + " "));
+    }
+
+    @Test
+    void memoShouldReturnSameInstanceForSameToken() {
+        String bearer = "Bearer " + jwt("{\"sub\":\"memo\",\"exp\":42}");
+
+        JwtClaims first = JwtClaims.parse(bearer);
+        assertSame(first, JwtClaims.parse(new String(bearer)));
+        assertNotSame(first, JwtClaims.read(bearer));
+        assertEquals(first, JwtClaims.read(bearer));
+    }
+}
@@ -0,0 +1,189 @@
+package edu.eci.arsw.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalJwtVerifierTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-06T10:00:00Z");
+    private static final byte[] SECRET = "secreto-de-prueba-de-32-bytes!!!".getBytes(StandardCharsets.UTF_8);
+    private static final Clock CLOCK = Clock.fixed(NOW, ZoneOffset.UTC);
+
+    private static String b64(String s) {
+        return b64(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String b64(byte[] b) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(b);
+    }
+
+    static String hs256(byte[] secret, String payload) throws Exception {
+        String content = b64("{\"alg\":\"HS256\",\"typ\":\"JWT\"}") + "." + b64(payload);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+        return "Bearer " + content + "." + b64(mac.doFinal(content.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static String rs256(PrivateKey key, String kid, String payload) throws Exception {
+        String content = b64("{\"alg\":\"RS256\",\"kid\":\"" + kid + "\"}") + "." + b64(payload);
+        Signature signer = Signature.getInstance("SHA256withRSA");
+        signer.initSign(key);
+        signer.update(content.getBytes(StandardCharsets.US_ASCII));
+        return "Bearer " + content + "." + b64(signer.sign());
+    }
+
+    private static LocalJwtVerifier hmacVerifier(String issuer) {
+        return new LocalJwtVerifier(SECRET, Map.of(), issuer, "sub", "roles", CLOCK);
+    }
+
+    private static String payload(long exp) {
+        return "{\"sub\":\"u1\",\"email\":\"ana@example.com\",\"roles\":[\"student\",\"tutor\"],\"exp\":" + exp + "}";
+    }
+
+    @Test
+    void validHs256TokenShouldYieldRolesFromClaims() throws Exception {
+        Optional<RolesResponse> rr = hmacVerifier(null).verify(hs256(SECRET, payload(NOW.getEpochSecond() + 60)));
+
+        assertTrue(rr.isPresent());
+        assertEquals("u1", rr.get().getId());
+        assertEquals("ana@example.com", rr.get().getEmail());
+        assertEquals(List.of("STUDENT", "TUTOR"), rr.get().getRoles());
+        assertTrue(rr.get().isHasRoles());
+    }
+
+    @Test
+    void rolesAsSpaceSeparatedStringShouldBeAccepted() throws Exception {
+        String token = hs256(SECRET,
+                "{\"sub\":\"u1\",\"roles\":\"student tutor\",\"exp\":" + (NOW.getEpochSecond() + 60) + "}");
+
+        assertEquals(List.of("STUDENT", "TUTOR"), hmacVerifier(null).verify(token).get().getRoles());
+    }
+
+    @Test
+    void tamperedOrExpiredTokensShouldBeRejected() throws Exception {
+        LocalJwtVerifier verifier = hmacVerifier(null);
+        String forged = hs256("otro-secreto".getBytes(StandardCharsets.UTF_8), payload(NOW.getEpochSecond() + 60));
+        String expired = hs256(SECRET, payload(NOW.getEpochSecond() - 120));
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> verifier.verify(forged));
+        assertEquals(HttpStatus.UNAUTHORIZED, e.getStatusCode());
+        assertThrows(ResponseStatusException.class, () -> verifier.verify(expired));
+    }
+
+    @Test
+    void wrongIssuerShouldBeRejected() throws Exception {
+        String token = hs256(SECRET, "{\"sub\":\"u1\",\"roles\":[\"student\"],\"iss\":\"otro\"}");
+
+        assertThrows(ResponseStatusException.class, () -> hmacVerifier("users-service").verify(token));
+    }
+
+    @Test
+    void missingClaimsOrUnverifiableTokensShouldFallBack() throws Exception {
+        LocalJwtVerifier verifier = hmacVerifier(null);
+
+        assertTrue(verifier.verify(hs256(SECRET, "{\"sub\":\"u1\",\"exp\":" + (NOW.getEpochSecond() + 60) + "}"))
+                .isEmpty());
+        assertTrue(verifier.verify("Bearer no-es-un-jwt").isEmpty());
+        assertTrue(verifier.verify("Bearer " + b64("{\"alg\":\"none\"}") + "." + b64(payload(0)) + ".").isEmpty());
+        assertTrue(verifier.verify(null).isEmpty());
+    }
+
+    @Test
+    void tokenWithoutExpShouldFallBackToUsersService() throws Exception {
+        LocalJwtVerifier verifier = hmacVerifier(null);
+        RolesResponse known = new RolesResponse();
+        known.setId("u1");
+        String token = hs256(SECRET, "{\"sub\":\"u1\",\"roles\":[\"student\"]}");
+
+        // sin "exp" sería válido para siempre: lo decide el servicio de usuarios
+        assertTrue(verifier.verify(token).isEmpty());
+        assertTrue(verifier.verify(hs256(SECRET, "{\"sub\":\"u1\"}"), sub -> known).isEmpty());
+        assertThrows(ResponseStatusException.class,
+                () -> verifier.verify(hs256("otro-secreto".getBytes(StandardCharsets.UTF_8), "{\"sub\":\"u1\"}")));
+    }
+
+    @Test
+    void verifiedTokenWithoutRolesShouldReuseRolesKnownForSubject() throws Exception {
+        LocalJwtVerifier verifier = hmacVerifier(null);
+        RolesResponse known = new RolesResponse();
+        known.setId("u1");
+        String exp = ",\"exp\":" + (NOW.getEpochSecond() + 60);
+        String token = hs256(SECRET, "{\"sub\":\"u1\"" + exp + "}");
+        String forged = hs256("otro-secreto".getBytes(StandardCharsets.UTF_8), "{\"sub\":\"u1\"" + exp + "}");
+
+        assertSame(known, verifier.verify(token, sub -> "u1".equals(sub) ? known : null).get());
+        assertTrue(verifier.verify(hs256(SECRET, "{\"sub\":\"u2\"" + exp + "}"), sub -> null).isEmpty());
+        // la firma se valida antes de usar los roles conocidos
+        assertThrows(ResponseStatusException.class, () -> verifier.verify(forged, sub -> known));
+    }
+
+    @Test
+    void knownRolesShouldBeLookedUpByConfiguredIdClaim() throws Exception {
+        LocalJwtVerifier verifier = new LocalJwtVerifier(SECRET, Map.of(), null, "uid", "roles", CLOCK);
+        RolesResponse known = new RolesResponse();
+        known.setId("id-7");
+        String exp = ",\"exp\":" + (NOW.getEpochSecond() + 60);
+        String token = hs256(SECRET, "{\"sub\":\"ana@example.com\",\"uid\":\"id-7\"" + exp + "}");
+
+        assertSame(known, verifier.verify(token, id -> "id-7".equals(id) ? known : null).get());
+        // sin el claim de ID no se busca por "sub"
+        assertTrue(verifier.verify(hs256(SECRET, "{\"sub\":\"id-7\"" + exp + "}"), id -> known).isEmpty());
+    }
+
+    @Test
+    void disabledVerifierShouldAlwaysFallBack() throws Exception {
+        LocalJwtVerifier verifier = new LocalJwtVerifier(null, Map.of(), null, "sub", "roles", CLOCK);
+
+        assertFalse(verifier.isEnabled());
+        assertTrue(verifier.verify(hs256(SECRET, payload(NOW.getEpochSecond() + 60))).isEmpty());
+    }
+
+    @Test
+    void rs256TokensShouldBeVerifiedWithJwksKeys(@TempDir Path dir) throws Exception {
+        KeyPairGenerator gen = KeyPairGenerator.getInstance("RSA");
+        gen.initialize(2048);
+        KeyPair pair = gen.generateKeyPair();
+        KeyPair other = gen.generateKeyPair();
+        RSAPublicKey pub = (RSAPublicKey) pair.getPublic();
+        Path jwks = dir.resolve("jwks.json");
+        Files.writeString(jwks, "{\"keys\":[{\"kty\":\"RSA\",\"kid\":\"k1\",\"n\":\""
+                + b64(pub.getModulus().toByteArray()) + "\",\"e\":\""
+                + b64(pub.getPublicExponent().toByteArray()) + "\"}]}");
+
+        LocalJwtVerifier verifier = new LocalJwtVerifier(null, LocalJwtVerifier.loadJwks(jwks), null, "sub",
+                "roles", CLOCK);
+
+        String payload = payload(NOW.getEpochSecond() + 60);
+        assertEquals("u1", verifier.verify(rs256(pair.getPrivate(), "k1", payload)).get().getId());
+        assertThrows(ResponseStatusException.class, () -> verifier.verify(rs256(other.getPrivate(), "k1", payload)));
+        // llave desconocida: decide el servicio de usuarios
+        assertTrue(verifier.verify(rs256(pair.getPrivate(), "k2", payload)).isEmpty());
+    }
+
+    @Test
+    void unreadableJwksShouldFailFast(@TempDir Path dir) {
+        assertThrows(IllegalStateException.class, () -> LocalJwtVerifier.loadJwks(dir.resolve("no-existe.json")));
+    }
+}
@@ -0,0 +1,100 @@
+package edu.eci.arsw.security;
+
+import edu.eci.arsw.domain.CachedProfile;
+import edu.eci.arsw.dto.PublicProfile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProfileStoreTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-06T10:00:00Z");
+
+    @Mock
+    private MongoTemplate mongo;
+
+    private ProfileStore store(boolean enabled) {
+        return new ProfileStore(mongo, enabled, Duration.ofHours(1), Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private static PublicProfile ana() {
+        return PublicProfile.builder().id("u1").name("Ana").build();
+    }
+
+    @Test
+    void getFreshShouldIgnoreEntriesOlderThanFreshness() {
+        when(mongo.findById("k1", CachedProfile.class))
+                .thenReturn(new CachedProfile("k1", ana(), NOW.minusSeconds(600)));
+        when(mongo.findById("k2", CachedProfile.class))
+                .thenReturn(new CachedProfile("k2", ana(), NOW.minusSeconds(7200)));
+
+        ProfileStore store = store(true);
+
+        assertEquals("Ana", store.getFresh("k1").getName());
+        assertNull(store.getFresh("k2"));
+        assertNull(store.getFresh("k3"));
+    }
+
+    @Test
+    void getFreshBatchShouldUseOneQueryFilteredByAge() {
+        when(mongo.find(any(Query.class), eq(CachedProfile.class)))
+                .thenReturn(List.of(new CachedProfile("k1", ana(), NOW.minusSeconds(60))));
+
+        Map<String, PublicProfile> found = store(true).getFresh(List.of("k1", "k2"));
+
+        assertEquals(Map.of("k1", ana()), found);
+        ArgumentCaptor<Query> q = ArgumentCaptor.forClass(Query.class);
+        verify(mongo).find(q.capture(), eq(CachedProfile.class));
+        assertTrue(q.getValue().getQueryObject().toString().contains("fetchedAt"));
+    }
+
+    @Test
+    void readErrorsShouldBehaveAsMisses() {
+        when(mongo.findById(anyString(), eq(CachedProfile.class))).thenThrow(new RuntimeException("down"));
+        when(mongo.find(any(Query.class), eq(CachedProfile.class))).thenThrow(new RuntimeException("down"));
+
+        ProfileStore store = store(true);
+
+        assertNull(store.getFresh("k1"));
+        assertTrue(store.getFresh(List.of("k1")).isEmpty());
+    }
+
+    @Test
+    void putAllShouldUpsertEveryProfileInOneBulk() {
+        BulkOperations ops = mock(BulkOperations.class);
+        when(mongo.bulkOps(BulkOperations.BulkMode.UNORDERED, CachedProfile.class)).thenReturn(ops);
+
+        store(true).putAll(Map.of("k1", ana(), "k2", ana()), NOW);
+
+        verify(ops, times(2)).upsert(any(Query.class), any(Update.class));
+        verify(ops).execute();
+    }
+
+    @Test
+    void disabledStoreShouldNeverTouchMongo() {
+        ProfileStore store = store(false);
+
+        assertNull(store.getFresh("k1"));
+        assertTrue(store.getFresh(List.of("k1")).isEmpty());
+        store.putAllAsync(Map.of("k1", ana()));
+        verifyNoInteractions(mongo);
+    }
+}
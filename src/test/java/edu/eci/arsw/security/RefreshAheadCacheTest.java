@@ -0,0 +1,246 @@
+package edu.eci.arsw.security;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshAheadCacheTest {
+
+    /** Reloj que solo avanza cuando la prueba lo pide */
+    private static class ManualClock extends Clock {
+        long millis = 1_000_000;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        void advanceSeconds(long s) {
+            millis += s * 1000;
+        }
+    }
+
+    private final ManualClock clock = new ManualClock();
+    private final AtomicInteger loads = new AtomicInteger();
+    private SimpleMeterRegistry registry;
+    private RefreshAheadCache cache;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        CaffeineCache delegate = new CaffeineCache("test", Caffeine.newBuilder().buildAsync(), false);
+        cache = new RefreshAheadCache(delegate, Duration.ofSeconds(60), Duration.ofSeconds(100),
+                Duration.ofMillis(50), clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.removeRegistry(registry);
+    }
+
+    private CompletableFuture<String> load(String value) {
+        loads.incrementAndGet();
+        return CompletableFuture.completedFuture(value);
+    }
+
+    private String retrieve(java.util.function.Supplier<CompletableFuture<String>> loader) {
+        return cache.retrieve("k", loader).join();
+    }
+
+    private double counter(String name, String... tags) {
+        return registry.get(name).tags(tags).counter().count();
+    }
+
+    @Test
+    void freshEntryShouldNotReload() {
+        assertEquals("v1", retrieve(() -> load("v1")));
+        clock.advanceSeconds(30);
+        assertEquals("v1", retrieve(() -> load("v2")));
+        assertEquals(1, loads.get());
+        assertEquals("v1", cache.get("k", String.class));
+    }
+
+    @Test
+    void entryPastRefreshAfterShouldBeServedAndReloadedInBackground() {
+        retrieve(() -> load("v1"));
+        clock.advanceSeconds(70);
+
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        assertEquals("v1", retrieve(() -> pending));
+        // la recarga sigue en curso: otro llamador no dispara otra
+        assertEquals("v1", retrieve(() -> load("otro")));
+        assertEquals(1, loads.get());
+
+        pending.complete("v2");
+        assertEquals("v2", retrieve(() -> load("v3")));
+        assertEquals(1.0, counter("cache.refresh", "cache", "test", "result", "success"));
+    }
+
+    @Test
+    void evictedEntryShouldNotBeRestoredByRefreshInFlight() {
+        retrieve(() -> load("v1"));
+        clock.advanceSeconds(70);
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        assertEquals("v1", retrieve(() -> pending));
+
+        cache.evict("k");
+        pending.complete("v2");
+
+        assertNull(cache.get("k"));
+        // la siguiente lectura carga de nuevo y puede volver a recargar
+        assertEquals("v3", retrieve(() -> load("v3")));
+        clock.advanceSeconds(70);
+        assertEquals("v3", retrieve(() -> load("v4")));
+        assertEquals("v4", retrieve(() -> load("v5")));
+    }
+
+    @Test
+    void evictIfShouldRemoveMatchingEntriesAndCancelTheirRefreshes() {
+        cache.put("a", "roles-u1");
+        cache.put("b", "roles-u2");
+        clock.advanceSeconds(70);
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        assertEquals("roles-u1", cache.peek("a", () -> pending));
+
+        cache.evictIf((k, v) -> "roles-u1".equals(v));
+        pending.complete("roles-u1");
+
+        assertNull(cache.get("a"));
+        assertEquals("roles-u2", cache.get("b", String.class));
+    }
+
+    @Test
+    void expiredEntryShouldReturnFreshValueWhenReloadSucceeds() {
+        retrieve(() -> load("v1"));
+        clock.advanceSeconds(150);
+
+        assertEquals("v2", retrieve(() -> load("v2")));
+        assertEquals(0.0, counter("cache.stale.served", "cache", "test"));
+    }
+
+    @Test
+    void expiredEntryShouldBeServedStaleWhenReloadFails() {
+        retrieve(() -> load("v1"));
+        clock.advanceSeconds(150);
+
+        assertEquals("v1", retrieve(() -> CompletableFuture.failedFuture(new RuntimeException("down"))));
+        assertEquals(1.0, counter("cache.stale.served", "cache", "test"));
+        assertEquals(1.0, counter("cache.refresh", "cache", "test", "result", "failure"));
+    }
+
+    @Test
+    void expiredEntryShouldBeServedStaleWhenReloadIsSlow() {
+        retrieve(() -> load("v1"));
+        clock.advanceSeconds(150);
+
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        assertEquals("v1", retrieve(() -> slow));
+        assertEquals(1.0, counter("cache.stale.served", "cache", "test"));
+
+        // cuando la recarga termina, la entrada queda fresca
+        slow.complete("v2");
+        assertEquals("v2", cache.get("k", String.class));
+    }
+
+    @Test
+    void rejectedReloadShouldEvictInsteadOfServingStale() {
+        retrieve(() -> load("v1"));
+        clock.advanceSeconds(150);
+
+        WebClientResponseException unauthorized = new WebClientResponseException("unauth",
+                HttpStatus.UNAUTHORIZED.value(), "Unauthorized", null, new byte[0], StandardCharsets.UTF_8);
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> retrieve(() -> CompletableFuture.failedFuture(unauthorized)));
+        assertSame(unauthorized, e.getCause());
+        assertNull(cache.get("k", String.class));
+    }
+
+    @Test
+    void putAndGetShouldHideTimestamps() {
+        cache.put("a", "x");
+        assertEquals("x", cache.get("a").get());
+        assertEquals("x", cache.get("a", String.class));
+        assertEquals("x", cache.retrieve("a").join());
+        assertTrue(cache.evictIfPresent("a"));
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void peekShouldRefreshAgingEntriesAndHideExpiredOnes() {
+        assertNull(cache.peek("k", () -> load("nunca")));
+        assertEquals(0, loads.get());
+
+        retrieve(() -> load("v1"));
+        clock.advanceSeconds(30);
+        assertEquals("v1", cache.peek("k", () -> load("v2")));
+        assertEquals(1, loads.get());
+
+        // pasado refreshAfter se sigue sirviendo y se recarga en segundo plano
+        clock.advanceSeconds(40);
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        assertEquals("v1", cache.peek("k", () -> pending));
+        pending.complete("v2");
+        assertEquals("v2", cache.peek("k", () -> load("v3")));
+
+        // pasado el ttl se trata como ausente
+        clock.advanceSeconds(150);
+        assertNull(cache.peek("k", () -> new CompletableFuture<>()));
+    }
+
+    @Test
+    void keysWithTheirOwnExpiryShouldBeRefreshedByTheirRemainingLifetime() {
+        CaffeineCache delegate = new CaffeineCache("test-exp", Caffeine.newBuilder().buildAsync(), false);
+        // "largo" vence en 1000 s, "corto" en 50 s; ttl 100 s, refresco a 60 s, ttl máximo 400 s
+        long base = clock.millis();
+        Map<Object, Long> expiresAt = Map.of("largo", base + 1_000_000, "corto", base + 50_000);
+        RefreshAheadCache byKey = new RefreshAheadCache(delegate, Duration.ofSeconds(60), Duration.ofSeconds(100),
+                Duration.ofMillis(50), k -> expiresAt.getOrDefault(k, 0L), Duration.ofSeconds(400), clock);
+        byKey.retrieve("largo", () -> load("l1")).join();
+        byKey.retrieve("corto", () -> load("c1")).join();
+        byKey.retrieve("sin", () -> load("s1")).join();
+        assertEquals(3, loads.get());
+
+        // a los 100 s solo recargan los de ttl normal
+        clock.advanceSeconds(100);
+        assertEquals("l1", byKey.retrieve("largo", () -> load("l2")).join());
+        assertEquals("c2", byKey.retrieve("corto", () -> load("c2")).join());
+        assertEquals("s2", byKey.retrieve("sin", () -> load("s2")).join());
+        assertEquals(5, loads.get());
+
+        // el largo se recarga a 3/5 de su ttl tope (240 s) y vence a los 400 s
+        clock.advanceSeconds(140);
+        assertEquals("l1", byKey.peek("largo", () -> load("l2")));
+        assertEquals(6, loads.get());
+        assertEquals("l2", byKey.peek("largo", () -> load("l3")));
+    }
+}
@@ -0,0 +1,123 @@
+package edu.eci.arsw.security;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestHedgerTest {
+
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private final String name = "test-" + INSTANCES.incrementAndGet();
+    private final AtomicInteger calls = new AtomicInteger();
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.removeRegistry(registry);
+    }
+
+    private RequestHedger hedger(double budgetRatio, int burst) {
+        return new RequestHedger(name, 0.9, Duration.ofMillis(50), Duration.ofMillis(10), budgetRatio, burst);
+    }
+
+    private double counter(String metric) {
+        return registry.get(metric).tag("name", name).counter().count();
+    }
+
+    /** Primer intento lento, los siguientes rápidos */
+    private Mono<String> slowThenFast() {
+        return Mono.defer(() -> calls.incrementAndGet() == 1
+                ? Mono.just("lento").delayElement(Duration.ofSeconds(2))
+                : Mono.just("rápido").delayElement(Duration.ofMillis(10)));
+    }
+
+    @Test
+    void slowCallShouldBeHedgedAndFirstAnswerShouldWin() {
+        RequestHedger hedger = hedger(0.1, 5);
+
+        long start = System.nanoTime();
+        assertEquals("rápido", hedger.hedge(this::slowThenFast).block(Duration.ofSeconds(5)));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 1500);
+        assertEquals(2, calls.get());
+        assertEquals(1.0, counter("hedge.sent"));
+        assertEquals(1.0, counter("hedge.won"));
+    }
+
+    @Test
+    void fastCallShouldNotBeHedged() {
+        RequestHedger hedger = hedger(0.1, 5);
+
+        assertEquals("ok", hedger.hedge(() -> Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.just("ok");
+        })).block(Duration.ofSeconds(5)));
+        assertEquals(1, calls.get());
+        assertEquals(0.0, counter("hedge.sent"));
+    }
+
+    @Test
+    void exhaustedBudgetShouldNotHedge() {
+        RequestHedger hedger = hedger(0.1, 0);
+
+        assertEquals("lento", hedger.hedge(() -> Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.just("lento").delayElement(Duration.ofMillis(200));
+        })).block(Duration.ofSeconds(5)));
+        assertEquals(1, calls.get());
+        assertEquals(1.0, counter("hedge.budget.exhausted"));
+    }
+
+    @Test
+    void failedBackupShouldNotHideThePrimaryAnswer() {
+        RequestHedger hedger = hedger(1, 5);
+
+        assertEquals("lento", hedger.hedge(() -> Mono.defer(() -> calls.incrementAndGet() == 1
+                ? Mono.just("lento").delayElement(Duration.ofMillis(300))
+                : Mono.<String>error(new RuntimeException("down")))).block(Duration.ofSeconds(5)));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void primaryErrorShouldPropagate() {
+        RequestHedger hedger = hedger(1, 5);
+
+        assertThrows(IllegalStateException.class, () -> hedger.hedge(
+                () -> Mono.<String>error(new IllegalStateException("404"))).block(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void delayShouldFollowTheConfiguredPercentile() {
+        RequestHedger hedger = hedger(0.1, 5);
+        assertEquals(Duration.ofMillis(50), hedger.delay());
+
+        for (int i = 1; i <= RequestHedger.RECOMPUTE_EVERY * 5; i++)
+            hedger.record(Duration.ofMillis(i).toNanos());
+        // p90 de 1..100 ms
+        assertEquals(Duration.ofMillis(90), hedger.delay());
+
+        for (int i = 0; i < RequestHedger.WINDOW; i++)
+            hedger.record(Duration.ofMillis(1).toNanos());
+        assertEquals(Duration.ofMillis(10), hedger.delay(), "nunca por debajo del mínimo");
+    }
+
+    @Test
+    void disabledHedgerShouldCallOnce() {
+        assertEquals("lento", RequestHedger.disabled().hedge(this::slowThenFast).block(Duration.ofSeconds(5)));
+        assertEquals(1, calls.get());
+    }
+}
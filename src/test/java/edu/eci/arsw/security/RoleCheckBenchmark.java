@@ -0,0 +1,90 @@
+package edu.eci.arsw.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la verificación de roles sobre una entrada de la caché de roles:
+ * la versión anterior (normalizar la lista en cada acierto y armar un HashSet
+ * por llamada) contra la máscara precalculada al cargar la entrada.
+ * 
+ * Ejecutar con: mvn -Pbench test -Djmh.args="RoleCheck -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoleCheckBenchmark {
+
+    private static final int PARTICIPANT_ROLES = Role.mask(Role.STUDENT, Role.TUTOR);
+
+    private RolesResponse cached;
+
+    @Setup
+    public void setUp() {
+        RolesResponse rr = new RolesResponse();
+        rr.setId("u1");
+        rr.setRoles(List.of("student", "tutor"));
+        cached = UserServiceClient.normalize(rr);
+    }
+
+    @Benchmark
+    public boolean listAndHashSet() {
+        return legacyHasAnyRole(legacyNormalize(cached), "STUDENT", "TUTOR");
+    }
+
+    @Benchmark
+    public boolean roleNames() {
+        return AuthorizationService.hasAnyRole(cached, "STUDENT", "TUTOR");
+    }
+
+    @Benchmark
+    public boolean precomputedMask() {
+        return AuthorizationService.hasAnyRole(cached, PARTICIPANT_ROLES);
+    }
+
+    @Benchmark
+    public boolean authenticatedUser() {
+        return AuthenticatedUser.of(cached).hasAnyRole(PARTICIPANT_ROLES);
+    }
+
+    /** Normalización que se hacía en cada acierto de caché */
+    private static RolesResponse legacyNormalize(RolesResponse in) {
+        RolesResponse out = new RolesResponse();
+        out.setId(in.getId());
+        out.setRoles(in.getRoles().stream()
+                .map(r -> r == null ? null : r.toUpperCase(Locale.ROOT))
+                .toList());
+        return out;
+    }
+
+    /** Verificación de roles anterior */
+    private static boolean legacyHasAnyRole(RolesResponse rr, String... needed) {
+        Set<String> have = new HashSet<>();
+        for (String r : rr.getRoles()) {
+            if (r != null)
+                have.add(r.toUpperCase(Locale.ROOT));
+        }
+        for (String n : needed) {
+            if (have.contains(n.toUpperCase(Locale.ROOT)))
+                return true;
+        }
+        return false;
+    }
+}
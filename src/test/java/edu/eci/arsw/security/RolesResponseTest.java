@@ -72,4 +72,21 @@ class RolesResponseTest {
         assertEquals(a, b);                
         assertEquals(a.hashCode(), b.hashCode());
     }
+
+    @Test
+    void roleMaskShouldBeComputedOnceAndResetWhenRolesChange() {
+        RolesResponse rr = new RolesResponse();
+        assertEquals(0, rr.roleMask());
+
+        rr.setRoles(List.of("STUDENT", "desconocido"));
+        assertEquals(Role.STUDENT.bit(), rr.roleMask());
+
+        rr.setRoles(List.of("tutor", "ADMIN"));
+        assertEquals(Role.mask(Role.TUTOR, Role.ADMIN), rr.roleMask());
+
+        RolesResponse other = new RolesResponse();
+        other.setRoles(List.of("tutor", "ADMIN"));
+        assertEquals(other, rr);
+        assertFalse(rr.toString().contains("roleMask"));
+    }
 }
@@ -0,0 +1,64 @@
+package edu.eci.arsw.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenLifetimeExpiryTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-06T10:00:00Z");
+    private final TokenLifetimeExpiry expiry = new TokenLifetimeExpiry(Duration.ofMinutes(10),
+            Clock.fixed(NOW, ZoneOffset.UTC));
+
+    private static RolesCacheKey key(long secondsToExpiry) {
+        return new RolesCacheKey("h", "u1", NOW.getEpochSecond() + secondsToExpiry);
+    }
+
+    @Test
+    void entryShouldLiveUntilTheTokenExpires() {
+        assertEquals(Duration.ofSeconds(90).toNanos(), expiry.expireAfterCreate(key(90), "v", 0));
+        assertEquals(Duration.ofSeconds(90).toNanos(), expiry.expireAfterUpdate(key(90), "v", 0, 5));
+    }
+
+    @Test
+    void lifetimeShouldBeCappedByMaxTtl() {
+        assertEquals(Duration.ofMinutes(10).toNanos(), expiry.lifetime(key(3600)));
+        assertEquals(Duration.ofMinutes(10).toNanos(), expiry.lifetime(new RolesCacheKey("h", null, 0)));
+        assertEquals(Duration.ofMinutes(10).toNanos(), expiry.lifetime("otra-clave"));
+    }
+
+    @Test
+    void keysWithoutExpShouldUseTheirOwnLifetime() {
+        TokenLifetimeExpiry withUnknownTtl = new TokenLifetimeExpiry(Duration.ofMinutes(60), Duration.ofMinutes(9),
+                Clock.fixed(NOW, ZoneOffset.UTC));
+
+        assertEquals(Duration.ofMinutes(9).toNanos(), withUnknownTtl.lifetime(new RolesCacheKey("h", null, 0)));
+        assertEquals(Duration.ofMinutes(30).toNanos(), withUnknownTtl.lifetime(key(1800)));
+        assertEquals(Duration.ofMinutes(60).toNanos(), withUnknownTtl.lifetime(key(7200)));
+    }
+
+    @Test
+    void expiredTokensShouldNotBeCached() {
+        assertEquals(0, expiry.lifetime(key(-1)));
+    }
+
+    @Test
+    void readsShouldKeepTheRemainingLifetime() {
+        assertEquals(42, expiry.expireAfterRead(key(90), "v", 0, 42));
+    }
+
+    @Test
+    void cacheKeyShouldBeIdentifiedByTokenHash() {
+        RolesCacheKey k = RolesCacheKey.of("Bearer opaco");
+
+        assertEquals(Sha256.hash("Bearer opaco"), k.tokenHash());
+        assertNull(k.subject());
+        assertEquals(new RolesCacheKey(k.tokenHash(), "otro", 1), k);
+        assertEquals(k.tokenHash().hashCode(), k.hashCode());
+    }
+}
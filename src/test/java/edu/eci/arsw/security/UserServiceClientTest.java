@@ -7,14 +7,21 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
 import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.springframework.web.server.ResponseStatusException;
 import reactor.core.publisher.Mono;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -23,12 +30,19 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class UserServiceClientTest {
 
-    @Mock
+    @Mock(strictness = Mock.Strictness.LENIENT)
     CacheManager cacheManager;
 
     @Mock
     Cache cache;
 
+    /** La caché simulada no tiene el valor: ejecuta la carga */
+    @SuppressWarnings("unchecked")
+    static void loadThrough(Cache cache) {
+        when(cache.retrieve(any(), any(Supplier.class)))
+                .thenAnswer(inv -> ((Supplier<CompletableFuture<?>>) inv.getArgument(1)).get());
+    }
+
     @Test
     void getMyRolesCachedShouldUseCacheWhenPresent() {
         when(cacheManager.getCache("rolesByBearer")).thenReturn(cache);
@@ -36,12 +50,13 @@ class UserServiceClientTest {
         UserServiceClient client = Mockito.spy(new UserServiceClient(cacheManager, "http://localhost"));
 
         RolesResponse cached = new RolesResponse();
-        cached.setRoles(List.of("student"));
-        when(cache.get(anyString(), eq(RolesResponse.class))).thenReturn(cached);
+        cached.setRoles(List.of("STUDENT"));
+        when(cache.retrieve(any(RolesCacheKey.class), any(Supplier.class))).thenReturn(CompletableFuture.completedFuture(cached));
 
         RolesResponse result = client.getMyRolesCached("Bearer token");
 
-        assertNotNull(result);
+        // las entradas se normalizan al cargarlas: un acierto no copia nada
+        assertSame(cached, result);
         assertEquals(List.of("STUDENT"), result.getRoles());
         verify(client, never()).getMyRoles(anyString());
     }
@@ -52,7 +67,7 @@ class UserServiceClientTest {
 
         UserServiceClient client = Mockito.spy(new UserServiceClient(cacheManager, "http://localhost"));
 
-        when(cache.get(anyString(), eq(RolesResponse.class))).thenReturn(null);
+        loadThrough(cache);
 
         RolesResponse fetched = new RolesResponse();
         fetched.setRoles(List.of("tutor"));
@@ -62,7 +77,7 @@ class UserServiceClientTest {
 
         assertEquals(List.of("TUTOR"), result.getRoles());
         verify(client).getMyRoles("Bearer token");
-        verify(cache).put(anyString(), same(fetched));
+        verify(cache).retrieve(eq(RolesCacheKey.of("Bearer token")), any(Supplier.class));
     }
 
     @Test
@@ -78,7 +93,7 @@ class UserServiceClientTest {
         when(cacheManager.getCache("rolesByBearer")).thenReturn(cache);
         UserServiceClient client = Mockito.spy(new UserServiceClient(cacheManager, "http://localhost"));
 
-        when(cache.get(anyString(), eq(RolesResponse.class))).thenReturn(null);
+        loadThrough(cache);
 
         WebClientResponseException unauthorized = new WebClientResponseException("unauth",
                 HttpStatus.UNAUTHORIZED.value(),
@@ -91,7 +106,7 @@ class UserServiceClientTest {
 
         assertThrows(WebClientResponseException.class,
                 () -> client.getMyRolesCached("Bearer token"));
-        verify(cache).evictIfPresent(anyString());
+        verify(cache).evictIfPresent(any(RolesCacheKey.class));
     }
 
     @Test
@@ -99,7 +114,7 @@ class UserServiceClientTest {
         when(cacheManager.getCache("rolesByBearer")).thenReturn(cache);
         UserServiceClient client = Mockito.spy(new UserServiceClient(cacheManager, "http://localhost"));
 
-        when(cache.get(anyString(), eq(RolesResponse.class))).thenReturn(null);
+        loadThrough(cache);
 
         WebClientResponseException serverError = new WebClientResponseException("error",
                 HttpStatus.INTERNAL_SERVER_ERROR.value(),
@@ -112,7 +127,7 @@ class UserServiceClientTest {
 
         assertThrows(WebClientResponseException.class,
                 () -> client.getMyRolesCached("Bearer token"));
-        verify(cache, never()).evictIfPresent(anyString());
+        verify(cache, never()).evictIfPresent(any(RolesCacheKey.class));
     }
 
     @Test
@@ -120,7 +135,7 @@ class UserServiceClientTest {
         when(cacheManager.getCache("rolesByBearer")).thenReturn(cache);
         UserServiceClient client = Mockito.spy(new UserServiceClient(cacheManager, "http://localhost"));
 
-        when(cache.get(anyString(), eq(RolesResponse.class))).thenReturn(null);
+        loadThrough(cache);
 
         RuntimeException boom = new RuntimeException("boom");
         when(client.getMyRoles(anyString())).thenReturn(Mono.error(boom));
@@ -128,7 +143,7 @@ class UserServiceClientTest {
         RuntimeException thrown = assertThrows(RuntimeException.class,
                 () -> client.getMyRolesCached("Bearer token"));
         assertSame(boom, thrown);
-        verify(cache).evictIfPresent(anyString());
+        verify(cache).evictIfPresent(any(RolesCacheKey.class));
     }
 
     @Test
@@ -157,6 +172,7 @@ class UserServiceClientTest {
         RolesResponse fetched = new RolesResponse();
         // Esta lista SÍ permite null
         fetched.setRoles(Arrays.asList(null, "student"));
+        loadThrough(cache);
 
         when(client.getMyRoles(anyString())).thenReturn(Mono.just(fetched));
 
@@ -166,4 +182,168 @@ class UserServiceClientTest {
         assertNull(result.getRoles().get(0));
         assertEquals("STUDENT", result.getRoles().get(1));
     }
+
+    @Test
+    void loadedRolesShouldBeStoredWithPrecomputedMask() {
+        RolesResponse fetched = new RolesResponse();
+        fetched.setRoles(List.of("student", "tutor", "otro"));
+
+        RolesResponse normalized = UserServiceClient.normalize(fetched);
+
+        assertEquals(List.of("STUDENT", "TUTOR", "OTRO"), normalized.getRoles());
+        assertEquals(Role.mask(Role.STUDENT, Role.TUTOR), normalized.roleMask());
+        assertNull(UserServiceClient.normalize(null));
+    }
+
+    @Test
+    void concurrentMissesShouldCallUsersServiceOnce() throws Exception {
+        SimpleCacheManager manager = (SimpleCacheManager) new CacheConfig().cacheManager(new MockEnvironment());
+        manager.afterPropertiesSet();
+        UserServiceClient client = Mockito.spy(new UserServiceClient(manager, "http://localhost"));
+
+        AtomicInteger calls = new AtomicInteger();
+        RolesResponse fetched = new RolesResponse();
+        fetched.setRoles(List.of("student"));
+        doReturn(Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.just(fetched).delayElement(Duration.ofMillis(100));
+        })).when(client).getMyRoles("Bearer token");
+
+        int n = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(n);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<RolesResponse>> results = new java.util.ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return client.getMyRolesCached("Bearer token");
+            }));
+        }
+        start.countDown();
+        for (Future<RolesResponse> f : results) {
+            assertEquals(List.of("STUDENT"), f.get(5, TimeUnit.SECONDS).getRoles());
+        }
+        pool.shutdownNow();
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void failedLoadShouldNotBeCached() {
+        SimpleCacheManager manager = (SimpleCacheManager) new CacheConfig().cacheManager(new MockEnvironment());
+        manager.afterPropertiesSet();
+        UserServiceClient client = Mockito.spy(new UserServiceClient(manager, "http://localhost"));
+
+        RolesResponse fetched = new RolesResponse();
+        fetched.setRoles(List.of("tutor"));
+        when(client.getMyRoles("Bearer token"))
+                .thenReturn(Mono.error(new RuntimeException("boom")))
+                .thenReturn(Mono.just(fetched));
+
+        assertThrows(RuntimeException.class, () -> client.getMyRolesCached("Bearer token"));
+        assertEquals(List.of("TUTOR"), client.getMyRolesCached("Bearer token").getRoles());
+    }
+
+    @Test
+    void openBreakerShouldRejectWithoutCallingUsersService() throws Exception {
+        UserServiceClient client = new UserServiceClient(cacheManager, "http://localhost");
+        AtomicInteger calls = new AtomicInteger();
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(req -> {
+                    calls.incrementAndGet();
+                    return Mono.error(new RuntimeException("down"));
+                })
+                .build();
+        java.lang.reflect.Field f = UserServiceClient.class.getDeclaredField("webClient");
+        f.setAccessible(true);
+        f.set(client, webClient);
+
+        for (int i = 0; i < CircuitBreaker.DEFAULT_FAILURE_THRESHOLD; i++) {
+            client.rolesBreaker().onFailure();
+        }
+        CircuitOpenException e = assertThrows(CircuitOpenException.class,
+                () -> client.getMyRoles("Bearer token").block());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void getMyRolesCachedAsyncShouldLoadThroughCacheAndNormalize() {
+        when(cacheManager.getCache("rolesByBearer")).thenReturn(cache);
+        UserServiceClient client = Mockito.spy(new UserServiceClient(cacheManager, "http://localhost"));
+        loadThrough(cache);
+        RolesResponse fetched = new RolesResponse();
+        fetched.setRoles(List.of("tutor"));
+        when(client.getMyRoles(anyString())).thenReturn(Mono.just(fetched));
+
+        Mono<RolesResponse> roles = client.getMyRolesCachedAsync("Bearer token");
+
+        // no se llama nada hasta suscribirse
+        verify(cache, never()).retrieve(anyString(), any(Supplier.class));
+        assertEquals(List.of("TUTOR"), roles.block().getRoles());
+    }
+
+    @Test
+    void getMyRolesCachedAsyncShouldUnwrapAndEvictOnAuthErrors() {
+        when(cacheManager.getCache("rolesByBearer")).thenReturn(cache);
+        UserServiceClient client = Mockito.spy(new UserServiceClient(cacheManager, "http://localhost"));
+        loadThrough(cache);
+        WebClientResponseException forbidden = new WebClientResponseException("forbidden",
+                HttpStatus.FORBIDDEN.value(), "Forbidden", null, new byte[0], StandardCharsets.UTF_8);
+        when(client.getMyRoles(anyString())).thenReturn(Mono.error(forbidden));
+
+        WebClientResponseException e = assertThrows(WebClientResponseException.class,
+                () -> client.getMyRolesCachedAsync("Bearer token").block());
+
+        assertSame(forbidden, e);
+        verify(cache).evictIfPresent(RolesCacheKey.of("Bearer token"));
+    }
+
+    @Test
+    void getMyRolesCachedAsyncShouldRejectBlankHeader() {
+        UserServiceClient client = new UserServiceClient(cacheManager, "http://localhost");
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> client.getMyRolesCachedAsync(null).block());
+        assertEquals(HttpStatus.UNAUTHORIZED, e.getStatusCode());
+    }
+
+    @Test
+    void subjectIndexShouldShareRolesAndInvalidateAllTokensOfAUser() throws Exception {
+        SimpleCacheManager manager = (SimpleCacheManager) new CacheConfig().cacheManager(
+                new MockEnvironment().withProperty("roles.cache.by-subject.enabled", "true"));
+        manager.afterPropertiesSet();
+        UserServiceClient client = Mockito.spy(new UserServiceClient(manager, "http://localhost"));
+        long exp = System.currentTimeMillis() / 1000 + 600;
+        String first = LocalJwtVerifierTest.hs256("s".getBytes(StandardCharsets.UTF_8),
+                "{\"sub\":\"u1\",\"exp\":" + exp + "}");
+        String second = LocalJwtVerifierTest.hs256("s".getBytes(StandardCharsets.UTF_8),
+                "{\"sub\":\"u1\",\"exp\":" + (exp + 1) + "}");
+        RolesResponse fetched = new RolesResponse();
+        fetched.setId("u1");
+        fetched.setRoles(List.of("tutor"));
+        doReturn(Mono.just(fetched)).when(client).getMyRoles(anyString());
+
+        client.getMyRolesCached(first);
+        client.getMyRolesCached(second);
+        assertSame(fetched, client.cachedRolesBySubject("u1"));
+        assertNull(client.cachedRolesBySubject("u2"));
+
+        client.invalidateSubject("u1");
+        assertNull(client.cachedRolesBySubject("u1"));
+        assertNull(manager.getCache("rolesByBearer").get(RolesCacheKey.of(first)));
+        assertNull(manager.getCache("rolesByBearer").get(RolesCacheKey.of(second)));
+
+        client.getMyRolesCached(first);
+        verify(client, times(3)).getMyRoles(anyString());
+    }
+
+    @Test
+    void subjectLookupsShouldBeNoOpsWhenIndexIsDisabled() {
+        when(cacheManager.getCache("rolesByBearer")).thenReturn(null);
+        UserServiceClient client = new UserServiceClient(cacheManager, "http://localhost");
+
+        assertNull(client.cachedRolesBySubject("u1"));
+        assertDoesNotThrow(() -> client.invalidateSubject("u1"));
+    }
 }
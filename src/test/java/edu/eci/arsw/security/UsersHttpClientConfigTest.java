@@ -0,0 +1,89 @@
+package edu.eci.arsw.security;
+
+import edu.eci.arsw.infra.UsersServiceStub;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UsersHttpClientConfigTest {
+
+    private final UsersHttpClientConfig config = new UsersHttpClientConfig();
+    private SimpleMeterRegistry registry;
+    private ConnectionProvider provider;
+    private UsersServiceStub stub;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (stub != null)
+            stub.close();
+        if (provider != null)
+            provider.dispose();
+        Metrics.removeRegistry(registry);
+    }
+
+    @Test
+    void poolShouldUseConfiguredLimits() {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("user.service.http.max-connections", "7");
+
+        provider = config.usersServiceConnectionProvider(env);
+
+        assertEquals(7, provider.maxConnections());
+        assertEquals(UsersHttpClientConfig.POOL_NAME, provider.name());
+    }
+
+    @Test
+    void clientsShouldShareThePoolAndPublishItsMetrics() throws Exception {
+        MockEnvironment env = new MockEnvironment();
+        provider = config.usersServiceConnectionProvider(env);
+        ClientHttpConnector connector = config.usersServiceConnector(env, provider);
+        stub = new UsersServiceStub(false).withUser("u1", "Ana");
+
+        UsersPublicClient client = new UsersPublicClient(new ConcurrentMapCacheManager("userPublicProfiles"),
+                null, connector, config.usersServiceBulkhead(env), RequestHedger.disabled(),
+                stub.baseUrl(), UsersServiceStub.PROFILE_PATH, null, 5);
+
+        assertEquals("Ana", client.getPublicProfile(null, "u1").block(Duration.ofSeconds(5)).getName());
+        assertEquals("Ana", client.getPublicProfile("sub-u1", null).block(Duration.ofSeconds(5)).getName());
+        assertEquals(2, stub.profileCalls());
+        assertEquals(50.0, registry.get("reactor.netty.connection.provider.max.connections")
+                .tag("name", UsersHttpClientConfig.POOL_NAME).gauge().value());
+        assertTrue(registry.get("reactor.netty.connection.provider.total.connections")
+                .tag("name", UsersHttpClientConfig.POOL_NAME).gauge().value() >= 1.0);
+    }
+
+    @Test
+    void readTimeoutShouldFailSlowResponses() throws Exception {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("user.service.http.read-timeout-ms", "100");
+        provider = config.usersServiceConnectionProvider(env);
+        ClientHttpConnector connector = config.usersServiceConnector(env, provider);
+        stub = new UsersServiceStub(false).withUser("u1", "Ana").withLatency(1000);
+
+        UsersPublicClient client = new UsersPublicClient(new ConcurrentMapCacheManager("userPublicProfiles"),
+                null, connector, config.usersServiceBulkhead(env), RequestHedger.disabled(),
+                stub.baseUrl(), UsersServiceStub.PROFILE_PATH, null, 5);
+
+        long start = System.nanoTime();
+        assertThrows(RuntimeException.class, () -> client.getPublicProfile(null, "u1").block(Duration.ofSeconds(5)));
+        // tres intentos cortados a los 100 ms, sin esperar el timeout de 5 s de la llamada
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 3000);
+        assertEquals(3, stub.profileCalls());
+    }
+}
@@ -0,0 +1,343 @@
+package edu.eci.arsw.security;
+
+import edu.eci.arsw.dto.PublicProfile;
+import edu.eci.arsw.infra.UsersServiceStub;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class UsersPublicClientBatchTest {
+
+    private final CacheManager cacheManager = new ConcurrentMapCacheManager("userPublicProfiles");
+    private UsersServiceStub stub;
+
+    @AfterEach
+    void tearDown() {
+        if (stub != null)
+            stub.close();
+    }
+
+    private UsersServiceStub stub(boolean batchEnabled) throws Exception {
+        stub = new UsersServiceStub(batchEnabled)
+                .withUser("u1", "Ana").withUser("u2", "Beto").withUser("u3", "Carla");
+        return stub;
+    }
+
+    @Test
+    void concurrentCallersShouldShareOneBatchCall() throws Exception {
+        stub(true).withLatency(50);
+        UsersPublicClient client = new UsersPublicClient(cacheManager, stub.baseUrl(),
+                UsersServiceStub.PROFILE_PATH, UsersServiceStub.BATCH_PATH, 100);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Map<String, PublicProfile>>> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            List<String> ids = i % 2 == 0 ? List.of("u1", "u2") : List.of("u2", "u3", "missing");
+            results.add(pool.submit(() -> {
+                start.await();
+                return client.getPublicProfiles(ids);
+            }));
+        }
+        start.countDown();
+        for (int i = 0; i < 4; i++) {
+            Map<String, PublicProfile> r = results.get(i).get(10, TimeUnit.SECONDS);
+            if (i % 2 == 0) {
+                assertEquals(List.of("u1", "u2"), List.copyOf(r.keySet()));
+                assertEquals("Ana", r.get("u1").getName());
+            } else {
+                assertEquals(List.of("u2", "u3"), List.copyOf(r.keySet()));
+            }
+        }
+        pool.shutdownNow();
+
+        assertEquals(1, stub.batchCalls());
+        assertEquals(0, stub.profileCalls());
+
+        // ya en caché: sin nuevas llamadas
+        assertEquals("u3@example.com", client.getPublicProfiles(List.of("u3")).get("u3").getEmail());
+        assertEquals("Beto", client.peekCachedProfile("u2").getName());
+        assertEquals(1, stub.batchCalls());
+    }
+
+    @Test
+    void withoutBatchEndpointShouldFanOutOneCallPerId() throws Exception {
+        stub(false);
+        UsersPublicClient client = new UsersPublicClient(cacheManager, stub.baseUrl(),
+                UsersServiceStub.PROFILE_PATH);
+
+        Map<String, PublicProfile> r = client.getPublicProfiles(List.of("u1", " u2 ", "u1", "u3"));
+
+        assertEquals(List.of("u1", "u2", "u3"), List.copyOf(r.keySet()));
+        assertEquals(3, stub.profileCalls());
+    }
+
+    @Test
+    void shouldFallBackToSingleCallsWhenBatchEndpointIsMissing() throws Exception {
+        stub(false);
+        UsersPublicClient client = new UsersPublicClient(cacheManager, stub.baseUrl(),
+                UsersServiceStub.PROFILE_PATH, UsersServiceStub.BATCH_PATH, 5);
+
+        Map<String, PublicProfile> r = client.getPublicProfiles(List.of("u1", "u2"));
+
+        assertEquals(2, r.size());
+        assertEquals(2, stub.profileCalls());
+    }
+
+    @Test
+    void emptyOrBlankIdsShouldNotCallService() throws Exception {
+        stub(true);
+        UsersPublicClient client = new UsersPublicClient(cacheManager, stub.baseUrl(),
+                UsersServiceStub.PROFILE_PATH, UsersServiceStub.BATCH_PATH, 5);
+
+        assertTrue(client.getPublicProfiles(List.of(" ", "")).isEmpty());
+        assertEquals(0, stub.batchCalls() + stub.profileCalls());
+    }
+
+    @Test
+    void concurrentMissesOfSameProfileShouldCallServiceOnce() throws Exception {
+        stub(false).withLatency(100);
+        SimpleCacheManager manager = (SimpleCacheManager) new CacheConfig().cacheManager(new MockEnvironment());
+        manager.afterPropertiesSet();
+        UsersPublicClient client = new UsersPublicClient(manager, stub.baseUrl(), UsersServiceStub.PROFILE_PATH);
+
+        int n = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(n);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<PublicProfile>> results = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                return client.getPublicProfileCached(null, "u1");
+            }));
+        }
+        start.countDown();
+        for (Future<PublicProfile> f : results) {
+            assertEquals("Ana", f.get(10, TimeUnit.SECONDS).getName());
+        }
+        pool.shutdownNow();
+
+        assertEquals(1, stub.profileCalls());
+    }
+
+    @Test
+    void notFoundUsersShouldBeRememberedBriefly() throws Exception {
+        stub(false);
+        UsersPublicClient client = new UsersPublicClient(cacheManager, stub.baseUrl(),
+                UsersServiceStub.PROFILE_PATH);
+
+        assertNull(client.getPublicProfileCached(null, "missing"));
+        assertNull(client.getPublicProfileCached(null, "missing"));
+        assertTrue(client.getPublicProfiles(List.of("missing")).isEmpty());
+        // sin reintentos ni nuevas llamadas para un 404
+        assertEquals(1, stub.profileCalls());
+    }
+
+    @Test
+    void idsMissingFromBatchShouldBeRememberedAsNotFound() throws Exception {
+        stub(true);
+        UsersPublicClient client = new UsersPublicClient(cacheManager, stub.baseUrl(),
+                UsersServiceStub.PROFILE_PATH, UsersServiceStub.BATCH_PATH, 5);
+
+        assertEquals(List.of("u1"), List.copyOf(client.getPublicProfiles(List.of("u1", "ghost")).keySet()));
+        assertEquals(List.of("u1"), List.copyOf(client.getPublicProfiles(List.of("u1", "ghost")).keySet()));
+        assertNull(client.getPublicProfileCached(null, "ghost"));
+        assertEquals(1, stub.batchCalls());
+        assertEquals(0, stub.profileCalls());
+    }
+
+    @Test
+    void asyncLookupShouldShareBatchAndCacheWithBlockingLookup() throws Exception {
+        stub(true);
+        UsersPublicClient client = new UsersPublicClient(cacheManager, stub.baseUrl(),
+                UsersServiceStub.PROFILE_PATH, UsersServiceStub.BATCH_PATH, 5);
+
+        Map<String, PublicProfile> r = client.getPublicProfilesAsync(List.of("u1", "u2", "missing"))
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(List.of("u1", "u2"), List.copyOf(r.keySet()));
+        assertEquals(1, stub.batchCalls());
+        // ya en caché: el Mono se resuelve sin llamadas
+        assertEquals("Ana", client.getPublicProfilesAsync(List.of("u1")).block().get("u1").getName());
+        assertEquals("Beto", client.getPublicProfiles(List.of("u2")).get("u2").getName());
+        assertEquals(1, stub.batchCalls());
+    }
+
+    @Test
+    void batchShouldServeStoredProfilesAndFetchOnlyTheRest() throws Exception {
+        stub(true);
+        ProfileStore store = mock(ProfileStore.class);
+        String k1 = Sha256.hash("id:u1");
+        // como Mongo: solo devuelve las claves pedidas
+        when(store.getFresh(anyCollection())).thenAnswer(inv -> {
+            Collection<?> keys = inv.getArgument(0);
+            return keys.contains(k1)
+                    ? Map.of(k1, PublicProfile.builder().id("u1").name("Ana (guardada)").build())
+                    : Map.of();
+        });
+        UsersPublicClient client = new UsersPublicClient(cacheManager, store, null,
+                new AdaptiveBulkhead("users-service"), RequestHedger.disabled(), stub.baseUrl(),
+                UsersServiceStub.PROFILE_PATH, UsersServiceStub.BATCH_PATH, 5);
+
+        Map<String, PublicProfile> r = client.getPublicProfiles(List.of("u1", "u2"));
+
+        assertEquals("Ana (guardada)", r.get("u1").getName());
+        assertEquals("Beto", r.get("u2").getName());
+        assertEquals(1, stub.batchCalls());
+        // solo lo pedido al servicio se guarda
+        verify(store).putAllAsync(
+                argThat(m -> m.keySet().equals(Set.of(Sha256.hash("id:u2")))));
+    }
+
+    @Test
+    void storedProfilesForKeysNotAskedForShouldBeIgnored() throws Exception {
+        stub(true);
+        ProfileStore store = mock(ProfileStore.class);
+        when(store.getFresh(anyCollection())).thenReturn(Map.of(
+                Sha256.hash("id:otro"), PublicProfile.builder().id("otro").name("Otro").build()));
+        UsersPublicClient client = new UsersPublicClient(cacheManager, store, null,
+                new AdaptiveBulkhead("users-service"), RequestHedger.disabled(), stub.baseUrl(),
+                UsersServiceStub.PROFILE_PATH, UsersServiceStub.BATCH_PATH, 5);
+
+        Map<String, PublicProfile> r = client.getPublicProfilesAsync(List.of("u1", "u2"))
+                .block(Duration.ofSeconds(5));
+
+        assertEquals("Ana", r.get("u1").getName());
+        assertEquals("Beto", r.get("u2").getName());
+        assertEquals(0, client.inFlightCount());
+    }
+
+    @Test
+    void failedStoreReadShouldFetchFromServiceAndLeaveNothingInFlight() throws Exception {
+        stub(true);
+        ProfileStore store = mock(ProfileStore.class);
+        when(store.getFresh(anyCollection())).thenThrow(new IllegalStateException("mongo caído"));
+        UsersPublicClient client = new UsersPublicClient(cacheManager, store, null,
+                new AdaptiveBulkhead("users-service"), RequestHedger.disabled(), stub.baseUrl(),
+                UsersServiceStub.PROFILE_PATH, UsersServiceStub.BATCH_PATH, 5);
+
+        Map<String, PublicProfile> r = client.getPublicProfilesAsync(List.of("u1", "u2"))
+                .block(Duration.ofSeconds(5));
+
+        assertEquals("Ana", r.get("u1").getName());
+        assertEquals("Beto", r.get("u2").getName());
+        assertEquals(1, stub.batchCalls());
+        assertEquals(0, client.inFlightCount());
+    }
+
+    @Test
+    void listingShouldRefreshAgingProfilesAndRefetchExpiredOnes() throws Exception {
+        stub(true);
+        AtomicLong millis = new AtomicLong(1_000_000);
+        UsersPublicClient client = new UsersPublicClient(refreshingCacheManager(millis), stub.baseUrl(),
+                UsersServiceStub.PROFILE_PATH, UsersServiceStub.BATCH_PATH, 5);
+
+        assertEquals("Ana", client.getPublicProfiles(List.of("u1")).get("u1").getName());
+        assertEquals(1, stub.batchCalls());
+
+        // cerca de vencer: se sirve lo guardado y se recarga en segundo plano
+        stub.withUser("u1", "Ana María");
+        millis.addAndGet(70_000);
+        assertEquals("Ana", client.getPublicProfiles(List.of("u1")).get("u1").getName());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!"Ana María".equals(client.peekCachedProfile("u1").getName())
+                && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals("Ana María", client.peekCachedProfile("u1").getName());
+        assertEquals(2, stub.batchCalls());
+
+        // vencido: se vuelve a pedir antes de responder
+        stub.withUser("u1", "Ana Lucía");
+        millis.addAndGet(200_000);
+        assertEquals("Ana Lucía", client.getPublicProfiles(List.of("u1")).get("u1").getName());
+        assertEquals(3, stub.batchCalls());
+    }
+
+    @Test
+    void reloadsOfProfilesAlreadyInMemoryShouldSkipThePersistentStore() throws Exception {
+        stub(true);
+        ProfileStore store = mock(ProfileStore.class);
+        // la copia guardada nunca cambia: si se leyera en una recarga, taparía al servicio
+        when(store.getFresh(anyCollection())).thenAnswer(inv -> {
+            Collection<?> keys = inv.getArgument(0);
+            String k1 = Sha256.hash("id:u1");
+            return keys.contains(k1)
+                    ? Map.of(k1, PublicProfile.builder().id("u1").name("Ana (guardada)").build())
+                    : Map.of();
+        });
+        AtomicLong millis = new AtomicLong(1_000_000);
+        UsersPublicClient client = new UsersPublicClient(refreshingCacheManager(millis), store, null,
+                new AdaptiveBulkhead("users-service"), RequestHedger.disabled(), stub.baseUrl(),
+                UsersServiceStub.PROFILE_PATH, UsersServiceStub.BATCH_PATH, 5);
+
+        // primera carga en frío: sale de la caché persistente
+        assertEquals("Ana (guardada)", client.getPublicProfiles(List.of("u1")).get("u1").getName());
+        assertEquals(0, stub.batchCalls());
+
+        // recarga anticipada: va al servicio
+        millis.addAndGet(70_000);
+        client.getPublicProfiles(List.of("u1"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!"Ana".equals(client.peekCachedProfile("u1").getName()) && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertEquals("Ana", client.peekCachedProfile("u1").getName());
+        assertEquals(1, stub.batchCalls());
+
+        // vencido: también va al servicio
+        stub.withUser("u1", "Ana Lucía");
+        millis.addAndGet(200_000);
+        assertEquals("Ana Lucía", client.getPublicProfiles(List.of("u1")).get("u1").getName());
+        assertEquals(2, stub.batchCalls());
+
+        // el camino individual tampoco lee la copia guardada al recargar
+        stub.withUser("u1", "Ana Sofía");
+        millis.addAndGet(200_000);
+        assertEquals("Ana Sofía", client.getPublicProfileCached(null, "u1").getName());
+        verify(store, never()).getFresh(anyString());
+    }
+
+    private static SimpleCacheManager refreshingCacheManager(AtomicLong millis) {
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(millis.get());
+            }
+        };
+        SimpleCacheManager manager = new SimpleCacheManager();
+        manager.setCaches(List.of(new RefreshAheadCache(new ConcurrentMapCache("userPublicProfiles"),
+                Duration.ofSeconds(60), Duration.ofSeconds(100), Duration.ofMillis(50), clock)));
+        manager.afterPropertiesSet();
+        return manager;
+    }
+}
@@ -22,6 +22,8 @@ import java.lang.reflect.Method;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -36,6 +38,8 @@ class UsersPublicClientTest {
         @Mock
         Cache cache;
 
+        private final AdaptiveBulkhead bulkhead = new AdaptiveBulkhead("users-service");
+
         private UsersPublicClient clientWithExchange(ExchangeFunction fx) throws Exception {
                 UsersPublicClient c = new UsersPublicClient(cacheManager, "http://localhost",
                                 "/Api-user/public/profile");
@@ -58,7 +62,7 @@ class UsersPublicClientTest {
                 UsersPublicClient client = Mockito.spy(
                                 new UsersPublicClient(cacheManager, "http://localhost", "/Api-user/public/profile"));
 
-                when(cache.get(anyString(), eq(PublicProfile.class))).thenReturn(null);
+                UserServiceClientTest.loadThrough(cache);
 
                 PublicProfile raw = new PublicProfile();
                 raw.setId("id1");
@@ -74,7 +78,7 @@ class UsersPublicClientTest {
                 assertEquals("John Doe", result.getName());
                 assertEquals("john@example.com", result.getEmail());
                 assertEquals("avatar", result.getAvatarUrl());
-                verify(cache).put(anyString(), same(raw));
+                verify(cache).retrieve(eq(Sha256.hash("id:id1")), any(Supplier.class));
         }
 
         @Test
@@ -93,7 +97,7 @@ class UsersPublicClientTest {
                 UsersPublicClient client = Mockito.spy(
                                 new UsersPublicClient(cacheManager, "http://localhost", "/Api-user/public/profile"));
 
-                when(cache.get(anyString(), eq(PublicProfile.class))).thenReturn(null);
+                UserServiceClientTest.loadThrough(cache);
 
                 WebClientResponseException forbidden = new WebClientResponseException("forbidden",
                                 HttpStatus.FORBIDDEN.value(),
@@ -115,7 +119,8 @@ class UsersPublicClientTest {
 
                 PublicProfile cached = new PublicProfile("id1", "sub1", "  Name  ",
                                 "MAIL@EXAMPLE.COM", "avatar");
-                when(cache.get(anyString(), eq(PublicProfile.class))).thenReturn(cached);
+                when(cache.retrieve(anyString(), any(Supplier.class)))
+                                .thenReturn(CompletableFuture.completedFuture(cached));
 
                 UsersPublicClient client = Mockito.spy(
                                 new UsersPublicClient(cacheManager, "http://localhost", "/Api-user/public/profile"));
@@ -135,7 +140,7 @@ class UsersPublicClientTest {
                 UsersPublicClient client = Mockito.spy(
                                 new UsersPublicClient(cacheManager, "http://localhost", "/Api-user/public/profile"));
 
-                when(cache.get(anyString(), eq(PublicProfile.class))).thenReturn(null);
+                UserServiceClientTest.loadThrough(cache);
 
                 RuntimeException boom = new RuntimeException("boom");
                 when(client.getPublicProfile(any(), any())).thenReturn(Mono.error(boom));
@@ -300,4 +305,49 @@ class UsersPublicClientTest {
                 assertSame(unauthorized, thrown);
                 assertEquals(HttpStatus.UNAUTHORIZED, thrown.getStatusCode());
         }
+
+        @Test
+        void peekCachedProfileShouldOnlyReadCache() {
+                when(cacheManager.getCache("userPublicProfiles")).thenReturn(cache);
+                PublicProfile cached = new PublicProfile("id1", "sub1", " Name ", "A@B.CO", null);
+                when(cache.get(Sha256.hash("id:id1"), PublicProfile.class)).thenReturn(cached);
+
+                UsersPublicClient client = Mockito.spy(
+                                new UsersPublicClient(cacheManager, "http://localhost", "/Api-user/public/profile"));
+
+                assertEquals("Name", client.peekCachedProfile(" id1 ").getName());
+                assertNull(client.peekCachedProfile("id2"));
+                assertNull(client.peekCachedProfile("  "));
+                verify(client, never()).getPublicProfile(any(), any());
+        }
+
+        @Test
+        void getPublicProfileCachedShouldReadPersistentStoreOnMiss() {
+                when(cacheManager.getCache("userPublicProfiles")).thenReturn(cache);
+                ProfileStore store = mock(ProfileStore.class);
+                String key = Sha256.hash("id:id1");
+                when(store.getFresh(key)).thenReturn(new PublicProfile("id1", null, "Ana", null, null));
+
+                UsersPublicClient client = Mockito.spy(new UsersPublicClient(cacheManager, store, null, bulkhead,
+                                RequestHedger.disabled(), "http://localhost", "/Api-user/public/profile", null, 5));
+                UserServiceClientTest.loadThrough(cache);
+
+                assertEquals("Ana", client.getPublicProfileCached(null, "id1").getName());
+                verify(client, never()).getPublicProfile(any(), any());
+                verify(store, never()).putAllAsync(any());
+        }
+
+        @Test
+        void getPublicProfileCachedShouldWriteFetchedProfileToPersistentStore() {
+                when(cacheManager.getCache("userPublicProfiles")).thenReturn(cache);
+                ProfileStore store = mock(ProfileStore.class);
+                UsersPublicClient client = Mockito.spy(new UsersPublicClient(cacheManager, store, null, bulkhead,
+                                RequestHedger.disabled(), "http://localhost", "/Api-user/public/profile", null, 5));
+                UserServiceClientTest.loadThrough(cache);
+                PublicProfile raw = new PublicProfile("id1", null, "Beto", null, null);
+                when(client.getPublicProfile(any(), any())).thenReturn(Mono.just(raw));
+
+                assertEquals("Beto", client.getPublicProfileCached(null, "id1").getName());
+                verify(store).putAllAsync(Map.of(Sha256.hash("id:id1"), raw));
+        }
 }
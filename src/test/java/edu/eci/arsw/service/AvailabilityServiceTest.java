@@ -10,6 +10,7 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
@@ -30,11 +31,14 @@ class AvailabilityServiceExtraTest {
     @Mock
     private AvailabilitySlotRepository repo;
 
+    @Mock
+    private ApplicationEventPublisher events;
+
     private AvailabilityService service;
 
     @BeforeEach
     void setUp() {
-        service = new AvailabilityService(repo);
+        service = new AvailabilityService(repo, events);
     }
 
 
@@ -111,6 +115,8 @@ class AvailabilityServiceExtraTest {
 
         service.deleteOwnSlot("t1", "slot1", false);
         verify(repo).deleteById("slot1");
+        verify(events).publishEvent(argThat((Object e) -> e instanceof ScheduleChangeEvent sce
+                && sce.getType() == ScheduleChangeEvent.Type.SLOT_REMOVED));
     }
 
     @Test
@@ -152,6 +158,10 @@ class AvailabilityServiceExtraTest {
 
         verify(repo).deleteById("s1");
         verify(repo, never()).deleteById("s2");
+        verify(events).publishEvent(argThat((Object e) -> e instanceof ScheduleChangeEvent sce
+                && sce.getType() == ScheduleChangeEvent.Type.SLOT_REMOVED && h1.equals(sce.getStart())));
+        verify(events).publishEvent(argThat((Object e) -> e instanceof ScheduleChangeEvent sce
+                && sce.getType() == ScheduleChangeEvent.Type.SLOT_ADDED && newHour.equals(sce.getStart())));
         verify(repo).save(argThat(slot ->
                 "t1".equals(slot.getTutorId())
                         && date.equals(slot.getDate())
@@ -0,0 +1,115 @@
+package edu.eci.arsw.service;
+
+import edu.eci.arsw.domain.AvailabilitySlot;
+import edu.eci.arsw.domain.Reservation;
+import edu.eci.arsw.domain.ReservationStatus;
+import edu.eci.arsw.dto.FreeSlot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FreeSlotIndexTest {
+
+    private static final LocalDate DAY = LocalDate.now(ZoneId.of("America/Bogota")).plusDays(3);
+
+    @Mock
+    private MongoTemplate mongo;
+
+    @InjectMocks
+    private FreeSlotIndex index;
+
+    private static AvailabilitySlot slot(String tutorId, int hour) {
+        return AvailabilitySlot.builder().tutorId(tutorId).date(DAY).start(LocalTime.of(hour, 0)).build();
+    }
+
+    @Test
+    void rebuildShouldIndexAvailabilityMinusReservations() {
+        Reservation booked = Reservation.builder()
+                .id("r1").tutorId("t2").studentId("s1").date(DAY).start(LocalTime.of(10, 0)).build();
+        when(mongo.find(any(Query.class), eq(AvailabilitySlot.class)))
+                .thenReturn(List.of(slot("t1", 10), slot("t2", 10), slot("t2", 11), slot("t3", 15)));
+        when(mongo.find(any(Query.class), eq(Reservation.class))).thenReturn(List.of(booked));
+
+        index.rebuild();
+
+        assertEquals(List.of("t1"), index.freeTutors(DAY, 10, 11));
+        assertEquals(List.of("t1", "t2"), index.freeTutors(DAY, 10, 12));
+        assertEquals(List.of("t3"), index.freeTutors(DAY, 15, 24));
+        assertTrue(index.freeTutors(DAY, 0, 10).isEmpty());
+        assertTrue(index.freeTutors(DAY.plusDays(1), 0, 24).isEmpty());
+    }
+
+    @Test
+    void eventsShouldKeepIndexUpToDate() {
+        index.onScheduleChange(ScheduleChangeEvent.slotAdded(slot("t1", 9)));
+        index.onScheduleChange(ScheduleChangeEvent.slotAdded(slot("t2", 9)));
+        assertEquals(List.of("t1", "t2"), index.freeTutors(DAY, 9, 10));
+
+        Reservation r = Reservation.builder()
+                .id("r1").tutorId("t1").studentId("s1").date(DAY).start(LocalTime.of(9, 0))
+                .status(ReservationStatus.PENDIENTE).build();
+        index.onScheduleChange(ScheduleChangeEvent.reservationChanged(r));
+        assertEquals(List.of("t2"), index.freeTutors(DAY, 9, 10));
+
+        index.onScheduleChange(ScheduleChangeEvent.slotRemoved(slot("t2", 9)));
+        assertTrue(index.freeTutors(DAY, 9, 10).isEmpty());
+
+        // eliminar una franja que no existe no debe crear celdas
+        index.onScheduleChange(ScheduleChangeEvent.slotRemoved(slot("t3", 20)));
+        assertTrue(index.freeTutors(DAY, 20, 21).isEmpty());
+    }
+
+    @Test
+    void nextFreeForTutorShouldReturnFirstKHoursAfterT() {
+        index.onScheduleChange(ScheduleChangeEvent.slotAdded(slot("t1", 8)));
+        index.onScheduleChange(ScheduleChangeEvent.slotAdded(slot("t1", 9)));
+        index.onScheduleChange(ScheduleChangeEvent.slotAdded(slot("t1", 14)));
+        index.onScheduleChange(ScheduleChangeEvent.reservationChanged(Reservation.builder()
+                .id("r1").tutorId("t1").studentId("s1").date(DAY).start(LocalTime.of(9, 0)).build()));
+
+        List<FreeSlot> page = index.nextFreeForTutor("t1", DAY.atTime(8, 0), 2);
+
+        assertEquals(2, page.size());
+        assertEquals(new FreeSlot("t1", DAY.toString(), "08:00"), page.get(0));
+        assertEquals(new FreeSlot("t1", DAY.toString(), "14:00"), page.get(1));
+
+        List<FreeSlot> next = index.nextFreeForTutor("t1", DAY.atTime(9, 0), 5);
+        assertEquals(List.of(new FreeSlot("t1", DAY.toString(), "14:00")), next);
+
+        index.onScheduleChange(ScheduleChangeEvent.slotRemoved(slot("t1", 14)));
+        assertTrue(index.nextFreeForTutor("t1", DAY.atTime(9, 0), 5).isEmpty());
+        assertTrue(index.nextFreeForTutor("unknown", DAY.atTime(0, 0), 5).isEmpty());
+    }
+
+    @Test
+    void nextFreeAnyShouldPaginateAcrossTutorsAndHours() {
+        index.onScheduleChange(ScheduleChangeEvent.slotAdded(slot("t1", 10)));
+        index.onScheduleChange(ScheduleChangeEvent.slotAdded(slot("t2", 10)));
+        index.onScheduleChange(ScheduleChangeEvent.slotAdded(slot("t3", 12)));
+        LocalDateTime start = LocalDateTime.of(DAY, LocalTime.of(7, 0));
+
+        List<FreeSlot> first = index.nextFreeAny(start, null, 1);
+        assertEquals(List.of(new FreeSlot("t1", DAY.toString(), "10:00")), first);
+
+        List<FreeSlot> rest = index.nextFreeAny(DAY.atTime(10, 0), "t1", 10);
+        assertEquals(List.of(
+                new FreeSlot("t2", DAY.toString(), "10:00"),
+                new FreeSlot("t3", DAY.toString(), "12:00")), rest);
+    }
+}
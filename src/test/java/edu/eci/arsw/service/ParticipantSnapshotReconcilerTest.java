@@ -0,0 +1,90 @@
+package edu.eci.arsw.service;
+
+import edu.eci.arsw.domain.ParticipantSnapshot;
+import edu.eci.arsw.domain.Reservation;
+import edu.eci.arsw.dto.PublicProfile;
+import edu.eci.arsw.security.UsersPublicClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ParticipantSnapshotReconcilerTest {
+
+    @Mock
+    private MongoTemplate mongo;
+
+    @Mock
+    private UsersPublicClient usersPublicClient;
+
+    private ParticipantSnapshotReconciler reconciler;
+
+    private final PublicProfile ana = PublicProfile.builder().id("s1").name("Ana").build();
+    private final PublicProfile luis = PublicProfile.builder().id("t1").name("Luis").build();
+
+    @BeforeEach
+    void setUp() {
+        reconciler = new ParticipantSnapshotReconciler(mongo, usersPublicClient, 2);
+    }
+
+    private static Reservation reservation(String id, ParticipantSnapshot snap) {
+        return Reservation.builder().id(id).studentId("s1").tutorId("t1").participants(snap).build();
+    }
+
+    @Test
+    void shouldUpdateMissingAndOutdatedSnapshotsAcrossPages() {
+        ParticipantSnapshot current = ParticipantSnapshots.of(ana, luis, Instant.EPOCH);
+        ParticipantSnapshot outdated = ParticipantSnapshot.builder().studentName("Ana").version("old").build();
+        when(mongo.find(any(Query.class), eq(Reservation.class)))
+                .thenReturn(List.of(reservation("r1", current), reservation("r2", null)))
+                .thenReturn(List.of(reservation("r3", outdated)));
+        when(usersPublicClient.getPublicProfiles(anyCollection())).thenReturn(Map.of("s1", ana, "t1", luis));
+
+        assertEquals(2, reconciler.reconcile());
+
+        ArgumentCaptor<Query> pages = ArgumentCaptor.forClass(Query.class);
+        verify(mongo, times(2)).find(pages.capture(), eq(Reservation.class));
+        assertTrue(pages.getAllValues().get(0).getQueryObject().isEmpty());
+        assertTrue(pages.getAllValues().get(1).getQueryObject().toString().contains("r2"));
+
+        ArgumentCaptor<Query> targets = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongo, times(2)).updateFirst(targets.capture(), updates.capture(), eq(Reservation.class));
+        assertEquals("r2", targets.getAllValues().get(0).getQueryObject().get("id"));
+        assertEquals("r3", targets.getAllValues().get(1).getQueryObject().get("id"));
+        ParticipantSnapshot written = (ParticipantSnapshot) updates.getValue().getUpdateObject()
+                .get("$set", org.bson.Document.class).get("participants");
+        assertEquals(current.getVersion(), written.getVersion());
+    }
+
+    @Test
+    void shouldKeepSnapshotWhenProfileIsUnavailable() {
+        when(mongo.find(any(Query.class), eq(Reservation.class))).thenReturn(List.of(reservation("r1", null)));
+        when(usersPublicClient.getPublicProfiles(anyCollection())).thenReturn(Map.of("s1", ana));
+
+        assertEquals(0, reconciler.reconcile());
+        verify(mongo, never()).updateFirst(any(Query.class), any(Update.class), eq(Reservation.class));
+    }
+
+    @Test
+    void shouldStopQuietlyWhenUsersServiceFails() {
+        when(mongo.find(any(Query.class), eq(Reservation.class))).thenReturn(List.of(reservation("r1", null)));
+        when(usersPublicClient.getPublicProfiles(anyCollection())).thenThrow(new RuntimeException("down"));
+
+        assertEquals(0, reconciler.reconcile());
+    }
+}
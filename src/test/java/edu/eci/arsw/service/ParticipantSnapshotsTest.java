@@ -0,0 +1,87 @@
+package edu.eci.arsw.service;
+
+import edu.eci.arsw.domain.ParticipantSnapshot;
+import edu.eci.arsw.dto.PublicProfile;
+import edu.eci.arsw.security.CircuitOpenException;
+import edu.eci.arsw.security.UsersPublicClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ParticipantSnapshotsTest {
+
+    @Mock
+    private UsersPublicClient usersPublicClient;
+
+    private ParticipantSnapshots snapshots;
+
+    @BeforeEach
+    void setUp() {
+        snapshots = new ParticipantSnapshots(usersPublicClient, 100);
+    }
+
+    private static PublicProfile profile(String id, String name, String avatar) {
+        return PublicProfile.builder().id(id).name(name).avatarUrl(avatar).build();
+    }
+
+    @Test
+    void captureShouldCopyBothProfiles() {
+        when(usersPublicClient.getPublicProfilesAsync(List.of("s1", "t1"))).thenReturn(Mono.just(Map.of(
+                "s1", profile("s1", "Ana", "a.png"),
+                "t1", profile("t1", "Luis", "l.png"))));
+
+        ParticipantSnapshot snap = snapshots.capture("s1", "t1");
+
+        assertEquals("Ana", snap.getStudentName());
+        assertEquals("a.png", snap.getStudentAvatar());
+        assertEquals("Luis", snap.getTutorName());
+        assertEquals("l.png", snap.getTutorAvatar());
+        assertNotNull(snap.getVersion());
+        assertNotNull(snap.getCapturedAt());
+    }
+
+    @Test
+    void captureShouldReturnNullWhenAProfileIsMissingOrServiceIsDown() {
+        when(usersPublicClient.getPublicProfilesAsync(List.of("s1", "t1")))
+                .thenReturn(Mono.just(Map.of("s1", profile("s1", "Ana", null))))
+                .thenReturn(Mono.error(new CircuitOpenException("users.public-profiles-batch")));
+
+        assertNull(snapshots.capture("s1", "t1"));
+        assertNull(snapshots.capture("s1", "t1"));
+    }
+
+    @Test
+    void captureShouldNotWaitForASlowUsersService() {
+        when(usersPublicClient.getPublicProfilesAsync(List.of("s1", "t1")))
+                .thenReturn(Mono.delay(Duration.ofSeconds(10)).thenReturn(Map.of()));
+
+        long start = System.nanoTime();
+        assertNull(snapshots.capture("s1", "t1"));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 2000);
+    }
+
+    @Test
+    void versionShouldChangeOnlyWhenCopiedFieldsChange() {
+        PublicProfile s = profile("s1", "Ana", "a.png");
+        PublicProfile t = profile("t1", "Luis", null);
+        String v = ParticipantSnapshots.version(s, t);
+
+        PublicProfile sameCopiedFields = profile("s1", "Ana", "a.png");
+        sameCopiedFields.setEmail("ana@example.com");
+        assertEquals(v, ParticipantSnapshots.version(sameCopiedFields, t));
+        assertNotEquals(v, ParticipantSnapshots.version(profile("s1", "Ana María", "a.png"), t));
+        assertEquals(v, ParticipantSnapshots.of(s, t, Instant.EPOCH).getVersion());
+    }
+}
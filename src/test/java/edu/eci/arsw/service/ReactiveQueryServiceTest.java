@@ -0,0 +1,87 @@
+package edu.eci.arsw.service;
+
+import edu.eci.arsw.domain.AvailabilitySlot;
+import edu.eci.arsw.domain.Reservation;
+import edu.eci.arsw.dto.ReservationView;
+import edu.eci.arsw.dto.ScheduleCell;
+import edu.eci.arsw.repository.ReactiveAvailabilitySlotRepository;
+import edu.eci.arsw.repository.ReactiveReservationRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveQueryServiceTest {
+
+    @Mock
+    private ReactiveReservationRepository reservations;
+
+    @Mock
+    private ReactiveAvailabilitySlotRepository slots;
+
+    @Mock
+    private ReservationViewAssembler assembler;
+
+    @Mock
+    private ScheduleService scheduleService;
+
+    @InjectMocks
+    private ReactiveQueryService service;
+
+    @Test
+    void listByTutorShouldUseReactiveRepositoryAndAsyncAssembler() {
+        Reservation r1 = Reservation.builder().id("r1").build();
+        Reservation r2 = Reservation.builder().id("r2").build();
+        when(reservations.findByTutorIdOrderByDateAscStartAsc("t1")).thenReturn(Flux.just(r1, r2));
+        List<ReservationView> views = List.of(ReservationView.builder().id("r1").build(),
+                ReservationView.builder().id("r2").build());
+        when(assembler.toViewsAsync(List.of(r1, r2))).thenReturn(Mono.just(views));
+
+        assertEquals(views, service.listByTutor("t1").block());
+        verify(assembler, never()).toViews(anyList());
+    }
+
+    @Test
+    void listByStudentShouldUseReactiveRepository() {
+        when(reservations.findByStudentIdOrderByDateAscStartAsc("s1")).thenReturn(Flux.empty());
+        when(assembler.toViewsAsync(List.of())).thenReturn(Mono.just(List.of()));
+
+        assertTrue(service.listByStudent("s1").block().isEmpty());
+    }
+
+    @Test
+    void weekForTutorShouldCombineBothQueries() {
+        LocalDate weekStart = LocalDate.of(2025, 1, 6);
+        LocalDate weekEnd = weekStart.plusDays(6);
+        AvailabilitySlot slot = new AvailabilitySlot();
+        Reservation r = Reservation.builder().id("r1").build();
+        when(slots.findByTutorIdAndDateGreaterThanEqualAndDateLessThanEqual("t1", weekStart, weekEnd))
+                .thenReturn(Flux.just(slot));
+        when(reservations.findByTutorIdAndDateGreaterThanEqualAndDateLessThanEqual("t1", weekStart, weekEnd))
+                .thenReturn(Flux.just(r));
+        List<ScheduleCell> cells = List.of(new ScheduleCell());
+        when(scheduleService.assembleWeek(weekStart, List.of(slot), List.of(r))).thenReturn(cells);
+
+        assertSame(cells, service.weekForTutor("t1", weekStart).block());
+    }
+
+    @Test
+    void weekForTutorShouldRejectMissingArguments() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> service.weekForTutor(" ", LocalDate.of(2025, 1, 6)).block());
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        verifyNoInteractions(reservations, slots);
+    }
+}
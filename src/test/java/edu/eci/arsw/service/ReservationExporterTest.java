@@ -0,0 +1,112 @@
+package edu.eci.arsw.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import edu.eci.arsw.domain.Reservation;
+import edu.eci.arsw.dto.ReservationView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationExporterTest {
+
+    @Mock
+    private MongoTemplate mongo;
+
+    @Mock
+    private ReservationViewAssembler assembler;
+
+    private ReservationExporter exporter;
+
+    /** Salida que cuenta los flush */
+    private static class CountingOutput extends ByteArrayOutputStream {
+        int flushes;
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+
+        List<String> lines() {
+            return toString(StandardCharsets.UTF_8).lines().toList();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper mapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        exporter = new ReservationExporter(mongo, assembler, mapper);
+    }
+
+    private static List<Reservation> reservations(int n) {
+        return IntStream.range(0, n)
+                .mapToObj(i -> Reservation.builder().id("r" + i).date(LocalDate.of(2025, 1, 6)).build())
+                .toList();
+    }
+
+    @Test
+    void viewsShouldEnrichAndFlushInBatches() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(mongo.stream(any(Query.class), eq(Reservation.class)))
+                .thenReturn(reservations(250).stream().onClose(() -> closed.set(true)));
+        when(assembler.toViews(anyList())).thenAnswer(inv -> {
+            List<Reservation> batch = inv.getArgument(0);
+            return batch.stream().map(r -> ReservationView.builder().id(r.getId()).build()).toList();
+        });
+        Query q = new Query();
+
+        CountingOutput out = new CountingOutput();
+        exporter.views(q).writeTo(out);
+
+        List<String> lines = out.lines();
+        assertEquals(250, lines.size());
+        assertTrue(lines.get(0).contains("\"id\":\"r0\""));
+        assertTrue(lines.get(249).contains("\"id\":\"r249\""));
+        assertEquals(3, out.flushes);
+        verify(assembler, times(3)).toViews(anyList());
+        assertEquals(ReservationExporter.BATCH_SIZE, q.getMeta().getCursorBatchSize());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void reservationsShouldWriteStoredDocumentsWithoutEnrichment() throws Exception {
+        when(mongo.stream(any(Query.class), eq(Reservation.class))).thenReturn(reservations(2).stream());
+
+        CountingOutput out = new CountingOutput();
+        exporter.reservations(new Query()).writeTo(out);
+
+        List<String> lines = out.lines();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).contains("\"date\":\"2025-01-06\""));
+        verifyNoInteractions(assembler);
+    }
+
+    @Test
+    void emptyResultShouldWriteNothing() throws Exception {
+        when(mongo.stream(any(Query.class), eq(Reservation.class))).thenReturn(Stream.empty());
+
+        CountingOutput out = new CountingOutput();
+        exporter.views(new Query()).writeTo(out);
+
+        assertEquals(0, out.size());
+        verifyNoInteractions(assembler);
+    }
+}
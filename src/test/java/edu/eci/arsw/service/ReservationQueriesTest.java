@@ -0,0 +1,42 @@
+package edu.eci.arsw.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationQueriesTest {
+
+    @Test
+    void studentInRangeShouldFilterByOwnerAndDatesSortedByDateAndStart() {
+        Query q = ReservationQueries.studentInRange("s1", "2025-01-01", "2025-01-31");
+
+        Document query = q.getQueryObject();
+        assertEquals("s1", query.get("studentId"));
+        Document date = (Document) query.get("date");
+        assertEquals("2025-01-01", date.get("$gte"));
+        assertEquals("2025-01-31", date.get("$lte"));
+        assertEquals(List.of("date", "start"), List.copyOf(q.getSortObject().keySet()));
+    }
+
+    @Test
+    void tutorInRangeShouldSkipMissingBounds() {
+        Query q = ReservationQueries.tutorInRange("t1", null, " ");
+
+        Document query = q.getQueryObject();
+        assertEquals("t1", query.get("tutorId"));
+        assertFalse(query.get("date") instanceof Document d && !d.isEmpty());
+    }
+
+    @Test
+    void byOwnerShouldSortByDateAndStart() {
+        Query q = ReservationQueries.byOwner(ReservationQueries.FIELD_TUTOR_ID, "t1");
+
+        assertEquals("t1", q.getQueryObject().get("tutorId"));
+        assertEquals(1, q.getSortObject().get("date"));
+        assertEquals(1, q.getSortObject().get("start"));
+    }
+}
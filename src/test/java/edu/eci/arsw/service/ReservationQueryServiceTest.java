@@ -1,16 +1,26 @@
 package edu.eci.arsw.service;
 
 import edu.eci.arsw.domain.Reservation;
+import edu.eci.arsw.domain.ReservationStatus;
+import edu.eci.arsw.dto.ReservationPage;
 import edu.eci.arsw.dto.ReservationView;
 import edu.eci.arsw.repository.ReservationRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -22,6 +32,12 @@ class ReservationQueryServiceTest {
     @Mock
     private ReservationViewAssembler assembler;
 
+    @Mock
+    private MongoTemplate mongo;
+
+    @Mock
+    private ReservationExporter exporter;
+
     @InjectMocks
     private ReservationQueryService service;
 
@@ -33,8 +49,7 @@ class ReservationQueryServiceTest {
 
         ReservationView v1 = ReservationView.builder().id("r1").build();
         ReservationView v2 = ReservationView.builder().id("r2").build();
-        when(assembler.toView(r1)).thenReturn(v1);
-        when(assembler.toView(r2)).thenReturn(v2);
+        when(assembler.toViews(List.of(r1, r2))).thenReturn(List.of(v1, v2));
 
         List<ReservationView> result = service.listByTutor("t1");
 
@@ -47,11 +62,97 @@ class ReservationQueryServiceTest {
         when(repo.findByStudentIdOrderByDateAscStartAsc("s1")).thenReturn(List.of(r1));
 
         ReservationView v1 = ReservationView.builder().id("r1").build();
-        when(assembler.toView(r1)).thenReturn(v1);
+        when(assembler.toViews(List.of(r1))).thenReturn(List.of(v1));
 
         List<ReservationView> result = service.listByStudent("s1");
 
         assertEquals(1, result.size());
         assertSame(v1, result.get(0));
     }
+
+    private static Reservation at(String id, String date, String start) {
+        return Reservation.builder().id(id).date(LocalDate.parse(date)).start(LocalTime.parse(start)).build();
+    }
+
+    @Test
+    void pageByTutorShouldReturnCursorWhenMoreResultsExist() {
+        Reservation r1 = at("r1", "2025-01-06", "09:00");
+        Reservation r2 = at("r2", "2025-01-06", "10:00");
+        Reservation r3 = at("r3", "2025-01-07", "09:00");
+        when(mongo.find(any(Query.class), eq(Reservation.class))).thenReturn(List.of(r1, r2, r3));
+        ReservationView v1 = ReservationView.builder().id("r1").build();
+        ReservationView v2 = ReservationView.builder().id("r2").build();
+        when(assembler.toViews(List.of(r1, r2))).thenReturn(List.of(v1, v2));
+
+        ReservationPage page = service.pageByTutor("t1", null, 2, null, null, null);
+
+        assertEquals(List.of(v1, v2), page.getItems());
+        assertNotNull(page.getNextCursor());
+        ReservationQueryService.Cursor c = ReservationQueryService.decodeCursor(page.getNextCursor());
+        assertEquals(new ReservationQueryService.Cursor(r2.getDate(), r2.getStart(), "r2"), c);
+
+        ArgumentCaptor<Query> q = ArgumentCaptor.forClass(Query.class);
+        verify(mongo).find(q.capture(), eq(Reservation.class));
+        assertEquals(3, q.getValue().getLimit());
+        assertTrue(q.getValue().getQueryObject().toString().contains("tutorId"));
+    }
+
+    @Test
+    void pageByStudentShouldApplyCursorAndFiltersAndEndWithoutCursor() {
+        Reservation r1 = at("r1", "2025-01-06", "09:00");
+        when(mongo.find(any(Query.class), eq(Reservation.class))).thenReturn(List.of(r1));
+        when(assembler.toViews(List.of(r1))).thenReturn(List.of(ReservationView.builder().id("r1").build()));
+        String cursor = ReservationQueryService.encodeCursor(at("r0", "2025-01-05", "08:00"));
+
+        ReservationPage page = service.pageByStudent("s1", cursor, null, LocalDate.parse("2025-01-01"),
+                LocalDate.parse("2025-01-31"), List.of(ReservationStatus.ACEPTADO));
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+        ArgumentCaptor<Query> q = ArgumentCaptor.forClass(Query.class);
+        verify(mongo).find(q.capture(), eq(Reservation.class));
+        String json = q.getValue().getQueryObject().toString();
+        assertTrue(json.contains("studentId"));
+        assertTrue(json.contains("$or"));
+        assertTrue(json.contains("ACEPTADO"));
+        assertEquals(ReservationQueryService.DEFAULT_PAGE_SIZE + 1, q.getValue().getLimit());
+    }
+
+    @Test
+    void pageShouldRejectInvalidCursorAndLimit() {
+        ResponseStatusException bad = assertThrows(ResponseStatusException.class,
+                () -> service.pageByTutor("t1", "no-es-un-cursor", null, null, null, null));
+        assertEquals(HttpStatus.BAD_REQUEST, bad.getStatusCode());
+
+        ResponseStatusException tooBig = assertThrows(ResponseStatusException.class,
+                () -> service.pageByTutor("t1", null, ReservationQueryService.MAX_PAGE_SIZE + 1, null, null, null));
+        assertEquals(HttpStatus.BAD_REQUEST, tooBig.getStatusCode());
+        verifyNoInteractions(mongo);
+    }
+
+    @Test
+    void streamByTutorShouldExportOwnerQuerySortedByDate() {
+        NdjsonWriter body = out -> {
+        };
+        when(exporter.views(any(Query.class))).thenReturn(body);
+
+        assertSame(body, service.streamByTutor("t1"));
+
+        ArgumentCaptor<Query> q = ArgumentCaptor.forClass(Query.class);
+        verify(exporter).views(q.capture());
+        assertEquals("t1", q.getValue().getQueryObject().get("tutorId"));
+        assertEquals(1, q.getValue().getSortObject().get("date"));
+    }
+
+    @Test
+    void streamByStudentShouldExportOwnerQuery() {
+        when(exporter.views(any(Query.class))).thenReturn(out -> {
+        });
+
+        assertNotNull(service.streamByStudent("s1"));
+
+        ArgumentCaptor<Query> q = ArgumentCaptor.forClass(Query.class);
+        verify(exporter).views(q.capture());
+        assertEquals("s1", q.getValue().getQueryObject().get("studentId"));
+    }
 }
@@ -1,5 +1,6 @@
 package edu.eci.arsw.service;
 
+import edu.eci.arsw.domain.ParticipantSnapshot;
 import edu.eci.arsw.domain.Reservation;
 import edu.eci.arsw.domain.ReservationStatus;
 import edu.eci.arsw.dto.ReservationCreateRequest;
@@ -9,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -27,6 +29,12 @@ class ReservationServiceTest {
     @Mock
     private AvailabilitySlotRepository avRepo;
 
+    @Mock
+    private ApplicationEventPublisher events;
+
+    @Mock
+    private ParticipantSnapshots snapshots;
+
     @InjectMocks
     private ReservationService service;
 
@@ -59,6 +67,26 @@ class ReservationServiceTest {
         assertEquals(studentId, result.getStudentId());
         assertEquals("t1", result.getTutorId());
         assertEquals(ReservationStatus.PENDIENTE, result.getStatus());
+        verify(events).publishEvent(argThat((Object e) -> e instanceof ScheduleChangeEvent sce
+                && sce.getType() == ScheduleChangeEvent.Type.RESERVATION_CHANGED
+                && "res-1".equals(sce.getReservationId())));
+    }
+
+    @Test
+    void createShouldStoreParticipantSnapshot() {
+        ReservationCreateRequest req = new ReservationCreateRequest();
+        req.setTutorId("t1");
+        req.setDate(LocalDate.now(ZONE).plusDays(2));
+        req.setHour("10:00");
+        when(avRepo.findByTutorIdAndDateAndStart(eq("t1"), any(), any()))
+                .thenReturn(Optional.of(new edu.eci.arsw.domain.AvailabilitySlot()));
+        ParticipantSnapshot snap = ParticipantSnapshot.builder().studentName("Ana").tutorName("Luis").build();
+        when(snapshots.capture("s1", "t1")).thenReturn(snap);
+        when(repo.save(any(Reservation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Reservation result = service.create("s1", req);
+
+        assertSame(snap, result.getParticipants());
     }
 
     @Test
@@ -158,6 +186,8 @@ class ReservationServiceTest {
         Reservation result = service.changeStatusByStudentOrTutor("s1", id, ReservationStatus.CANCELADO);
 
         assertEquals(ReservationStatus.CANCELADO, result.getStatus());
+        verify(events).publishEvent(argThat((Object e) -> e instanceof ScheduleChangeEvent sce
+                && sce.getStatus() == ReservationStatus.CANCELADO));
     }
 
     @Test
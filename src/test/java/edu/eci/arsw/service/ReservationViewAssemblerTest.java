@@ -1,22 +1,30 @@
 package edu.eci.arsw.service;
 
+import edu.eci.arsw.domain.ParticipantSnapshot;
 import edu.eci.arsw.domain.Reservation;
 import edu.eci.arsw.domain.ReservationStatus;
 import edu.eci.arsw.dto.PublicProfile;
 import edu.eci.arsw.dto.ReservationView;
+import edu.eci.arsw.security.BulkheadFullException;
+import edu.eci.arsw.security.CircuitOpenException;
 import edu.eci.arsw.security.UsersPublicClient;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class ReservationViewAssemblerTest {
@@ -159,4 +167,129 @@ class ReservationViewAssemblerTest {
 
         assertEquals("ACEPTADO", assembler.toView(r).getStatus());
     }
+
+    @Test
+    void toViewsShouldResolveEachDistinctUserOnce() {
+        // s2 no se pudo obtener: no viene en el mapa
+        when(usersPublicClient.getPublicProfiles(Set.of("s1", "t1", "s2"))).thenReturn(Map.of(
+                "s1", PublicProfile.builder().id("s1").name("Ana").build(),
+                "t1", PublicProfile.builder().id("t1").name("Profesor").build()));
+
+        LocalDate tomorrow = LocalDate.now(ZONE).plusDays(1);
+        List<Reservation> rs = List.of(
+                Reservation.builder().id("a").studentId("s1").tutorId("t1").date(tomorrow)
+                        .start(LocalTime.NOON).end(LocalTime.NOON.plusHours(1))
+                        .status(ReservationStatus.PENDIENTE).build(),
+                Reservation.builder().id("b").studentId("s2").tutorId("t1").date(tomorrow)
+                        .start(LocalTime.of(14, 0)).end(LocalTime.of(15, 0))
+                        .status(ReservationStatus.PENDIENTE).build(),
+                Reservation.builder().id("c").studentId("s1").tutorId("t1").date(tomorrow)
+                        .start(LocalTime.of(16, 0)).end(LocalTime.of(17, 0))
+                        .status(ReservationStatus.CANCELADO).build());
+
+        List<ReservationView> views = assembler.toViews(rs);
+
+        assertEquals(List.of("a", "b", "c"), views.stream().map(ReservationView::getId).toList());
+        assertEquals("Ana", views.get(0).getStudentName());
+        assertEquals("Profesor", views.get(0).getTutorName());
+        // el perfil que falló se degrada al nombre genérico
+        assertEquals("Estudiante", views.get(1).getStudentName());
+        assertEquals("Profesor", views.get(2).getTutorName());
+        verify(usersPublicClient, times(1)).getPublicProfiles(anyCollection());
+        verify(usersPublicClient, never()).getPublicProfileCached(any(), any());
+    }
+
+    @Test
+    void toViewsShouldReturnEmptyListWithoutLookups() {
+        assertTrue(assembler.toViews(List.of()).isEmpty());
+        verifyNoInteractions(usersPublicClient);
+    }
+
+    @Test
+    void toViewShouldUsePlaceholdersWhenUsersServiceCircuitIsOpen() {
+        when(usersPublicClient.getPublicProfileCached(any(), anyString()))
+                .thenThrow(new CircuitOpenException("users.public-profile"));
+
+        Reservation r = Reservation.builder()
+                .id("x").studentId("s1").tutorId("t1")
+                .date(LocalDate.now(ZONE).plusDays(1))
+                .start(LocalTime.NOON).end(LocalTime.NOON.plusHours(1))
+                .status(ReservationStatus.PENDIENTE)
+                .build();
+
+        ReservationView view = assembler.toView(r);
+
+        assertEquals("Estudiante", view.getStudentName());
+        assertEquals("Tutor", view.getTutorName());
+    }
+
+    @Test
+    void toViewShouldUsePlaceholdersWhenUsersServiceIsSaturated() {
+        when(usersPublicClient.getPublicProfileCached(any(), anyString()))
+                .thenThrow(new BulkheadFullException("users-service"));
+
+        Reservation r = Reservation.builder()
+                .id("x").studentId("s1").tutorId("t1")
+                .date(LocalDate.now(ZONE).plusDays(1))
+                .start(LocalTime.NOON).end(LocalTime.NOON.plusHours(1))
+                .status(ReservationStatus.PENDIENTE)
+                .build();
+
+        ReservationView view = assembler.toView(r);
+
+        assertEquals("Estudiante", view.getStudentName());
+        assertEquals("Tutor", view.getTutorName());
+    }
+
+    @Test
+    void reservationsWithSnapshotShouldSkipRemoteLookups() {
+        LocalDate future = LocalDate.now(ZONE).plusDays(3);
+        ParticipantSnapshot snap = ParticipantSnapshot.builder()
+                .studentName("Ana").studentAvatar("a.png").tutorName("Luis").tutorAvatar("l.png").build();
+        Reservation withSnap = Reservation.builder().id("r1").studentId("s1").tutorId("t1").date(future)
+                .start(LocalTime.of(10, 0)).end(LocalTime.of(11, 0)).status(ReservationStatus.PENDIENTE)
+                .participants(snap).build();
+        Reservation without = Reservation.builder().id("r2").studentId("s2").tutorId("t1").date(future)
+                .start(LocalTime.of(11, 0)).end(LocalTime.of(12, 0)).status(ReservationStatus.PENDIENTE).build();
+        when(usersPublicClient.getPublicProfiles(Set.of("s2", "t1"))).thenReturn(Map.of(
+                "s2", PublicProfile.builder().id("s2").name("Eva").build(),
+                "t1", PublicProfile.builder().id("t1").name("Luis").build()));
+
+        List<ReservationView> views = assembler.toViews(List.of(withSnap, without));
+
+        assertEquals("Ana", views.get(0).getStudentName());
+        assertEquals("l.png", views.get(0).getTutorAvatar());
+        assertEquals("Eva", views.get(1).getStudentName());
+
+        assertEquals("Luis", assembler.toView(withSnap).getTutorName());
+        verify(usersPublicClient, never()).getPublicProfileCached(any(), any());
+    }
+
+    @Test
+    void toViewsShouldNotCallUsersServiceWhenAllHaveSnapshots() {
+        Reservation r = Reservation.builder().id("r1").studentId("s1").tutorId("t1")
+                .status(ReservationStatus.CANCELADO)
+                .participants(ParticipantSnapshot.builder().build()).build();
+
+        ReservationView view = assembler.toViews(List.of(r)).get(0);
+
+        assertEquals("Estudiante", view.getStudentName());
+        assertEquals("Tutor", view.getTutorName());
+        verifyNoInteractions(usersPublicClient);
+    }
+
+    @Test
+    void toViewsAsyncShouldResolveProfilesWithoutBlockingCall() {
+        LocalDate future = LocalDate.now(ZONE).plusDays(3);
+        Reservation r = Reservation.builder().id("r1").studentId("s1").tutorId("t1").date(future)
+                .start(LocalTime.of(10, 0)).end(LocalTime.of(11, 0)).status(ReservationStatus.PENDIENTE).build();
+        when(usersPublicClient.getPublicProfilesAsync(Set.of("s1", "t1"))).thenReturn(Mono.just(Map.of(
+                "s1", PublicProfile.builder().id("s1").name("Ana").build())));
+
+        List<ReservationView> views = assembler.toViewsAsync(List.of(r)).block();
+
+        assertEquals("Ana", views.get(0).getStudentName());
+        assertEquals("Tutor", views.get(0).getTutorName());
+        verify(usersPublicClient, never()).getPublicProfiles(anyCollection());
+    }
 }
@@ -0,0 +1,214 @@
+package edu.eci.arsw.service;
+
+import edu.eci.arsw.domain.AvailabilitySlot;
+import edu.eci.arsw.domain.Reservation;
+import edu.eci.arsw.domain.ReservationStatus;
+import edu.eci.arsw.dto.ScheduleCell;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ScheduleFeedTest {
+
+    private static final LocalDate WEEK = LocalDate.of(2025, 1, 6);
+
+    /** Emisor que registra lo enviado en lugar de escribir en una respuesta */
+    private static class RecordingEmitter extends SseEmitter {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final List<ScheduleCell> cells = new CopyOnWriteArrayList<>();
+        boolean broken;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (broken)
+                throw new IOException("connection reset");
+            StringBuilder text = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType d : builder.build()) {
+                if (d.getData() instanceof ScheduleCell c) {
+                    cells.add(c);
+                } else {
+                    text.append(d.getData());
+                }
+            }
+            events.add(text.toString());
+        }
+    }
+
+    private final List<Runnable> pending = new ArrayList<>();
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+    private ScheduleFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        feed = new ScheduleFeed(3, Duration.ofMinutes(1), Duration.ofSeconds(10), pending::add,
+                mock(ScheduledExecutorService.class)) {
+            @Override
+            SseEmitter newEmitter(long timeout) {
+                RecordingEmitter e = new RecordingEmitter();
+                emitters.add(e);
+                return e;
+            }
+        };
+    }
+
+    private void runPending() {
+        while (!pending.isEmpty()) {
+            pending.remove(0).run();
+        }
+    }
+
+    private static AvailabilitySlot slot(String tutorId, LocalDate date, int hour) {
+        return AvailabilitySlot.builder().tutorId(tutorId).date(date).start(LocalTime.of(hour, 0)).build();
+    }
+
+    @Test
+    void shouldDeliverCellsOfSubscribedTutorWeekOnly() {
+        feed.subscribe("t1", WEEK);
+        RecordingEmitter emitter = emitters.get(0);
+
+        feed.onScheduleChange(ScheduleChangeEvent.slotAdded(slot("t1", WEEK.plusDays(2), 10)));
+        feed.onScheduleChange(ScheduleChangeEvent.slotAdded(slot("t2", WEEK, 10)));
+        feed.onScheduleChange(ScheduleChangeEvent.slotAdded(slot("t1", WEEK.plusDays(7), 10)));
+        Reservation r = Reservation.builder().id("r1").tutorId("t1").studentId("s1")
+                .date(WEEK).start(LocalTime.of(9, 0)).status(ReservationStatus.ACEPTADO).build();
+        feed.onScheduleChange(ScheduleChangeEvent.reservationChanged(r));
+        runPending();
+
+        assertEquals(List.of(
+                new ScheduleCell("2025-01-08", "10:00", "DISPONIBLE", null, null),
+                new ScheduleCell("2025-01-06", "09:00", "ACEPTADO", "r1", "s1")), emitter.cells);
+        assertTrue(emitter.events.stream().allMatch(e -> e.contains("event:cell")));
+    }
+
+    @Test
+    void shouldSendResyncWhenBufferOverflows() {
+        feed.subscribe("t1", WEEK);
+        RecordingEmitter emitter = emitters.get(0);
+
+        // el envío no corre hasta runPending: el buffer (3) se desborda
+        for (int h = 8; h < 13; h++) {
+            feed.onScheduleChange(ScheduleChangeEvent.slotAdded(slot("t1", WEEK, h)));
+        }
+        assertEquals(1, pending.size());
+        runPending();
+
+        assertTrue(emitter.events.get(0).contains("event:resync"));
+        assertTrue(emitter.events.get(0).contains("2025-01-06"));
+        // solo se envía lo encolado después de vaciar el buffer
+        assertEquals(List.of(new ScheduleCell("2025-01-06", "12:00", "DISPONIBLE", null, null)), emitter.cells);
+    }
+
+    @Test
+    void removedSlotShouldBeSentAsEmptyCell() {
+        feed.subscribe("t1", WEEK);
+        feed.onScheduleChange(ScheduleChangeEvent.slotRemoved(slot("t1", WEEK, 10)));
+        runPending();
+
+        assertEquals(List.of(new ScheduleCell("2025-01-06", "10:00", null, null, null)), emitters.get(0).cells);
+    }
+
+    @Test
+    void brokenConnectionShouldUnsubscribe() {
+        feed.subscribe("t1", WEEK);
+        feed.subscribe("t1", WEEK);
+        emitters.get(0).broken = true;
+        assertEquals(2, feed.subscriberCount("t1"));
+
+        feed.onScheduleChange(ScheduleChangeEvent.slotAdded(slot("t1", WEEK, 10)));
+        runPending();
+
+        assertEquals(1, feed.subscriberCount("t1"));
+        assertEquals(1, emitters.get(1).cells.size());
+    }
+
+    @Test
+    void heartbeatShouldDropDeadSubscribers() {
+        feed.subscribe("t1", WEEK);
+        feed.subscribe("t2", WEEK);
+        emitters.get(1).broken = true;
+
+        feed.heartbeat();
+        // el heartbeat solo encola: el envío corre en el hilo de cada suscriptor
+        assertTrue(emitters.get(0).events.isEmpty());
+        runPending();
+
+        assertEquals(1, feed.subscriberCount("t1"));
+        assertEquals(0, feed.subscriberCount("t2"));
+        assertTrue(emitters.get(0).events.get(0).contains(":heartbeat"));
+    }
+
+    @Test
+    void blockedClientShouldNotDelayOtherSubscribersAndShouldBeDropped() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        ExecutorService sender = Executors.newCachedThreadPool();
+        List<RecordingEmitter> created = new CopyOnWriteArrayList<>();
+        ScheduleFeed live = new ScheduleFeed(3, Duration.ofMinutes(1), Duration.ofMillis(50), sender,
+                mock(ScheduledExecutorService.class)) {
+            @Override
+            SseEmitter newEmitter(long timeout) {
+                // los dos primeros dejan de leer: su envío queda bloqueado
+                boolean stalled = created.size() < 2;
+                RecordingEmitter e = new RecordingEmitter() {
+                    @Override
+                    public void send(SseEventBuilder builder) throws IOException {
+                        if (stalled) {
+                            blocked.countDown();
+                            try {
+                                release.await();
+                            } catch (InterruptedException ex) {
+                                Thread.currentThread().interrupt();
+                            }
+                            throw new IOException("connection reset");
+                        }
+                        super.send(builder);
+                    }
+                };
+                created.add(e);
+                return e;
+            }
+        };
+        try {
+            live.subscribe("t1", WEEK);
+            live.subscribe("t1", WEEK);
+            live.subscribe("t1", WEEK);
+            RecordingEmitter reader = created.get(2);
+
+            live.onScheduleChange(ScheduleChangeEvent.slotAdded(slot("t1", WEEK, 10)));
+            live.onScheduleChange(ScheduleChangeEvent.slotAdded(slot("t1", WEEK, 11)));
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (reader.cells.size() < 2 && System.currentTimeMillis() < deadline)
+                Thread.sleep(10);
+            assertEquals(2, reader.cells.size());
+
+            // pasado el tiempo máximo de escritura el heartbeat los desconecta
+            Thread.sleep(100);
+            live.heartbeat();
+            assertEquals(1, live.subscriberCount("t1"));
+            while (reader.events.size() < 3 && System.currentTimeMillis() < deadline)
+                Thread.sleep(10);
+            assertTrue(reader.events.get(2).contains(":heartbeat"));
+        } finally {
+            release.countDown();
+            sender.shutdownNow();
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package edu.eci.arsw.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.eci.arsw.domain.AvailabilitySlot;
 import edu.eci.arsw.domain.Reservation;
 import edu.eci.arsw.domain.ReservationStatus;
+import edu.eci.arsw.dto.CompactWeekSchedule;
 import edu.eci.arsw.dto.ScheduleCell;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,10 +14,12 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.ByteArrayOutputStream;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -112,4 +117,151 @@ class ScheduleServiceTest {
         assertEquals("res-1", cell.getReservationId());
         assertEquals("s1", cell.getStudentId());
     }
+
+    @Test
+    void weekForTutorsShouldBuildOneGridPerTutorWithTwoQueries() {
+        LocalDate weekStart = LocalDate.of(2025, 1, 6);
+
+        AvailabilitySlot slotT1 = AvailabilitySlot.builder()
+                .tutorId("t1").date(weekStart).start(LocalTime.of(10, 0)).build();
+        AvailabilitySlot slotT2 = AvailabilitySlot.builder()
+                .tutorId("t2").date(weekStart.plusDays(1)).start(LocalTime.of(8, 0)).build();
+        Reservation resT2 = Reservation.builder()
+                .id("res-2").tutorId("t2").studentId("s1")
+                .date(weekStart.plusDays(1)).start(LocalTime.of(8, 0))
+                .status(ReservationStatus.PENDIENTE)
+                .build();
+
+        when(mongo.find(any(org.springframework.data.mongodb.core.query.Query.class),
+                eq(AvailabilitySlot.class)))
+                .thenReturn(List.of(slotT1, slotT2));
+        when(mongo.find(any(org.springframework.data.mongodb.core.query.Query.class),
+                eq(Reservation.class)))
+                .thenReturn(List.of(resT2));
+
+        Map<String, List<ScheduleCell>> grids = service.weekForTutors(List.of("t2", "t1", "t2"), weekStart);
+
+        assertEquals(List.of("t2", "t1"), List.copyOf(grids.keySet()));
+        assertEquals(7 * 24, grids.get("t1").size());
+        assertEquals(7 * 24, grids.get("t2").size());
+
+        ScheduleCell t1At10 = grids.get("t1").get(10);
+        assertEquals("DISPONIBLE", t1At10.getStatus());
+        assertNull(grids.get("t2").get(10).getStatus());
+
+        ScheduleCell t2At8 = grids.get("t2").get(24 + 8);
+        assertEquals("PENDIENTE", t2At8.getStatus());
+        assertEquals("res-2", t2At8.getReservationId());
+        assertNull(grids.get("t1").get(24 + 8).getStatus());
+
+        verify(mongo, times(1)).find(any(org.springframework.data.mongodb.core.query.Query.class),
+                eq(AvailabilitySlot.class));
+        verify(mongo, times(1)).find(any(org.springframework.data.mongodb.core.query.Query.class),
+                eq(Reservation.class));
+    }
+
+    @Test
+    void weekForTutorsShouldRejectEmptyOrTooManyTutors() {
+        LocalDate weekStart = LocalDate.of(2025, 1, 6);
+        List<String> tooMany = new java.util.ArrayList<>();
+        for (int i = 0; i <= ScheduleService.MAX_COMPARE_TUTORS; i++) {
+            tooMany.add("t" + i);
+        }
+
+        assertThrows(ResponseStatusException.class, () -> service.weekForTutors(List.of(), weekStart));
+        assertThrows(ResponseStatusException.class, () -> service.weekForTutors(List.of(" "), weekStart));
+        assertThrows(ResponseStatusException.class, () -> service.weekForTutors(List.of("t1"), null));
+        assertThrows(ResponseStatusException.class, () -> service.weekForTutors(tooMany, weekStart));
+        verifyNoInteractions(mongo);
+    }
+
+    @Test
+    void compactWeekForTutorShouldEncodeDaysAsBitmasksAndListOnlyReservations() {
+        LocalDate weekStart = LocalDate.of(2025, 1, 6);
+
+        AvailabilitySlot monday10 = AvailabilitySlot.builder()
+                .tutorId("t1").date(weekStart).start(LocalTime.of(10, 0)).build();
+        AvailabilitySlot sunday23 = AvailabilitySlot.builder()
+                .tutorId("t1").date(weekStart.plusDays(6)).start(LocalTime.of(23, 0)).build();
+        Reservation res = Reservation.builder()
+                .id("res-1").tutorId("t1").studentId("s1")
+                .date(weekStart).start(LocalTime.of(10, 0))
+                .status(ReservationStatus.ACEPTADO)
+                .build();
+
+        when(mongo.find(any(org.springframework.data.mongodb.core.query.Query.class),
+                eq(AvailabilitySlot.class)))
+                .thenReturn(List.of(monday10, sunday23));
+        when(mongo.find(any(org.springframework.data.mongodb.core.query.Query.class),
+                eq(Reservation.class)))
+                .thenReturn(List.of(res));
+
+        CompactWeekSchedule week = service.compactWeekForTutor("t1", weekStart);
+
+        assertEquals("2025-01-06", week.getWeekStart());
+        assertArrayEquals(new int[] { 1 << 10, 0, 0, 0, 0, 0, 1 << 23 }, week.getAvailable());
+        assertArrayEquals(new int[] { 1 << 10, 0, 0, 0, 0, 0, 0 }, week.getReserved());
+        assertEquals(List.of(new CompactWeekSchedule.ReservedCell(0, 10, "ACEPTADO", "res-1", "s1")),
+                week.getReservations());
+    }
+
+    @Test
+    void compactWeekForTutorShouldRejectMissingParameters() {
+        assertThrows(ResponseStatusException.class, () -> service.compactWeekForTutor(null, LocalDate.now()));
+        assertThrows(ResponseStatusException.class, () -> service.compactWeekForTutor("t1", null));
+    }
+
+    @Test
+    void streamRangeShouldWriteOneCellPerHourMergingSortedCursors() throws Exception {
+        LocalDate from = LocalDate.of(2025, 1, 6);
+        LocalDate to = from.plusDays(30);
+
+        AvailabilitySlot first = AvailabilitySlot.builder()
+                .tutorId("t1").date(from).start(LocalTime.of(9, 0)).build();
+        AvailabilitySlot booked = AvailabilitySlot.builder()
+                .tutorId("t1").date(from.plusDays(20)).start(LocalTime.of(15, 0)).build();
+        Reservation res = Reservation.builder()
+                .id("res-1").tutorId("t1").studentId("s1")
+                .date(from.plusDays(20)).start(LocalTime.of(15, 0))
+                .status(ReservationStatus.PENDIENTE)
+                .build();
+
+        when(mongo.stream(any(org.springframework.data.mongodb.core.query.Query.class),
+                eq(AvailabilitySlot.class)))
+                .thenReturn(java.util.stream.Stream.of(first, booked));
+        when(mongo.stream(any(org.springframework.data.mongodb.core.query.Query.class),
+                eq(Reservation.class)))
+                .thenReturn(java.util.stream.Stream.of(res));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.streamRange("t1", from, to, out);
+
+        JsonNode cells = new ObjectMapper().readTree(out.toByteArray());
+        assertEquals(31 * 24, cells.size());
+
+        JsonNode c9 = cells.get(9);
+        assertEquals("2025-01-06", c9.get("date").asText());
+        assertEquals("09:00", c9.get("hour").asText());
+        assertEquals("DISPONIBLE", c9.get("status").asText());
+
+        JsonNode c = cells.get(20 * 24 + 15);
+        assertEquals("2025-01-26", c.get("date").asText());
+        assertEquals("PENDIENTE", c.get("status").asText());
+        assertEquals("res-1", c.get("reservationId").asText());
+        assertEquals("s1", c.get("studentId").asText());
+
+        assertTrue(cells.get(10).get("status").isNull());
+        verify(mongo, never()).find(any(org.springframework.data.mongodb.core.query.Query.class), any());
+    }
+
+    @Test
+    void checkRangeShouldRejectInvalidRanges() {
+        LocalDate from = LocalDate.of(2025, 1, 6);
+
+        assertThrows(ResponseStatusException.class, () -> service.checkRange("t1", from, from.minusDays(1)));
+        assertThrows(ResponseStatusException.class,
+                () -> service.checkRange("t1", from, from.plusDays(ScheduleService.MAX_RANGE_DAYS)));
+        assertThrows(ResponseStatusException.class, () -> service.checkRange(" ", from, from));
+        assertDoesNotThrow(() -> service.checkRange("t1", from, from.plusDays(ScheduleService.MAX_RANGE_DAYS - 1)));
+    }
 }